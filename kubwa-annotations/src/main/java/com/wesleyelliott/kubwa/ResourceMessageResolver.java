@@ -0,0 +1,67 @@
+package com.wesleyelliott.kubwa;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves messages from string resources, caching them per locale. Only the application's
+ * {@link Resources} are kept, never a Context, so validators can outlive the Activity that
+ * created them.
+ */
+
+public final class ResourceMessageResolver implements MessageResolver {
+
+    private static ResourceMessageResolver instance;
+
+    private final Resources resources;
+    // Only failed rules' messages are resolved, so boxing the ids costs nothing that matters,
+    // and unlike a SparseArray the cache runs in plain JVM tests
+    private final Map<Integer, String> messages = new HashMap<>();
+    private Locale locale;
+
+    public static synchronized ResourceMessageResolver getInstance(Context context) {
+        if (instance == null) {
+            instance = new ResourceMessageResolver(context.getApplicationContext().getResources());
+        }
+        return instance;
+    }
+
+    public ResourceMessageResolver(Resources resources) {
+        this.resources = resources;
+    }
+
+    @Override
+    public synchronized String getMessage(int messageId) {
+        Locale currentLocale = getLocale(resources.getConfiguration());
+        if (locale == null || !locale.equals(currentLocale)) {
+            messages.clear();
+            locale = currentLocale;
+        }
+
+        String message = messages.get(messageId);
+        if (message == null) {
+            message = resources.getString(messageId);
+            messages.put(messageId, message);
+        }
+        return message;
+    }
+
+    /**
+     * Drops every cached message, call from onConfigurationChanged if anything besides the
+     * locale can change the resolved strings.
+     */
+    public synchronized void onConfigurationChanged() {
+        messages.clear();
+        locale = null;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Locale getLocale(Configuration configuration) {
+        return configuration.locale;
+    }
+}
@@ -0,0 +1,22 @@
+package com.wesleyelliott.kubwa.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Makes the generated validator's validateAllFailFast reorder its rules by the failure rates and
+ * costs it observes, rather than keep the order fixed at compile time.
+ */
+@Retention(RUNTIME)
+@Target(TYPE)
+@Documented
+public @interface AdaptiveOrder {
+    /**
+     * The number of validations between reorders.
+     */
+    int reorderInterval() default 1024;
+}
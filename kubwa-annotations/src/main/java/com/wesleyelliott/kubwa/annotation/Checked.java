@@ -24,6 +24,7 @@ public @interface Checked {
     boolean value() default true;
     int errorMessage();
     String name() default "checkedError";
+    String field() default "";
 
     @Target(TYPE)
     @Retention(RUNTIME)
@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface ConfirmEmail {
     int errorMessage();
     String name() default "confirmEmailError";
+    String field() default "";
 
     @Target(TYPE)
     @Retention(RUNTIME)
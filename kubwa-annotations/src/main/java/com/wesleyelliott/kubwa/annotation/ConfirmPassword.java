@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface ConfirmPassword {
     int errorMessage();
     String name() default "confirmPasswordError";
+    String field() default "";
 
     @Target(TYPE)
     @Retention(RUNTIME)
@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface CreditCard {
     int errorMessage();
     String name() default "creditCardError";
+    String field() default "";
     CreditCardRule.Type[] types() default {CreditCardRule.Type.VISA, CreditCardRule.Type.MASTERCARD};
 
     @Target(TYPE)
@@ -23,6 +23,8 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface Email {
     int errorMessage();
     String name() default "emailError";
+    String field() default "";
+    EmailRule.Scheme scheme() default EmailRule.Scheme.ANDROID;
 
     @Target(TYPE)
     @Retention(RUNTIME)
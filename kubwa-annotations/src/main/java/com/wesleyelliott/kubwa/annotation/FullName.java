@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface FullName {
     int errorMessage();
     String name() default "fullNameError";
+    String field() default "";
 
     @Target(TYPE)
     @Retention(RUNTIME)
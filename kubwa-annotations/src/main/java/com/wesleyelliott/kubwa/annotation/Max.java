@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface Max {
     int errorMessage();
     String name() default "maxError";
+    String field() default "";
     int value() default 0;
 
     @Target(TYPE)
@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface Min {
     int errorMessage();
     String name() default "minError";
+    String field() default "";
     int value() default 0;
 
     @Target(TYPE)
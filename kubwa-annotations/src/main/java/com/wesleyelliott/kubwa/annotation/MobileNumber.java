@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface MobileNumber {
     int errorMessage();
     String name() default "mobileError";
+    String field() default "";
 
     @Target(TYPE)
     @Retention(RUNTIME)
@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface NotNull {
     int errorMessage();
     String name() default "notNullError";
+    String field() default "";
 
     @Target(TYPE)
     @Retention(RUNTIME)
@@ -23,7 +23,9 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface Password {
     int errorMessage();
     String name() default "passwordError";
+    String field() default "";
     PasswordRule.Scheme scheme() default PasswordRule.Scheme.ANY;
+    int minLength() default 1;
 
     @Target(TYPE)
     @Retention(RUNTIME)
@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface Range {
     int errorMessage();
     String name() default "rangeError";
+    String field() default "";
     int min() default Integer.MIN_VALUE;
     int max() default Integer.MAX_VALUE;
     boolean includeBounds() default false;
@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface Regex {
     int errorMessage();
     String name() default "regexError";
+    String field() default "";
     String regex() default "*";
 
     @Target(TYPE)
@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface Select {
     int errorMessage();
     String name() default "spinnerError";
+    String field() default "";
     int value() default -1;
 
     @Target(TYPE)
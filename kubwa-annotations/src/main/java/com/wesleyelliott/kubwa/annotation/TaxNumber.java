@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface TaxNumber {
     int errorMessage();
     String name() default "taxNumberError";
+    String field() default "";
 
     @Target(TYPE)
     @Retention(RUNTIME)
@@ -23,6 +23,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 public @interface ZAIdNumber {
     int errorMessage();
     String name() default "idNumberError";
+    String field() default "";
 
     @Target(TYPE)
     @Retention(RUNTIME)
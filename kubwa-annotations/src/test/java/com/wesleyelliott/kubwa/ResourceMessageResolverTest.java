@@ -0,0 +1,54 @@
+package com.wesleyelliott.kubwa;
+
+import android.content.res.Configuration;
+import android.content.res.Resources;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.objenesis.ObjenesisStd;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResourceMessageResolverTest {
+
+    private static final int MESSAGE_ID = 0x7f050001;
+
+    private final Resources resources = mock(Resources.class);
+    // Final, and the stub's constructor throws, so created without running one
+    private final Configuration configuration = new ObjenesisStd().newInstance(Configuration.class);
+    private ResourceMessageResolver resolver;
+
+    @Before
+    public void setUp() {
+        configuration.locale = Locale.ENGLISH;
+        when(resources.getConfiguration()).thenReturn(configuration);
+        when(resources.getString(MESSAGE_ID)).thenReturn("Required", "Obligatoire");
+        resolver = new ResourceMessageResolver(resources);
+    }
+
+    @Test
+    public void cachesMessagesPerLocale() {
+        assertEquals("Required", resolver.getMessage(MESSAGE_ID));
+        assertEquals("Required", resolver.getMessage(MESSAGE_ID));
+        verify(resources, times(1)).getString(MESSAGE_ID);
+
+        configuration.locale = Locale.FRENCH;
+        assertEquals("Obligatoire", resolver.getMessage(MESSAGE_ID));
+        assertEquals("Obligatoire", resolver.getMessage(MESSAGE_ID));
+        verify(resources, times(2)).getString(MESSAGE_ID);
+    }
+
+    @Test
+    public void dropsTheCacheOnConfigurationChanges() {
+        assertEquals("Required", resolver.getMessage(MESSAGE_ID));
+        resolver.onConfigurationChanged();
+        assertEquals("Obligatoire", resolver.getMessage(MESSAGE_ID));
+        verify(resources, times(2)).getString(MESSAGE_ID);
+    }
+}
@@ -0,0 +1,52 @@
+package com.wesleyelliott.kubwa.benchmark;
+
+import com.wesleyelliott.kubwa.rule.ConfirmEmailRule;
+import com.wesleyelliott.kubwa.rule.ConfirmPasswordRule;
+import com.wesleyelliott.kubwa.rule.ConfirmRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Confirmation rules on equal values held in different instances, so the contents are always
+ * compared, and on values which only differ in their last character.
+ */
+
+@State(Scope.Thread)
+public class ConfirmRuleBenchmark {
+
+    @Param({"confirmEmail", "confirmPassword"})
+    public String rule;
+
+    @Param({"valid", "invalid"})
+    public String corpus;
+
+    private ConfirmRule<CharSequence> confirmRule;
+    private String[] values;
+    private String[] confirmations;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        boolean email = rule.equals("confirmEmail");
+        confirmRule = email ? new ConfirmEmailRule() : new ConfirmPasswordRule();
+        values = Corpus.get(email ? "email" : "password", Corpus.Kind.VALID);
+        confirmations = new String[Corpus.SIZE];
+        for (int i = 0; i < Corpus.SIZE; i++) {
+            String value = values[i];
+            confirmations[i] = corpus.equals("valid")
+                    ? new String(value)
+                    : value.substring(0, value.length() - 1) + (char) (value.charAt(value.length() - 1) + 1);
+        }
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        int i = index;
+        index = (index + 1) & (Corpus.SIZE - 1);
+        return confirmRule.isValid(values[i], confirmations[i]);
+    }
+}
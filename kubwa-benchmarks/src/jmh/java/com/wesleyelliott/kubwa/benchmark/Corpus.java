@@ -0,0 +1,238 @@
+package com.wesleyelliott.kubwa.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic inputs for the rule benchmarks. Every corpus has {@link #SIZE} values, so
+ * benchmarks can cycle through them with a mask. Valid values are what users usually type,
+ * invalid values are near misses, and adversarial values are long inputs built to make a
+ * matcher do as much work as possible before it rejects them.
+ */
+
+final class Corpus {
+
+    static final int SIZE = 1024;
+
+    enum Kind {
+        VALID, INVALID, ADVERSARIAL
+    }
+
+    private Corpus() {
+    }
+
+    static String[] get(String rule, Kind kind) {
+        Random random = new Random(rule.hashCode() * 31 + kind.ordinal());
+        String[] values = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            values[i] = value(rule, kind, random, i);
+        }
+        return values;
+    }
+
+    private static String value(String rule, Kind kind, Random random, int i) {
+        switch (rule) {
+            case "email":
+                return email(kind, random, i);
+            case "fullName":
+                return fullName(kind, random, i);
+            case "mobileNumber":
+                return mobileNumber(kind, random, i);
+            case "notNull":
+                return notNull(kind, random, i);
+            case "password":
+                return password(kind, random, i);
+            case "regex":
+                return licencePlate(kind, random, i);
+            case "zaIdNumber":
+                return zaIdNumber(kind, random, i);
+            case "taxNumber":
+                return taxNumber(kind, random, i);
+            case "creditCard":
+                return creditCard(kind, random, i);
+            default:
+                throw new IllegalArgumentException("No corpus for " + rule);
+        }
+    }
+
+    private static final String[] FIRST_NAMES = {"Wesley", "Thandi", "Sipho", "Anne-Marie", "Jo", "Pieter", "Lerato", "Neo"};
+    private static final String[] LAST_NAMES = {"Elliott", "van der Merwe", "Nkosi", "Smith-Jones", "Dlamini", "O'Brien", "Botha", "Naidoo"};
+    private static final String[] DOMAINS = {"example.com", "mail.co.za", "sub.example.org", "company.io", "xn--bcher-kva.de"};
+
+    private static String email(Kind kind, Random random, int i) {
+        String local = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)].toLowerCase() + "." + i;
+        String domain = DOMAINS[random.nextInt(DOMAINS.length)];
+        switch (kind) {
+            case VALID:
+                return (i % 3 == 0 ? local + "+tag" : local) + "@" + domain;
+            case INVALID:
+                switch (i % 5) {
+                    case 0:
+                        return local + domain;
+                    case 1:
+                        return local + "@" + domain.replace(".", "");
+                    case 2:
+                        return local + "@@" + domain;
+                    case 3:
+                        return local + " @" + domain;
+                    default:
+                        return local + "@" + domain + ".";
+                }
+            default:
+                switch (i % 3) {
+                    case 0:
+                        // Long local part, then a domain without a top level domain
+                        return repeat("a", 250) + "@" + repeat("a-", 30) + "a";
+                    case 1:
+                        return "a@" + repeat("b.", 120) + "-";
+                    default:
+                        return repeat("a.", 150) + "@" + domain;
+                }
+        }
+    }
+
+    private static String fullName(Kind kind, Random random, int i) {
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        switch (kind) {
+            case VALID:
+                return first + " " + last;
+            case INVALID:
+                return i % 2 == 0 ? first : first + " " + last + "!";
+            default:
+                // Many ways to split the last name between the nested quantifiers before the final character fails
+                return first + " " + repeat("a", 14 + i % 4) + "!";
+        }
+    }
+
+    private static String mobileNumber(Kind kind, Random random, int i) {
+        String number = digits(random, 10);
+        switch (kind) {
+            case VALID:
+                return "+27" + number;
+            case INVALID:
+                return i % 2 == 0 ? "27" + number : "+27" + number.substring(2);
+            default:
+                return "+" + digits(random, 1000);
+        }
+    }
+
+    private static String notNull(Kind kind, Random random, int i) {
+        switch (kind) {
+            case VALID:
+                return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            case INVALID:
+                return i % 2 == 0 ? null : "";
+            default:
+                return repeat("x", 4096);
+        }
+    }
+
+    private static String password(Kind kind, Random random, int i) {
+        switch (kind) {
+            case VALID:
+                return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + digits(random, 4) + "!";
+            case INVALID:
+                // Missing a symbol
+                return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)].replace("-", "") + digits(random, 4);
+            default:
+                // Long, and only missing a digit right at the end
+                return repeat("aB!", 1365) + (i % 2 == 0 ? "c" : "");
+        }
+    }
+
+    private static String licencePlate(Kind kind, Random random, int i) {
+        String letters = "" + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26));
+        switch (kind) {
+            case VALID:
+                return letters + "-" + digits(random, 4);
+            case INVALID:
+                return letters.toLowerCase() + "-" + digits(random, 4);
+            default:
+                return letters + "-" + digits(random, 4096);
+        }
+    }
+
+    private static String zaIdNumber(Kind kind, Random random, int i) {
+        String payload = String.format("%02d%02d%02d", random.nextInt(100), 1 + random.nextInt(12), 1 + random.nextInt(28))
+                + digits(random, 4) + "08";
+        switch (kind) {
+            case VALID:
+                return payload + checkDigit(payload);
+            case INVALID:
+                return i % 2 == 0 ? payload + wrongCheckDigit(payload) : payload;
+            default:
+                return digits(random, 4096);
+        }
+    }
+
+    private static String taxNumber(Kind kind, Random random, int i) {
+        String payload = digits(random, 9);
+        switch (kind) {
+            case VALID:
+                return payload + checkDigit(payload);
+            case INVALID:
+                return i % 2 == 0 ? payload + wrongCheckDigit(payload) : payload + "X";
+            default:
+                // A valid checksum, but the whole value has to be read to find out
+                String longPayload = digits(random, 4095);
+                return longPayload + checkDigit(longPayload);
+        }
+    }
+
+    // Issuer prefix and total length per card brand
+    private static final String[][] CARDS = {
+            {"4", "16"}, {"51", "16"}, {"2221", "16"}, {"34", "15"}, {"37", "15"}, {"6011", "16"},
+            {"36", "14"}, {"3530", "16"}, {"62", "16"}, {"6759", "16"}
+    };
+
+    private static String creditCard(Kind kind, Random random, int i) {
+        String[] card = CARDS[i % CARDS.length];
+        String payload = card[0] + digits(random, Integer.parseInt(card[1]) - card[0].length() - 1);
+        switch (kind) {
+            case VALID:
+                return payload + checkDigit(payload);
+            case INVALID:
+                return i % 2 == 0 ? payload + wrongCheckDigit(payload) : "9" + payload.substring(1) + checkDigit(payload);
+            default:
+                return card[0] + digits(random, 4096);
+        }
+    }
+
+    // Decimal Luhn check digit of the payload
+    static char checkDigit(String payload) {
+        int total = 0;
+        boolean doubleDigit = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubleDigit) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            total += digit;
+            doubleDigit = !doubleDigit;
+        }
+        return (char) ('0' + (10 - total % 10) % 10);
+    }
+
+    private static char wrongCheckDigit(String payload) {
+        return (char) ('0' + (checkDigit(payload) - '0' + 1) % 10);
+    }
+
+    private static String digits(Random random, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append((char) ('0' + random.nextInt(10)));
+        }
+        return builder.toString();
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder(value.length() * count);
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
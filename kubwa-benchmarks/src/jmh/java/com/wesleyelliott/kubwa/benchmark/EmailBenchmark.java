@@ -0,0 +1,64 @@
+package com.wesleyelliott.kubwa.benchmark;
+
+import com.wesleyelliott.kubwa.rule.EmailRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Each EmailRule scheme against the android.util.Patterns.EMAIL_ADDRESS regex the ANDROID
+ * scheme replaced, on the same corpus.
+ */
+
+@State(Scope.Thread)
+public class EmailBenchmark {
+
+    // android.util.Patterns.EMAIL_ADDRESS
+    private static final Pattern EMAIL_ADDRESS = Pattern.compile(
+            "[a-zA-Z0-9\\+\\.\\_\\%\\-\\+]{1,256}" +
+            "\\@" +
+            "[a-zA-Z0-9][a-zA-Z0-9\\-]{0,64}" +
+            "(" +
+                "\\." +
+                "[a-zA-Z0-9][a-zA-Z0-9\\-]{0,25}" +
+            ")+"
+    );
+
+    @Param({"valid", "invalid", "adversarial"})
+    public String corpus;
+
+    @Param({"ANDROID", "RFC_5321", "RFC_5321_IDN"})
+    public String scheme;
+
+    private EmailRule emailRule;
+    private String[] values;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        emailRule = new EmailRule(EmailRule.Scheme.valueOf(scheme));
+        values = Corpus.get("email", Corpus.Kind.valueOf(corpus.toUpperCase(Locale.US)));
+    }
+
+    @Benchmark
+    public boolean emailRule() {
+        return emailRule.isValid(next());
+    }
+
+    @Benchmark
+    public boolean patternsEmailAddress() {
+        return EMAIL_ADDRESS.matcher(next()).matches();
+    }
+
+    private String next() {
+        String value = values[index];
+        index = (index + 1) & (Corpus.SIZE - 1);
+        return value;
+    }
+}
@@ -0,0 +1,40 @@
+package com.wesleyelliott.kubwa.benchmark;
+
+import com.wesleyelliott.kubwa.annotation.Checked;
+import com.wesleyelliott.kubwa.annotation.ConfirmEmail;
+import com.wesleyelliott.kubwa.annotation.ConfirmPassword;
+import com.wesleyelliott.kubwa.annotation.Email;
+import com.wesleyelliott.kubwa.annotation.Max;
+import com.wesleyelliott.kubwa.annotation.Min;
+import com.wesleyelliott.kubwa.annotation.Password;
+import com.wesleyelliott.kubwa.annotation.Range;
+import com.wesleyelliott.kubwa.annotation.Select;
+import com.wesleyelliott.kubwa.annotation.ZAIdNumber;
+import com.wesleyelliott.kubwa.rule.PasswordRule;
+
+/**
+ * Same rules as the sample app's LoginViewModel, with plain ids in place of string resources.
+ */
+@Email(errorMessage = LoginViewModel.EMAIL_ERROR)
+@ConfirmEmail(errorMessage = LoginViewModel.CONFIRM_EMAIL_ERROR)
+@Password(errorMessage = LoginViewModel.PASSWORD_ERROR, scheme = PasswordRule.Scheme.ALPHA_NUMERIC_SYMBOLS)
+@ConfirmPassword(errorMessage = LoginViewModel.CONFIRM_PASSWORD_ERROR)
+@ZAIdNumber(errorMessage = LoginViewModel.ID_ERROR)
+@Checked(errorMessage = LoginViewModel.CHECKED_ERROR)
+@Min(errorMessage = LoginViewModel.MIN_ERROR, value = 10)
+@Max(errorMessage = LoginViewModel.MAX_ERROR, value = 50)
+@Range(errorMessage = LoginViewModel.RANGE_ERROR, min = 10, max = 20, includeBounds = true)
+@Select(errorMessage = LoginViewModel.SPINNER_ERROR, value = 0)
+public class LoginViewModel {
+
+    static final int EMAIL_ERROR = 1;
+    static final int CONFIRM_EMAIL_ERROR = 2;
+    static final int PASSWORD_ERROR = 3;
+    static final int CONFIRM_PASSWORD_ERROR = 4;
+    static final int ID_ERROR = 5;
+    static final int CHECKED_ERROR = 6;
+    static final int MIN_ERROR = 7;
+    static final int MAX_ERROR = 8;
+    static final int RANGE_ERROR = 9;
+    static final int SPINNER_ERROR = 10;
+}
@@ -0,0 +1,44 @@
+package com.wesleyelliott.kubwa.benchmark;
+
+import com.wesleyelliott.kubwa.rule.PatternCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.regex.Pattern;
+
+/**
+ * The shared pattern cache RegexRule goes through, against compiling the regex for every match.
+ */
+
+@State(Scope.Thread)
+public class PatternCacheBenchmark {
+
+    private static final String REGEX = "^[A-Z]{3}-\\d{4}$";
+
+    private String[] values;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        values = Corpus.get("regex", Corpus.Kind.VALID);
+    }
+
+    @Benchmark
+    public boolean patternCache() {
+        return PatternCache.getInstance().matches(REGEX, next());
+    }
+
+    @Benchmark
+    public boolean patternMatches() {
+        return Pattern.matches(REGEX, next());
+    }
+
+    private String next() {
+        String value = values[index];
+        index = (index + 1) & (Corpus.SIZE - 1);
+        return value;
+    }
+}
@@ -0,0 +1,80 @@
+package com.wesleyelliott.kubwa.benchmark;
+
+import com.wesleyelliott.kubwa.rule.CheckedRule;
+import com.wesleyelliott.kubwa.rule.IntRule;
+import com.wesleyelliott.kubwa.rule.MaxRule;
+import com.wesleyelliott.kubwa.rule.MinRule;
+import com.wesleyelliott.kubwa.rule.RangeRule;
+import com.wesleyelliott.kubwa.rule.SelectRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * The int and boolean rules, through both the primitive and the boxed isValid.
+ */
+
+@State(Scope.Thread)
+public class PrimitiveRuleBenchmark {
+
+    @Param({"min", "max", "range", "select"})
+    public String rule;
+
+    private IntRule intRule;
+    private CheckedRule checkedRule = new CheckedRule(true);
+    private int[] values = new int[Corpus.SIZE];
+    private Integer[] boxedValues = new Integer[Corpus.SIZE];
+    private boolean[] checked = new boolean[Corpus.SIZE];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        switch (rule) {
+            case "min":
+                intRule = new MinRule(10);
+                break;
+            case "max":
+                intRule = new MaxRule(50);
+                break;
+            case "range":
+                intRule = new RangeRule(10, 20, true);
+                break;
+            default:
+                intRule = new SelectRule(0);
+        }
+
+        // Values either side of every rule's bounds, so the branches can't be predicted
+        Random random = new Random(42);
+        for (int i = 0; i < Corpus.SIZE; i++) {
+            values[i] = random.nextInt(60) - 5;
+            boxedValues[i] = values[i];
+            checked[i] = random.nextBoolean();
+        }
+    }
+
+    @Benchmark
+    public boolean isValidInt() {
+        int value = values[index];
+        index = (index + 1) & (Corpus.SIZE - 1);
+        return intRule.isValid(value);
+    }
+
+    @Benchmark
+    public boolean isValidInteger() {
+        Integer value = boxedValues[index];
+        index = (index + 1) & (Corpus.SIZE - 1);
+        return intRule.isValid(value);
+    }
+
+    @Benchmark
+    public boolean checked() {
+        boolean value = checked[index];
+        index = (index + 1) & (Corpus.SIZE - 1);
+        return checkedRule.isValid(value);
+    }
+}
@@ -0,0 +1,76 @@
+package com.wesleyelliott.kubwa.benchmark;
+
+import com.wesleyelliott.kubwa.rule.CreditCardRule;
+import com.wesleyelliott.kubwa.rule.EmailRule;
+import com.wesleyelliott.kubwa.rule.FullNameRule;
+import com.wesleyelliott.kubwa.rule.MobileNumberRule;
+import com.wesleyelliott.kubwa.rule.NotNullRule;
+import com.wesleyelliott.kubwa.rule.PasswordRule;
+import com.wesleyelliott.kubwa.rule.RegexRule;
+import com.wesleyelliott.kubwa.rule.TaxNumberRule;
+import com.wesleyelliott.kubwa.rule.TextRule;
+import com.wesleyelliott.kubwa.rule.ZAIdNumberRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+
+/**
+ * Every text rule against its valid, invalid and adversarial corpus.
+ */
+
+@State(Scope.Thread)
+public class TextRuleBenchmark {
+
+    @Param({"email", "fullName", "mobileNumber", "notNull", "password", "regex", "zaIdNumber", "taxNumber", "creditCard"})
+    public String rule;
+
+    @Param({"valid", "invalid", "adversarial"})
+    public String corpus;
+
+    private TextRule textRule;
+    private String[] values;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        textRule = createRule(rule);
+        values = Corpus.get(rule, Corpus.Kind.valueOf(corpus.toUpperCase(Locale.US)));
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        String value = values[index];
+        index = (index + 1) & (Corpus.SIZE - 1);
+        return textRule.isValid(value);
+    }
+
+    static TextRule createRule(String rule) {
+        switch (rule) {
+            case "email":
+                return new EmailRule();
+            case "fullName":
+                return new FullNameRule();
+            case "mobileNumber":
+                return new MobileNumberRule();
+            case "notNull":
+                return new NotNullRule();
+            case "password":
+                return new PasswordRule(PasswordRule.Scheme.ALPHA_NUMERIC_SYMBOLS);
+            case "regex":
+                return new RegexRule("^[A-Z]{3}-\\d{4}$");
+            case "zaIdNumber":
+                return new ZAIdNumberRule();
+            case "taxNumber":
+                return new TaxNumberRule();
+            case "creditCard":
+                return new CreditCardRule(CreditCardRule.Type.values());
+            default:
+                throw new IllegalArgumentException("Unknown rule " + rule);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.wesleyelliott.kubwa.benchmark;
+
+import com.wesleyelliott.kubwa.MessageResolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The generated LoginViewModelValidator's validateAll. A "repeated" form submits the same
+ * values every time, the others cycle through a different form on every call.
+ */
+
+@State(Scope.Thread)
+public class ValidatorBenchmark {
+
+    private static final int FORMS = 256;
+
+    @Param({"valid", "invalid", "repeated"})
+    public String forms;
+
+    private LoginViewModelValidator validator;
+    private String[] emails;
+    private String[] passwords;
+    private String[] idNumbers;
+    private String[] confirmEmails = new String[FORMS];
+    private String[] confirmPasswords = new String[FORMS];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        validator = new LoginViewModelValidator(new MessageResolver() {
+            @Override
+            public String getMessage(int messageId) {
+                return "Error " + messageId;
+            }
+        });
+
+        Corpus.Kind kind = forms.equals("invalid") ? Corpus.Kind.INVALID : Corpus.Kind.VALID;
+        emails = Corpus.get("email", kind);
+        passwords = Corpus.get("password", kind);
+        idNumbers = Corpus.get("zaIdNumber", kind);
+        for (int i = 0; i < FORMS; i++) {
+            // Typed again, so a different instance with the same contents
+            confirmEmails[i] = new String(emails[i]);
+            confirmPasswords[i] = new String(passwords[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean validateAll() {
+        int i = index;
+        if (!forms.equals("repeated")) {
+            index = (index + 1) & (FORMS - 1);
+        }
+        validator.validateAll(emails[i], passwords[i], idNumbers[i], true, confirmEmails[i], confirmPasswords[i],
+                12 + (i & 31), 12 + (i & 31), 1 + (i & 3), 10 + (i & 7));
+        return validator.isValid();
+    }
+}
@@ -0,0 +1,100 @@
+package com.wesleyelliott.kubwa.benchmark.compiler;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * Generates annotated ViewModels to run the processor over. The classes cycle through the rule
+ * mixes of login, sign up, profile and payment screens, spread over packages of 100 classes, and
+ * every tenth one has its order adapted. The same count always gives the same sources.
+ */
+
+final class Fixtures {
+
+    private static final String[] PASSWORD_SCHEMES = {"ANY", "ALPHA", "ALPHA_NUMERIC", "ALPHA_NUMERIC_MIXED_CASE", "ALPHA_NUMERIC_SYMBOLS"};
+
+    private Fixtures() {
+    }
+
+    static List<JavaFileObject> create(int count) {
+        List<JavaFileObject> sources = new ArrayList<JavaFileObject>(count);
+        for (int i = 0; i < count; i++) {
+            String packageName = "com.example.feature" + i / 100;
+            String className;
+            StringBuilder rules = new StringBuilder();
+
+            switch (i % 4) {
+                case 0:
+                    className = "LoginViewModel" + i;
+                    rule(rules, "Email(errorMessage = %d)", i);
+                    rule(rules, "Password(errorMessage = %d, scheme = PasswordRule.Scheme.%s, minLength = %d)", i, PASSWORD_SCHEMES[i % PASSWORD_SCHEMES.length], 6 + i % 4);
+                    break;
+                case 1:
+                    className = "SignUpViewModel" + i;
+                    rule(rules, "Email(errorMessage = %d)", i);
+                    rule(rules, "FullName(errorMessage = %d)", i);
+                    rule(rules, "Password(errorMessage = %d, scheme = PasswordRule.Scheme.ALPHA_NUMERIC_SYMBOLS, minLength = 8)", i);
+                    rule(rules, "ConfirmEmail(errorMessage = %d)", i);
+                    rule(rules, "ConfirmPassword(errorMessage = %d)", i);
+                    rule(rules, "MobileNumber(errorMessage = %d)", i);
+                    rule(rules, "Checked(errorMessage = %d, name = \"termsError\")", i);
+                    break;
+                case 2:
+                    className = "ProfileViewModel" + i;
+                    rule(rules, "NotNull(errorMessage = %d, name = \"displayNameError\")", i);
+                    rule(rules, "Regex(errorMessage = %d, name = \"postcodeError\", regex = \"[A-Z]{1,2}\\\\d[A-Z\\\\d]? ?\\\\d[A-Z]{2}\")", i);
+                    rule(rules, "ZAIdNumber(errorMessage = %d)", i);
+                    rule(rules, "Min(errorMessage = %d, name = \"ageError\", value = 18)", i);
+                    rule(rules, "Max(errorMessage = %d, name = \"heightError\", value = %d)", i, 200 + i % 50);
+                    rule(rules, "Range(errorMessage = %d, name = \"childrenError\", min = 0, max = %d)", i, 10 + i % 5);
+                    rule(rules, "Select(errorMessage = %d, name = \"countryError\")", i);
+                    break;
+                default:
+                    className = "PaymentViewModel" + i;
+                    rule(rules, "CreditCard(errorMessage = %d, types = {CreditCardRule.Type.VISA, CreditCardRule.Type.MASTERCARD, CreditCardRule.Type.AMEX})", i);
+                    rule(rules, "TaxNumber(errorMessage = %d)", i);
+                    rule(rules, "NotNull(errorMessage = %d, name = \"cardHolderError\")", i);
+                    rule(rules, "Regex.List({\n"
+                            + "        @Regex(errorMessage = %d, name = \"expiryError\", regex = \"(0[1-9]|1[0-2])/\\\\d{2}\"),\n"
+                            + "        @Regex(errorMessage = %d, name = \"cvvError\", regex = \"\\\\d{3,4}\")})", i, i);
+                    break;
+            }
+            if (i % 10 == 0) {
+                rule(rules, "AdaptiveOrder");
+            }
+
+            String source = "package " + packageName + ";\n\n"
+                    + "import com.wesleyelliott.kubwa.annotation.*;\n"
+                    + "import com.wesleyelliott.kubwa.rule.CreditCardRule;\n"
+                    + "import com.wesleyelliott.kubwa.rule.PasswordRule;\n\n"
+                    + rules
+                    + "public class " + className + " {\n"
+                    + "}\n";
+            sources.add(new Source(packageName.replace('.', '/') + "/" + className, source));
+        }
+        return sources;
+    }
+
+    private static void rule(StringBuilder rules, String annotation, Object... args) {
+        rules.append('@').append(String.format(annotation, args)).append('\n');
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String content;
+
+        Source(String path, String content) {
+            super(URI.create("string:///" + path + Kind.SOURCE.extension), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+}
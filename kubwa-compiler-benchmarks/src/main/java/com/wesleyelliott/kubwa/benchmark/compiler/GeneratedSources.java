@@ -0,0 +1,68 @@
+package com.wesleyelliott.kubwa.benchmark.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * Keeps the sources the processor generates in memory, so writing them out isn't part of what's
+ * measured, and counts their size.
+ */
+
+final class GeneratedSources extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    private final List<Output> outputs = new ArrayList<Output>();
+
+    GeneratedSources(StandardJavaFileManager fileManager) {
+        super(fileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+        Output output = new Output(className, kind);
+        outputs.add(output);
+        return output;
+    }
+
+    int getFileCount() {
+        return outputs.size();
+    }
+
+    long getByteCount() {
+        long bytes = 0;
+        for (Output output : outputs) {
+            bytes += output.content.size();
+        }
+        return bytes;
+    }
+
+    private static final class Output extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        Output(String className, Kind kind) {
+            super(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() throws IOException {
+            content.reset();
+            return content;
+        }
+
+        // Read back by javac, which parses generated sources in the next round
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+            return content.toString("UTF-8");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.wesleyelliott.kubwa.benchmark.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The metrics of compiling one fixture size, each the median of the measured iterations.
+ */
+
+final class Measurement {
+
+    // Differences in time below this are noise, whatever the ratio
+    private static final long MIN_REGRESSION_MILLIS = 20;
+
+    final int classCount;
+    final long wallMillis;
+    final long processorMillis;
+    final long maxRoundMillis;
+    final int roundCount;
+    final long allocatedBytes;
+    final int generatedFiles;
+    final long generatedBytes;
+
+    private Measurement(int classCount, long wallMillis, long processorMillis, long maxRoundMillis, int roundCount,
+                        long allocatedBytes, int generatedFiles, long generatedBytes) {
+        this.classCount = classCount;
+        this.wallMillis = wallMillis;
+        this.processorMillis = processorMillis;
+        this.maxRoundMillis = maxRoundMillis;
+        this.roundCount = roundCount;
+        this.allocatedBytes = allocatedBytes;
+        this.generatedFiles = generatedFiles;
+        this.generatedBytes = generatedBytes;
+    }
+
+    /**
+     * Collects the iterations of one fixture size. Only their numbers are kept, not the
+     * compilations, which would hold on to every class of the fixture.
+     */
+    static final class Builder {
+
+        private final int classCount;
+        private final List<Long> wallNanos = new ArrayList<Long>();
+        private final List<Long> processorNanos = new ArrayList<Long>();
+        private final List<Long> maxRoundNanos = new ArrayList<Long>();
+        private final List<Long> allocatedBytes = new ArrayList<Long>();
+        private int roundCount;
+        private int generatedFiles;
+        private long generatedBytes;
+
+        Builder(int classCount) {
+            this.classCount = classCount;
+        }
+
+        void add(long wallNanos, TimedProcessor processor, GeneratedSources output) {
+            this.wallNanos.add(wallNanos);
+            processorNanos.add(processor.getTotalNanos());
+            maxRoundNanos.add(Collections.max(processor.getRoundNanos()));
+            allocatedBytes.add(processor.getAllocatedBytes());
+            // The same every iteration
+            roundCount = processor.getRoundNanos().size();
+            generatedFiles = output.getFileCount();
+            generatedBytes = output.getByteCount();
+        }
+
+        Measurement build() {
+            return new Measurement(classCount, millis(median(wallNanos)), millis(median(processorNanos)), millis(median(maxRoundNanos)),
+                    roundCount, median(allocatedBytes), generatedFiles, generatedBytes);
+        }
+    }
+
+    /**
+     * The metrics held to the baseline, by name.
+     */
+    Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<String, Long>();
+        metrics.put("wallMillis", wallMillis);
+        metrics.put("processorMillis", processorMillis);
+        metrics.put("maxRoundMillis", maxRoundMillis);
+        metrics.put("allocatedBytes", allocatedBytes);
+        metrics.put("generatedBytes", generatedBytes);
+        return metrics;
+    }
+
+    void record(Properties baseline) {
+        for (Map.Entry<String, Long> metric : getMetrics().entrySet()) {
+            baseline.setProperty(classCount + "." + metric.getKey(), String.valueOf(metric.getValue()));
+        }
+    }
+
+    /**
+     * Describes each metric that grew past the threshold, a ratio to its baseline. Metrics missing
+     * from the baseline, or not measured, aren't compared.
+     */
+    List<String> compare(Properties baseline, double threshold) {
+        List<String> regressions = new ArrayList<String>();
+        for (Map.Entry<String, Long> metric : getMetrics().entrySet()) {
+            String key = classCount + "." + metric.getKey();
+            String expected = baseline.getProperty(key);
+            long value = metric.getValue();
+            if (expected == null || value < 0) {
+                continue;
+            }
+
+            long limit = (long) (Long.parseLong(expected) * threshold);
+            if (metric.getKey().endsWith("Millis")) {
+                limit = Math.max(limit, Long.parseLong(expected) + MIN_REGRESSION_MILLIS);
+            }
+            if (value > limit) {
+                regressions.add(key + " is " + value + ", the baseline is " + expected);
+            }
+        }
+        return regressions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d classes: %,d ms wall, %,d ms in the processor over %d rounds (longest %,d ms), %s allocated, %,d files of %,d bytes generated",
+                classCount, wallMillis, processorMillis, roundCount, maxRoundMillis,
+                allocatedBytes < 0 ? "unknown bytes" : String.format("%,d bytes", allocatedBytes), generatedFiles, generatedBytes);
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<Long>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1000000;
+    }
+}
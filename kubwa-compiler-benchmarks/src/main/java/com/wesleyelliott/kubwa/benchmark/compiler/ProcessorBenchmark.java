@@ -0,0 +1,187 @@
+package com.wesleyelliott.kubwa.benchmark.compiler;
+
+import com.wesleyelliott.kubwa.KubwaCompiler;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * Runs KubwaCompiler in-process over generated fixtures of increasing size and reports how long
+ * it took, per round too, what it allocated and how much it generated. Sources are only
+ * processed, not compiled, so the times are mostly the processor's. Given a baseline, exits with 1
+ * if a metric grew past the threshold, and with --record writes the baseline instead. Exits with 2
+ * if the arguments can't be used, the baseline doesn't exist or a fixture doesn't compile.
+ */
+
+public final class ProcessorBenchmark {
+
+    private static final String USAGE = "Usage: ProcessorBenchmark [--sizes n,n...] [--warmup n] [--iterations n]\n"
+            + "                          [--baseline file [--record] [--threshold ratio]]";
+
+    private ProcessorBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IllegalStateException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static int run(String[] args) throws IOException {
+        List<Integer> sizes = Arrays.asList(100, 1000, 10000);
+        int warmup = 1;
+        int iterations = 3;
+        File baselineFile = null;
+        boolean record = false;
+        double threshold = 1.25;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--sizes")) {
+                sizes = new ArrayList<Integer>();
+                for (String size : value(args, ++i, arg).split(",")) {
+                    sizes.add(number(size.trim(), arg));
+                }
+            } else if (arg.equals("--warmup")) {
+                warmup = number(value(args, ++i, arg), arg);
+            } else if (arg.equals("--iterations")) {
+                iterations = number(value(args, ++i, arg), arg);
+            } else if (arg.equals("--baseline")) {
+                baselineFile = new File(value(args, ++i, arg));
+            } else if (arg.equals("--record")) {
+                record = true;
+            } else if (arg.equals("--threshold")) {
+                try {
+                    threshold = Double.parseDouble(value(args, ++i, arg));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("--threshold must be a number");
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (iterations < 1) {
+            throw new IllegalArgumentException("--iterations must be at least 1");
+        }
+        if (record && baselineFile == null) {
+            throw new IllegalArgumentException("--record needs a --baseline to write");
+        }
+        // Checked before measuring, and fatal, so a check with nothing to compare with can't pass
+        if (baselineFile != null && !record && !baselineFile.exists()) {
+            throw new IllegalStateException("No baseline at " + baselineFile + ", run with --record to create one");
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler, the benchmark has to run on a JDK");
+        }
+
+        List<Measurement> measurements = new ArrayList<Measurement>();
+        for (int size : sizes) {
+            Measurement measurement = measure(compiler, size, warmup, iterations);
+            System.out.println(measurement);
+            measurements.add(measurement);
+        }
+
+        Properties baseline = new Properties();
+        if (record) {
+            for (Measurement measurement : measurements) {
+                measurement.record(baseline);
+            }
+            OutputStream out = new FileOutputStream(baselineFile);
+            try {
+                baseline.store(out, "KubwaCompiler benchmark baseline");
+            } finally {
+                out.close();
+            }
+            System.out.println("Recorded " + baselineFile);
+            return 0;
+        }
+        if (baselineFile == null) {
+            return 0;
+        }
+
+        InputStream in = new FileInputStream(baselineFile);
+        try {
+            baseline.load(in);
+        } finally {
+            in.close();
+        }
+        List<String> regressions = new ArrayList<String>();
+        for (Measurement measurement : measurements) {
+            regressions.addAll(measurement.compare(baseline, threshold));
+        }
+        for (String regression : regressions) {
+            System.err.println("Regressed: " + regression);
+        }
+        return regressions.isEmpty() ? 0 : 1;
+    }
+
+    private static Measurement measure(JavaCompiler compiler, int size, int warmup, int iterations) {
+        List<JavaFileObject> sources = Fixtures.create(size);
+        Measurement.Builder measurement = new Measurement.Builder(size);
+
+        for (int i = 0; i < warmup + iterations; i++) {
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+            GeneratedSources output = new GeneratedSources(compiler.getStandardFileManager(diagnostics, null, null));
+            TimedProcessor processor = new TimedProcessor(new KubwaCompiler());
+            List<String> options = Arrays.asList("-proc:only", "-classpath", System.getProperty("java.class.path"));
+
+            JavaCompiler.CompilationTask task = compiler.getTask(null, output, diagnostics, options, null, sources);
+            task.setProcessors(Collections.singletonList(processor));
+            long start = System.nanoTime();
+            boolean compiled = task.call();
+            long elapsed = System.nanoTime() - start;
+
+            if (!compiled) {
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                        throw new IllegalStateException("The fixture of " + size + " classes doesn't compile: " + diagnostic);
+                    }
+                }
+            }
+            if (i >= warmup) {
+                measurement.add(elapsed, processor, output);
+            }
+        }
+
+        return measurement.build();
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static int number(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " must be a number");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.wesleyelliott.kubwa.benchmark.compiler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Wraps a processor, timing each of its rounds and counting what it allocates. Allocations are
+ * only counted on JVMs whose ThreadMXBean measures them, HotSpot's among them, and are -1
+ * elsewhere.
+ */
+
+final class TimedProcessor implements Processor {
+
+    private final Processor processor;
+    private final List<Long> roundNanos = new ArrayList<Long>();
+    private long initNanos;
+    private long allocatedBytes;
+
+    TimedProcessor(Processor processor) {
+        this.processor = processor;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return processor.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return processor.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return processor.getSupportedSourceVersion();
+    }
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+        long start = System.nanoTime();
+        long allocated = getThreadAllocatedBytes();
+        processor.init(processingEnv);
+        initNanos = System.nanoTime() - start;
+        countAllocations(allocated);
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        long start = System.nanoTime();
+        long allocated = getThreadAllocatedBytes();
+        try {
+            return processor.process(annotations, roundEnv);
+        } finally {
+            roundNanos.add(System.nanoTime() - start);
+            countAllocations(allocated);
+        }
+    }
+
+    @Override
+    public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+        return processor.getCompletions(element, annotation, member, userText);
+    }
+
+    long getInitNanos() {
+        return initNanos;
+    }
+
+    List<Long> getRoundNanos() {
+        return roundNanos;
+    }
+
+    long getTotalNanos() {
+        long total = initNanos;
+        for (long nanos : roundNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    private void countAllocations(long before) {
+        if (before < 0 || allocatedBytes < 0) {
+            allocatedBytes = -1;
+        } else {
+            allocatedBytes += getThreadAllocatedBytes() - before;
+        }
+    }
+
+    private static long getThreadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpotThreads = (com.sun.management.ThreadMXBean) threads;
+            if (hotSpotThreads.isThreadAllocatedMemorySupported() && hotSpotThreads.isThreadAllocatedMemoryEnabled()) {
+                return hotSpotThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
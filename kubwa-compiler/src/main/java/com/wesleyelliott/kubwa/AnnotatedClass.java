@@ -14,6 +14,10 @@ public class AnnotatedClass {
     public final String annotatedClassName;
     public final TypeElement typeElement;
     public List<FieldRule> fieldRules;
+    // Validations between reorders of the fail-fast rule order, 0 to keep the compile-time order
+    public int reorderInterval;
+    // The rules grouped by the value they check
+    public List<ValueConstraints> values;
 
     public AnnotatedClass(TypeElement typeElement) {
         this.annotatedClassName = typeElement.getSimpleName().toString();
@@ -0,0 +1,111 @@
+package com.wesleyelliott.kubwa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.SimpleAnnotationValueVisitor7;
+
+/**
+ * The values of an annotation, defaults included, read from its mirror rather than through
+ * reflection on the annotation's proxy.
+ */
+
+class AnnotationValues {
+
+    private static final SimpleAnnotationValueVisitor7<Object, Void> CONSTANT = new SimpleAnnotationValueVisitor7<Object, Void>() {
+        @Override
+        protected Object defaultAction(Object value, Void unused) {
+            // Strings and boxed primitives
+            return value;
+        }
+
+        @Override
+        public Object visitEnumConstant(VariableElement constant, Void unused) {
+            return constant.getSimpleName().toString();
+        }
+
+        @Override
+        public Object visitType(TypeMirror type, Void unused) {
+            return null;
+        }
+
+        @Override
+        public Object visitAnnotation(AnnotationMirror annotation, Void unused) {
+            return annotation;
+        }
+
+        @Override
+        public Object visitArray(List<? extends AnnotationValue> values, Void unused) {
+            List<Object> constants = new ArrayList<>(values.size());
+            for (AnnotationValue value : values) {
+                constants.add(value.accept(this, null));
+            }
+            return constants;
+        }
+    };
+
+    private final AnnotationMirror mirror;
+    private final Map<String, Object> values = new HashMap<>();
+
+    AnnotationValues(Elements elements, AnnotationMirror mirror) {
+        this.mirror = mirror;
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            values.put(entry.getKey().getSimpleName().toString(), entry.getValue().accept(CONSTANT, null));
+        }
+    }
+
+    AnnotationMirror getMirror() {
+        return mirror;
+    }
+
+    String getString(String name) throws KubwaException {
+        return get(name, String.class);
+    }
+
+    int getInt(String name) throws KubwaException {
+        return get(name, Integer.class);
+    }
+
+    boolean getBoolean(String name) throws KubwaException {
+        return get(name, Boolean.class);
+    }
+
+    <E extends Enum<E>> E getEnum(String name, Class<E> type) throws KubwaException {
+        return Enum.valueOf(type, get(name, String.class));
+    }
+
+    <E extends Enum<E>> List<E> getEnums(String name, Class<E> type) throws KubwaException {
+        List<E> constants = new ArrayList<>();
+        for (Object constant : get(name, List.class)) {
+            constants.add(Enum.valueOf(type, (String) constant));
+        }
+        return constants;
+    }
+
+    /**
+     * The annotations of an array value, like the rules of an Email.List.
+     */
+    List<AnnotationMirror> getAnnotations(String name) throws KubwaException {
+        List<AnnotationMirror> annotations = new ArrayList<>();
+        for (Object annotation : get(name, List.class)) {
+            annotations.add((AnnotationMirror) annotation);
+        }
+        return annotations;
+    }
+
+    private <T> T get(String name, Class<T> type) throws KubwaException {
+        Object value = values.get(name);
+        if (!type.isInstance(value)) {
+            throw new KubwaException("Expected a " + type.getSimpleName() + " for " + name + " of " + mirror);
+        }
+        return type.cast(value);
+    }
+}
@@ -1,13 +1,20 @@
 package com.wesleyelliott.kubwa;
 
-import android.content.Context;
-
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import com.wesleyelliott.kubwa.constraint.Constraint;
+import com.wesleyelliott.kubwa.constraint.IntervalConstraint;
+import com.wesleyelliott.kubwa.constraint.TextConstraint;
 import com.wesleyelliott.kubwa.fieldrule.CheckedFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.CreditCardFieldRule;
+import com.wesleyelliott.kubwa.fieldrule.EmailFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.FieldRule;
 import com.wesleyelliott.kubwa.fieldrule.MaxFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.MinFieldRule;
@@ -15,25 +22,39 @@ import com.wesleyelliott.kubwa.fieldrule.PasswordFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.RangeFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.RegexFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.SelectFieldRule;
+import com.wesleyelliott.kubwa.regex.MatcherGenerator;
+import com.wesleyelliott.kubwa.rule.BooleanRule;
 import com.wesleyelliott.kubwa.rule.CheckedRule;
 import com.wesleyelliott.kubwa.rule.ConfirmEmailRule;
 import com.wesleyelliott.kubwa.rule.ConfirmPasswordRule;
 import com.wesleyelliott.kubwa.rule.CreditCardRule;
+import com.wesleyelliott.kubwa.rule.DoubleRule;
 import com.wesleyelliott.kubwa.rule.EmailRule;
+import com.wesleyelliott.kubwa.rule.IntRule;
+import com.wesleyelliott.kubwa.rule.LongRule;
 import com.wesleyelliott.kubwa.rule.MaxRule;
 import com.wesleyelliott.kubwa.rule.MinRule;
+import com.wesleyelliott.kubwa.rule.NotNullRule;
 import com.wesleyelliott.kubwa.rule.PasswordRule;
 import com.wesleyelliott.kubwa.rule.RangeRule;
 import com.wesleyelliott.kubwa.rule.RegexRule;
 import com.wesleyelliott.kubwa.rule.Rule;
 import com.wesleyelliott.kubwa.rule.SelectRule;
+import com.wesleyelliott.kubwa.rule.TextRule;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static com.squareup.javapoet.TypeSpec.classBuilder;
 import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PROTECTED;
 import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
 
 /**
  * Created by wesley on 2016/07/28.
@@ -41,167 +62,558 @@ import static javax.lang.model.element.Modifier.PUBLIC;
 
 public class CodeGenerator {
 
-    public static TypeSpec generateClass(AnnotatedClass annotatedClass) throws KubwaException {
+    private static final String MESSAGE_IDS = "MESSAGE_IDS";
+    private static final String RULE_ORDER = "RULE_ORDER";
+    private static final String RULE_PREDECESSORS = "RULE_PREDECESSORS";
+    private static final String RULE_ORDER_FIELD = "ruleOrder";
+    private static final String INSTRUMENTED = "INSTRUMENTED";
+    private static final String RULE_NAMES = "RULE_NAMES";
+    private static final String RULE_TYPES = "RULE_TYPES";
+
+    // Referenced by name, so the compiler itself never needs Android on its classpath
+    static final ClassName CONTEXT = ClassName.get("android.content", "Context");
+    static final ClassName RESOURCE_MESSAGE_RESOLVER = ClassName.get("com.wesleyelliott.kubwa", "ResourceMessageResolver");
+
+    /**
+     * @param instrumented whether every validation is timed and reported to the installed
+     *                     ValidationListener
+     */
+    public static TypeSpec generateClass(AnnotatedClass annotatedClass, boolean android, boolean instrumented) throws KubwaException {
         String className = annotatedClass.annotatedClassName + "Validator";
         TypeSpec.Builder builder =  classBuilder(className)
-                .addField(Context.class, "context")
-                .addMethod(makeConstructor(annotatedClass.fieldRules))
-                .addModifiers(PUBLIC, FINAL);
+                .addModifiers(PUBLIC, FINAL)
+                .addOriginatingElement(annotatedClass.typeElement);
 
+        Map<FieldRule, MethodSpec> matchers = makeMatcherMethods(annotatedClass.fieldRules, annotatedClass.values);
 
+        builder.superclass(AbstractValidator.class)
+                .addField(makeMessageIdsField(annotatedClass.fieldRules));
         for (FieldRule fieldRule : annotatedClass.fieldRules) {
-            builder.addField(makeValidatorField(fieldRule));
-            builder.addMethod(makeValidatorMethod(fieldRule));
-            builder.addMethod(makeGetErrorMethod(fieldRule));
-            builder.addMethod(makeSetErrorMethod(fieldRule));
+            if (!isInlined(fieldRule)) {
+                builder.addField(makeRuleField(fieldRule, annotatedClass.fieldRules, matchers));
+            }
         }
 
-        builder.addMethod(makeIsValidMethod(annotatedClass.fieldRules));
-        builder.addMethod(makeValidateAllMethod(annotatedClass.fieldRules));
+        int[] costOrder = getCostOrder(annotatedClass.fieldRules, matchers);
+        if (annotatedClass.reorderInterval > 0) {
+            builder.addField(makeIntArrayField(RULE_ORDER, costOrder))
+                    .addField(makeIntArrayField(RULE_PREDECESSORS, getPredecessors(annotatedClass.fieldRules)))
+                    .addField(FieldSpec.builder(RuleOrder.class, RULE_ORDER_FIELD, PRIVATE, FINAL)
+                            .initializer("new $T($L, $L, $L)", RuleOrder.class, RULE_ORDER, RULE_PREDECESSORS, annotatedClass.reorderInterval)
+                            .build());
+        }
+        if (instrumented) {
+            addInstrumentationMembers(builder, annotatedClass.fieldRules);
+        }
+
+        if (android) {
+            builder.addMethod(makeContextConstructor());
+        }
+        builder.addMethod(makeConstructor());
+
+        // Each rule's failure is the bit of its index, in annotation order
+        for (int i = 0; i < annotatedClass.fieldRules.size(); i++) {
+            FieldRule fieldRule = annotatedClass.fieldRules.get(i);
+            builder.addMethod(makeValidatorMethod(fieldRule, i, instrumented));
+            builder.addMethod(makeGetErrorMethod(fieldRule, i));
+            builder.addMethod(makeSetErrorMethod(fieldRule, i));
+        }
+
+        builder.addMethod(makeValidateAllMethod(annotatedClass.fieldRules, annotatedClass.values, instrumented));
+        if (annotatedClass.reorderInterval > 0) {
+            builder.addMethod(makeAdaptiveValidateAllFailFastMethod(annotatedClass.fieldRules, annotatedClass.values, instrumented));
+        } else {
+            builder.addMethod(makeValidateAllFailFastMethod(annotatedClass.fieldRules, annotatedClass.values, costOrder, instrumented));
+        }
+
+        for (MethodSpec matcher : matchers.values()) {
+            builder.addMethod(matcher);
+        }
 
         return builder.build();
     }
 
-    private static FieldSpec makeValidatorField(FieldRule fieldRule) {
-        return FieldSpec.builder(Validation.class, fieldRule.getFieldName())
-                .addModifiers(PRIVATE)
+    /**
+     * Regexes are compiled into DFA matcher methods here, so generated rules don't go through
+     * java.util.regex. Regexes using constructs a DFA can't express are left to the rule itself.
+     * The DFAs are the ones the rules' constraints were built with.
+     */
+    private static Map<FieldRule, MethodSpec> makeMatcherMethods(List<FieldRule> fieldRuleList, List<ValueConstraints> values) {
+        Map<FieldRule, MethodSpec> matchers = new LinkedHashMap<>();
+        for (int i = 0; i < fieldRuleList.size(); i++) {
+            FieldRule fieldRule = fieldRuleList.get(i);
+            Constraint constraint = getConstraint(values, i);
+            if (Utils.getRegex(fieldRule) != null && constraint instanceof TextConstraint && ((TextConstraint) constraint).getDfa() != null) {
+                matchers.put(fieldRule, MatcherGenerator.generate(fieldRule.getMatcherMethodName(), ((TextConstraint) constraint).getDfa()));
+            }
+            // Otherwise falls back to the rule's own matching
+        }
+        return matchers;
+    }
+
+    private static Constraint getConstraint(List<ValueConstraints> values, int rule) {
+        for (ValueConstraints value : values) {
+            if (value.rules.contains(rule)) {
+                return value.getConstraint(rule);
+            }
+        }
+        return null;
+    }
+
+    private static TypeSpec makeCompiledRegexRule(FieldRule fieldRule, MethodSpec matcher) {
+        TypeSpec.Builder builder = fieldRule instanceof RegexFieldRule
+                ? TypeSpec.anonymousClassBuilder("$S", ((RegexFieldRule) fieldRule).regex)
+                : TypeSpec.anonymousClassBuilder("");
+
+        return builder.superclass(fieldRule.fieldRuleType)
+                .addMethod(MethodSpec.methodBuilder("matches")
+                        .addAnnotation(Override.class)
+                        .addModifiers(PROTECTED)
+                        .returns(TypeName.BOOLEAN)
+                        .addParameter(CharSequence.class, "value")
+                        .addStatement("return $N(value)", matcher)
+                        .build())
                 .build();
     }
 
-    private static MethodSpec makeConstructor(List<FieldRule> fieldRuleList) throws KubwaException {
-        MethodSpec.Builder builder = MethodSpec.constructorBuilder();
-        builder.addModifiers(PUBLIC)
-                .addParameter(Context.class, "context")
-                .addStatement("this.$N = $N", "context", "context");
-
-        for (FieldRule fieldRule : fieldRuleList) {
-            Class<? extends Rule> fieldRuleType = fieldRule.fieldRuleType;
-            if (Utils.isRuleType(fieldRuleType, PasswordRule.class)) {
-                PasswordFieldRule passwordFieldRule = (PasswordFieldRule) fieldRule;
-                builder.addStatement(passwordFieldRule.getFieldName() + " = new $T(context, $L, new $T($T.$L))", Validation.class, passwordFieldRule.fieldErrorResource, passwordFieldRule.fieldRuleType, passwordFieldRule.passwordScheme.getClass(), passwordFieldRule.passwordScheme);
-            } else if (Utils.isRuleType(fieldRuleType, RegexRule.class)) {
-                RegexFieldRule regexFieldRule = (RegexFieldRule) fieldRule;
-                builder.addStatement(regexFieldRule.getFieldName() + " = new $T(context, $L, new $T($S))", Validation.class, regexFieldRule.fieldErrorResource, regexFieldRule.fieldRuleType, regexFieldRule.regex);
-            } else if (Utils.isRuleType(fieldRuleType, CheckedRule.class)) {
-                CheckedFieldRule checkedFieldRule = (CheckedFieldRule) fieldRule;
-                builder.addStatement(checkedFieldRule.getFieldName() + " = new $T(context, $L, new $T($L))", Validation.class, checkedFieldRule.fieldErrorResource, checkedFieldRule.fieldRuleType, checkedFieldRule.checkedValue);
-            } else if (Utils.isRuleType(fieldRuleType, ConfirmEmailRule.class)) {
-                FieldRule emailFieldRule = Utils.getRule(fieldRuleList, EmailRule.class);
-                if (emailFieldRule == null) {
-                    throw new KubwaException("ConfirmEmailRule requires an EmailRule present!");
-                }
+    private static MethodSpec makeContextConstructor() {
+        return MethodSpec.constructorBuilder()
+                .addModifiers(PUBLIC)
+                .addParameter(CONTEXT, "context")
+                .addStatement("this($T.getInstance(context))", RESOURCE_MESSAGE_RESOLVER)
+                .build();
+    }
 
-                builder.addStatement(fieldRule.getFieldName() + " = new $T(context, $L, new $T())", Validation.class, fieldRule.fieldErrorResource, fieldRule.fieldRuleType);
-            } else if (Utils.isRuleType(fieldRuleType, ConfirmPasswordRule.class)) {
-                FieldRule passwordFieldRule = Utils.getRule(fieldRuleList, PasswordRule.class);
-                if (passwordFieldRule == null) {
-                    throw new KubwaException("ConfirmPasswordRule requires an PasswordRule present!");
-                }
+    private static MethodSpec makeConstructor() {
+        return MethodSpec.constructorBuilder()
+                .addModifiers(PUBLIC)
+                .addParameter(MessageResolver.class, "messageResolver")
+                .addStatement("super(messageResolver, $N)", MESSAGE_IDS)
+                .build();
+    }
+
+    private static FieldSpec makeMessageIdsField(List<FieldRule> fieldRuleList) {
+        int[] messageIds = new int[fieldRuleList.size()];
+        for (int i = 0; i < messageIds.length; i++) {
+            messageIds[i] = fieldRuleList.get(i).fieldErrorResource;
+        }
+        return makeIntArrayField(MESSAGE_IDS, messageIds);
+    }
 
-                builder.addStatement(fieldRule.getFieldName() + " = new $T(context, $L, new $T())", Validation.class, fieldRule.fieldErrorResource, fieldRule.fieldRuleType);
-            } else if (Utils.isRuleType(fieldRuleType, MinRule.class)) {
-                MinFieldRule minFieldRule = (MinFieldRule) fieldRule;
-                builder.addStatement(minFieldRule.getFieldName() + " = new $T(context, $L, new $T($L))", Validation.class, minFieldRule.fieldErrorResource, minFieldRule.fieldRuleType, minFieldRule.minValue);
-            } else if (Utils.isRuleType(fieldRuleType, MaxRule.class)) {
-                MaxFieldRule maxFieldRule = (MaxFieldRule) fieldRule;
-                builder.addStatement(maxFieldRule.getFieldName() + " = new $T(context, $L, new $T($L))", Validation.class, maxFieldRule.fieldErrorResource, maxFieldRule.fieldRuleType, maxFieldRule.maxValue);
-            } else if (Utils.isRuleType(fieldRuleType, SelectRule.class)) {
-                SelectFieldRule selectFieldRule = (SelectFieldRule) fieldRule;
-                builder.addStatement(selectFieldRule.getFieldName() + " = new $T(context, $L, new $T($L))", Validation.class, selectFieldRule.fieldErrorResource, selectFieldRule.fieldRuleType, selectFieldRule.spinnerMinValue);
-            } else if (Utils.isRuleType(fieldRuleType, RangeRule.class)) {
-                RangeFieldRule rangeFieldRule = (RangeFieldRule) fieldRule;
-                builder.addStatement(rangeFieldRule.getFieldName() + " = new $T(context, $L, new $T($L, $L, $L))", Validation.class, rangeFieldRule.fieldErrorResource, rangeFieldRule.fieldRuleType, rangeFieldRule.minValue, rangeFieldRule.maxValue, rangeFieldRule.includeBounds);
-            } else if (Utils.isRuleType(fieldRuleType, CreditCardRule.class)) {
-                CreditCardFieldRule creditCardRule = (CreditCardFieldRule) fieldRule;
-                StringBuilder ccBuilder = new StringBuilder();
-                for (CreditCardRule.Type type : creditCardRule.creditCardTypes) {
-                    ccBuilder.append("CreditCardRule.Type.");
-                    ccBuilder.append(type);
-                    ccBuilder.append(",");
+    private static FieldSpec makeIntArrayField(String name, int[] values) {
+        StringBuilder initializer = new StringBuilder();
+        for (int value : values) {
+            if (initializer.length() > 0) {
+                initializer.append(", ");
+            }
+            initializer.append(value);
+        }
+        return FieldSpec.builder(int[].class, name, PRIVATE, STATIC, FINAL)
+                .initializer("{$L}", initializer.toString())
+                .build();
+    }
+
+    /**
+     * The rules' indices, cheapest rule first. Rules of the same cost stay in annotation order.
+     */
+    private static int[] getCostOrder(List<FieldRule> fieldRuleList, Map<FieldRule, MethodSpec> matchers) {
+        int[] order = new int[fieldRuleList.size()];
+        int position = 0;
+        for (RuleCost cost : RuleCost.values()) {
+            for (int i = 0; i < fieldRuleList.size(); i++) {
+                FieldRule fieldRule = fieldRuleList.get(i);
+                if (RuleCost.of(fieldRule.fieldRuleType, matchers.containsKey(fieldRule)) == cost) {
+                    order[position++] = i;
                 }
-                ccBuilder.replace(ccBuilder.length()-1, ccBuilder.length(), "");
-                builder.addStatement(creditCardRule.getFieldName() + " = new $T(context, $L, new $T($L))", Validation.class, creditCardRule.fieldErrorResource, creditCardRule.fieldRuleType, ccBuilder.toString());
-            } else {
-                builder.addStatement(fieldRule.getFieldName() + " = new $T(context, $L, new $T())", Validation.class, fieldRule.fieldErrorResource, fieldRule.fieldRuleType);
             }
         }
+        return order;
+    }
 
-        return builder.build();
+    /**
+     * For each rule, the index of the rule it has to be evaluated after, or -1. Confirm rules
+     * come after the rule whose value they confirm.
+     */
+    private static int[] getPredecessors(List<FieldRule> fieldRuleList) {
+        int[] predecessors = new int[fieldRuleList.size()];
+        for (int i = 0; i < predecessors.length; i++) {
+            FieldRule fieldRule = fieldRuleList.get(i);
+            FieldRule confirmed = null;
+            if (Utils.isRuleType(fieldRule.fieldRuleType, ConfirmEmailRule.class)) {
+                confirmed = Utils.getRule(fieldRuleList, EmailRule.class);
+            } else if (Utils.isRuleType(fieldRule.fieldRuleType, ConfirmPasswordRule.class)) {
+                confirmed = Utils.getRule(fieldRuleList, PasswordRule.class);
+            }
+            predecessors[i] = confirmed != null ? fieldRuleList.indexOf(confirmed) : -1;
+        }
+        return predecessors;
     }
 
-    private static MethodSpec.Builder makeValidatorStatement(MethodSpec.Builder builder, FieldRule fieldRule) {
+    /**
+     * Rules are stateless, so every instance of a validator shares them.
+     */
+    private static FieldSpec makeRuleField(FieldRule fieldRule, List<FieldRule> fieldRuleList, Map<FieldRule, MethodSpec> matchers) throws KubwaException {
+        return FieldSpec.builder(fieldRule.fieldRuleType, fieldRule.getRuleFieldName(), PRIVATE, STATIC, FINAL)
+                .initializer(makeRule(fieldRule, fieldRuleList, matchers))
+                .build();
+    }
+
+    private static CodeBlock makeRule(FieldRule fieldRule, List<FieldRule> fieldRuleList, Map<FieldRule, MethodSpec> matchers) throws KubwaException {
+        Class<? extends Rule> fieldRuleType = fieldRule.fieldRuleType;
+        if (matchers.containsKey(fieldRule)) {
+            return CodeBlock.of("$L", makeCompiledRegexRule(fieldRule, matchers.get(fieldRule)));
+        } else if (Utils.isRuleType(fieldRuleType, PasswordRule.class)) {
+            PasswordFieldRule passwordFieldRule = (PasswordFieldRule) fieldRule;
+            return CodeBlock.of("new $T($T.$L, $L)", passwordFieldRule.fieldRuleType, passwordFieldRule.passwordScheme.getClass(), passwordFieldRule.passwordScheme, passwordFieldRule.minLength);
+        } else if (Utils.isRuleType(fieldRuleType, EmailRule.class)) {
+            EmailFieldRule emailFieldRule = (EmailFieldRule) fieldRule;
+            return CodeBlock.of("new $T($T.$L)", emailFieldRule.fieldRuleType, emailFieldRule.emailScheme.getClass(), emailFieldRule.emailScheme);
+        } else if (Utils.isRuleType(fieldRuleType, RegexRule.class)) {
+            RegexFieldRule regexFieldRule = (RegexFieldRule) fieldRule;
+            return CodeBlock.of("new $T($S)", regexFieldRule.fieldRuleType, regexFieldRule.regex);
+        } else if (Utils.isRuleType(fieldRuleType, ConfirmEmailRule.class)) {
+            if (Utils.getRule(fieldRuleList, EmailRule.class) == null) {
+                throw new KubwaException("ConfirmEmailRule requires an EmailRule present!");
+            }
+        } else if (Utils.isRuleType(fieldRuleType, ConfirmPasswordRule.class)) {
+            if (Utils.getRule(fieldRuleList, PasswordRule.class) == null) {
+                throw new KubwaException("ConfirmPasswordRule requires an PasswordRule present!");
+            }
+        } else if (Utils.isRuleType(fieldRuleType, CreditCardRule.class)) {
+            CreditCardFieldRule creditCardRule = (CreditCardFieldRule) fieldRule;
+            StringBuilder ccBuilder = new StringBuilder();
+            for (CreditCardRule.Type type : creditCardRule.creditCardTypes) {
+                ccBuilder.append("CreditCardRule.Type.");
+                ccBuilder.append(type);
+                ccBuilder.append(",");
+            }
+            ccBuilder.replace(ccBuilder.length()-1, ccBuilder.length(), "");
+            return CodeBlock.of("new $T($L)", creditCardRule.fieldRuleType, ccBuilder.toString());
+        }
+
+        return CodeBlock.of("new $T()", fieldRule.fieldRuleType);
+    }
+
+    /**
+     * Rules specialized on a primitive take the primitive, so generated methods never box.
+     */
+    static TypeName getValueType(FieldRule fieldRule) {
+        Class<? extends Rule> ruleType = fieldRule.fieldRuleType;
+        if (IntRule.class.isAssignableFrom(ruleType)) {
+            return TypeName.INT;
+        } else if (LongRule.class.isAssignableFrom(ruleType)) {
+            return TypeName.LONG;
+        } else if (DoubleRule.class.isAssignableFrom(ruleType)) {
+            return TypeName.DOUBLE;
+        } else if (BooleanRule.class.isAssignableFrom(ruleType)) {
+            return TypeName.BOOLEAN;
+        }
+        // Every other rule checks text
+        return TypeName.get(CharSequence.class);
+    }
+
+    private static MethodSpec.Builder makeValidatorStatement(MethodSpec.Builder builder, FieldRule fieldRule, int index, boolean instrumented) {
+        CodeBlock call;
         if (Utils.isRuleType(fieldRule.fieldRuleType, ConfirmEmailRule.class) || Utils.isRuleType(fieldRule.fieldRuleType, ConfirmPasswordRule.class)) {
-            builder.addParameter(fieldRule.fieldRule.getType(), fieldRule.getValueName() + "1")
-                    .addParameter(fieldRule.fieldRule.getType(), fieldRule.getValueName() + "2")
-                    .addStatement("$L.validate($L, $L)", fieldRule.getFieldName(), fieldRule.getValueName() + "1", fieldRule.getValueName() + "2");
+            builder.addParameter(getValueType(fieldRule), fieldRule.getValueName() + "1")
+                    .addParameter(getValueType(fieldRule), fieldRule.getValueName() + "2");
+            call = CodeBlock.of("validate($L, $L, $L, $L)", index, fieldRule.getRuleFieldName(), fieldRule.getValueName() + "1", fieldRule.getValueName() + "2");
         } else {
-            builder.addParameter(fieldRule.fieldRule.getType(), fieldRule.getValueName())
-                    .addStatement("$L.validate($L)", fieldRule.getFieldName(), fieldRule.getValueName());
+            builder.addParameter(getValueType(fieldRule), fieldRule.getValueName());
+            call = makeValidateCall(fieldRule, index);
+        }
+        if (!instrumented) {
+            return builder.addStatement("$L", call);
         }
-        return builder;
+        return builder.addStatement("long start = now()")
+                .addStatement("$L", call)
+                .addStatement("report($L, start)", index);
     }
 
-    private static MethodSpec makeValidatorMethod(FieldRule fieldRule) {
+    private static MethodSpec makeValidatorMethod(FieldRule fieldRule, int index, boolean instrumented) {
         MethodSpec.Builder builder = MethodSpec.methodBuilder(fieldRule.getMethodName())
                 .addModifiers(PUBLIC);
-        makeValidatorStatement(builder, fieldRule);
+        makeValidatorStatement(builder, fieldRule, index, instrumented);
         return builder.build();
     }
 
-    private static MethodSpec makeGetErrorMethod(FieldRule fieldRule) {
+    /**
+     * Adds a call to validate, timed and reported when instrumented, in which case the method has
+     * to have declared a "long start" first.
+     */
+    private static MethodSpec.Builder addValidateCall(MethodSpec.Builder builder, CodeBlock call, int index, boolean instrumented) {
+        if (!instrumented) {
+            return builder.addStatement("$L", call);
+        }
+        return builder.addStatement("start = now()")
+                .addStatement("$L", call)
+                .addStatement("report($L, start)", index);
+    }
+
+    /**
+     * Instrumentation is switched on for a class when it's initialized, so with no listener the
+     * INSTRUMENTED checks are constant and the JIT drops them along with the timing.
+     */
+    private static void addInstrumentationMembers(TypeSpec.Builder builder, List<FieldRule> fieldRuleList) {
+        CodeBlock.Builder names = CodeBlock.builder();
+        CodeBlock.Builder types = CodeBlock.builder();
+        for (int i = 0; i < fieldRuleList.size(); i++) {
+            FieldRule fieldRule = fieldRuleList.get(i);
+            String separator = i > 0 ? ", " : "";
+            names.add("$L$S", separator, fieldRule.fieldName);
+            types.add("$L$T.class", separator, fieldRule.fieldRuleType);
+        }
+
+        builder.addField(FieldSpec.builder(TypeName.BOOLEAN, INSTRUMENTED, PRIVATE, STATIC, FINAL)
+                        .initializer("$T.isEnabled()", Instrumentation.class)
+                        .build())
+                .addField(FieldSpec.builder(String[].class, RULE_NAMES, PRIVATE, STATIC, FINAL)
+                        .initializer("{$L}", names.build())
+                        .build())
+                .addField(FieldSpec.builder(ArrayTypeName.of(ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class))), RULE_TYPES, PRIVATE, STATIC, FINAL)
+                        .initializer("{$L}", types.build())
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("now")
+                        .addModifiers(PRIVATE, STATIC)
+                        .returns(TypeName.LONG)
+                        .addStatement("return $N ? $T.nanoTime() : 0L", INSTRUMENTED, System.class)
+                        .build())
+                .addMethod(MethodSpec.methodBuilder("report")
+                        .addModifiers(PRIVATE)
+                        .addParameter(TypeName.INT, "rule")
+                        .addParameter(TypeName.LONG, "start")
+                        .beginControlFlow("if ($N)", INSTRUMENTED)
+                        .addStatement("$T.report($N[rule], $N[rule], !isFailed(rule), $T.nanoTime() - start)",
+                                Instrumentation.class, RULE_NAMES, RULE_TYPES, System.class)
+                        .endControlFlow()
+                        .build());
+    }
+
+    private static MethodSpec makeGetErrorMethod(FieldRule fieldRule, int index) {
         return MethodSpec.methodBuilder(fieldRule.getErrorMessageMethodName())
                 .addModifiers(PUBLIC)
-                .addStatement("return $L.getMessage()", fieldRule.getFieldName())
+                .addStatement("return getMessage($L)", index)
                 .returns(String.class)
                 .build();
     }
 
-    private static MethodSpec makeSetErrorMethod(FieldRule fieldRule) {
+    private static MethodSpec makeSetErrorMethod(FieldRule fieldRule, int index) {
         return MethodSpec.methodBuilder(fieldRule.setErrorMessageMethodName())
                 .addModifiers(PUBLIC)
                 .addParameter(String.class, fieldRule.getValueName())
-                .addStatement("$L.setMessage($L)", fieldRule.getFieldName(), fieldRule.getValueName())
+                .addStatement("setMessage($L, $L)", index, fieldRule.getValueName())
                 .build();
     }
 
-    private static MethodSpec makeIsValidMethod(List<FieldRule> fieldRuleList) {
-        MethodSpec.Builder isValidMethodSpec = MethodSpec.methodBuilder("isValid")
+    private static MethodSpec makeValidateAllMethod(List<FieldRule> fieldRuleList, List<ValueConstraints> values, boolean instrumented) {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("validateAll")
+                .addModifiers(PUBLIC);
+
+        addValueParameters(builder, values);
+        if (instrumented) {
+            builder.addStatement("long start");
+        }
+        for (ValueConstraints value : values) {
+            addValueValidateCalls(builder, fieldRuleList, value, instrumented);
+        }
+
+        return builder.build();
+    }
+
+    // One for each value, however many rules check it
+    private static void addValueParameters(MethodSpec.Builder builder, List<ValueConstraints> values) {
+        for (ValueConstraints value : values) {
+            builder.addParameter(value.valueType, value.valueName);
+        }
+    }
+
+    /**
+     * When a value's rules are all intervals, a value inside the interval they share passes them
+     * all at once, and one outside it fails those accepting no more than it. Otherwise each rule's
+     * outcome is derived from the rules before it if they prove it, and evaluated if not.
+     */
+    private static void addValueValidateCalls(MethodSpec.Builder builder, List<FieldRule> fieldRuleList, ValueConstraints value, boolean instrumented) {
+        Set<Integer> failed = new HashSet<>();
+        if (value.intersection != null) {
+            builder.beginControlFlow("if ($L)", makeIntervalCheck(value.valueName, value.intersection));
+            for (int rule : value.rules) {
+                addValidateCall(builder, CodeBlock.of("setValid($L, true)", rule), rule, instrumented);
+                if (value.getConstraint(rule).implies(value.intersection)) {
+                    failed.add(rule);
+                }
+            }
+            builder.nextControlFlow("else");
+        }
+        for (int rule : value.rules) {
+            List<Integer> invalidIfFailed = value.getInvalidIfFailed(rule);
+            if (failed.contains(rule) || !Collections.disjoint(invalidIfFailed, failed)) {
+                failed.add(rule);
+                addValidateCall(builder, CodeBlock.of("setValid($L, false)", rule), rule, instrumented);
+                continue;
+            }
+            String validIf = makeOutcomeCondition(value.getValidIfPassed(rule), Collections.<Integer>emptyList(), failed);
+            String invalidIf = makeOutcomeCondition(value.getInvalidIfPassed(rule), invalidIfFailed, failed);
+            CodeBlock call = makeValidateAllCall(fieldRuleList, rule);
+            if (validIf.isEmpty() && invalidIf.isEmpty()) {
+                addValidateCall(builder, call, rule, instrumented);
+                continue;
+            }
+
+            if (instrumented) {
+                builder.addStatement("start = now()");
+            }
+            if (!validIf.isEmpty()) {
+                builder.beginControlFlow("if ($L)", validIf)
+                        .addStatement("setValid($L, true)", rule);
+            }
+            if (!invalidIf.isEmpty() && validIf.isEmpty()) {
+                builder.beginControlFlow("if ($L)", invalidIf)
+                        .addStatement("setValid($L, false)", rule);
+            } else if (!invalidIf.isEmpty()) {
+                builder.nextControlFlow("else if ($L)", invalidIf)
+                        .addStatement("setValid($L, false)", rule);
+            }
+            builder.nextControlFlow("else")
+                    .addStatement("$L", call)
+                    .endControlFlow();
+            if (instrumented) {
+                builder.addStatement("report($L, start)", rule);
+            }
+        }
+        if (value.intersection != null) {
+            builder.endControlFlow();
+        }
+    }
+
+    private static CodeBlock makeIntervalCheck(String value, IntervalConstraint interval) {
+        if (interval.min == Integer.MIN_VALUE) {
+            return CodeBlock.of("$L <= $L", value, interval.max);
+        } else if (interval.max == Integer.MAX_VALUE) {
+            return CodeBlock.of("$L >= $L", value, interval.min);
+        }
+        return CodeBlock.of("$L >= $L && $L <= $L", value, interval.min, value, interval.max);
+    }
+
+    // Empty if none of the rules prove anything. Rules known to have failed prove nothing by passing
+    private static String makeOutcomeCondition(List<Integer> ifPassed, List<Integer> ifFailed, Set<Integer> failed) {
+        StringBuilder condition = new StringBuilder();
+        for (int rule : ifPassed) {
+            if (failed.contains(rule)) {
+                continue;
+            }
+            condition.append(condition.length() > 0 ? " || " : "").append("!isFailed(").append(rule).append(')');
+        }
+        for (int rule : ifFailed) {
+            condition.append(condition.length() > 0 ? " || " : "").append("isFailed(").append(rule).append(')');
+        }
+        return condition.toString();
+    }
+
+    /**
+     * Takes the same values as validateAll, but evaluates the cheapest rules first and stops at
+     * the first failure. Rules after it keep the outcome of their last validation.
+     */
+    private static MethodSpec makeValidateAllFailFastMethod(List<FieldRule> fieldRuleList, List<ValueConstraints> values, int[] costOrder, boolean instrumented) {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("validateAllFailFast")
                 .addModifiers(PUBLIC)
                 .returns(TypeName.BOOLEAN);
 
-        StringBuilder builder = new StringBuilder();
-        builder.append("true");
-        for (FieldRule fieldRule : fieldRuleList) {
-            builder.append(" && ");
-            builder.append(fieldRule.getErrorMessageMethodName());
-            builder.append("()");
-            builder.append(" == null ");
+        addValueParameters(builder, values);
+        if (instrumented) {
+            builder.addStatement("long start");
+        }
+        for (int i : costOrder) {
+            addValidateCall(builder, makeValidateAllCall(fieldRuleList, i), i, instrumented)
+                    .beginControlFlow("if (isFailed($L))", i)
+                    .addStatement("return false")
+                    .endControlFlow();
         }
 
-        isValidMethodSpec.addStatement("return $L", builder.toString());
+        return builder.addStatement("return true").build();
+    }
+
+    /**
+     * Like validateAllFailFast, but evaluates the rules in the order kept by the validator's
+     * RuleOrder, recording each outcome and, for sampled validations, its duration.
+     */
+    private static MethodSpec makeAdaptiveValidateAllFailFastMethod(List<FieldRule> fieldRuleList, List<ValueConstraints> values, boolean instrumented) {
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("validateAllFailFast")
+                .addModifiers(PUBLIC)
+                .returns(TypeName.BOOLEAN);
 
-        return isValidMethodSpec.build();
+        addValueParameters(builder, values);
+        builder.addStatement("boolean timed = $N.begin()", RULE_ORDER_FIELD)
+                .beginControlFlow("for (int position = 0; position < $N.size(); position++)", RULE_ORDER_FIELD)
+                .addStatement("int rule = $N.get(position)", RULE_ORDER_FIELD)
+                .addStatement("long sampleStart = timed ? $T.nanoTime() : 0L", System.class);
+        if (instrumented) {
+            builder.addStatement("long start");
+        }
+        builder.beginControlFlow("switch (rule)");
+        for (int i = 0; i < fieldRuleList.size(); i++) {
+            builder.addCode("case $L:\n$>", i);
+            addValidateCall(builder, makeValidateAllCall(fieldRuleList, i), i, instrumented)
+                    .addStatement("break")
+                    .addCode("$<");
+        }
+        builder.endControlFlow()
+                .addStatement("boolean failed = isFailed(rule)")
+                .addStatement("$N.record(rule, failed, timed ? $T.nanoTime() - sampleStart : -1L)", RULE_ORDER_FIELD, System.class)
+                .beginControlFlow("if (failed)")
+                .addStatement("return false")
+                .endControlFlow()
+                .endControlFlow();
+
+        return builder.addStatement("return true").build();
     }
 
-    private static MethodSpec makeValidateAllMethod(List<FieldRule> fieldRuleList) {
-        MethodSpec.Builder builder = MethodSpec.methodBuilder("validateAll")
-                .addModifiers(PUBLIC);
+    // Confirm rules compare their value with the one of the rule they confirm
+    private static CodeBlock makeValidateAllCall(List<FieldRule> fieldRuleList, int index) {
+        FieldRule fieldRule = fieldRuleList.get(index);
+        if (Utils.isRuleType(fieldRule.fieldRuleType, ConfirmEmailRule.class)) {
+            FieldRule emailFieldRule = Utils.getRule(fieldRuleList, EmailRule.class);
+            return CodeBlock.of("validate($L, $L, $L, $L)", index, fieldRule.getRuleFieldName(), fieldRule.getValueName(), emailFieldRule.getValueName());
+        } else if(Utils.isRuleType(fieldRule.fieldRuleType, ConfirmPasswordRule.class)) {
+            FieldRule passwordFieldRule = Utils.getRule(fieldRuleList, PasswordRule.class);
+            return CodeBlock.of("validate($L, $L, $L, $L)", index, fieldRule.getRuleFieldName(), fieldRule.getValueName(), passwordFieldRule.getValueName());
+        }
+        return makeValidateCall(fieldRule, index);
+    }
 
-        for (FieldRule fieldRule : fieldRuleList) {
-            if (Utils.isRuleType(fieldRule.fieldRuleType, ConfirmEmailRule.class)) {
-                FieldRule emailFieldRule = Utils.getRule(fieldRuleList, EmailRule.class);
-                builder.addParameter(fieldRule.fieldRule.getType(), fieldRule.getValueName());
-                builder.addStatement("$L.validate($L, $L);", fieldRule.getFieldName(), fieldRule.getValueName(), emailFieldRule.getValueName());
-            } else if(Utils.isRuleType(fieldRule.fieldRuleType, ConfirmPasswordRule.class)) {
-                FieldRule passwordFieldRule = Utils.getRule(fieldRuleList, PasswordRule.class);
-                builder.addParameter(fieldRule.fieldRule.getType(), fieldRule.getValueName());
-                builder.addStatement("$L.validate($L, $L);", fieldRule.getFieldName(), fieldRule.getValueName(), passwordFieldRule.getValueName());
-            } else {
-                builder.addParameter(fieldRule.fieldRule.getType(), fieldRule.getValueName());
-                builder.addStatement("$L.validate($L);", fieldRule.getFieldName(), fieldRule.getValueName());
-            }
+    private static CodeBlock makeValidateCall(FieldRule fieldRule, int index) {
+        if (isInlined(fieldRule)) {
+            return CodeBlock.of("setValid($L, $L)", index, makeInlinedCheck(fieldRule, fieldRule.getValueName()));
         }
+        return CodeBlock.of("validate($L, $L, $L)", index, fieldRule.getRuleFieldName(), fieldRule.getValueName());
+    }
 
-        return builder.build();
+    /**
+     * Rules whose parameters are all constants are checked in the generated methods themselves,
+     * with no rule object. Subclasses of them could check anything, so only the rules themselves.
+     */
+    private static boolean isInlined(FieldRule fieldRule) {
+        Class<? extends Rule> ruleType = fieldRule.fieldRuleType;
+        return ruleType.equals(MinRule.class) || ruleType.equals(MaxRule.class) || ruleType.equals(RangeRule.class)
+                || ruleType.equals(SelectRule.class) || ruleType.equals(CheckedRule.class) || ruleType.equals(NotNullRule.class);
+    }
+
+    // Same checks as the rules' own isValid
+    private static CodeBlock makeInlinedCheck(FieldRule fieldRule, String value) {
+        Class<? extends Rule> ruleType = fieldRule.fieldRuleType;
+        if (ruleType.equals(MinRule.class)) {
+            return CodeBlock.of("$L > $L", value, ((MinFieldRule) fieldRule).minValue);
+        } else if (ruleType.equals(MaxRule.class)) {
+            return CodeBlock.of("$L < $L", value, ((MaxFieldRule) fieldRule).maxValue);
+        } else if (ruleType.equals(RangeRule.class)) {
+            RangeFieldRule rangeFieldRule = (RangeFieldRule) fieldRule;
+            return rangeFieldRule.includeBounds
+                    ? CodeBlock.of("$L >= $L && $L <= $L", value, rangeFieldRule.minValue, value, rangeFieldRule.maxValue)
+                    : CodeBlock.of("$L > $L && $L < $L", value, rangeFieldRule.minValue, value, rangeFieldRule.maxValue);
+        } else if (ruleType.equals(SelectRule.class)) {
+            return CodeBlock.of("$L > $L", value, ((SelectFieldRule) fieldRule).spinnerMinValue);
+        } else if (ruleType.equals(CheckedRule.class)) {
+            return ((CheckedFieldRule) fieldRule).checkedValue ? CodeBlock.of("$L", value) : CodeBlock.of("!$L", value);
+        }
+        return CodeBlock.of("!$T.isEmpty($L)", TextRule.class, value);
     }
 }
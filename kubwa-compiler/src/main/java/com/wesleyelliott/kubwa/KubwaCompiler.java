@@ -3,6 +3,7 @@ package com.wesleyelliott.kubwa;
 import com.google.auto.service.AutoService;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.TypeSpec;
+import com.wesleyelliott.kubwa.annotation.AdaptiveOrder;
 import com.wesleyelliott.kubwa.annotation.Checked;
 import com.wesleyelliott.kubwa.annotation.ConfirmEmail;
 import com.wesleyelliott.kubwa.annotation.ConfirmPassword;
@@ -22,6 +23,7 @@ import com.wesleyelliott.kubwa.annotation.ValidateUsing;
 import com.wesleyelliott.kubwa.annotation.ZAIdNumber;
 import com.wesleyelliott.kubwa.fieldrule.CheckedFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.CreditCardFieldRule;
+import com.wesleyelliott.kubwa.fieldrule.EmailFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.FieldRule;
 import com.wesleyelliott.kubwa.fieldrule.MaxFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.MinFieldRule;
@@ -29,25 +31,33 @@ import com.wesleyelliott.kubwa.fieldrule.PasswordFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.RangeFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.RegexFieldRule;
 import com.wesleyelliott.kubwa.fieldrule.SelectFieldRule;
+import com.wesleyelliott.kubwa.regex.RedosAnalyzer;
+import com.wesleyelliott.kubwa.regex.RegexCache;
+import com.wesleyelliott.kubwa.regex.UnsupportedRegexException;
 import com.wesleyelliott.kubwa.rule.CreditCardRule;
+import com.wesleyelliott.kubwa.rule.EmailRule;
 import com.wesleyelliott.kubwa.rule.PasswordRule;
 import com.wesleyelliott.kubwa.rule.Rule;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.PackageElement;
@@ -57,78 +67,161 @@ import javax.lang.model.util.Elements;
 import static com.squareup.javapoet.JavaFile.builder;
 import static javax.lang.model.SourceVersion.latestSupported;
 import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.Diagnostic.Kind.WARNING;
 
 @AutoService(Processor.class)
 public class KubwaCompiler extends AbstractProcessor {
 
-    private Map<String, List<String>> processedRulesMap = new HashMap<>();
-
-    @Override
-    public Set<String> getSupportedAnnotationTypes() {
-        Set<String> types = new LinkedHashSet<>();
-        for (Class<? extends Annotation> annotation : getAllSupportedAnnotations()) {
-            types.add(annotation.getCanonicalName());
+    /**
+     * How regexes that can backtrack exponentially are reported: "error", "warning" or "off". By
+     * default only those left to java.util.regex at runtime are errors, and the rest warnings.
+     */
+    static final String OPTION_REDOS = "kubwa.redos";
+
+    /**
+     * "true" to generate validators reporting every validation to a ValidationListener.
+     */
+    static final String OPTION_INSTRUMENTATION = "kubwa.instrumentation";
+
+    // Parsers of the rule annotations by qualified name, in the order their rules are generated
+    private final Map<String, RuleParser> parsers = new LinkedHashMap<>();
+    private final Map<String, Class<? extends Rule>> ruleTypes = new HashMap<>();
+    // Annotations repeating a rule annotation, like Email.List, and the one each repeats
+    private final Map<String, String> containers = new LinkedHashMap<>();
+    // Both, single annotations first
+    private final List<String> annotationNames = new ArrayList<>();
+    // Shared by every class, as the rules' own regexes are used in many
+    private final RegexCache regexCache = new RegexCache();
+
+    private static final RuleParser NO_VALUES = new RuleParser() {
+        @Override
+        public FieldRule parse(AnnotationValues values) {
+            return new FieldRule();
         }
+    };
+
+    public KubwaCompiler() {
+        addRule(Email.class, Email.List.class, new RuleParser() {
+            @Override
+            public FieldRule parse(AnnotationValues values) throws KubwaException {
+                EmailFieldRule fieldRule = new EmailFieldRule();
+                fieldRule.emailScheme = values.getEnum("scheme", EmailRule.Scheme.class);
+                return fieldRule;
+            }
+        });
+        addRule(FullName.class, FullName.List.class, NO_VALUES);
+        addRule(Password.class, Password.List.class, new RuleParser() {
+            @Override
+            public FieldRule parse(AnnotationValues values) throws KubwaException {
+                PasswordFieldRule fieldRule = new PasswordFieldRule();
+                fieldRule.passwordScheme = values.getEnum("scheme", PasswordRule.Scheme.class);
+                fieldRule.minLength = values.getInt("minLength");
+                return fieldRule;
+            }
+        });
+        addRule(ZAIdNumber.class, ZAIdNumber.List.class, NO_VALUES);
+        addRule(MobileNumber.class, MobileNumber.List.class, NO_VALUES);
+        addRule(NotNull.class, NotNull.List.class, NO_VALUES);
+        addRule(Regex.class, Regex.List.class, new RuleParser() {
+            @Override
+            public FieldRule parse(AnnotationValues values) throws KubwaException {
+                RegexFieldRule fieldRule = new RegexFieldRule();
+                fieldRule.regex = values.getString("regex");
+
+                try {
+                    Pattern.compile(fieldRule.regex);
+                } catch (PatternSyntaxException e) {
+                    throw new KubwaException("Invalid regex for " + values.getString("name") + " : " + e.getDescription() + " in " + fieldRule.regex);
+                }
+                return fieldRule;
+            }
+        });
+        addRule(Checked.class, Checked.List.class, new RuleParser() {
+            @Override
+            public FieldRule parse(AnnotationValues values) throws KubwaException {
+                CheckedFieldRule fieldRule = new CheckedFieldRule();
+                fieldRule.checkedValue = values.getBoolean("value");
+                return fieldRule;
+            }
+        });
+        addRule(ConfirmEmail.class, ConfirmEmail.List.class, NO_VALUES);
+        addRule(ConfirmPassword.class, ConfirmPassword.List.class, NO_VALUES);
+        addRule(Min.class, Min.List.class, new RuleParser() {
+            @Override
+            public FieldRule parse(AnnotationValues values) throws KubwaException {
+                MinFieldRule fieldRule = new MinFieldRule();
+                fieldRule.minValue = values.getInt("value");
+                return fieldRule;
+            }
+        });
+        addRule(Max.class, Max.List.class, new RuleParser() {
+            @Override
+            public FieldRule parse(AnnotationValues values) throws KubwaException {
+                MaxFieldRule fieldRule = new MaxFieldRule();
+                fieldRule.maxValue = values.getInt("value");
+                return fieldRule;
+            }
+        });
+        addRule(Select.class, Select.List.class, new RuleParser() {
+            @Override
+            public FieldRule parse(AnnotationValues values) throws KubwaException {
+                SelectFieldRule fieldRule = new SelectFieldRule();
+                fieldRule.spinnerMinValue = values.getInt("value");
+                return fieldRule;
+            }
+        });
+        addRule(Range.class, Range.List.class, new RuleParser() {
+            @Override
+            public FieldRule parse(AnnotationValues values) throws KubwaException {
+                RangeFieldRule fieldRule = new RangeFieldRule();
+                fieldRule.minValue = values.getInt("min");
+                fieldRule.maxValue = values.getInt("max");
+                fieldRule.includeBounds = values.getBoolean("includeBounds");
+                return fieldRule;
+            }
+        });
+        addRule(CreditCard.class, CreditCard.List.class, new RuleParser() {
+            @Override
+            public FieldRule parse(AnnotationValues values) throws KubwaException {
+                CreditCardFieldRule fieldRule = new CreditCardFieldRule();
+                List<CreditCardRule.Type> types = values.getEnums("types", CreditCardRule.Type.class);
+                fieldRule.creditCardTypes = types.toArray(new CreditCardRule.Type[types.size()]);
+                return fieldRule;
+            }
+        });
+        addRule(TaxNumber.class, TaxNumber.List.class, NO_VALUES);
 
-        return types;
+        annotationNames.addAll(parsers.keySet());
+        annotationNames.addAll(containers.keySet());
     }
 
-    @Override
-    public SourceVersion getSupportedSourceVersion() {
-        return latestSupported();
+    /**
+     * The rule type is read from the annotation's ValidateUsing once here, not for every element.
+     */
+    private void addRule(Class<? extends Annotation> annotation, Class<? extends Annotation> container, RuleParser parser) {
+        String annotationName = annotation.getCanonicalName();
+        parsers.put(annotationName, parser);
+        ruleTypes.put(annotationName, annotation.getAnnotation(ValidateUsing.class).value());
+        containers.put(container.getCanonicalName(), annotationName);
     }
 
-    private Set<Class<? extends Annotation>> getAllSupportedAnnotations() {
-        Set<Class<? extends Annotation>> annotations = new LinkedHashSet<>();
-        annotations.addAll(getSupportedAnnotations());
-        annotations.addAll(getSupportedAnnotationsList());
-        return annotations;
+    @Override
+    public Set<String> getSupportedOptions() {
+        return new LinkedHashSet<>(Arrays.asList(OPTION_REDOS, OPTION_INSTRUMENTATION));
     }
 
-    private Set<Class<? extends Annotation>> getSupportedAnnotations() {
-        Set<Class<? extends Annotation>> annotations = new LinkedHashSet<>();
-
-
-        annotations.add(Email.class);
-        annotations.add(FullName.class);
-        annotations.add(Password.class);
-        annotations.add(ZAIdNumber.class);
-        annotations.add(MobileNumber.class);
-        annotations.add(NotNull.class);
-        annotations.add(Regex.class);
-        annotations.add(Checked.class);
-        annotations.add(ConfirmEmail.class);
-        annotations.add(ConfirmPassword.class);
-        annotations.add(Min.class);
-        annotations.add(Max.class);
-        annotations.add(Select.class);
-        annotations.add(Range.class);
-        annotations.add(CreditCard.class);
-        annotations.add(TaxNumber.class);
-
-        return annotations;
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<>(annotationNames);
+        // Only read from classes that have rules, but claimed so it isn't reported as unprocessed
+        types.add(AdaptiveOrder.class.getCanonicalName());
+
+        return types;
     }
 
-    private Set<Class<? extends Annotation>> getSupportedAnnotationsList() {
-        Set<Class<? extends Annotation>> annotations = new LinkedHashSet<>();
-        annotations.add(Email.List.class);
-        annotations.add(FullName.List.class);
-        annotations.add(Password.List.class);
-        annotations.add(ZAIdNumber.List.class);
-        annotations.add(MobileNumber.List.class);
-        annotations.add(NotNull.List.class);
-        annotations.add(Regex.List.class);
-        annotations.add(Checked.List.class);
-        annotations.add(ConfirmEmail.List.class);
-        annotations.add(ConfirmPassword.List.class);
-        annotations.add(Min.List.class);
-        annotations.add(Max.List.class);
-        annotations.add(Select.List.class);
-        annotations.add(Range.List.class);
-        annotations.add(CreditCard.List.class);
-        annotations.add(TaxNumber.List.class);
-
-        return annotations;
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return latestSupported();
     }
 
 
@@ -144,227 +237,130 @@ public class KubwaCompiler extends AbstractProcessor {
         return true;
     }
 
+    /**
+     * Each class is parsed on its own, with no state kept between classes or rounds, so the
+     * processor is isolating and a class's validator only depends on the class itself.
+     */
     private Map<TypeElement, AnnotatedClass> processTargets(RoundEnvironment env) {
-        Map<TypeElement, AnnotatedClass> annotatedClasses = new HashMap<>();
+        Elements elementUtils = processingEnv.getElementUtils();
+        Set<TypeElement> typeElements = new LinkedHashSet<>();
 
-        for (Class<? extends Annotation> supportedAnnotation : getAllSupportedAnnotations()) {
-            for (Element element : env.getElementsAnnotatedWith(supportedAnnotation)) {
+        for (String annotationName : annotationNames) {
+            TypeElement annotationType = elementUtils.getTypeElement(annotationName);
+            if (annotationType == null) {
+                continue;
+            }
+
+            for (Element element : env.getElementsAnnotatedWith(annotationType)) {
                 if (element.getKind() == ElementKind.CLASS) {
-                    TypeElement typeElement = (TypeElement) element;
-                    AnnotatedClass annotatedClass;
-                    List<FieldRule> fieldRules = new ArrayList<>();
-
-                    try {
-
-                        if (getSupportedAnnotations().contains(supportedAnnotation)) {
-                            // Single Annotation
-                            fieldRules.add(parseSingle(typeElement, typeElement.getAnnotation(supportedAnnotation)));
-                        } else if (getSupportedAnnotationsList().contains(supportedAnnotation)) {
-                            // List of Annotations
-                            fieldRules = parseList(typeElement, supportedAnnotation);
-                        }
-
-                        // Prevent duplicating class with new annotations, rather append
-                        if (annotatedClasses.containsKey(typeElement)) {
-                            annotatedClass = annotatedClasses.get(typeElement);
-                        } else {
-                            annotatedClass = new AnnotatedClass(typeElement);
-                        }
-
-                        annotatedClass.addFieldRules(fieldRules);
-                        annotatedClasses.put(typeElement, annotatedClass);
-                    } catch (KubwaException kubwaE) {
-                        processingEnv.getMessager().printMessage(ERROR, kubwaE.getMessage(), typeElement);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
+                    typeElements.add((TypeElement) element);
                 }
+            }
+        }
 
+        Map<TypeElement, AnnotatedClass> annotatedClasses = new LinkedHashMap<>();
+        for (TypeElement typeElement : typeElements) {
+            AnnotatedClass annotatedClass = parseClass(typeElement);
+            if (annotatedClass != null) {
+                annotatedClasses.put(typeElement, annotatedClass);
             }
         }
 
         return annotatedClasses;
     }
 
-    private<T extends Annotation, FR extends FieldRule> FR parse(FR fieldRule, TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-
-        // Check we haven't hit a duplicate
-        String annotationName = (String) annotation.annotationType().getMethod("name").invoke(annotation);
-        String className = typeElement.getSimpleName().toString();
-
-        List<String> classProcessedRules = processedRulesMap.get(className);
-        if (classProcessedRules == null) {
-            classProcessedRules = new ArrayList<>();
+    /**
+     * Parses a class's rules, single annotations first and then lists of them. Null if any of
+     * them is invalid, the errors having been reported.
+     */
+    private AnnotatedClass parseClass(TypeElement typeElement) {
+        Elements elementUtils = processingEnv.getElementUtils();
+        Map<String, AnnotationMirror> annotations = new HashMap<>();
+        for (AnnotationMirror annotation : typeElement.getAnnotationMirrors()) {
+            annotations.put(((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString(), annotation);
         }
 
-        if (classProcessedRules.contains(annotationName)) {
-            throw new KubwaException("Duplicate Validation Names found for " + annotation.annotationType().getSimpleName() + " : " + annotationName);
-        }
-
-        classProcessedRules.add(annotationName);
-        processedRulesMap.put(className, classProcessedRules);
-
-        fieldRule.fieldName = (String) annotation.annotationType().getMethod("name").invoke(annotation);
-        fieldRule.fieldErrorResource = (int) annotation.annotationType().getMethod("errorMessage").invoke(annotation);
-        fieldRule.fieldRuleType = getRuleType(annotation);
-        fieldRule.fieldRule = createRule(fieldRule.fieldRuleType, annotation);
-
-        return fieldRule;
-    }
-
-    private<T extends Annotation> CreditCardFieldRule parseCreditCard(TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        CreditCardFieldRule fieldRule = parse(new CreditCardFieldRule(), typeElement, annotation);
-        fieldRule.creditCardTypes = (CreditCardRule.Type[]) annotation.annotationType().getMethod("types").invoke(annotation);
-
-        return fieldRule;
-    }
-
-    private<T extends Annotation> SelectFieldRule parseSpinner(TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        SelectFieldRule fieldRule = parse(new SelectFieldRule(), typeElement, annotation);
-        fieldRule.spinnerMinValue = (Integer) annotation.annotationType().getMethod("value").invoke(annotation);
+        AnnotatedClass annotatedClass = new AnnotatedClass(typeElement);
+        // Rule names already taken in this class
+        Set<String> ruleNames = new HashSet<>();
+        boolean valid = true;
 
-        return fieldRule;
-    }
-
-    private<T extends Annotation> RangeFieldRule parseRange(TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        RangeFieldRule fieldRule = parse(new RangeFieldRule(), typeElement, annotation);
-        fieldRule.minValue = (Integer) annotation.annotationType().getMethod("min").invoke(annotation);
-        fieldRule.maxValue = (Integer) annotation.annotationType().getMethod("max").invoke(annotation);
-        fieldRule.includeBounds = (Boolean) annotation.annotationType().getMethod("includeBounds").invoke(annotation);
-
-        return fieldRule;
-    }
-
-    private<T extends Annotation> MinFieldRule parseMin(TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        MinFieldRule fieldRule = parse(new MinFieldRule(), typeElement, annotation);
-        fieldRule.minValue = (Integer) annotation.annotationType().getMethod("value").invoke(annotation);
-
-        return fieldRule;
-    }
-
-    private<T extends Annotation> MaxFieldRule parseMax(TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        MaxFieldRule fieldRule = parse(new MaxFieldRule(), typeElement, annotation);
-        fieldRule.maxValue = (Integer) annotation.annotationType().getMethod("value").invoke(annotation);
-
-        return fieldRule;
-    }
-
-    private<T extends Annotation> CheckedFieldRule parseChecked(TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        CheckedFieldRule fieldRule = parse(new CheckedFieldRule(), typeElement, annotation);
-        fieldRule.checkedValue = (Boolean) annotation.annotationType().getMethod("value").invoke(annotation);
-
-        return fieldRule;
-    }
-
-    private<T extends Annotation> PasswordFieldRule parsePassword(TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        PasswordFieldRule fieldRule = parse(new PasswordFieldRule(), typeElement, annotation);
-        fieldRule.passwordScheme = (PasswordRule.Scheme) annotation.annotationType().getMethod("scheme").invoke(annotation);
-
-        return fieldRule;
-    }
+        for (String annotationName : annotationNames) {
+            AnnotationMirror annotation = annotations.get(annotationName);
+            if (annotation == null) {
+                continue;
+            }
 
-    private<T extends Annotation> RegexFieldRule parseRegex(TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        RegexFieldRule fieldRule = parse(new RegexFieldRule(), typeElement, annotation);
-        fieldRule.regex = (String) annotation.annotationType().getMethod("regex").invoke(annotation);
+            try {
+                if (parsers.containsKey(annotationName)) {
+                    // Single Annotation
+                    annotatedClass.fieldRules.add(parse(annotationName, annotation, ruleNames));
+                } else {
+                    // List of Annotations
+                    String ruleAnnotationName = containers.get(annotationName);
+                    for (AnnotationMirror ruleAnnotation : new AnnotationValues(elementUtils, annotation).getAnnotations("value")) {
+                        annotatedClass.fieldRules.add(parse(ruleAnnotationName, ruleAnnotation, ruleNames));
+                    }
+                }
+            } catch (KubwaException kubwaE) {
+                processingEnv.getMessager().printMessage(ERROR, kubwaE.getMessage(), typeElement, annotation);
+                valid = false;
+            }
+        }
 
-        return fieldRule;
-    }
+        AnnotationMirror adaptiveOrder = annotations.get(AdaptiveOrder.class.getCanonicalName());
+        if (adaptiveOrder != null) {
+            try {
+                annotatedClass.reorderInterval = parseAdaptiveOrder(adaptiveOrder);
+            } catch (KubwaException kubwaE) {
+                processingEnv.getMessager().printMessage(ERROR, kubwaE.getMessage(), typeElement, adaptiveOrder);
+                valid = false;
+            }
+        }
 
-    private<T extends Annotation> FieldRule parseSingle(TypeElement typeElement, T annotation) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        FieldRule fieldRule;
-
-        if (Utils.isAnnotationType(annotation.annotationType(), Password.class)) {
-            fieldRule = parsePassword(typeElement, annotation);
-        } else if (Utils.isAnnotationType(annotation.annotationType(), Regex.class)) {
-            fieldRule = parseRegex(typeElement, annotation);
-        } else if (Utils.isAnnotationType(annotation.annotationType(), Checked.class)) {
-            fieldRule = parseChecked(typeElement, annotation);
-        } else if (Utils.isAnnotationType(annotation.annotationType(), Min.class)) {
-            fieldRule = parseMin(typeElement, annotation);
-        } else if (Utils.isAnnotationType(annotation.annotationType(), Max.class)) {
-            fieldRule = parseMax(typeElement, annotation);
-        } else if (Utils.isAnnotationType(annotation.annotationType(), Select.class)) {
-            fieldRule = parseSpinner(typeElement, annotation);
-        } else if (Utils.isAnnotationType(annotation.annotationType(), Range.class)) {
-            fieldRule = parseRange(typeElement, annotation);
-        } else if (Utils.isAnnotationType(annotation.annotationType(), CreditCard.class)) {
-            fieldRule = parseCreditCard(typeElement, annotation);
-        } else {
-            fieldRule = parse(new FieldRule(), typeElement, annotation);
+        if (valid) {
+            try {
+                annotatedClass.values = ValueConstraints.of(annotatedClass.fieldRules, regexCache);
+            } catch (KubwaException kubwaE) {
+                processingEnv.getMessager().printMessage(ERROR, kubwaE.getMessage(), typeElement);
+                valid = false;
+            }
+        }
+        if (valid) {
+            for (ValueConstraints value : annotatedClass.values) {
+                for (String warning : value.warnings) {
+                    processingEnv.getMessager().printMessage(WARNING, warning, typeElement);
+                }
+            }
         }
 
-        return fieldRule;
+        return valid ? annotatedClass : null;
     }
 
-    private<T extends Annotation> List<FieldRule> parseList(TypeElement typeElement, Class<T> annotationType) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, KubwaException {
-        List<FieldRule> fieldRules = new ArrayList<>();
-        T annotationParent = typeElement.getAnnotation(annotationType);
+    private FieldRule parse(String annotationName, AnnotationMirror annotation, Set<String> ruleNames) throws KubwaException {
+        AnnotationValues values = new AnnotationValues(processingEnv.getElementUtils(), annotation);
 
-        T[] annotationList = (T[]) annotationParent.annotationType().getMethod("value").invoke(annotationParent);
-
-        for (T annotation : annotationList) {
-            fieldRules.add(parseSingle(typeElement, annotation));
+        // Check we haven't hit a duplicate
+        String ruleName = values.getString("name");
+        if (!ruleNames.add(ruleName)) {
+            throw new KubwaException("Duplicate Validation Names found for " + annotation.getAnnotationType().asElement().getSimpleName() + " : " + ruleName);
         }
 
+        FieldRule fieldRule = parsers.get(annotationName).parse(values);
+        fieldRule.fieldName = ruleName;
+        fieldRule.fieldErrorResource = values.getInt("errorMessage");
+        fieldRule.field = values.getString("field");
+        fieldRule.fieldRuleType = ruleTypes.get(annotationName);
 
-        return fieldRules;
-    }
-
-
-    private Class<? extends Rule> getRuleType(Annotation ruleAnnotation) {
-        ValidateUsing validateUsing = ruleAnnotation.annotationType().getAnnotation(ValidateUsing.class);
-        return validateUsing != null ? validateUsing.value() : null;
+        return fieldRule;
     }
 
-    private Rule createRule(Class<? extends Rule> ruleType, final Annotation ruleAnnotation) {
-        Rule rule = null;
-
-        try {
-            if (Rule.class.isAssignableFrom(ruleType)) {
-                Constructor<?> constructor;
-
-                if (Utils.isAnnotationType(ruleAnnotation.annotationType(), Password.class)) {
-                    constructor = ruleType.getDeclaredConstructor(PasswordRule.Scheme.class);
-                    constructor.setAccessible(true);
-                    rule = (Rule) constructor.newInstance(ruleAnnotation.annotationType().getMethod("scheme").invoke(ruleAnnotation));
-                } else if (Utils.isAnnotationType(ruleAnnotation.annotationType(), Checked.class)) {
-                    constructor = ruleType.getDeclaredConstructor(Boolean.class);
-                    constructor.setAccessible(true);
-                    rule = (Rule) constructor.newInstance(ruleAnnotation.annotationType().getMethod("value").invoke(ruleAnnotation));
-                } else if (Utils.isAnnotationType(ruleAnnotation.annotationType(), Min.class)
-                        || Utils.isAnnotationType(ruleAnnotation.annotationType(), Max.class)
-                        || Utils.isAnnotationType(ruleAnnotation.annotationType(), Select.class)) {
-                    constructor = ruleType.getDeclaredConstructor(Integer.class);
-                    constructor.setAccessible(true);
-                    rule = (Rule) constructor.newInstance(ruleAnnotation.annotationType().getMethod("value").invoke(ruleAnnotation));
-                } else if (Utils.isAnnotationType(ruleAnnotation.annotationType(), Range.class)) {
-                    constructor = ruleType.getDeclaredConstructor(Integer.class, Integer.class, Boolean.class);
-                    constructor.setAccessible(true);
-                    Integer min = (Integer) ruleAnnotation.annotationType().getMethod("min").invoke(ruleAnnotation);
-                    Integer max = (Integer) ruleAnnotation.annotationType().getMethod("max").invoke(ruleAnnotation);
-                    Boolean includeBounds = (Boolean) ruleAnnotation.annotationType().getMethod("includeBounds").invoke(ruleAnnotation);
-                    rule = (Rule) constructor.newInstance(min, max, includeBounds);
-                } else if (Utils.isAnnotationType(ruleAnnotation.annotationType(), CreditCard.class)) {
-                    constructor = ruleType.getDeclaredConstructor();
-                    constructor.setAccessible(true);
-                    rule = (CreditCardRule) constructor.newInstance();
-
-                    CreditCardRule.Type[] creditCardTypes = (CreditCardRule.Type[]) ruleAnnotation.annotationType().getMethod("types").invoke(ruleAnnotation);
-                    for (CreditCardRule.Type type : creditCardTypes) {
-                        ((CreditCardRule) rule).addCreditCard(type);
-                    }
-                } else {
-                    constructor = ruleType.getDeclaredConstructor();
-                    constructor.setAccessible(true);
-                    rule = (Rule) constructor.newInstance();
-                }
-
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    private int parseAdaptiveOrder(AnnotationMirror adaptiveOrder) throws KubwaException {
+        int reorderInterval = new AnnotationValues(processingEnv.getElementUtils(), adaptiveOrder).getInt("reorderInterval");
+        if (reorderInterval <= 0) {
+            throw new KubwaException("AdaptiveOrder reorderInterval must be positive: " + reorderInterval);
         }
-
-        return rule;
+        return reorderInterval;
     }
 
     private void generate(Map<TypeElement, AnnotatedClass> annos) throws IOException {
@@ -372,10 +368,18 @@ public class KubwaCompiler extends AbstractProcessor {
             return;
         }
 
+        // Context constructors are only generated when the Android adapter can be compiled against
+        Elements elementUtils = processingEnv.getElementUtils();
+        boolean android = elementUtils.getTypeElement(CodeGenerator.CONTEXT.toString()) != null
+                && elementUtils.getTypeElement(CodeGenerator.RESOURCE_MESSAGE_RESOLVER.toString()) != null;
+        boolean instrumented = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_INSTRUMENTATION));
+
         for (AnnotatedClass annotatedClass : annos.values()) {
-            String packageName = getPackageName(processingEnv.getElementUtils(), annotatedClass.typeElement);
+            checkRegexes(annotatedClass);
+
+            String packageName = getPackageName(elementUtils, annotatedClass.typeElement);
             try {
-                TypeSpec generatedClass = CodeGenerator.generateClass(annotatedClass);
+                TypeSpec generatedClass = CodeGenerator.generateClass(annotatedClass, android, instrumented);
 
                 JavaFile javaFile = builder(packageName, generatedClass).build();
                 javaFile.writeTo(processingEnv.getFiler());
@@ -387,6 +391,40 @@ public class KubwaCompiler extends AbstractProcessor {
 
     }
 
+    private void checkRegexes(AnnotatedClass annotatedClass) {
+        String mode = processingEnv.getOptions().get(OPTION_REDOS);
+        if ("off".equals(mode)) {
+            return;
+        }
+
+        for (FieldRule fieldRule : annotatedClass.fieldRules) {
+            String regex = Utils.getRegex(fieldRule);
+            if (regex == null) {
+                continue;
+            }
+
+            for (RedosAnalyzer.Finding finding : regexCache.analyze(regex)) {
+                boolean error = false;
+                if (finding.complexity == RedosAnalyzer.Complexity.EXPONENTIAL) {
+                    error = mode == null ? !compilesToDfa(regex) : "error".equals(mode);
+                }
+                processingEnv.getMessager().printMessage(error ? ERROR : WARNING,
+                        "Regex of " + fieldRule.fieldName + " can backtrack catastrophically: " + finding.message,
+                        annotatedClass.typeElement);
+            }
+        }
+    }
+
+    // Generated validators match these without backtracking
+    private boolean compilesToDfa(String regex) {
+        try {
+            regexCache.compile(regex);
+            return true;
+        } catch (UnsupportedRegexException e) {
+            return false;
+        }
+    }
+
     private String getPackageName(Elements elementUtils, TypeElement type) {
         PackageElement pkg = elementUtils.getPackageOf(type);
         if (pkg.isUnnamed()) {
@@ -0,0 +1,48 @@
+package com.wesleyelliott.kubwa;
+
+import com.wesleyelliott.kubwa.rule.BooleanRule;
+import com.wesleyelliott.kubwa.rule.ConfirmRule;
+import com.wesleyelliott.kubwa.rule.DoubleRule;
+import com.wesleyelliott.kubwa.rule.EmailRule;
+import com.wesleyelliott.kubwa.rule.IntRule;
+import com.wesleyelliott.kubwa.rule.LongRule;
+import com.wesleyelliott.kubwa.rule.LuhnRule;
+import com.wesleyelliott.kubwa.rule.NotNullRule;
+import com.wesleyelliott.kubwa.rule.PasswordRule;
+import com.wesleyelliott.kubwa.rule.RegexRule;
+import com.wesleyelliott.kubwa.rule.Rule;
+
+/**
+ * Rough cost of evaluating a rule, cheapest first, used to order fail-fast validation.
+ */
+
+public enum RuleCost {
+    // Comparing a primitive
+    COMPARE,
+    // Checking the length of the text
+    LENGTH,
+    // A single pass over the text: checksums, the email and password scanners, DFA matchers
+    SCAN,
+    // java.util.regex, which can backtrack
+    REGEX,
+    // Anything else
+    CUSTOM;
+
+    /**
+     * @param compiledRegex whether the rule's regex was compiled into a DFA matcher
+     */
+    public static RuleCost of(Class<? extends Rule> ruleType, boolean compiledRegex) {
+        if (IntRule.class.isAssignableFrom(ruleType) || LongRule.class.isAssignableFrom(ruleType)
+                || DoubleRule.class.isAssignableFrom(ruleType) || BooleanRule.class.isAssignableFrom(ruleType)) {
+            return COMPARE;
+        } else if (NotNullRule.class.isAssignableFrom(ruleType)) {
+            return LENGTH;
+        } else if (LuhnRule.class.isAssignableFrom(ruleType) || EmailRule.class.isAssignableFrom(ruleType)
+                || PasswordRule.class.isAssignableFrom(ruleType) || ConfirmRule.class.isAssignableFrom(ruleType)) {
+            return SCAN;
+        } else if (RegexRule.class.isAssignableFrom(ruleType)) {
+            return compiledRegex ? SCAN : REGEX;
+        }
+        return CUSTOM;
+    }
+}
@@ -0,0 +1,13 @@
+package com.wesleyelliott.kubwa;
+
+import com.wesleyelliott.kubwa.fieldrule.FieldRule;
+
+/**
+ * Reads the values particular to one rule annotation into a FieldRule. The name, error message
+ * and rule type every annotation has are filled in by the compiler.
+ */
+
+interface RuleParser {
+
+    FieldRule parse(AnnotationValues values) throws KubwaException;
+}
@@ -1,16 +1,12 @@
 package com.wesleyelliott.kubwa;
 
 import com.wesleyelliott.kubwa.fieldrule.FieldRule;
+import com.wesleyelliott.kubwa.fieldrule.RegexFieldRule;
+import com.wesleyelliott.kubwa.rule.FullNameRule;
+import com.wesleyelliott.kubwa.rule.MobileNumberRule;
 import com.wesleyelliott.kubwa.rule.Rule;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-
-import javax.lang.model.element.Element;
-import javax.lang.model.element.TypeElement;
 
 /**
  * Created by wesley on 2016/07/31.
@@ -18,10 +14,6 @@ import javax.lang.model.element.TypeElement;
 
 public class Utils {
 
-    public static boolean isAnnotationType(Class<? extends Annotation> annotation, Class type) {
-        return annotation.getSimpleName().equals(type.getSimpleName());
-    }
-
     public static boolean isRuleType(Class<? extends Rule> rule, Class type) {
         return rule.getSimpleName().equals(type.getSimpleName());
     }
@@ -35,22 +27,19 @@ public class Utils {
         return null;
     }
 
-    public static boolean classHasNameDuplicates(Set<? extends Element> elements, List<Class<? extends Annotation>> supportedAnnotations) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
-        Set<String> annotationNames = new HashSet<>();
-
-        for (Element element : elements) {
-            for (Class<? extends Annotation> annotation : supportedAnnotations) {
-                TypeElement typeElement = (TypeElement) element;
-                String annotationName = (String) annotation.getMethod("name").invoke(typeElement.getAnnotation(annotation));
-
-                if (annotationNames.contains(annotationName)) {
-                    return true;
-                }
-
-                annotationNames.add(annotationName);
-            }
+    /**
+     * The regex a rule matches values against, null if it doesn't use one.
+     */
+    public static String getRegex(FieldRule fieldRule) {
+        if (fieldRule instanceof RegexFieldRule) {
+            return ((RegexFieldRule) fieldRule).regex;
         }
-
-        return false;
+        // Passwords are checked by a scanner, not their scheme's regex, so only these two remain
+        if (FullNameRule.class.equals(fieldRule.fieldRuleType)) {
+            return FullNameRule.REGEX;
+        } else if (MobileNumberRule.class.equals(fieldRule.fieldRuleType)) {
+            return MobileNumberRule.REGEX;
+        }
+        return null;
     }
 }
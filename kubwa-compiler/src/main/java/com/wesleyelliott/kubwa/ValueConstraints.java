@@ -0,0 +1,255 @@
+package com.wesleyelliott.kubwa;
+
+import com.squareup.javapoet.TypeName;
+import com.wesleyelliott.kubwa.constraint.Constraint;
+import com.wesleyelliott.kubwa.constraint.IntervalConstraint;
+import com.wesleyelliott.kubwa.constraint.TextConstraint;
+import com.wesleyelliott.kubwa.fieldrule.FieldRule;
+import com.wesleyelliott.kubwa.fieldrule.MaxFieldRule;
+import com.wesleyelliott.kubwa.fieldrule.MinFieldRule;
+import com.wesleyelliott.kubwa.fieldrule.RangeFieldRule;
+import com.wesleyelliott.kubwa.fieldrule.SelectFieldRule;
+import com.wesleyelliott.kubwa.regex.RegexCache;
+import com.wesleyelliott.kubwa.regex.UnsupportedRegexException;
+import com.wesleyelliott.kubwa.rule.CreditCardRule;
+import com.wesleyelliott.kubwa.rule.EmailRule;
+import com.wesleyelliott.kubwa.rule.FullNameRule;
+import com.wesleyelliott.kubwa.rule.MaxRule;
+import com.wesleyelliott.kubwa.rule.MinRule;
+import com.wesleyelliott.kubwa.rule.MobileNumberRule;
+import com.wesleyelliott.kubwa.rule.NotNullRule;
+import com.wesleyelliott.kubwa.rule.RangeRule;
+import com.wesleyelliott.kubwa.rule.RegexRule;
+import com.wesleyelliott.kubwa.rule.Rule;
+import com.wesleyelliott.kubwa.rule.SelectRule;
+import com.wesleyelliott.kubwa.rule.TaxNumberRule;
+import com.wesleyelliott.kubwa.rule.ZAIdNumberRule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rules checking one value, and what the compiler could prove about the values each accepts.
+ * validateAll evaluates them in order, deriving the outcome of a rule from those evaluated before
+ * it when it can, and for several interval rules first checks the interval they all accept.
+ */
+
+public class ValueConstraints {
+
+    public final String valueName;
+    public final TypeName valueType;
+    // Indices of the rules, in the order they're evaluated
+    public final List<Integer> rules = new ArrayList<>();
+    // The ints every rule accepts, when there are several rules, all of intervals, else null
+    public IntervalConstraint intersection;
+    // Problems found in the rules, reported as warnings
+    public final List<String> warnings = new ArrayList<>();
+
+    // Null for rules nothing is known about
+    private final Map<Integer, Constraint> constraints = new HashMap<>();
+
+    private ValueConstraints(String valueName, TypeName valueType) {
+        this.valueName = valueName;
+        this.valueType = valueType;
+    }
+
+    /**
+     * Groups the rules by the value they check, in the order of each value's first rule.
+     *
+     * @param regexCache compiles the DFAs of the rules' regexes
+     */
+    public static List<ValueConstraints> of(List<FieldRule> fieldRuleList, RegexCache regexCache) throws KubwaException {
+        Map<String, ValueConstraints> values = new LinkedHashMap<>();
+        for (int i = 0; i < fieldRuleList.size(); i++) {
+            FieldRule fieldRule = fieldRuleList.get(i);
+            TypeName valueType = CodeGenerator.getValueType(fieldRule);
+            ValueConstraints value = values.get(fieldRule.getValueName());
+            if (value == null) {
+                value = new ValueConstraints(fieldRule.getValueName(), valueType);
+                values.put(value.valueName, value);
+            } else if (fieldRule.field.isEmpty() || fieldRuleList.get(value.rules.get(0)).field.isEmpty()) {
+                // A rule without a field checks a value of its own, which only shares the name
+                throw new KubwaException("Rules " + fieldRuleList.get(value.rules.get(0)).fieldName + " and " + fieldRule.fieldName
+                        + " check different values both named " + value.valueName + ". Rename a rule, or give both the same field");
+            } else if (!value.valueType.equals(valueType)) {
+                throw new KubwaException("Rules of the same field must check the same type, but " + fieldRule.fieldName + " checks "
+                        + valueType + " and " + fieldRuleList.get(value.rules.get(0)).fieldName + " " + value.valueType);
+            }
+            value.rules.add(i);
+            value.constraints.put(i, getConstraint(fieldRule, regexCache));
+        }
+
+        for (ValueConstraints value : values.values()) {
+            value.simplify(fieldRuleList);
+        }
+        return new ArrayList<>(values.values());
+    }
+
+    public Constraint getConstraint(int rule) {
+        return constraints.get(rule);
+    }
+
+    /**
+     * Rules evaluated before this one that, having passed, prove it passes.
+     */
+    public List<Integer> getValidIfPassed(int rule) {
+        List<Integer> rules = new ArrayList<>();
+        for (int earlier : getEarlierRules(rule)) {
+            Constraint constraint = constraints.get(earlier);
+            if (!constraint.isUnsatisfiable() && constraint.implies(constraints.get(rule))) {
+                rules.add(earlier);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Rules evaluated before this one that, having passed, prove it fails.
+     */
+    public List<Integer> getInvalidIfPassed(int rule) {
+        List<Integer> rules = new ArrayList<>();
+        for (int earlier : getEarlierRules(rule)) {
+            if (constraints.get(earlier).excludes(constraints.get(rule))) {
+                rules.add(earlier);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Rules evaluated before this one that, having failed, prove it fails.
+     */
+    public List<Integer> getInvalidIfFailed(int rule) {
+        List<Integer> rules = new ArrayList<>();
+        Constraint constraint = constraints.get(rule);
+        for (int earlier : getEarlierRules(rule)) {
+            if (!constraint.isUnsatisfiable() && constraint.implies(constraints.get(earlier))) {
+                rules.add(earlier);
+            }
+        }
+        return rules;
+    }
+
+    // Only rules with a constraint, as no other can be related to them
+    private List<Integer> getEarlierRules(int rule) {
+        List<Integer> earlier = new ArrayList<>();
+        if (constraints.get(rule) == null) {
+            return earlier;
+        }
+        for (int other : rules) {
+            if (other == rule) {
+                break;
+            }
+            if (constraints.get(other) != null) {
+                earlier.add(other);
+            }
+        }
+        return earlier;
+    }
+
+    /**
+     * Finds the rules that can never pass or fail, or that contradict or repeat each other, then
+     * orders the rules so those proving the most about the others come first, cheapest first
+     * among those proving as much.
+     */
+    private void simplify(List<FieldRule> fieldRuleList) {
+        for (int i = 0; i < rules.size(); i++) {
+            int rule = rules.get(i);
+            Constraint constraint = constraints.get(rule);
+            if (constraint == null) {
+                continue;
+            }
+            String name = fieldRuleList.get(rule).fieldName;
+            if (constraint.isUnsatisfiable()) {
+                warnings.add("Rule " + name + " can never pass");
+                continue;
+            } else if (constraint.isTautology()) {
+                warnings.add("Rule " + name + " can never fail, so its error is never shown");
+            }
+
+            for (int j = i + 1; j < rules.size(); j++) {
+                Constraint other = constraints.get(rules.get(j));
+                if (other == null || other.isUnsatisfiable()) {
+                    continue;
+                }
+                String otherName = fieldRuleList.get(rules.get(j)).fieldName;
+                if (constraint.excludes(other)) {
+                    warnings.add("Rules " + name + " and " + otherName + " can never both pass");
+                } else if (constraint.implies(other) && other.implies(constraint)) {
+                    warnings.add("Rules " + name + " and " + otherName + " accept the same values");
+                }
+            }
+        }
+
+        final Map<Integer, Integer> implied = new HashMap<>();
+        final Map<Integer, RuleCost> costs = new HashMap<>();
+        for (int rule : rules) {
+            Constraint constraint = constraints.get(rule);
+            int count = 0;
+            for (int other : rules) {
+                if (other != rule && constraint != null && constraints.get(other) != null
+                        && !constraint.isUnsatisfiable() && constraint.implies(constraints.get(other))) {
+                    count++;
+                }
+            }
+            implied.put(rule, count);
+            boolean compiledRegex = constraint instanceof TextConstraint && ((TextConstraint) constraint).getDfa() != null;
+            costs.put(rule, RuleCost.of(fieldRuleList.get(rule).fieldRuleType, compiledRegex));
+        }
+        // Stable, so rules alike stay in annotation order
+        Collections.sort(rules, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer rule1, Integer rule2) {
+                int byImplied = implied.get(rule2) - implied.get(rule1);
+                return byImplied != 0 ? byImplied : costs.get(rule1).compareTo(costs.get(rule2));
+            }
+        });
+
+        IntervalConstraint intersection = null;
+        for (int rule : rules) {
+            Constraint constraint = constraints.get(rule);
+            if (!(constraint instanceof IntervalConstraint)) {
+                return;
+            }
+            intersection = intersection == null ? (IntervalConstraint) constraint : intersection.intersect((IntervalConstraint) constraint);
+        }
+        if (rules.size() > 1 && !intersection.isUnsatisfiable() && !intersection.isTautology()) {
+            this.intersection = intersection;
+        }
+    }
+
+    /**
+     * The values a rule accepts. Only the rules themselves are known, as subclasses could check
+     * anything, and the text rules known all reject empty text.
+     */
+    static Constraint getConstraint(FieldRule fieldRule, RegexCache regexCache) {
+        Class<? extends Rule> ruleType = fieldRule.fieldRuleType;
+        if (ruleType.equals(MinRule.class)) {
+            return IntervalConstraint.greaterThan(((MinFieldRule) fieldRule).minValue);
+        } else if (ruleType.equals(MaxRule.class)) {
+            return IntervalConstraint.lessThan(((MaxFieldRule) fieldRule).maxValue);
+        } else if (ruleType.equals(RangeRule.class)) {
+            RangeFieldRule rangeFieldRule = (RangeFieldRule) fieldRule;
+            return IntervalConstraint.between(rangeFieldRule.minValue, rangeFieldRule.maxValue, rangeFieldRule.includeBounds);
+        } else if (ruleType.equals(SelectRule.class)) {
+            return IntervalConstraint.greaterThan(((SelectFieldRule) fieldRule).spinnerMinValue);
+        } else if (ruleType.equals(NotNullRule.class)) {
+            return TextConstraint.notEmpty();
+        } else if (ruleType.equals(RegexRule.class) || ruleType.equals(FullNameRule.class) || ruleType.equals(MobileNumberRule.class)) {
+            try {
+                return TextConstraint.matching(regexCache.compile(Utils.getRegex(fieldRule)));
+            } catch (UnsupportedRegexException e) {
+                return TextConstraint.unknown();
+            }
+        } else if (ruleType.equals(EmailRule.class) || ruleType.equals(CreditCardRule.class)
+                || ruleType.equals(ZAIdNumberRule.class) || ruleType.equals(TaxNumberRule.class)) {
+            return TextConstraint.unknown();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.wesleyelliott.kubwa.constraint;
+
+/**
+ * The values a rule accepts, as far as the compiler can tell. The relations between constraints
+ * are only true when they can be proven; false means unknown as well as not holding.
+ */
+
+public abstract class Constraint {
+
+    /**
+     * Whether every value this accepts, other accepts too.
+     */
+    public abstract boolean implies(Constraint other);
+
+    /**
+     * Whether no value is accepted by both.
+     */
+    public abstract boolean excludes(Constraint other);
+
+    /**
+     * Whether no value is accepted.
+     */
+    public abstract boolean isUnsatisfiable();
+
+    /**
+     * Whether every value is accepted.
+     */
+    public abstract boolean isTautology();
+}
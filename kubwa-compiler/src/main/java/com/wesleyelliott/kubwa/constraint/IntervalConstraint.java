@@ -0,0 +1,64 @@
+package com.wesleyelliott.kubwa.constraint;
+
+/**
+ * The ints from min to max, both included. Bounds are longs so a rule's exclusive bound at the
+ * end of the int range doesn't overflow, and min is above max when no int is accepted.
+ */
+
+public final class IntervalConstraint extends Constraint {
+
+    public final long min;
+    public final long max;
+
+    public IntervalConstraint(long min, long max) {
+        this.min = Math.max(min, Integer.MIN_VALUE);
+        this.max = Math.min(max, Integer.MAX_VALUE);
+    }
+
+    public static IntervalConstraint greaterThan(int value) {
+        return new IntervalConstraint((long) value + 1, Integer.MAX_VALUE);
+    }
+
+    public static IntervalConstraint lessThan(int value) {
+        return new IntervalConstraint(Integer.MIN_VALUE, (long) value - 1);
+    }
+
+    public static IntervalConstraint between(int min, int max, boolean includeBounds) {
+        return includeBounds
+                ? new IntervalConstraint(min, max)
+                : new IntervalConstraint((long) min + 1, (long) max - 1);
+    }
+
+    public IntervalConstraint intersect(IntervalConstraint other) {
+        return new IntervalConstraint(Math.max(min, other.min), Math.min(max, other.max));
+    }
+
+    @Override
+    public boolean implies(Constraint other) {
+        if (!(other instanceof IntervalConstraint)) {
+            return false;
+        }
+        IntervalConstraint interval = (IntervalConstraint) other;
+        return isUnsatisfiable() || (min >= interval.min && max <= interval.max);
+    }
+
+    @Override
+    public boolean excludes(Constraint other) {
+        return other instanceof IntervalConstraint && intersect((IntervalConstraint) other).isUnsatisfiable();
+    }
+
+    @Override
+    public boolean isUnsatisfiable() {
+        return min > max;
+    }
+
+    @Override
+    public boolean isTautology() {
+        return min == Integer.MIN_VALUE && max == Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return isUnsatisfiable() ? "no int" : min == max ? String.valueOf(min) : min + " to " + max;
+    }
+}
@@ -0,0 +1,68 @@
+package com.wesleyelliott.kubwa.constraint;
+
+import com.wesleyelliott.kubwa.regex.Dfa;
+
+/**
+ * Text a rule accepts, none of it empty. Either every non-empty text, the text a DFA matches, or
+ * some text the compiler can't describe, as with rules that check more than a regex.
+ */
+
+public final class TextConstraint extends Constraint {
+
+    // Null for every non-empty text or an unknown set of it
+    private final Dfa dfa;
+    private final boolean notEmpty;
+
+    private TextConstraint(Dfa dfa, boolean notEmpty) {
+        this.dfa = dfa;
+        this.notEmpty = notEmpty;
+    }
+
+    public static TextConstraint notEmpty() {
+        return new TextConstraint(null, true);
+    }
+
+    public static TextConstraint matching(Dfa dfa) {
+        return new TextConstraint(dfa, false);
+    }
+
+    public static TextConstraint unknown() {
+        return new TextConstraint(null, false);
+    }
+
+    public Dfa getDfa() {
+        return dfa;
+    }
+
+    @Override
+    public boolean implies(Constraint other) {
+        if (!(other instanceof TextConstraint)) {
+            return false;
+        }
+        TextConstraint text = (TextConstraint) other;
+        if (text.notEmpty) {
+            return true;
+        }
+        return dfa != null && text.dfa != null && dfa.isCoveredBy(text.dfa);
+    }
+
+    @Override
+    public boolean excludes(Constraint other) {
+        if (!(other instanceof TextConstraint)) {
+            return false;
+        }
+        TextConstraint text = (TextConstraint) other;
+        return dfa != null && text.dfa != null && !dfa.overlaps(text.dfa);
+    }
+
+    @Override
+    public boolean isUnsatisfiable() {
+        return dfa != null && !dfa.overlaps(dfa);
+    }
+
+    @Override
+    public boolean isTautology() {
+        // Empty text always fails
+        return false;
+    }
+}
@@ -0,0 +1,8 @@
+package com.wesleyelliott.kubwa.fieldrule;
+
+import com.wesleyelliott.kubwa.rule.EmailRule;
+
+public class EmailFieldRule extends FieldRule {
+
+    public EmailRule.Scheme emailScheme;
+}
@@ -11,17 +11,34 @@ public class FieldRule {
     public String fieldName;
     public Class<? extends Rule> fieldRuleType;
     public int fieldErrorResource;
-    public Rule fieldRule;
-
-    public String getFieldName() {
-        return fieldName + "Validation";
-    }
+    // The value the rule checks, shared by every rule naming it, or empty for a value of its own
+    public String field = "";
 
     public String getMethodName() {
         String validateMethodName = fieldName.replace("Error", "");
         return "validate" + Character.toUpperCase(validateMethodName.charAt(0)) + validateMethodName.substring(1);
     }
 
+    /**
+     * Name of the constant holding the rule, emailError becomes EMAIL_ERROR_RULE.
+     */
+    public String getRuleFieldName() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < fieldName.length(); i++) {
+            char c = fieldName.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                builder.append('_');
+            }
+            builder.append(Character.toUpperCase(c));
+        }
+        return builder.append("_RULE").toString();
+    }
+
+    public String getMatcherMethodName() {
+        String matcherMethodName = fieldName.replace("Error", "");
+        return "matches" + Character.toUpperCase(matcherMethodName.charAt(0)) + matcherMethodName.substring(1);
+    }
+
     public String getErrorMessageMethodName() {
         return "get" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1) + "Message";
     }
@@ -31,6 +48,6 @@ public class FieldRule {
     }
 
     public String getValueName() {
-        return fieldName.replace("Error", "") + "Value";
+        return (field.isEmpty() ? fieldName.replace("Error", "") : field) + "Value";
     }
 }
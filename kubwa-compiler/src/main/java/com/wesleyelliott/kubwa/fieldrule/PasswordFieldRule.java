@@ -9,4 +9,5 @@ import com.wesleyelliott.kubwa.rule.PasswordRule;
 public class PasswordFieldRule extends FieldRule {
 
     public PasswordRule.Scheme passwordScheme;
+    public Integer minLength;
 }
@@ -0,0 +1,175 @@
+package com.wesleyelliott.kubwa.regex;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of code points, stored as sorted, disjoint and non-adjacent inclusive ranges.
+ */
+
+public final class CharSet {
+
+    public static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+
+    public static final CharSet EMPTY = new CharSet(new int[0]);
+    public static final CharSet ANY = range(0, MAX_CODE_POINT);
+    public static final CharSet DIGIT = range('0', '9');
+    public static final CharSet WORD = range('a', 'z').union(range('A', 'Z')).union(DIGIT).union(of('_'));
+    public static final CharSet SPACE = of(' ').union(range('\t', '\r'));
+    // Everything '.' doesn't match
+    public static final CharSet LINE_TERMINATOR = of('\n').union(of('\r')).union(of(0x85)).union(range(0x2028, 0x2029));
+
+    // lo0, hi0, lo1, hi1, ...
+    private final int[] ranges;
+
+    private CharSet(int[] ranges) {
+        this.ranges = ranges;
+    }
+
+    public static CharSet of(int codePoint) {
+        return range(codePoint, codePoint);
+    }
+
+    public static CharSet range(int from, int to) {
+        if (from > to) {
+            return EMPTY;
+        }
+        return new CharSet(new int[]{from, to});
+    }
+
+    public int rangeCount() {
+        return ranges.length / 2;
+    }
+
+    public int from(int range) {
+        return ranges[range * 2];
+    }
+
+    public int to(int range) {
+        return ranges[range * 2 + 1];
+    }
+
+    public boolean isEmpty() {
+        return ranges.length == 0;
+    }
+
+    public boolean contains(int codePoint) {
+        // Binary search over the range starts
+        int low = 0;
+        int high = rangeCount() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (codePoint < from(middle)) {
+                high = middle - 1;
+            } else if (codePoint > to(middle)) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of code points in the set.
+     */
+    public long size() {
+        long size = 0;
+        for (int i = 0; i < rangeCount(); i++) {
+            size += to(i) - from(i) + 1L;
+        }
+        return size;
+    }
+
+    public boolean intersects(CharSet other) {
+        int i = 0;
+        int j = 0;
+        while (i < rangeCount() && j < other.rangeCount()) {
+            if (to(i) < other.from(j)) {
+                i++;
+            } else if (other.to(j) < from(i)) {
+                j++;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public CharSet union(CharSet other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        int[] merged = new int[ranges.length + other.ranges.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < rangeCount() || j < other.rangeCount()) {
+            int from;
+            int to;
+            if (j == other.rangeCount() || (i < rangeCount() && from(i) <= other.from(j))) {
+                from = from(i);
+                to = to(i);
+                i++;
+            } else {
+                from = other.from(j);
+                to = other.to(j);
+                j++;
+            }
+            // Merge overlapping or adjacent ranges
+            if (count > 0 && from <= merged[count - 1] + 1) {
+                merged[count - 1] = Math.max(merged[count - 1], to);
+            } else {
+                merged[count++] = from;
+                merged[count++] = to;
+            }
+        }
+        return new CharSet(Arrays.copyOf(merged, count));
+    }
+
+    public CharSet complement() {
+        int[] complement = new int[ranges.length + 2];
+        int count = 0;
+        int next = 0;
+        for (int i = 0; i < rangeCount(); i++) {
+            if (from(i) > next) {
+                complement[count++] = next;
+                complement[count++] = from(i) - 1;
+            }
+            next = to(i) + 1;
+        }
+        if (next <= MAX_CODE_POINT) {
+            complement[count++] = next;
+            complement[count++] = MAX_CODE_POINT;
+        }
+        return new CharSet(Arrays.copyOf(complement, count));
+    }
+
+    public CharSet intersection(CharSet other) {
+        return complement().union(other.complement()).complement();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CharSet && Arrays.equals(ranges, ((CharSet) o).ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ranges);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < rangeCount(); i++) {
+            builder.append(String.format("\\x{%x}", from(i)));
+            if (to(i) != from(i)) {
+                builder.append(String.format("-\\x{%x}", to(i)));
+            }
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,406 @@
+package com.wesleyelliott.kubwa.regex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Minimal DFA over code points, built from an {@link Nfa} by subset construction and Moore
+ * minimization. State 0 is the start state. States that can't reach an accepting state are
+ * dropped, so a missing transition means the input can't match.
+ */
+
+public final class Dfa {
+
+    public static final int MAX_STATES = 512;
+
+    // Per state: sorted, disjoint code point ranges and the state each leads to
+    private final int[][] rangeStarts;
+    private final int[][] rangeEnds;
+    private final int[][] rangeTargets;
+    private final boolean[] accepting;
+
+    private Dfa(int[][] rangeStarts, int[][] rangeEnds, int[][] rangeTargets, boolean[] accepting) {
+        this.rangeStarts = rangeStarts;
+        this.rangeEnds = rangeEnds;
+        this.rangeTargets = rangeTargets;
+        this.accepting = accepting;
+    }
+
+    public static Dfa compile(String regex) throws UnsupportedRegexException {
+        return build(RegexParser.parse(regex));
+    }
+
+    public static Dfa build(RegexNode node) throws UnsupportedRegexException {
+        Nfa nfa = new Nfa(node);
+        int[] alphabet = alphabet(nfa);
+
+        // Subset construction, on the elementary intervals of the alphabet
+        List<BitSet> subsets = new ArrayList<>();
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<int[]> transitions = new ArrayList<>();
+        Deque<Integer> work = new ArrayDeque<>();
+
+        BitSet start = new BitSet();
+        start.set(nfa.start);
+        closure(nfa, start);
+        subsets.add(start);
+        ids.put(start, 0);
+        work.add(0);
+
+        while (!work.isEmpty()) {
+            int id = work.poll();
+            BitSet subset = subsets.get(id);
+            int[] row = new int[alphabet.length];
+            for (int interval = 0; interval < alphabet.length; interval++) {
+                BitSet next = new BitSet();
+                for (int state = subset.nextSetBit(0); state >= 0; state = subset.nextSetBit(state + 1)) {
+                    CharSet label = nfa.labels.get(state);
+                    if (label != null && label.contains(alphabet[interval])) {
+                        next.set(nfa.targets.get(state));
+                    }
+                }
+                if (next.isEmpty()) {
+                    row[interval] = -1;
+                    continue;
+                }
+                closure(nfa, next);
+                Integer target = ids.get(next);
+                if (target == null) {
+                    if (subsets.size() == MAX_STATES * 4) {
+                        throw new UnsupportedRegexException("Regex needs too many DFA states");
+                    }
+                    target = subsets.size();
+                    subsets.add(next);
+                    ids.put(next, target);
+                    work.add(target);
+                }
+                row[interval] = target;
+            }
+            while (transitions.size() <= id) {
+                transitions.add(null);
+            }
+            transitions.set(id, row);
+        }
+
+        boolean[] accepting = new boolean[subsets.size()];
+        for (int i = 0; i < accepting.length; i++) {
+            accepting[i] = subsets.get(i).get(nfa.accept);
+        }
+        return minimize(alphabet, transitions, accepting);
+    }
+
+    public int stateCount() {
+        return accepting.length;
+    }
+
+    public boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    public int transitionCount(int state) {
+        return rangeTargets[state].length;
+    }
+
+    public int transitionFrom(int state, int transition) {
+        return rangeStarts[state][transition];
+    }
+
+    public int transitionTo(int state, int transition) {
+        return rangeEnds[state][transition];
+    }
+
+    public int transitionTarget(int state, int transition) {
+        return rangeTargets[state][transition];
+    }
+
+    /**
+     * Whether any transition reads a surrogate or a supplementary code point. If not, reading
+     * the input char by char matches exactly the same as reading it code point by code point.
+     */
+    public boolean needsCodePoints() {
+        for (int state = 0; state < stateCount(); state++) {
+            for (int i = 0; i < transitionCount(state); i++) {
+                if (transitionTo(state, i) >= Character.MIN_SURROGATE
+                        && (transitionFrom(state, i) <= Character.MAX_SURROGATE || transitionTo(state, i) > Character.MAX_VALUE)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the DFA, code point by code point. The generated matchers must agree with this.
+     */
+    public boolean matches(CharSequence input) {
+        int state = 0;
+        for (int i = 0; i < input.length(); ) {
+            int c = Character.codePointAt(input, i);
+            i += Character.charCount(c);
+            state = next(state, c);
+            if (state == -1) {
+                return false;
+            }
+        }
+        return state != -1 && accepting[state];
+    }
+
+    /**
+     * Whether some non-empty input matches both. The empty input is left out, as rules reject it
+     * before matching.
+     */
+    public boolean overlaps(Dfa other) {
+        return walk(other, false);
+    }
+
+    /**
+     * Whether every non-empty input this matches, other matches too.
+     */
+    public boolean isCoveredBy(Dfa other) {
+        return !walk(other, true);
+    }
+
+    /**
+     * Walks both DFAs in step, from the states reached by a non-empty input, looking for one
+     * accepted by this and, unless outside, by other too. With outside, other's states include -1,
+     * for inputs it can't match.
+     */
+    private boolean walk(Dfa other, boolean outside) {
+        Set<Long> seen = new HashSet<>();
+        Deque<int[]> work = new ArrayDeque<>();
+        int[] start = {0, 0};
+        while (start != null) {
+            int state = start[0];
+            int otherState = start[1];
+            for (int i = 0; i < transitionCount(state); i++) {
+                int from = rangeStarts[state][i];
+                int to = rangeEnds[state][i];
+                int target = rangeTargets[state][i];
+
+                // Splits the range by other's ranges, the parts between them leading to -1
+                int cursor = from;
+                if (otherState != -1) {
+                    for (int j = 0; j < other.transitionCount(otherState) && cursor <= to; j++) {
+                        int otherFrom = other.rangeStarts[otherState][j];
+                        int otherTo = other.rangeEnds[otherState][j];
+                        if (otherTo < cursor || otherFrom > to) {
+                            continue;
+                        }
+                        if (otherFrom > cursor && outside && visit(other, outside, target, -1, seen, work)) {
+                            return true;
+                        }
+                        if (visit(other, outside, target, other.rangeTargets[otherState][j], seen, work)) {
+                            return true;
+                        }
+                        cursor = otherTo + 1;
+                    }
+                }
+                if (cursor <= to && outside && visit(other, outside, target, -1, seen, work)) {
+                    return true;
+                }
+            }
+            start = work.poll();
+        }
+        return false;
+    }
+
+    // Queues a pair of states the first time it's reached, true if it accepts the input walk looks for
+    private boolean visit(Dfa other, boolean outside, int state, int otherState, Set<Long> seen, Deque<int[]> work) {
+        if (!seen.add((long) state << 32 | (otherState & 0xffffffffL))) {
+            return false;
+        }
+        work.add(new int[]{state, otherState});
+        boolean otherAccepting = otherState != -1 && other.accepting[otherState];
+        return accepting[state] && otherAccepting != outside;
+    }
+
+    private int next(int state, int c) {
+        int[] starts = rangeStarts[state];
+        for (int i = 0; i < starts.length; i++) {
+            if (c >= starts[i] && c <= rangeEnds[state][i]) {
+                return rangeTargets[state][i];
+            }
+        }
+        return -1;
+    }
+
+    // Starts of the elementary intervals no transition label splits
+    private static int[] alphabet(Nfa nfa) {
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        boundaries.add(0);
+        for (CharSet label : nfa.labels) {
+            if (label == null) {
+                continue;
+            }
+            for (int i = 0; i < label.rangeCount(); i++) {
+                boundaries.add(label.from(i));
+                if (label.to(i) < CharSet.MAX_CODE_POINT) {
+                    boundaries.add(label.to(i) + 1);
+                }
+            }
+        }
+        int[] alphabet = new int[boundaries.size()];
+        int i = 0;
+        for (Integer boundary : boundaries) {
+            alphabet[i++] = boundary;
+        }
+        return alphabet;
+    }
+
+    private static void closure(Nfa nfa, BitSet states) {
+        Deque<Integer> work = new ArrayDeque<>();
+        for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+            work.push(state);
+        }
+        while (!work.isEmpty()) {
+            for (int next : nfa.epsilons.get(work.pop())) {
+                if (!states.get(next)) {
+                    states.set(next);
+                    work.push(next);
+                }
+            }
+        }
+    }
+
+    private static Dfa minimize(int[] alphabet, List<int[]> transitions, boolean[] accepting) throws UnsupportedRegexException {
+        int count = accepting.length;
+        boolean[] live = liveStates(transitions, accepting);
+
+        // Moore's algorithm: split blocks until every state in a block behaves the same
+        int[] block = new int[count];
+        for (int state = 0; state < count; state++) {
+            block[state] = !live[state] ? -1 : accepting[state] ? 1 : 0;
+        }
+        int blockCount;
+        while (true) {
+            Map<List<Integer>, Integer> signatures = new HashMap<>();
+            int[] next = new int[count];
+            for (int state = 0; state < count; state++) {
+                if (!live[state]) {
+                    next[state] = -1;
+                    continue;
+                }
+                List<Integer> signature = new ArrayList<>(alphabet.length + 1);
+                signature.add(block[state]);
+                for (int target : transitions.get(state)) {
+                    signature.add(target == -1 || !live[target] ? -1 : block[target]);
+                }
+                Integer id = signatures.get(signature);
+                if (id == null) {
+                    id = signatures.size();
+                    signatures.put(signature, id);
+                }
+                next[state] = id;
+            }
+            boolean stable = signatures.size() == distinctBlocks(block);
+            block = next;
+            blockCount = signatures.size();
+            if (stable) {
+                break;
+            }
+        }
+
+        if (!live[0]) {
+            // Matches nothing at all, a single rejecting state without transitions
+            return new Dfa(new int[1][0], new int[1][0], new int[1][0], new boolean[1]);
+        }
+        if (blockCount > MAX_STATES) {
+            throw new UnsupportedRegexException("Regex needs more than " + MAX_STATES + " DFA states");
+        }
+
+        // Number the blocks in breadth first order from the start state, for readable output
+        int[] order = new int[blockCount];
+        Arrays.fill(order, -1);
+        int[] representative = new int[blockCount];
+        Deque<Integer> work = new ArrayDeque<>();
+        order[block[0]] = 0;
+        representative[0] = 0;
+        work.add(0);
+        int numbered = 1;
+        while (!work.isEmpty()) {
+            int state = work.poll();
+            for (int target : transitions.get(state)) {
+                if (target != -1 && live[target] && order[block[target]] == -1) {
+                    order[block[target]] = numbered;
+                    representative[numbered++] = target;
+                    work.add(target);
+                }
+            }
+        }
+
+        int[][] starts = new int[numbered][];
+        int[][] ends = new int[numbered][];
+        int[][] targets = new int[numbered][];
+        boolean[] minimalAccepting = new boolean[numbered];
+        for (int state = 0; state < numbered; state++) {
+            int[] row = transitions.get(representative[state]);
+            List<int[]> ranges = new ArrayList<>();
+            for (int interval = 0; interval < alphabet.length; interval++) {
+                int target = row[interval];
+                if (target == -1 || !live[target]) {
+                    continue;
+                }
+                int minimalTarget = order[block[target]];
+                int from = alphabet[interval];
+                int to = interval + 1 < alphabet.length ? alphabet[interval + 1] - 1 : CharSet.MAX_CODE_POINT;
+                int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+                if (last != null && last[2] == minimalTarget && last[1] + 1 == from) {
+                    last[1] = to;
+                } else {
+                    ranges.add(new int[]{from, to, minimalTarget});
+                }
+            }
+            starts[state] = new int[ranges.size()];
+            ends[state] = new int[ranges.size()];
+            targets[state] = new int[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                starts[state][i] = ranges.get(i)[0];
+                ends[state][i] = ranges.get(i)[1];
+                targets[state][i] = ranges.get(i)[2];
+            }
+            minimalAccepting[state] = accepting[representative[state]];
+        }
+        return new Dfa(starts, ends, targets, minimalAccepting);
+    }
+
+    private static int distinctBlocks(int[] block) {
+        BitSet seen = new BitSet();
+        for (int b : block) {
+            if (b >= 0) {
+                seen.set(b);
+            }
+        }
+        return seen.cardinality();
+    }
+
+    // States from which an accepting state can be reached
+    private static boolean[] liveStates(List<int[]> transitions, boolean[] accepting) {
+        boolean[] live = accepting.clone();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int state = 0; state < live.length; state++) {
+                if (live[state]) {
+                    continue;
+                }
+                for (int target : transitions.get(state)) {
+                    if (target != -1 && live[target]) {
+                        live[state] = true;
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return live;
+    }
+}
@@ -0,0 +1,152 @@
+package com.wesleyelliott.kubwa.regex;
+
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.STATIC;
+
+/**
+ * Writes a {@link Dfa} out as a static method that walks the input once, switching on the current
+ * state, without allocating or backtracking.
+ */
+
+public final class MatcherGenerator {
+
+    private MatcherGenerator() {
+    }
+
+    /**
+     * @return a {@code private static boolean name(CharSequence value)} method, true if the whole
+     * value matches the regex
+     * @throws UnsupportedRegexException if the regex can't be compiled into a DFA
+     */
+    public static MethodSpec generate(String name, String regex) throws UnsupportedRegexException {
+        return generate(name, Dfa.compile(regex));
+    }
+
+    public static MethodSpec generate(String name, Dfa dfa) {
+        boolean codePoints = dfa.needsCodePoints();
+        int maxValue = codePoints ? CharSet.MAX_CODE_POINT : Character.MAX_VALUE;
+
+        MethodSpec.Builder builder = MethodSpec.methodBuilder(name)
+                .addModifiers(PRIVATE, STATIC)
+                .returns(TypeName.BOOLEAN)
+                .addParameter(CharSequence.class, "value")
+                .addStatement("int state = 0");
+
+        if (codePoints) {
+            builder.beginControlFlow("for (int i = 0; i < value.length(); )")
+                    .addStatement("int c = $T.codePointAt(value, i)", Character.class)
+                    .addStatement("i += $T.charCount(c)", Character.class);
+        } else {
+            builder.beginControlFlow("for (int i = 0; i < value.length(); i++)")
+                    .addStatement("char c = value.charAt(i)");
+        }
+
+        builder.beginControlFlow("switch (state)");
+        for (int state = 0; state < dfa.stateCount(); state++) {
+            builder.addCode("case $L:\n$>", state);
+            addTransitions(builder, dfa, state, maxValue);
+            builder.addCode("$<");
+        }
+        builder.addCode("default:\n$>")
+                .addStatement("return false")
+                .addCode("$<");
+        builder.endControlFlow();
+        builder.endControlFlow();
+
+        List<String> accepting = new ArrayList<>();
+        for (int state = 0; state < dfa.stateCount(); state++) {
+            if (dfa.isAccepting(state)) {
+                accepting.add("state == " + state);
+            }
+        }
+        builder.addStatement("return $L", accepting.isEmpty() ? "false" : join(accepting, " || "));
+        return builder.build();
+    }
+
+    private static void addTransitions(MethodSpec.Builder builder, Dfa dfa, int state, int maxValue) {
+        // One condition per target state, in order of their first range
+        Map<Integer, List<String>> conditions = new LinkedHashMap<>();
+        for (int i = 0; i < dfa.transitionCount(state); i++) {
+            int from = dfa.transitionFrom(state, i);
+            if (from > maxValue) {
+                continue;
+            }
+            int to = Math.min(dfa.transitionTo(state, i), maxValue);
+            List<String> ranges = conditions.get(dfa.transitionTarget(state, i));
+            if (ranges == null) {
+                ranges = new ArrayList<>();
+                conditions.put(dfa.transitionTarget(state, i), ranges);
+            }
+            ranges.add(condition(from, to, maxValue));
+        }
+
+        if (conditions.isEmpty()) {
+            builder.addStatement("return false");
+            return;
+        }
+
+        boolean first = true;
+        for (Map.Entry<Integer, List<String>> entry : conditions.entrySet()) {
+            if (entry.getValue().contains(null)) {
+                // Every character leads to the same state
+                builder.addStatement("state = $L", entry.getKey());
+                builder.addStatement("break");
+                return;
+            }
+            String condition = join(entry.getValue(), " || ");
+            if (first) {
+                builder.beginControlFlow("if ($L)", condition);
+                first = false;
+            } else {
+                builder.nextControlFlow("else if ($L)", condition);
+            }
+            builder.addStatement("state = $L", entry.getKey());
+        }
+        builder.nextControlFlow("else")
+                .addStatement("return false")
+                .endControlFlow()
+                .addStatement("break");
+    }
+
+    // Null for a range that covers every character
+    private static String condition(int from, int to, int maxValue) {
+        if (from == to) {
+            return "c == " + literal(from);
+        } else if (from == 0 && to == maxValue) {
+            return null;
+        } else if (from == 0) {
+            return "c <= " + literal(to);
+        } else if (to == maxValue) {
+            return "c >= " + literal(from);
+        }
+        return "c >= " + literal(from) + " && c <= " + literal(to);
+    }
+
+    private static String literal(int c) {
+        if (c == '\'' || c == '\\') {
+            return "'\\" + (char) c + "'";
+        } else if (c >= 0x20 && c < 0x7f) {
+            return "'" + (char) c + "'";
+        }
+        return String.format("0x%x", c);
+    }
+
+    private static String join(List<String> parts, String separator) {
+        StringBuilder builder = new StringBuilder();
+        for (String part : parts) {
+            if (builder.length() > 0) {
+                builder.append(separator);
+            }
+            builder.append(part);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.wesleyelliott.kubwa.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thompson NFA of a regex. Every state has at most one transition on a set of code points, plus
+ * any number of empty transitions. Counted repetitions are expanded, so the state count is
+ * capped to keep regexes like (a{1,100}){1,100} from exhausting memory.
+ */
+
+final class Nfa {
+
+    static final int MAX_STATES = 20000;
+
+    // Per state: the code points of its transition (null if none), its target and its empty transitions
+    final List<CharSet> labels = new ArrayList<>();
+    final List<Integer> targets = new ArrayList<>();
+    final List<List<Integer>> epsilons = new ArrayList<>();
+    final int start;
+    final int accept;
+
+    Nfa(RegexNode node) throws UnsupportedRegexException {
+        start = newState();
+        accept = newState();
+        build(node, start, accept);
+    }
+
+    int size() {
+        return labels.size();
+    }
+
+    private int newState() throws UnsupportedRegexException {
+        if (labels.size() == MAX_STATES) {
+            throw new UnsupportedRegexException("Regex is too large to compile, more than " + MAX_STATES + " NFA states");
+        }
+        labels.add(null);
+        targets.add(-1);
+        epsilons.add(new ArrayList<Integer>(2));
+        return labels.size() - 1;
+    }
+
+    private void epsilon(int from, int to) {
+        epsilons.get(from).add(to);
+    }
+
+    // Adds states and transitions so that the node is matched going from "from" to "to"
+    private void build(RegexNode node, int from, int to) throws UnsupportedRegexException {
+        if (node instanceof RegexNode.CharClass) {
+            labels.set(from, ((RegexNode.CharClass) node).chars);
+            targets.set(from, to);
+        } else if (node instanceof RegexNode.Empty) {
+            epsilon(from, to);
+        } else if (node instanceof RegexNode.Concat) {
+            List<RegexNode> nodes = ((RegexNode.Concat) node).nodes;
+            int current = from;
+            for (int i = 0; i < nodes.size(); i++) {
+                int next = i == nodes.size() - 1 ? to : newState();
+                build(nodes.get(i), current, next);
+                current = next;
+            }
+        } else if (node instanceof RegexNode.Alternation) {
+            for (RegexNode alternative : ((RegexNode.Alternation) node).alternatives) {
+                int alternativeStart = newState();
+                epsilon(from, alternativeStart);
+                build(alternative, alternativeStart, to);
+            }
+        } else {
+            buildRepeat((RegexNode.Repeat) node, from, to);
+        }
+    }
+
+    private void buildRepeat(RegexNode.Repeat repeat, int from, int to) throws UnsupportedRegexException {
+        int current = from;
+        for (int i = 0; i < repeat.min; i++) {
+            int next = newState();
+            build(repeat.node, current, next);
+            current = next;
+        }
+
+        if (repeat.max == RegexNode.Repeat.UNBOUNDED) {
+            // current -> body -> current, then on to "to"
+            int bodyStart = newState();
+            epsilon(current, bodyStart);
+            build(repeat.node, bodyStart, current);
+            epsilon(current, to);
+            return;
+        }
+
+        // Each optional copy can skip straight to the end
+        for (int i = repeat.min; i < repeat.max; i++) {
+            epsilon(current, to);
+            int next = newState();
+            build(repeat.node, current, next);
+            current = next;
+        }
+        epsilon(current, to);
+    }
+}
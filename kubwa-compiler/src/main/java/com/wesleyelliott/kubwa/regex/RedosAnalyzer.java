@@ -0,0 +1,282 @@
+package com.wesleyelliott.kubwa.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the parts of a regex a backtracking matcher like java.util.regex can take exponential or
+ * polynomial time on, when an input almost matches:
+ * <ul>
+ *     <li>A quantifier nested in a repeated group, where one repetition of the group can end
+ *     with the characters the next one starts with, as in {@code (\w+\s?)+}</li>
+ *     <li>A repeated choice between alternatives that match the same characters, as in
+ *     {@code (\w|\d)+}</li>
+ *     <li>Quantifiers in a row that can match the same characters, as in {@code \d+\d*}, each
+ *     split of such a run being tried in turn</li>
+ * </ul>
+ * These are heuristics for the usual shapes of catastrophic backtracking: a flagged regex isn't
+ * necessarily slow, nor is every slow regex flagged.
+ */
+
+public final class RedosAnalyzer {
+
+    public enum Complexity {
+        POLYNOMIAL("O(n^2) or worse"),
+        EXPONENTIAL("O(2^n)");
+
+        private final String description;
+
+        Complexity(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    public static final class Finding {
+        public final Complexity complexity;
+        public final String message;
+
+        Finding(Complexity complexity, String message) {
+            this.complexity = complexity;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+
+    private final List<Finding> findings = new ArrayList<>();
+
+    private RedosAnalyzer() {
+    }
+
+    /**
+     * @return what makes the regex slow to backtrack through, empty if nothing does
+     * @throws java.util.regex.PatternSyntaxException if the regex isn't valid
+     */
+    public static List<Finding> analyze(String regex) {
+        RegexNode node;
+        try {
+            node = RegexParser.parseApproximation(regex);
+        } catch (UnsupportedRegexException e) {
+            // Nothing a valid regex should hit
+            return new ArrayList<>();
+        }
+        RedosAnalyzer analyzer = new RedosAnalyzer();
+        analyzer.visit(node);
+        return analyzer.findings;
+    }
+
+    private void visit(RegexNode node) {
+        if (node instanceof RegexNode.Repeat) {
+            RegexNode.Repeat repeat = (RegexNode.Repeat) node;
+            if (repeat.isUnbounded() || repeat.max > 1) {
+                checkNestedQuantifiers(repeat);
+                checkOverlappingAlternatives(repeat);
+            }
+            visit(repeat.node);
+        } else if (node instanceof RegexNode.Concat) {
+            List<RegexNode> nodes = ((RegexNode.Concat) node).nodes;
+            checkAdjacentQuantifiers(nodes);
+            for (RegexNode child : nodes) {
+                visit(child);
+            }
+        } else if (node instanceof RegexNode.Alternation) {
+            for (RegexNode alternative : ((RegexNode.Alternation) node).alternatives) {
+                visit(alternative);
+            }
+        }
+    }
+
+    // (x+)+ and the like: a run of x can be split between repetitions in exponentially many ways
+    private void checkNestedQuantifiers(RegexNode.Repeat outer) {
+        CharSet first = first(outer.node);
+        RegexNode.Repeat inner = runBefore(outer.node, first);
+        if (inner != null) {
+            add(outer, chars(inner).intersection(first), inner.source + " is nested in " + outer.source
+                    + ", and can match what the next repetition starts with");
+        }
+    }
+
+    // (x|x)+: every character of a run can be matched by either alternative
+    private void checkOverlappingAlternatives(RegexNode.Repeat outer) {
+        if (!(outer.node instanceof RegexNode.Alternation)) {
+            return;
+        }
+        List<RegexNode> alternatives = ((RegexNode.Alternation) outer.node).alternatives;
+        for (int i = 0; i < alternatives.size(); i++) {
+            for (int j = i + 1; j < alternatives.size(); j++) {
+                if (!isSingleCharacter(alternatives.get(i)) || !isSingleCharacter(alternatives.get(j))) {
+                    continue;
+                }
+                CharSet overlap = chars(alternatives.get(i)).intersection(chars(alternatives.get(j)));
+                if (!overlap.isEmpty()) {
+                    add(outer, overlap, "alternatives repeated by " + outer.source + " match the same characters");
+                    return;
+                }
+            }
+        }
+    }
+
+    // x+x+: a run of x can be split between the quantifiers in n ways, for each of which the rest is retried
+    private void checkAdjacentQuantifiers(List<RegexNode> nodes) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (!isUnbounded(nodes.get(i))) {
+                continue;
+            }
+            RegexNode.Repeat right = (RegexNode.Repeat) nodes.get(i);
+            CharSet overlap = first(right);
+            for (int j = i - 1; j >= 0 && !overlap.isEmpty(); j--) {
+                RegexNode left = nodes.get(j);
+                RegexNode.Repeat run = runBefore(left, overlap);
+                if (run != null && run.isUnbounded()) {
+                    addPolynomial(chars(run).intersection(overlap), run.source + " and " + right.source
+                            + " can match the same characters");
+                    break;
+                }
+                if (!left.isNullable()) {
+                    // Whatever sits between them has to be matched from the shared characters too
+                    overlap = overlap.intersection(chars(left));
+                }
+            }
+        }
+    }
+
+    private void add(RegexNode.Repeat outer, CharSet overlap, String reason) {
+        if (outer.isUnbounded()) {
+            findings.add(new Finding(Complexity.EXPONENTIAL, describe(Complexity.EXPONENTIAL, overlap, reason)));
+        } else {
+            // Bounded repetition only multiplies the ways a run can be split
+            addPolynomial(overlap, reason);
+        }
+    }
+
+    private void addPolynomial(CharSet overlap, String reason) {
+        findings.add(new Finding(Complexity.POLYNOMIAL, describe(Complexity.POLYNOMIAL, overlap, reason)));
+    }
+
+    private static String describe(Complexity complexity, CharSet overlap, String reason) {
+        return reason + ", so rejecting a long run of " + example(overlap) + " takes "
+                + complexity.getDescription() + " steps";
+    }
+
+    // A readable character from the set
+    private static String example(CharSet chars) {
+        for (int c = 'a'; c <= 'z'; c++) {
+            if (chars.contains(c)) {
+                return "'" + (char) c + "'";
+            }
+        }
+        for (int c = ' '; c < 0x7f; c++) {
+            if (chars.contains(c)) {
+                return "'" + (char) c + "'";
+            }
+        }
+        return String.format("U+%04X", chars.from(0));
+    }
+
+    /**
+     * Finds a quantified class in the node that can match a run of the given characters of any
+     * length, and still have the rest of the node match what follows the run. The node can then
+     * end anywhere within a run that whatever comes next could also have matched.
+     */
+    private static RegexNode.Repeat runBefore(RegexNode node, CharSet following) {
+        if (node instanceof RegexNode.Repeat) {
+            RegexNode.Repeat repeat = (RegexNode.Repeat) node;
+            if (isVariable(repeat) && repeat.node instanceof RegexNode.CharClass
+                    && chars(repeat).intersects(following)) {
+                return repeat;
+            }
+            return runBefore(repeat.node, following);
+        } else if (node instanceof RegexNode.Concat) {
+            List<RegexNode> nodes = ((RegexNode.Concat) node).nodes;
+            CharSet overlap = following;
+            for (int i = nodes.size() - 1; i >= 0 && !overlap.isEmpty(); i--) {
+                RegexNode.Repeat run = runBefore(nodes.get(i), overlap);
+                if (run != null) {
+                    return run;
+                }
+                if (!nodes.get(i).isNullable()) {
+                    overlap = overlap.intersection(chars(nodes.get(i)));
+                }
+            }
+        } else if (node instanceof RegexNode.Alternation) {
+            for (RegexNode alternative : ((RegexNode.Alternation) node).alternatives) {
+                RegexNode.Repeat run = runBefore(alternative, following);
+                if (run != null) {
+                    return run;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isVariable(RegexNode node) {
+        if (!(node instanceof RegexNode.Repeat)) {
+            return false;
+        }
+        RegexNode.Repeat repeat = (RegexNode.Repeat) node;
+        return repeat.min != repeat.max && (repeat.isUnbounded() || repeat.max > 1);
+    }
+
+    private static boolean isUnbounded(RegexNode node) {
+        return node instanceof RegexNode.Repeat && ((RegexNode.Repeat) node).isUnbounded();
+    }
+
+    private static boolean isSingleCharacter(RegexNode node) {
+        return node instanceof RegexNode.CharClass
+                || node instanceof RegexNode.Repeat && ((RegexNode.Repeat) node).node instanceof RegexNode.CharClass;
+    }
+
+    // The characters a match of the node can start with
+    private static CharSet first(RegexNode node) {
+        if (node instanceof RegexNode.CharClass) {
+            return ((RegexNode.CharClass) node).chars;
+        } else if (node instanceof RegexNode.Repeat) {
+            return first(((RegexNode.Repeat) node).node);
+        } else if (node instanceof RegexNode.Concat) {
+            CharSet first = CharSet.EMPTY;
+            for (RegexNode child : ((RegexNode.Concat) node).nodes) {
+                first = first.union(first(child));
+                if (!child.isNullable()) {
+                    break;
+                }
+            }
+            return first;
+        } else if (node instanceof RegexNode.Alternation) {
+            CharSet first = CharSet.EMPTY;
+            for (RegexNode alternative : ((RegexNode.Alternation) node).alternatives) {
+                first = first.union(first(alternative));
+            }
+            return first;
+        }
+        return CharSet.EMPTY;
+    }
+
+    // Every character a match of the node can contain
+    private static CharSet chars(RegexNode node) {
+        if (node instanceof RegexNode.CharClass) {
+            return ((RegexNode.CharClass) node).chars;
+        } else if (node instanceof RegexNode.Repeat) {
+            return chars(((RegexNode.Repeat) node).node);
+        } else if (node instanceof RegexNode.Concat) {
+            CharSet chars = CharSet.EMPTY;
+            for (RegexNode child : ((RegexNode.Concat) node).nodes) {
+                chars = chars.union(chars(child));
+            }
+            return chars;
+        } else if (node instanceof RegexNode.Alternation) {
+            CharSet chars = CharSet.EMPTY;
+            for (RegexNode alternative : ((RegexNode.Alternation) node).alternatives) {
+                chars = chars.union(chars(alternative));
+            }
+            return chars;
+        }
+        return CharSet.EMPTY;
+    }
+}
@@ -0,0 +1,55 @@
+package com.wesleyelliott.kubwa.regex;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The DFAs and ReDoS findings of the regexes a processor has seen, so a regex used by many
+ * classes, like a rule's own, is only compiled and analyzed once per build. Unbounded, as a
+ * build has only so many regexes, and not thread safe, as processors run on one thread.
+ */
+
+public final class RegexCache {
+
+    private final Map<String, Dfa> dfas = new HashMap<>();
+    // Regexes a DFA can't be compiled from, and why
+    private final Map<String, UnsupportedRegexException> unsupported = new HashMap<>();
+    private final Map<String, List<RedosAnalyzer.Finding>> findings = new HashMap<>();
+
+    /**
+     * @see Dfa#compile(String)
+     */
+    public Dfa compile(String regex) throws UnsupportedRegexException {
+        Dfa dfa = dfas.get(regex);
+        if (dfa != null) {
+            return dfa;
+        }
+        UnsupportedRegexException e = unsupported.get(regex);
+        if (e != null) {
+            throw e;
+        }
+
+        try {
+            dfa = Dfa.compile(regex);
+        } catch (UnsupportedRegexException compileE) {
+            unsupported.put(regex, compileE);
+            throw compileE;
+        }
+        dfas.put(regex, dfa);
+        return dfa;
+    }
+
+    /**
+     * @see RedosAnalyzer#analyze(String)
+     */
+    public List<RedosAnalyzer.Finding> analyze(String regex) {
+        List<RedosAnalyzer.Finding> regexFindings = findings.get(regex);
+        if (regexFindings == null) {
+            regexFindings = Collections.unmodifiableList(RedosAnalyzer.analyze(regex));
+            findings.put(regex, regexFindings);
+        }
+        return regexFindings;
+    }
+}
@@ -0,0 +1,148 @@
+package com.wesleyelliott.kubwa.regex;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Syntax tree of a parsed regex. Groups don't have nodes of their own, since capturing doesn't
+ * change what a regex matches.
+ */
+
+public abstract class RegexNode {
+
+    RegexNode() {
+    }
+
+    /**
+     * Whether the node can match the empty string.
+     */
+    public abstract boolean isNullable();
+
+    /**
+     * Matches one code point of a set.
+     */
+    public static final class CharClass extends RegexNode {
+        public final CharSet chars;
+
+        CharClass(CharSet chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public boolean isNullable() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return chars.toString();
+        }
+    }
+
+    /**
+     * Matches the empty string, what an empty group or alternative leaves behind.
+     */
+    public static final class Empty extends RegexNode {
+
+        @Override
+        public boolean isNullable() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "()";
+        }
+    }
+
+    public static final class Concat extends RegexNode {
+        public final List<RegexNode> nodes;
+
+        Concat(List<RegexNode> nodes) {
+            this.nodes = Collections.unmodifiableList(nodes);
+        }
+
+        @Override
+        public boolean isNullable() {
+            for (RegexNode node : nodes) {
+                if (!node.isNullable()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (RegexNode node : nodes) {
+                builder.append(node);
+            }
+            return builder.toString();
+        }
+    }
+
+    public static final class Alternation extends RegexNode {
+        public final List<RegexNode> alternatives;
+
+        Alternation(List<RegexNode> alternatives) {
+            this.alternatives = Collections.unmodifiableList(alternatives);
+        }
+
+        @Override
+        public boolean isNullable() {
+            for (RegexNode alternative : alternatives) {
+                if (alternative.isNullable()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("(");
+            for (int i = 0; i < alternatives.size(); i++) {
+                if (i > 0) {
+                    builder.append('|');
+                }
+                builder.append(alternatives.get(i));
+            }
+            return builder.append(')').toString();
+        }
+    }
+
+    /**
+     * Greedy or lazy repetition, max is {@link #UNBOUNDED} for * and +.
+     */
+    public static final class Repeat extends RegexNode {
+        public static final int UNBOUNDED = -1;
+
+        public final RegexNode node;
+        public final int min;
+        public final int max;
+        // The repeated part of the regex and its quantifier, as written
+        public final String source;
+
+        Repeat(RegexNode node, int min, int max, String source) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+            this.source = source;
+        }
+
+        public boolean isUnbounded() {
+            return max == UNBOUNDED;
+        }
+
+        @Override
+        public boolean isNullable() {
+            return min == 0 || node.isNullable();
+        }
+
+        @Override
+        public String toString() {
+            return "(" + node + "){" + min + "," + (max == UNBOUNDED ? "" : String.valueOf(max)) + "}";
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.wesleyelliott.kubwa.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the regular subset of java.util.regex syntax: literals, escapes, character classes,
+ * '.', groups, alternation and greedy or lazy quantifiers. Backreferences, lookaround, atomic
+ * groups, possessive quantifiers, flags and Unicode properties aren't regular, or not worth
+ * supporting, and are rejected. A leading '^' and trailing '$' are dropped, as they can't change
+ * whether the whole input matches.
+ *
+ * {@link #parseApproximation(String)} accepts every valid regex instead, for analysis only. Zero
+ * width constructs and backreferences match the empty string there, and classes it can't work out
+ * match any character.
+ */
+
+public final class RegexParser {
+
+    private final String regex;
+    private final boolean approximate;
+    private int position;
+
+    private RegexParser(String regex, boolean approximate) {
+        this.regex = regex;
+        this.approximate = approximate;
+    }
+
+    /**
+     * @throws java.util.regex.PatternSyntaxException if the regex isn't valid at all
+     */
+    public static RegexNode parse(String regex) throws UnsupportedRegexException {
+        return parse(regex, false);
+    }
+
+    /**
+     * Parses any valid regex into a tree that repeats wherever the regex does, but doesn't
+     * necessarily match the same inputs.
+     *
+     * @throws java.util.regex.PatternSyntaxException if the regex isn't valid at all
+     */
+    public static RegexNode parseApproximation(String regex) throws UnsupportedRegexException {
+        return parse(regex, true);
+    }
+
+    private static RegexNode parse(String regex, boolean approximate) throws UnsupportedRegexException {
+        // Let java.util.regex report syntax errors, so only valid regexes are parsed here
+        Pattern.compile(regex);
+
+        RegexParser parser = new RegexParser(regex, approximate);
+        RegexNode node = parser.parseAlternation();
+        if (parser.position != regex.length()) {
+            throw parser.unsupported("Unexpected ')'");
+        }
+        return node;
+    }
+
+    private RegexNode parseAlternation() throws UnsupportedRegexException {
+        List<RegexNode> alternatives = new ArrayList<>();
+        alternatives.add(parseConcat());
+        while (peek() == '|') {
+            position++;
+            alternatives.add(parseConcat());
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new RegexNode.Alternation(alternatives);
+    }
+
+    private RegexNode parseConcat() throws UnsupportedRegexException {
+        List<RegexNode> nodes = new ArrayList<>();
+        while (position < regex.length() && peek() != '|' && peek() != ')') {
+            int start = position;
+            RegexNode atom = parseAtom();
+            if (atom != null) {
+                nodes.add(parseQuantifiers(atom, start));
+            } else if (approximate) {
+                // Quantified anchors and lookaround still repeat nothing
+                parseQuantifiers(new RegexNode.Empty(), start);
+            }
+        }
+        if (nodes.isEmpty()) {
+            return new RegexNode.Empty();
+        }
+        return nodes.size() == 1 ? nodes.get(0) : new RegexNode.Concat(nodes);
+    }
+
+    // Null for anchors, which match nothing
+    private RegexNode parseAtom() throws UnsupportedRegexException {
+        int c = regex.codePointAt(position);
+        switch (c) {
+            case '^':
+                if (position != 0 && !approximate) {
+                    throw unsupported("'^' other than at the start");
+                }
+                position++;
+                return null;
+            case '$':
+                if (position != regex.length() - 1 && !approximate) {
+                    throw unsupported("'$' other than at the end");
+                }
+                position++;
+                return null;
+            case '(':
+                return parseGroup();
+            case '[':
+                position++;
+                return new RegexNode.CharClass(parseClass());
+            case '.':
+                position++;
+                return new RegexNode.CharClass(CharSet.LINE_TERMINATOR.complement());
+            case '\\':
+                position++;
+                if (approximate && isZeroWidthEscape()) {
+                    return null;
+                }
+                if (approximate && peek() == 'Q') {
+                    return parseQuote();
+                }
+                return new RegexNode.CharClass(parseEscape(false));
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw unsupported("Quantifier without anything to repeat");
+            default:
+                position += Character.charCount(c);
+                return new RegexNode.CharClass(CharSet.of(c));
+        }
+    }
+
+    private RegexNode parseGroup() throws UnsupportedRegexException {
+        position++;
+        if (peek() == '?') {
+            if (regex.startsWith("?:", position)) {
+                position += 2;
+            } else if (regex.startsWith("?<", position) && position + 2 < regex.length()
+                    && Character.isLetter(regex.charAt(position + 2))) {
+                // Named group
+                position = regex.indexOf('>', position) + 1;
+            } else if (approximate) {
+                return parseSpecialGroup();
+            } else {
+                throw unsupported("Lookaround, atomic groups and flags");
+            }
+        }
+        RegexNode node = parseAlternation();
+        expect(')');
+        return node;
+    }
+
+    // Lookaround matches nothing, atomic and flag groups match their contents
+    private RegexNode parseSpecialGroup() throws UnsupportedRegexException {
+        position++;
+        boolean lookaround = peek() == '=' || peek() == '!'
+                || regex.startsWith("<=", position) || regex.startsWith("<!", position);
+        if (lookaround || peek() == '>') {
+            position += peek() == '<' ? 2 : 1;
+            RegexNode node = parseAlternation();
+            expect(')');
+            return lookaround ? null : node;
+        }
+
+        while (position < regex.length() && (Character.isLetter(peek()) || peek() == '-')) {
+            position++;
+        }
+        if (peek() == ')') {
+            // Flags for the rest of the group
+            position++;
+            return null;
+        }
+        expect(':');
+        RegexNode node = parseAlternation();
+        expect(')');
+        return node;
+    }
+
+    // Boundaries and backreferences, approximated as matching the empty string
+    private boolean isZeroWidthEscape() {
+        int c = peek();
+        if (c == 'b' || c == 'B' || c == 'A' || c == 'G' || c == 'z' || c == 'Z') {
+            position++;
+            return true;
+        }
+        if (c >= '1' && c <= '9') {
+            while (position < regex.length() && Character.isDigit(regex.charAt(position))) {
+                position++;
+            }
+            return true;
+        }
+        if (c == 'k') {
+            position = regex.indexOf('>', position) + 1;
+            return true;
+        }
+        return false;
+    }
+
+    private RegexNode parseQuote() {
+        position++;
+        int end = regex.indexOf("\\E", position);
+        String quoted = regex.substring(position, end == -1 ? regex.length() : end);
+        position = end == -1 ? regex.length() : end + 2;
+
+        List<RegexNode> nodes = new ArrayList<>();
+        for (int i = 0; i < quoted.length(); ) {
+            int c = quoted.codePointAt(i);
+            nodes.add(new RegexNode.CharClass(CharSet.of(c)));
+            i += Character.charCount(c);
+        }
+        if (nodes.isEmpty()) {
+            return new RegexNode.Empty();
+        }
+        return nodes.size() == 1 ? nodes.get(0) : new RegexNode.Concat(nodes);
+    }
+
+    private RegexNode parseQuantifiers(RegexNode atom, int start) throws UnsupportedRegexException {
+        int min;
+        int max;
+        switch (peek()) {
+            case '*':
+                min = 0;
+                max = RegexNode.Repeat.UNBOUNDED;
+                position++;
+                break;
+            case '+':
+                min = 1;
+                max = RegexNode.Repeat.UNBOUNDED;
+                position++;
+                break;
+            case '?':
+                min = 0;
+                max = 1;
+                position++;
+                break;
+            case '{':
+                position++;
+                min = parseNumber();
+                if (peek() == ',') {
+                    position++;
+                    max = peek() == '}' ? RegexNode.Repeat.UNBOUNDED : parseNumber();
+                } else {
+                    max = min;
+                }
+                expect('}');
+                break;
+            default:
+                return atom;
+        }
+
+        if (peek() == '+') {
+            if (!approximate) {
+                throw unsupported("Possessive quantifiers");
+            }
+            position++;
+        } else if (peek() == '?') {
+            // Lazy quantifiers match the same inputs when the whole input has to match
+            position++;
+        }
+        return new RegexNode.Repeat(atom, min, max, regex.substring(start, position));
+    }
+
+    private int parseNumber() throws UnsupportedRegexException {
+        int start = position;
+        while (position < regex.length() && Character.isDigit(regex.charAt(position))) {
+            position++;
+        }
+        try {
+            return Integer.parseInt(regex.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw unsupported("Repetition count");
+        }
+    }
+
+    private CharSet parseClass() throws UnsupportedRegexException {
+        boolean negated = false;
+        if (peek() == '^') {
+            negated = true;
+            position++;
+        }
+        if (peek() == ']') {
+            throw unsupported("']' as the first character of a class");
+        }
+
+        CharSet chars = CharSet.EMPTY;
+        while (peek() != ']') {
+            if (position >= regex.length()) {
+                throw unsupported("Unclosed character class");
+            }
+            if (approximate && peek() == '[') {
+                // Unions, and intersections approximated as unions
+                position++;
+                chars = chars.union(parseClass());
+                continue;
+            } else if (approximate && regex.startsWith("&&", position)) {
+                position += 2;
+                continue;
+            } else if (peek() == '[' || regex.startsWith("&&", position)) {
+                throw unsupported("Character class unions and intersections");
+            }
+
+            CharSet item = parseClassItem();
+            // A range, unless '-' is the last character of the class
+            if (peek() == '-' && position + 1 < regex.length() && regex.charAt(position + 1) != ']') {
+                position++;
+                CharSet end = parseClassItem();
+                if (item.size() != 1 || end.size() != 1) {
+                    throw unsupported("Range bounded by a class");
+                }
+                item = CharSet.range(item.from(0), end.from(0));
+            }
+            chars = chars.union(item);
+        }
+        position++;
+        return negated ? chars.complement() : chars;
+    }
+
+    private CharSet parseClassItem() throws UnsupportedRegexException {
+        int c = regex.codePointAt(position);
+        if (c == '\\') {
+            position++;
+            return parseEscape(true);
+        }
+        position += Character.charCount(c);
+        return CharSet.of(c);
+    }
+
+    private CharSet parseEscape(boolean inClass) throws UnsupportedRegexException {
+        if (position >= regex.length()) {
+            throw unsupported("Trailing '\\'");
+        }
+        int c = regex.codePointAt(position);
+        position += Character.charCount(c);
+        switch (c) {
+            case 'd':
+                return CharSet.DIGIT;
+            case 'D':
+                return CharSet.DIGIT.complement();
+            case 'w':
+                return CharSet.WORD;
+            case 'W':
+                return CharSet.WORD.complement();
+            case 's':
+                return CharSet.SPACE;
+            case 'S':
+                return CharSet.SPACE.complement();
+            case 't':
+                return CharSet.of('\t');
+            case 'n':
+                return CharSet.of('\n');
+            case 'r':
+                return CharSet.of('\r');
+            case 'f':
+                return CharSet.of('\f');
+            case 'a':
+                return CharSet.of(0x07);
+            case 'e':
+                return CharSet.of(0x1B);
+            case '0':
+                return CharSet.of(parseOctal());
+            case 'x':
+                return CharSet.of(parseHex());
+            case 'u':
+                return CharSet.of(parseHexDigits(4));
+            case 'c':
+                if (position >= regex.length()) {
+                    throw unsupported("Control character escape");
+                }
+                return CharSet.of(regex.charAt(position++) ^ 64);
+            default:
+                if (approximate && Character.isLetter(c)) {
+                    // \p{...} and other sets, or anything else too hard to work out
+                    if ((c == 'p' || c == 'P') && peek() == '{') {
+                        position = regex.indexOf('}', position) + 1;
+                    } else if (c == 'p' || c == 'P') {
+                        position++;
+                    }
+                    return CharSet.ANY;
+                }
+                if (Character.isLetterOrDigit(c)) {
+                    // Backreferences, boundaries, \p{...}, \Q...\E and the like
+                    throw unsupported("Escape \\" + new String(Character.toChars(c)) + (inClass ? " in a class" : ""));
+                }
+                return CharSet.of(c);
+        }
+    }
+
+    private int parseOctal() throws UnsupportedRegexException {
+        int value = 0;
+        int digits = 0;
+        while (digits < 3 && position < regex.length() && regex.charAt(position) >= '0' && regex.charAt(position) <= '7') {
+            int next = value * 8 + (regex.charAt(position) - '0');
+            if (next > 0377) {
+                break;
+            }
+            value = next;
+            position++;
+            digits++;
+        }
+        if (digits == 0) {
+            throw unsupported("Octal escape");
+        }
+        return value;
+    }
+
+    private int parseHex() throws UnsupportedRegexException {
+        if (peek() == '{') {
+            int end = regex.indexOf('}', position);
+            if (end == -1) {
+                throw unsupported("Hex escape");
+            }
+            position++;
+            int value = parseHexDigits(end - position);
+            position++;
+            return value;
+        }
+        return parseHexDigits(2);
+    }
+
+    private int parseHexDigits(int count) throws UnsupportedRegexException {
+        if (count < 1 || position + count > regex.length()) {
+            throw unsupported("Hex escape");
+        }
+        try {
+            int value = Integer.parseInt(regex.substring(position, position + count), 16);
+            position += count;
+            return value;
+        } catch (NumberFormatException e) {
+            throw unsupported("Hex escape");
+        }
+    }
+
+    private int peek() {
+        return position < regex.length() ? regex.charAt(position) : -1;
+    }
+
+    private void expect(char expected) throws UnsupportedRegexException {
+        if (peek() != expected) {
+            throw unsupported("Expected '" + expected + "'");
+        }
+        position++;
+    }
+
+    private UnsupportedRegexException unsupported(String construct) {
+        return new UnsupportedRegexException(construct + " at index " + position + " of " + regex);
+    }
+}
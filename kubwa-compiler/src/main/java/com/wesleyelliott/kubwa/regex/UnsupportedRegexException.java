@@ -0,0 +1,13 @@
+package com.wesleyelliott.kubwa.regex;
+
+/**
+ * Thrown for regexes, or parts of them, that can't be compiled into a DFA. Those are left to
+ * java.util.regex at runtime.
+ */
+
+public class UnsupportedRegexException extends Exception {
+
+    public UnsupportedRegexException(String message) {
+        super(message);
+    }
+}
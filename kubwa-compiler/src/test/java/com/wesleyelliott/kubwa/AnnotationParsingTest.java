@@ -0,0 +1,210 @@
+package com.wesleyelliott.kubwa;
+
+import com.wesleyelliott.kubwa.rule.CheckedRule;
+import com.wesleyelliott.kubwa.rule.ConfirmEmailRule;
+import com.wesleyelliott.kubwa.rule.ConfirmPasswordRule;
+import com.wesleyelliott.kubwa.rule.CreditCardRule;
+import com.wesleyelliott.kubwa.rule.EmailRule;
+import com.wesleyelliott.kubwa.rule.FullNameRule;
+import com.wesleyelliott.kubwa.rule.MaxRule;
+import com.wesleyelliott.kubwa.rule.MinRule;
+import com.wesleyelliott.kubwa.rule.MobileNumberRule;
+import com.wesleyelliott.kubwa.rule.NotNullRule;
+import com.wesleyelliott.kubwa.rule.PasswordRule;
+import com.wesleyelliott.kubwa.rule.RangeRule;
+import com.wesleyelliott.kubwa.rule.RegexRule;
+import com.wesleyelliott.kubwa.rule.SelectRule;
+import com.wesleyelliott.kubwa.rule.TaxNumberRule;
+import com.wesleyelliott.kubwa.rule.ZAIdNumberRule;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Every attribute of every rule annotation has to reach the generated validator, whether given
+ * or left to its default, and whether the annotation is on its own or in a list. Instrumented
+ * validators keep each rule's name and type, the class its annotation is validated using, so
+ * those are read back from them; the other attributes from the generated source.
+ */
+
+public class AnnotationParsingTest {
+
+    private static final String EXPLICIT = "package com.example;\n"
+            + "\n"
+            + "import com.wesleyelliott.kubwa.annotation.*;\n"
+            + "import com.wesleyelliott.kubwa.rule.CreditCardRule;\n"
+            + "import com.wesleyelliott.kubwa.rule.EmailRule;\n"
+            + "import com.wesleyelliott.kubwa.rule.PasswordRule;\n"
+            + "\n"
+            + "@Email(errorMessage = 1, name = \"loginError\", field = \"login\", scheme = EmailRule.Scheme.RFC_5321_IDN)\n"
+            + "@ConfirmEmail(errorMessage = 2, name = \"loginAgainError\", field = \"loginAgain\")\n"
+            + "@Password(errorMessage = 3, name = \"secretError\", field = \"secret\", scheme = PasswordRule.Scheme.ALPHA_NUMERIC_SYMBOLS, minLength = 8)\n"
+            + "@ConfirmPassword(errorMessage = 4, name = \"secretAgainError\", field = \"secretAgain\")\n"
+            + "@CreditCard(errorMessage = 5, name = \"cardError\", field = \"card\",\n"
+            + "        types = {CreditCardRule.Type.AMEX, CreditCardRule.Type.JCB, CreditCardRule.Type.UNIONPAY})\n"
+            + "@CreditCard.List({@CreditCard(errorMessage = 6, name = \"giftCardError\", field = \"giftCard\", types = CreditCardRule.Type.MAESTRO)})\n"
+            + "@Regex(errorMessage = 7, name = \"codeError\", field = \"code\", regex = \"(\\\\w)\\\\1\")\n"
+            + "@NotNull(errorMessage = 8, name = \"codeRequiredError\", field = \"code\")\n"
+            + "@FullName(errorMessage = 9, name = \"ownerError\", field = \"owner\")\n"
+            + "@MobileNumber(errorMessage = 10, name = \"phoneError\", field = \"phone\")\n"
+            + "@TaxNumber(errorMessage = 11, name = \"vatError\", field = \"vat\")\n"
+            + "@ZAIdNumber(errorMessage = 12, name = \"passportError\", field = \"passport\")\n"
+            + "@Min(errorMessage = 13, name = \"ageMinError\", field = \"age\", value = -3)\n"
+            + "@Max(errorMessage = 14, name = \"ageMaxError\", field = \"age\", value = 99)\n"
+            + "@Range(errorMessage = 15, name = \"sizeError\", field = \"size\", min = 1, max = 9, includeBounds = true)\n"
+            + "@Select(errorMessage = 16, name = \"countryError\", field = \"country\", value = 2)\n"
+            + "@Checked.List({@Checked(errorMessage = 17, name = \"optOutError\", field = \"optOut\", value = false)})\n"
+            + "public class ExplicitViewModel {\n"
+            + "}\n";
+
+    private static final String DEFAULTS = "package com.example;\n"
+            + "\n"
+            + "import com.wesleyelliott.kubwa.annotation.*;\n"
+            + "\n"
+            + "@Email(errorMessage = 1)\n"
+            + "@ConfirmEmail(errorMessage = 2)\n"
+            + "@Password(errorMessage = 3)\n"
+            + "@ConfirmPassword(errorMessage = 4)\n"
+            + "@CreditCard(errorMessage = 5)\n"
+            + "@Regex(errorMessage = 7, regex = \"(\\\\d)\\\\1\")\n"
+            + "@NotNull(errorMessage = 8)\n"
+            + "@FullName(errorMessage = 9)\n"
+            + "@MobileNumber(errorMessage = 10)\n"
+            + "@TaxNumber(errorMessage = 11)\n"
+            + "@ZAIdNumber(errorMessage = 12)\n"
+            + "@Min(errorMessage = 13)\n"
+            + "@Max(errorMessage = 14)\n"
+            + "@Range(errorMessage = 15)\n"
+            + "@Select(errorMessage = 16)\n"
+            + "@Checked(errorMessage = 17)\n"
+            + "public class DefaultsViewModel {\n"
+            + "}\n";
+
+    @Test
+    public void readsEveryAttributeGiven() throws Exception {
+        Compilation compilation = GeneratedValidators.compile("com.example.ExplicitViewModel", EXPLICIT, "-Akubwa.instrumentation=true");
+
+        Map<Integer, String> expected = new TreeMap<>();
+        expected.put(1, rule("loginError", EmailRule.class));
+        expected.put(2, rule("loginAgainError", ConfirmEmailRule.class));
+        expected.put(3, rule("secretError", PasswordRule.class));
+        expected.put(4, rule("secretAgainError", ConfirmPasswordRule.class));
+        expected.put(5, rule("cardError", CreditCardRule.class));
+        expected.put(6, rule("giftCardError", CreditCardRule.class));
+        expected.put(7, rule("codeError", RegexRule.class));
+        expected.put(8, rule("codeRequiredError", NotNullRule.class));
+        expected.put(9, rule("ownerError", FullNameRule.class));
+        expected.put(10, rule("phoneError", MobileNumberRule.class));
+        expected.put(11, rule("vatError", TaxNumberRule.class));
+        expected.put(12, rule("passportError", ZAIdNumberRule.class));
+        expected.put(13, rule("ageMinError", MinRule.class));
+        expected.put(14, rule("ageMaxError", MaxRule.class));
+        expected.put(15, rule("sizeError", RangeRule.class));
+        expected.put(16, rule("countryError", SelectRule.class));
+        expected.put(17, rule("optOutError", CheckedRule.class));
+        assertEquals(expected, getRules(compilation, "com.example.ExplicitViewModelValidator"));
+
+        assertGenerated(compilation.getGeneratedSource("com.example.ExplicitViewModelValidator"),
+                // Enum constants, and arrays of them
+                "new EmailRule(EmailRule.Scheme.RFC_5321_IDN)",
+                "new PasswordRule(PasswordRule.Scheme.ALPHA_NUMERIC_SYMBOLS, 8)",
+                "new CreditCardRule(CreditCardRule.Type.AMEX,CreditCardRule.Type.JCB,CreditCardRule.Type.UNIONPAY)",
+                // A single element given for an array
+                "new CreditCardRule(CreditCardRule.Type.MAESTRO)",
+                "new RegexRule(\"(\\\\w)\\\\1\")",
+                ", ageValue > -3)",
+                ", ageValue < 99)",
+                ", sizeValue >= 1 && sizeValue <= 9)",
+                ", countryValue > 2)",
+                ", !optOutValue)",
+                // Names and fields, in the validate methods
+                "public void validateLogin(CharSequence loginValue)",
+                "public void validateSecret(CharSequence secretValue)",
+                "public void validateCard(CharSequence cardValue)",
+                "public void validateCode(CharSequence codeValue)",
+                "public void validateCodeRequired(CharSequence codeValue)",
+                "public void validateOwner(CharSequence ownerValue)",
+                "public void validatePhone(CharSequence phoneValue)",
+                "public void validateVat(CharSequence vatValue)",
+                "public void validatePassport(CharSequence passportValue)",
+                "public void validateAgeMin(int ageValue)",
+                "public void validateSize(int sizeValue)",
+                "public void validateCountry(int countryValue)",
+                "public void validateOptOut(boolean optOutValue)",
+                "public void validateSecretAgain(CharSequence secretAgainValue1, CharSequence secretAgainValue2)",
+                "public void validateLoginAgain(CharSequence loginAgainValue1, CharSequence loginAgainValue2)",
+                "public String getGiftCardErrorMessage()",
+                "public void setOptOutErrorMessage(String optOutValue)");
+    }
+
+    @Test
+    public void readsTheDefaultsOfEveryAttribute() throws Exception {
+        Compilation compilation = GeneratedValidators.compile("com.example.DefaultsViewModel", DEFAULTS, "-Akubwa.instrumentation=true");
+
+        Map<Integer, String> expected = new TreeMap<>();
+        expected.put(1, rule("emailError", EmailRule.class));
+        expected.put(2, rule("confirmEmailError", ConfirmEmailRule.class));
+        expected.put(3, rule("passwordError", PasswordRule.class));
+        expected.put(4, rule("confirmPasswordError", ConfirmPasswordRule.class));
+        expected.put(5, rule("creditCardError", CreditCardRule.class));
+        expected.put(7, rule("regexError", RegexRule.class));
+        expected.put(8, rule("notNullError", NotNullRule.class));
+        expected.put(9, rule("fullNameError", FullNameRule.class));
+        expected.put(10, rule("mobileError", MobileNumberRule.class));
+        expected.put(11, rule("taxNumberError", TaxNumberRule.class));
+        expected.put(12, rule("idNumberError", ZAIdNumberRule.class));
+        expected.put(13, rule("minError", MinRule.class));
+        expected.put(14, rule("maxError", MaxRule.class));
+        expected.put(15, rule("rangeError", RangeRule.class));
+        expected.put(16, rule("spinnerError", SelectRule.class));
+        expected.put(17, rule("checkedError", CheckedRule.class));
+        assertEquals(expected, getRules(compilation, "com.example.DefaultsViewModelValidator"));
+
+        assertGenerated(compilation.getGeneratedSource("com.example.DefaultsViewModelValidator"),
+                "new EmailRule(EmailRule.Scheme.ANDROID)",
+                "new PasswordRule(PasswordRule.Scheme.ANY, 1)",
+                "new CreditCardRule(CreditCardRule.Type.VISA,CreditCardRule.Type.MASTERCARD)",
+                ", minValue > 0)",
+                ", maxValue < 0)",
+                ", rangeValue > -2147483648 && rangeValue < 2147483647)",
+                ", spinnerValue > -1)",
+                ", checkedValue)",
+                "public void validateConfirmEmail(CharSequence confirmEmailValue1, CharSequence confirmEmailValue2)",
+                "public String getIdNumberErrorMessage()");
+    }
+
+    private static String rule(String name, Class<?> type) {
+        return name + " " + type.getSimpleName();
+    }
+
+    // Each rule's name and type, by message id
+    private static Map<Integer, String> getRules(Compilation compilation, String validatorName) throws Exception {
+        Class<?> validatorType = compilation.getClassLoader().loadClass(validatorName);
+        int[] messageIds = (int[]) getStatic(validatorType, "MESSAGE_IDS");
+        String[] names = (String[]) getStatic(validatorType, "RULE_NAMES");
+        Class<?>[] types = (Class<?>[]) getStatic(validatorType, "RULE_TYPES");
+        Map<Integer, String> rules = new TreeMap<>();
+        for (int rule = 0; rule < messageIds.length; rule++) {
+            rules.put(messageIds[rule], rule(names[rule], types[rule]));
+        }
+        return rules;
+    }
+
+    private static Object getStatic(Class<?> type, String name) throws Exception {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+
+    private static void assertGenerated(String source, String... parts) {
+        for (String part : parts) {
+            assertTrue(part + " in\n" + source, source.contains(part));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.wesleyelliott.kubwa;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles sources in memory, optionally running a processor over them, and keeps the generated
+ * sources, the class files and the diagnostics for tests to look at.
+ */
+
+public final class Compilation {
+
+    private final boolean succeeded;
+    private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+    private final Map<String, Output> outputs;
+
+    private Compilation(boolean succeeded, List<Diagnostic<? extends JavaFileObject>> diagnostics, Map<String, Output> outputs) {
+        this.succeeded = succeeded;
+        this.diagnostics = diagnostics;
+        this.outputs = outputs;
+    }
+
+    /**
+     * @param processor the only processor run, or null for none
+     * @param sources alternating class names and their source
+     */
+    public static Compilation compile(Processor processor, String... sources) {
+        return compile(processor, new String[0], sources);
+    }
+
+    /**
+     * @param processorOptions options given to the processor, e.g. "-Akey=value"
+     */
+    public static Compilation compile(Processor processor, String[] processorOptions, String... sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler, the tests have to run on a JDK");
+        }
+        List<JavaFileObject> files = new ArrayList<JavaFileObject>();
+        for (int i = 0; i < sources.length; i += 2) {
+            files.add(new Source(sources[i], sources[i + 1]));
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        InMemoryFiles fileManager = new InMemoryFiles(compiler.getStandardFileManager(diagnostics, null, null));
+        List<String> options = new ArrayList<String>(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+        if (processor == null) {
+            // Or javac would run any processor it finds on the classpath
+            options.add("-proc:none");
+        }
+        options.addAll(Arrays.asList(processorOptions));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, files);
+        if (processor != null) {
+            task.setProcessors(Collections.singletonList(processor));
+        }
+        boolean succeeded = task.call();
+        return new Compilation(succeeded, diagnostics.getDiagnostics(), fileManager.outputs);
+    }
+
+    public boolean succeeded() {
+        return succeeded;
+    }
+
+    /**
+     * Messages of the diagnostics of a kind, in the order they were reported.
+     */
+    public List<String> getMessages(Diagnostic.Kind kind) {
+        List<String> messages = new ArrayList<String>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            if (diagnostic.getKind() == kind) {
+                messages.add(diagnostic.getMessage(null));
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Source generated for a class, null if none was.
+     */
+    public String getGeneratedSource(String className) {
+        Output output = outputs.get(className + JavaFileObject.Kind.SOURCE.extension);
+        return output == null ? null : new String(output.content.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads the compiled classes, including generated ones.
+     */
+    public ClassLoader getClassLoader() {
+        return new ClassLoader(Compilation.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                Output output = outputs.get(name + JavaFileObject.Kind.CLASS.extension);
+                if (output == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                byte[] bytes = output.content.toByteArray();
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String content;
+
+        Source(String className, String content) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    private static final class InMemoryFiles extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        // class name and extension -> what was written for it
+        private final Map<String, Output> outputs = new LinkedHashMap<String, Output>();
+
+        InMemoryFiles(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            Output output = new Output(className, kind);
+            outputs.put(className + kind.extension, output);
+            return output;
+        }
+    }
+
+    private static final class Output extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        Output(String className, Kind kind) {
+            super(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() throws IOException {
+            content.reset();
+            return content;
+        }
+
+        // Read back by javac, which compiles generated sources in the next round
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return new String(content.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
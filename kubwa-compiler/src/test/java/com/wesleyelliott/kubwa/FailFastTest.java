@@ -0,0 +1,214 @@
+package com.wesleyelliott.kubwa;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.tools.Diagnostic;
+
+import static com.wesleyelliott.kubwa.GeneratedValidators.call;
+import static com.wesleyelliott.kubwa.GeneratedValidators.newValidator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * validateAllFailFast evaluates the rules in order, cheapest first or in the order kept by the
+ * validator's RuleOrder, and stops at the first that fails. The rules after it keep the outcome
+ * of their last validation, so the validators are driven with each rule's own validate method
+ * alongside, and the outcomes compared with what stopping at the first failure leaves.
+ */
+
+public class FailFastTest {
+
+    private static final String RULES = "package com.example;\n"
+            + "\n"
+            + "import com.wesleyelliott.kubwa.annotation.*;\n"
+            + "\n"
+            + "@Regex(errorMessage = 1, name = \"codeError\", field = \"code\", regex = \"(\\\\w)\\\\1\")\n"
+            + "@Email(errorMessage = 2)\n"
+            + "@NotNull(errorMessage = 3, name = \"nameError\", field = \"name\")\n"
+            + "@Min(errorMessage = 4, name = \"ageError\", field = \"age\", value = 17)\n"
+            + "@Checked(errorMessage = 5, name = \"termsError\")\n"
+            + "@ConfirmEmail(errorMessage = 6, field = \"confirm\")\n";
+
+    // The rules' bits, as the generated validators number them
+    private static final int EMAIL = 0;
+    private static final int NAME = 1;
+    private static final int CODE = 2;
+    private static final int TERMS = 3;
+    private static final int CONFIRM = 4;
+    private static final int AGE = 5;
+    // Comparisons, the length check, the email scanners, then the regex with a backreference
+    private static final int[] COST_ORDER = {TERMS, AGE, NAME, EMAIL, CONFIRM, CODE};
+
+    private static Compilation compilation;
+
+    @BeforeClass
+    public static void compileViewModels() {
+        compilation = Compilation.compile(new KubwaCompiler(),
+                "com.example.SignUpViewModel", RULES + "public class SignUpViewModel {\n}\n",
+                "com.example.AdaptiveViewModel", RULES + "@AdaptiveOrder(reorderInterval = 4)\npublic class AdaptiveViewModel {\n}\n");
+        assertTrue(compilation.getMessages(Diagnostic.Kind.ERROR).toString(), compilation.succeeded());
+    }
+
+    @Test
+    public void setsOnlyTheBitOfTheFirstFailingRule() throws Exception {
+        for (String validatorName : new String[] {"com.example.SignUpViewModelValidator", "com.example.AdaptiveViewModelValidator"}) {
+            Object validator = newValidator(compilation, validatorName, new GeneratedValidators.RecordingResolver());
+            Object[] inputs = failingInputs();
+            assertEquals(false, call(validator, "validateAllFailFast", inputs));
+            assertEquals(validatorName, 1L << TERMS, call(validator, "getFailureMask"));
+        }
+    }
+
+    @Test
+    public void doesNotEvaluateTheRulesAfterTheFirstFailure() throws Exception {
+        for (String validatorName : new String[] {"com.example.SignUpViewModelValidator", "com.example.AdaptiveViewModelValidator"}) {
+            Object validator = newValidator(compilation, validatorName, new GeneratedValidators.RecordingResolver());
+            call(validator, "validateAll", failingInputs());
+            Object[] inputs = passingInputs();
+            inputs[5] = 17;
+            assertEquals(false, call(validator, "validateAllFailFast", inputs));
+
+            // Terms passed before age failed, and the rules after it still fail with their old values
+            assertEquals(validatorName, Long.toBinaryString(0x3fL & ~(1L << TERMS)),
+                    Long.toBinaryString((Long) call(validator, "getFailureMask")));
+        }
+    }
+
+    @Test
+    public void evaluatesRulesCheapestFirst() throws Exception {
+        Object validator = newValidator(compilation, "com.example.SignUpViewModelValidator", new GeneratedValidators.RecordingResolver());
+        Random random = new Random(18);
+        int passed = 0;
+        for (int i = 0; i < 20000; i++) {
+            if (random.nextInt(4) == 0) {
+                // A different outcome to keep for the rules not evaluated
+                call(validator, "validateAll", randomInputs(random));
+            }
+            Object[] inputs = randomInputs(random);
+            Object[] previous = failedRules(validator);
+            boolean valid = (Boolean) call(validator, "validateAllFailFast", inputs);
+            assertStoppedAtFirstFailure(validator, COST_ORDER, previous, inputs, valid);
+            if (valid) {
+                passed++;
+            }
+        }
+        assertTrue(passed > 0);
+    }
+
+    @Test
+    public void evaluatesRulesInTheOrderOfTheRuleOrder() throws Exception {
+        Object validator = newValidator(compilation, "com.example.AdaptiveViewModelValidator", new GeneratedValidators.RecordingResolver());
+        Field ruleOrderField = validator.getClass().getDeclaredField("ruleOrder");
+        ruleOrderField.setAccessible(true);
+        RuleOrder ruleOrder = (RuleOrder) ruleOrderField.get(validator);
+        assertEquals(Arrays.toString(COST_ORDER), Arrays.toString(getOrder(ruleOrder)));
+
+        Random random = new Random(18);
+        boolean reordered = false;
+        for (int i = 0; i < 20000; i++) {
+            if (random.nextInt(4) == 0) {
+                call(validator, "validateAll", randomInputs(random));
+            }
+            Object[] inputs = randomInputs(random);
+            Object[] previous = failedRules(validator);
+            boolean valid = (Boolean) call(validator, "validateAllFailFast", inputs);
+
+            // The order only changes when a validation begins, so it's still the one used
+            int[] order = getOrder(ruleOrder);
+            reordered |= !Arrays.equals(COST_ORDER, order);
+            assertTrue(Arrays.toString(order), indexOf(order, EMAIL) < indexOf(order, CONFIRM));
+            assertStoppedAtFirstFailure(validator, order, previous, inputs, valid);
+        }
+        assertTrue(reordered);
+    }
+
+    /**
+     * Checks that the rules were evaluated in order up to the first that fails, and the rest kept
+     * their previous outcome.
+     */
+    private static void assertStoppedAtFirstFailure(Object validator, int[] order, Object[] previous, Object[] inputs, boolean valid) throws Exception {
+        Object[] expected = previous.clone();
+        boolean[] outcomes = evaluateEachRule(inputs);
+        boolean anyFailed = false;
+        for (int rule : order) {
+            expected[rule] = outcomes[rule];
+            if (outcomes[rule]) {
+                anyFailed = true;
+                break;
+            }
+        }
+        String message = Arrays.toString(order) + " " + Arrays.toString(inputs);
+        assertEquals(message, Arrays.asList(expected), Arrays.asList(failedRules(validator)));
+        assertEquals(message, !anyFailed, valid);
+    }
+
+    // Whether each rule fails, through its own validate method
+    private static boolean[] evaluateEachRule(Object[] inputs) throws Exception {
+        Object single = newValidator(compilation, "com.example.SignUpViewModelValidator", new GeneratedValidators.RecordingResolver());
+        call(single, "validateEmail", inputs[0]);
+        call(single, "validateName", inputs[1]);
+        call(single, "validateCode", inputs[2]);
+        call(single, "validateTerms", inputs[3]);
+        call(single, "validateConfirmEmail", inputs[4], inputs[0]);
+        call(single, "validateAge", inputs[5]);
+        boolean[] outcomes = new boolean[6];
+        for (int rule = 0; rule < outcomes.length; rule++) {
+            outcomes[rule] = (Boolean) call(single, "isFailed", rule);
+        }
+        return outcomes;
+    }
+
+    private static Object[] failedRules(Object validator) throws Exception {
+        Object[] failed = new Object[6];
+        for (int rule = 0; rule < failed.length; rule++) {
+            failed[rule] = call(validator, "isFailed", rule);
+        }
+        return failed;
+    }
+
+    // The values of validateAll and validateAllFailFast: email, name, code, terms, confirm, age
+    private static Object[] failingInputs() {
+        return new Object[] {"bad", "", "ab", false, "other", 17};
+    }
+
+    private static Object[] passingInputs() {
+        return new Object[] {"a@b.co", "Ann", "aa", true, "a@b.co", 18};
+    }
+
+    // Each value passes most of the time, so some inputs pass every rule
+    private static Object[] randomInputs(Random random) {
+        Object[] inputs = random.nextInt(5) == 0 ? failingInputs() : passingInputs();
+        Object[] failing = failingInputs();
+        for (int i = 0; i < inputs.length; i++) {
+            if (random.nextInt(5) == 0) {
+                inputs[i] = failing[i];
+            }
+        }
+        if (random.nextBoolean()) {
+            inputs[4] = inputs[0];
+        }
+        return inputs;
+    }
+
+    private static int[] getOrder(RuleOrder ruleOrder) {
+        int[] order = new int[ruleOrder.size()];
+        for (int position = 0; position < order.length; position++) {
+            order[position] = ruleOrder.get(position);
+        }
+        return order;
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
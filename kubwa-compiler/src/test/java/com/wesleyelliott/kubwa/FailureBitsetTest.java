@@ -0,0 +1,150 @@
+package com.wesleyelliott.kubwa;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.wesleyelliott.kubwa.GeneratedValidators.call;
+import static com.wesleyelliott.kubwa.GeneratedValidators.getMessageIds;
+import static com.wesleyelliott.kubwa.GeneratedValidators.newValidator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The first 64 rules of a validator keep their failures in a long and the rest in an array, with
+ * bit 63 of the failure mask also standing for any of the rest. Compiles a ViewModel with more
+ * rules than fit in a long, half of them inlined and half validated through their rule, and
+ * checks what the validator reports after mixed outcomes.
+ */
+
+public class FailureBitsetTest {
+
+    private static final int RULE_COUNT = 82;
+    private static final Object[] VALUES = {"", "x", "1", new StringBuilder("ab")};
+
+    private static Compilation compilation;
+
+    @BeforeClass
+    public static void compileWideViewModel() {
+        StringBuilder notNull = new StringBuilder();
+        StringBuilder regex = new StringBuilder();
+        for (int rule = 0; rule < RULE_COUNT; rule++) {
+            if (rule % 2 == 0) {
+                notNull.append(notNull.length() == 0 ? "" : ",\n        ")
+                        .append("@NotNull(errorMessage = ").append(100 + rule).append(", name = \"r").append(rule).append("Error\")");
+            } else {
+                regex.append(regex.length() == 0 ? "" : ",\n        ")
+                        .append("@Regex(errorMessage = ").append(100 + rule).append(", name = \"r").append(rule)
+                        .append("Error\", regex = \"[a-z]+\")");
+            }
+        }
+        compilation = GeneratedValidators.compile("com.example.WideViewModel", "package com.example;\n"
+                + "\n"
+                + "import com.wesleyelliott.kubwa.annotation.*;\n"
+                + "\n"
+                + "@NotNull.List({\n        " + notNull + "})\n"
+                + "@Regex.List({\n        " + regex + "})\n"
+                + "public class WideViewModel {\n"
+                + "}\n");
+    }
+
+    @Test
+    public void reportsMixedOutcomesOfEveryRule() throws Exception {
+        Random random = new Random(17);
+        for (int i = 0; i < 500; i++) {
+            GeneratedValidators.RecordingResolver resolver = new GeneratedValidators.RecordingResolver();
+            Object validator = newValidator(compilation, "com.example.WideViewModelValidator", resolver);
+            int[] messageIds = getMessageIds(validator);
+            assertEquals(RULE_COUNT, messageIds.length);
+
+            boolean[] failed = new boolean[RULE_COUNT];
+            // Most inputs pass, so that some leave the rules past 63 all passing
+            double failureRate = random.nextDouble() * 0.05;
+            for (int bit = 0; bit < RULE_COUNT; bit++) {
+                int rule = messageIds[bit] - 100;
+                // "" or "1" fail the regex, "x" or "ab" pass both
+                Object value = VALUES[(random.nextDouble() < failureRate ? 0 : 1) + 2 * random.nextInt(2)];
+                call(validator, "validateR" + rule, value);
+                failed[bit] = isFailure(rule, value);
+            }
+
+            assertReports(validator, resolver, failed);
+        }
+    }
+
+    @Test
+    public void keepsBit63ForTheRuleItBelongsTo() throws Exception {
+        GeneratedValidators.RecordingResolver resolver = new GeneratedValidators.RecordingResolver();
+        Object validator = newValidator(compilation, "com.example.WideViewModelValidator", resolver);
+        int[] messageIds = getMessageIds(validator);
+        for (int bit = 0; bit < RULE_COUNT; bit++) {
+            call(validator, "validateR" + (messageIds[bit] - 100), "x");
+        }
+        boolean[] failed = new boolean[RULE_COUNT];
+        assertReports(validator, resolver, failed);
+
+        // Rule 63 alone, a rule past it alone, both, then each passing again
+        int[][] steps = {{63, 1}, {63, 0}, {70, 1}, {63, 1}, {63, 0}, {70, 0}, {RULE_COUNT - 1, 1}, {RULE_COUNT - 1, 0}};
+        for (int[] step : steps) {
+            int bit = step[0];
+            int rule = messageIds[bit] - 100;
+            call(validator, "validateR" + rule, step[1] == 1 ? "" : "x");
+            failed[bit] = step[1] == 1;
+            assertReports(validator, resolver, failed);
+        }
+    }
+
+    @Test
+    public void resolvesMessagesOfFailedRulesOnly() throws Exception {
+        GeneratedValidators.RecordingResolver resolver = new GeneratedValidators.RecordingResolver();
+        Object validator = newValidator(compilation, "com.example.WideViewModelValidator", resolver);
+        int[] messageIds = getMessageIds(validator);
+        for (int bit = 0; bit < RULE_COUNT; bit++) {
+            call(validator, "validateR" + (messageIds[bit] - 100), bit == 70 ? "" : "x");
+        }
+        for (int bit = 0; bit < RULE_COUNT; bit++) {
+            call(validator, "getR" + (messageIds[bit] - 100) + "ErrorMessage");
+        }
+
+        List<Integer> expected = new ArrayList<>();
+        expected.add(messageIds[70]);
+        assertEquals(expected, resolver.messageIds);
+    }
+
+    private static boolean isFailure(int rule, Object value) {
+        String text = value.toString();
+        return rule % 2 == 0 ? text.isEmpty() : !text.matches("[a-z]+");
+    }
+
+    private static void assertReports(Object validator, GeneratedValidators.RecordingResolver resolver, boolean[] failed) throws Exception {
+        int[] messageIds = getMessageIds(validator);
+        long mask = 0;
+        boolean anyFailed = false;
+        for (int bit = 0; bit < RULE_COUNT; bit++) {
+            if (failed[bit]) {
+                mask |= 1L << Math.min(bit, 63);
+                anyFailed = true;
+            }
+        }
+        assertEquals(Long.toBinaryString(mask), Long.toBinaryString((Long) call(validator, "getFailureMask")));
+        assertEquals(!anyFailed, call(validator, "isValid"));
+
+        resolver.messageIds.clear();
+        List<Integer> resolved = new ArrayList<>();
+        for (int bit = 0; bit < RULE_COUNT; bit++) {
+            int rule = messageIds[bit] - 100;
+            assertEquals(failed[bit], call(validator, "isFailed", bit));
+            Object message = call(validator, "getR" + rule + "ErrorMessage");
+            if (failed[bit]) {
+                assertEquals("Message " + messageIds[bit], message);
+                resolved.add(messageIds[bit]);
+            } else {
+                assertNull("r" + rule, message);
+            }
+        }
+        assertEquals(resolved, resolver.messageIds);
+    }
+}
@@ -0,0 +1,78 @@
+package com.wesleyelliott.kubwa;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compiles ViewModels through {@link KubwaCompiler} and drives the validators generated for them
+ * through reflection, as tests can't refer to classes that only exist once they've run.
+ */
+
+public final class GeneratedValidators {
+
+    private GeneratedValidators() {
+    }
+
+    /**
+     * Compiles a ViewModel, failing the test if it doesn't compile.
+     */
+    public static Compilation compile(String className, String source, String... processorOptions) {
+        Compilation compilation = Compilation.compile(new KubwaCompiler(), processorOptions, className, source);
+        assertTrue(compilation.getMessages(Diagnostic.Kind.ERROR).toString(), compilation.succeeded());
+        return compilation;
+    }
+
+    public static Object newValidator(Compilation compilation, String className, MessageResolver messageResolver) throws Exception {
+        Class<?> validatorType = compilation.getClassLoader().loadClass(className);
+        return validatorType.getConstructor(MessageResolver.class).newInstance(messageResolver);
+    }
+
+    /**
+     * Calls the public method of that name taking as many arguments, rethrowing what it throws.
+     */
+    public static Object call(Object target, String name, Object... args) throws Exception {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterTypes().length == args.length) {
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw (Error) e.getCause();
+                }
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    /**
+     * The message id of each rule, in the order of the rules' bits.
+     */
+    public static int[] getMessageIds(Object validator) throws Exception {
+        Field messageIds = validator.getClass().getDeclaredField("MESSAGE_IDS");
+        messageIds.setAccessible(true);
+        return (int[]) messageIds.get(null);
+    }
+
+    /**
+     * Resolves every id to "Message id", remembering the ids it was asked for.
+     */
+    public static final class RecordingResolver implements MessageResolver {
+
+        public final List<Integer> messageIds = new ArrayList<>();
+
+        @Override
+        public String getMessage(int messageId) {
+            messageIds.add(messageId);
+            return "Message " + messageId;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.wesleyelliott.kubwa;
+
+import com.wesleyelliott.kubwa.rule.CheckedRule;
+import com.wesleyelliott.kubwa.rule.IntRule;
+import com.wesleyelliott.kubwa.rule.MaxRule;
+import com.wesleyelliott.kubwa.rule.MinRule;
+import com.wesleyelliott.kubwa.rule.NotNullRule;
+import com.wesleyelliott.kubwa.rule.RangeRule;
+import com.wesleyelliott.kubwa.rule.SelectRule;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.wesleyelliott.kubwa.GeneratedValidators.call;
+import static com.wesleyelliott.kubwa.GeneratedValidators.newValidator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Min, Max, Range, Select, Checked and NotNull rules are checked by expressions generated into
+ * the validator instead of through the rules. Each expression has to accept exactly what the rule
+ * accepts, so both are given the values at and around the rule's bounds.
+ */
+
+public class InlinedRulesTest {
+
+    private static final String BOUNDS = "package com.example;\n"
+            + "\n"
+            + "import com.wesleyelliott.kubwa.annotation.*;\n"
+            + "\n"
+            + "@Min.List({\n"
+            + "        @Min(errorMessage = 1, name = \"minError\", value = 10),\n"
+            + "        @Min(errorMessage = 2, name = \"negativeMinError\", value = -5),\n"
+            + "        @Min(errorMessage = 3, name = \"lowestMinError\", value = Integer.MIN_VALUE)})\n"
+            + "@Max.List({\n"
+            + "        @Max(errorMessage = 4, name = \"maxError\", value = 50),\n"
+            + "        @Max(errorMessage = 5, name = \"highestMaxError\", value = Integer.MAX_VALUE)})\n"
+            + "@Range.List({\n"
+            + "        @Range(errorMessage = 6, name = \"openRangeError\", min = 10, max = 20),\n"
+            + "        @Range(errorMessage = 7, name = \"closedRangeError\", min = 10, max = 20, includeBounds = true),\n"
+            + "        @Range(errorMessage = 8, name = \"pointRangeError\", min = -3, max = -3, includeBounds = true),\n"
+            + "        @Range(errorMessage = 9, name = \"widestRangeError\", includeBounds = true),\n"
+            + "        @Range(errorMessage = 10, name = \"widestOpenRangeError\")})\n"
+            + "@Select.List({\n"
+            + "        @Select(errorMessage = 11, name = \"spinnerError\"),\n"
+            + "        @Select(errorMessage = 12, name = \"pastFirstError\", value = 0)})\n"
+            + "@Checked.List({\n"
+            + "        @Checked(errorMessage = 13, name = \"checkedError\"),\n"
+            + "        @Checked(errorMessage = 14, name = \"uncheckedError\", value = false)})\n"
+            + "@NotNull(errorMessage = 15, name = \"notNullError\")\n"
+            + "public class BoundsViewModel {\n"
+            + "}\n";
+
+    private static Compilation compilation;
+
+    @BeforeClass
+    public static void compileBoundsViewModel() {
+        compilation = GeneratedValidators.compile("com.example.BoundsViewModel", BOUNDS);
+    }
+
+    @Test
+    public void generatesNoRuleObjects() {
+        String source = compilation.getGeneratedSource("com.example.BoundsViewModelValidator");
+        assertFalse(source, source.contains("Rule "));
+        assertFalse(source, source.contains("validate("));
+    }
+
+    @Test
+    public void numericChecksMatchTheRules() throws Exception {
+        Map<String, IntRule> rules = new LinkedHashMap<>();
+        rules.put("Min", new MinRule(10));
+        rules.put("NegativeMin", new MinRule(-5));
+        rules.put("LowestMin", new MinRule(Integer.MIN_VALUE));
+        rules.put("Max", new MaxRule(50));
+        rules.put("HighestMax", new MaxRule(Integer.MAX_VALUE));
+        rules.put("OpenRange", new RangeRule(10, 20, false));
+        rules.put("ClosedRange", new RangeRule(10, 20, true));
+        rules.put("PointRange", new RangeRule(-3, -3, true));
+        rules.put("WidestRange", new RangeRule(Integer.MIN_VALUE, Integer.MAX_VALUE, true));
+        rules.put("WidestOpenRange", new RangeRule(Integer.MIN_VALUE, Integer.MAX_VALUE, false));
+        rules.put("Spinner", new SelectRule(-1));
+        rules.put("PastFirst", new SelectRule(0));
+
+        // Every bound of the rules, and the values either side of it
+        int[] bounds = {10, -5, Integer.MIN_VALUE, 50, Integer.MAX_VALUE, 20, -3, -1, 0};
+        Object validator = newValidator(compilation, "com.example.BoundsViewModelValidator", new GeneratedValidators.RecordingResolver());
+        for (Map.Entry<String, IntRule> rule : rules.entrySet()) {
+            for (int bound : bounds) {
+                for (int value = bound - 1; value != bound + 2; value++) {
+                    call(validator, "validate" + rule.getKey(), value);
+                    assertPasses(rule.getKey() + " " + value, rule.getValue().isValid(value), validator, rule.getKey());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkedChecksMatchTheRules() throws Exception {
+        Object validator = newValidator(compilation, "com.example.BoundsViewModelValidator", new GeneratedValidators.RecordingResolver());
+        for (boolean value : new boolean[] {true, false}) {
+            call(validator, "validateChecked", value);
+            assertPasses("Checked " + value, new CheckedRule(true).isValid(value), validator, "Checked");
+            call(validator, "validateUnchecked", value);
+            assertPasses("Unchecked " + value, new CheckedRule(false).isValid(value), validator, "Unchecked");
+        }
+    }
+
+    @Test
+    public void notNullCheckMatchesTheRule() throws Exception {
+        Object validator = newValidator(compilation, "com.example.BoundsViewModelValidator", new GeneratedValidators.RecordingResolver());
+        NotNullRule rule = new NotNullRule();
+        for (CharSequence value : new CharSequence[] {null, "", new StringBuilder(), " ", "a", new StringBuilder("a")}) {
+            call(validator, "validateNotNull", value);
+            assertPasses("NotNull \"" + value + "\"", rule.isValid(value), validator, "NotNull");
+        }
+    }
+
+    private static void assertPasses(String message, boolean expected, Object validator, String rule) throws Exception {
+        assertEquals(message, expected, call(validator, "get" + rule + "ErrorMessage") == null);
+    }
+}
@@ -0,0 +1,187 @@
+package com.wesleyelliott.kubwa;
+
+import com.wesleyelliott.kubwa.rule.CheckedRule;
+import com.wesleyelliott.kubwa.rule.ConfirmEmailRule;
+import com.wesleyelliott.kubwa.rule.EmailRule;
+import com.wesleyelliott.kubwa.rule.MaxRule;
+import com.wesleyelliott.kubwa.rule.MinRule;
+import com.wesleyelliott.kubwa.rule.NotNullRule;
+import com.wesleyelliott.kubwa.rule.RegexRule;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.wesleyelliott.kubwa.GeneratedValidators.call;
+import static com.wesleyelliott.kubwa.GeneratedValidators.getMessageIds;
+import static com.wesleyelliott.kubwa.GeneratedValidators.newValidator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * With the kubwa.instrumentation option, generated validators report every rule they evaluate,
+ * or derive the outcome of, to the installed listener. Without it they have none of the members
+ * doing so.
+ */
+
+public class InstrumentationTest {
+
+    private static final String RULES = "package com.example;\n"
+            + "\n"
+            + "import com.wesleyelliott.kubwa.annotation.*;\n"
+            + "\n"
+            + "@Min(errorMessage = 1, name = \"ageMinError\", field = \"age\", value = 10)\n"
+            + "@Max(errorMessage = 2, name = \"ageMaxError\", field = \"age\", value = 50)\n"
+            + "@NotNull(errorMessage = 3, name = \"codeRequiredError\", field = \"code\")\n"
+            + "@Regex.List({\n"
+            + "        @Regex(errorMessage = 4, name = \"codeLooseError\", field = \"code\", regex = \"[A-Z]+\\\\d+\"),\n"
+            + "        @Regex(errorMessage = 5, name = \"codeFormatError\", field = \"code\", regex = \"[A-Z]{2}\\\\d{4}\")})\n"
+            + "@Email(errorMessage = 6)\n"
+            + "@ConfirmEmail(errorMessage = 7, field = \"confirm\")\n"
+            + "@Checked(errorMessage = 8, name = \"termsError\")\n"
+            + "public class ProfileViewModel {\n"
+            + "}\n";
+
+    private static final String INSTRUMENTATION = "-Akubwa.instrumentation=true";
+
+    // Each rule's name and type, by message id
+    private static final Map<Integer, String> NAMES = new LinkedHashMap<>();
+    private static final Map<Integer, Class<?>> TYPES = new LinkedHashMap<>();
+
+    static {
+        addRule(1, "ageMinError", MinRule.class);
+        addRule(2, "ageMaxError", MaxRule.class);
+        addRule(3, "codeRequiredError", NotNullRule.class);
+        addRule(4, "codeLooseError", RegexRule.class);
+        addRule(5, "codeFormatError", RegexRule.class);
+        addRule(6, "emailError", EmailRule.class);
+        addRule(7, "confirmEmailError", ConfirmEmailRule.class);
+        addRule(8, "termsError", CheckedRule.class);
+    }
+
+    private static final String[] CODES = {"", "AB1234", "ABC12", "A1", "ab", "AB12345"};
+    private static final String[] EMAILS = {"", "a@b.co", "bad"};
+
+    private final RecordingListener listener = new RecordingListener();
+
+    @After
+    public void tearDown() {
+        Instrumentation.setListener(null);
+    }
+
+    @Test
+    public void reportsEachRuleOfValidateAll() throws Exception {
+        Instrumentation.setListener(listener);
+        Object validator = newValidator(GeneratedValidators.compile("com.example.ProfileViewModel", RULES, INSTRUMENTATION),
+                "com.example.ProfileViewModelValidator", new GeneratedValidators.RecordingResolver());
+        int[] messageIds = getMessageIds(validator);
+
+        Random random = new Random(20);
+        for (int i = 0; i < 2000; i++) {
+            String email = EMAILS[random.nextInt(EMAILS.length)];
+            String confirm = random.nextBoolean() ? email : EMAILS[random.nextInt(EMAILS.length)];
+            listener.events.clear();
+            call(validator, "validateAll", email, CODES[random.nextInt(CODES.length)], random.nextBoolean(), confirm, random.nextInt(70) - 5);
+
+            // Whichever order they were evaluated or derived in, once each
+            List<String> expected = new ArrayList<>();
+            for (int rule = 0; rule < messageIds.length; rule++) {
+                expected.add(event(messageIds[rule], !(Boolean) call(validator, "isFailed", rule)));
+            }
+            List<String> actual = new ArrayList<>(listener.events);
+            Collections.sort(expected);
+            Collections.sort(actual);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void reportsTheRuleOfEachValidateMethod() throws Exception {
+        Instrumentation.setListener(listener);
+        Object validator = newValidator(GeneratedValidators.compile("com.example.ProfileViewModel", RULES, INSTRUMENTATION),
+                "com.example.ProfileViewModelValidator", new GeneratedValidators.RecordingResolver());
+
+        assertReports(validator, "validateAgeMin", new Object[] {5}, 1, false);
+        assertReports(validator, "validateAgeMax", new Object[] {5}, 2, true);
+        assertReports(validator, "validateCodeRequired", new Object[] {""}, 3, false);
+        assertReports(validator, "validateCodeLoose", new Object[] {"AB1"}, 4, true);
+        assertReports(validator, "validateCodeFormat", new Object[] {"AB1"}, 5, false);
+        assertReports(validator, "validateEmail", new Object[] {"a@b.co"}, 6, true);
+        assertReports(validator, "validateConfirmEmail", new Object[] {"a@b.co", "b@b.co"}, 7, false);
+        assertReports(validator, "validateTerms", new Object[] {true}, 8, true);
+    }
+
+    @Test
+    public void reportsOnlyTheRulesFailFastEvaluates() throws Exception {
+        Instrumentation.setListener(listener);
+        Object validator = newValidator(GeneratedValidators.compile("com.example.ProfileViewModel", RULES, INSTRUMENTATION),
+                "com.example.ProfileViewModelValidator", new GeneratedValidators.RecordingResolver());
+
+        // The comparisons come first, and the age fails after the terms passed
+        call(validator, "validateAllFailFast", "a@b.co", "AB1234", true, "a@b.co", 5);
+        assertEquals(Arrays.asList(event(8, true), event(1, false)), listener.events);
+    }
+
+    @Test
+    public void generatesNoInstrumentationWithoutTheOption() throws Exception {
+        Instrumentation.setListener(listener);
+        Compilation compilation = GeneratedValidators.compile("com.example.ProfileViewModel", RULES);
+        String source = compilation.getGeneratedSource("com.example.ProfileViewModelValidator");
+        for (String member : new String[] {"Instrumentation", "INSTRUMENTED", "RULE_NAMES", "RULE_TYPES", "now()", "report("}) {
+            assertFalse(member, source.contains(member));
+        }
+
+        Object validator = newValidator(compilation, "com.example.ProfileViewModelValidator", new GeneratedValidators.RecordingResolver());
+        call(validator, "validateAll", "a@b.co", "AB1234", true, "a@b.co", 20);
+        call(validator, "validateEmail", "bad");
+        assertTrue(listener.events.isEmpty());
+    }
+
+    @Test
+    public void reportsNothingWithoutAListener() throws Exception {
+        // Installed only once the validator class has checked for one
+        Object validator = newValidator(GeneratedValidators.compile("com.example.ProfileViewModel", RULES, INSTRUMENTATION),
+                "com.example.ProfileViewModelValidator", new GeneratedValidators.RecordingResolver());
+        Instrumentation.setListener(listener);
+        call(validator, "validateAll", "a@b.co", "AB1234", true, "a@b.co", 20);
+        assertTrue(listener.events.isEmpty());
+    }
+
+    private void assertReports(Object validator, String method, Object[] args, int messageId, boolean valid) throws Exception {
+        listener.events.clear();
+        call(validator, method, args);
+        assertEquals(method, Arrays.asList(event(messageId, valid)), listener.events);
+    }
+
+    private static void addRule(int messageId, String name, Class<?> type) {
+        NAMES.put(messageId, name);
+        TYPES.put(messageId, type);
+    }
+
+    private static String event(int messageId, boolean valid) {
+        return RecordingListener.event(NAMES.get(messageId), TYPES.get(messageId), valid);
+    }
+
+    private static final class RecordingListener implements ValidationListener {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onValidated(String ruleName, Class<?> ruleType, boolean valid, long durationNanos) {
+            assertTrue(durationNanos >= 0);
+            events.add(event(ruleName, ruleType, valid));
+        }
+
+        static String event(String ruleName, Class<?> ruleType, boolean valid) {
+            return ruleName + " " + ruleType.getSimpleName() + (valid ? " passed" : " failed");
+        }
+    }
+}
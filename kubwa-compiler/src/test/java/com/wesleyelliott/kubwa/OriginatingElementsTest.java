@@ -0,0 +1,142 @@
+package com.wesleyelliott.kubwa;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The processor is registered as isolating, so each file it generates has to name the one class
+ * it was generated from as its originating element, or incremental builds won't regenerate it
+ * when that class changes. The processor is run with a Filer recording what it's given.
+ */
+
+public class OriginatingElementsTest {
+
+    private static final String RULES = "import com.wesleyelliott.kubwa.annotation.*;\n"
+            + "\n"
+            + "@Email(errorMessage = 1)\n"
+            + "@NotNull.List({@NotNull(errorMessage = 2, name = \"nameError\")})\n";
+
+    @Test
+    public void recordsTheAnnotatedClassOfEachFile() {
+        RecordingProcessor processor = new RecordingProcessor(new KubwaCompiler());
+        Compilation compilation = Compilation.compile(processor,
+                "com.example.LoginViewModel", "package com.example;\n\n" + RULES + "public class LoginViewModel {\n}\n",
+                "com.example.signup.SignUpViewModel", "package com.example.signup;\n\n" + RULES
+                        + "@AdaptiveOrder\npublic class SignUpViewModel {\n}\n",
+                "com.example.PlainViewModel", "package com.example;\n\npublic class PlainViewModel {\n}\n");
+        assertTrue(compilation.getMessages(Diagnostic.Kind.ERROR).toString(), compilation.succeeded());
+
+        Map<String, List<String>> expected = new LinkedHashMap<>();
+        expected.put("com.example.LoginViewModelValidator", Arrays.asList("com.example.LoginViewModel"));
+        expected.put("com.example.signup.SignUpViewModelValidator", Arrays.asList("com.example.signup.SignUpViewModel"));
+        assertEquals(expected, processor.originatingElements);
+    }
+
+    /**
+     * Runs a processor with a Filer that records the originating elements of the files created,
+     * by the qualified names of the types they are.
+     */
+    private static final class RecordingProcessor implements Processor {
+
+        private final Processor processor;
+        private final Map<String, List<String>> originatingElements = new LinkedHashMap<>();
+
+        RecordingProcessor(Processor processor) {
+            this.processor = processor;
+        }
+
+        @Override
+        public Set<String> getSupportedOptions() {
+            return processor.getSupportedOptions();
+        }
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return processor.getSupportedAnnotationTypes();
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return processor.getSupportedSourceVersion();
+        }
+
+        @Override
+        public void init(final ProcessingEnvironment processingEnv) {
+            final Filer filer = forward(Filer.class, processingEnv.getFiler(), new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    // createSourceFile, createClassFile and createResource all take them last
+                    if (method.getName().startsWith("create")) {
+                        List<String> names = new ArrayList<>();
+                        for (Element element : (Element[]) args[args.length - 1]) {
+                            names.add(element instanceof TypeElement ? ((TypeElement) element).getQualifiedName().toString() : element.toString());
+                        }
+                        originatingElements.put(method.getName().equals("createResource") ? args[1] + "/" + args[2] : args[0].toString(), names);
+                    }
+                    return null;
+                }
+            });
+            processor.init(forward(ProcessingEnvironment.class, processingEnv, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return method.getName().equals("getFiler") ? filer : null;
+                }
+            }));
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            return processor.process(annotations, roundEnv);
+        }
+
+        @Override
+        public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+            return processor.getCompletions(element, annotation, member, userText);
+        }
+
+        /**
+         * Calls the handler first, then the target unless the handler returned something.
+         */
+        private static <T> T forward(Class<T> type, final T target, final InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    Object result = handler.invoke(proxy, method, args);
+                    if (result != null) {
+                        return result;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.wesleyelliott.kubwa;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import javax.tools.Diagnostic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * validateAll derives the outcomes of rules of the same field from each other, and checks the
+ * interval their numeric rules all accept first. Whatever it derives has to be what each rule's
+ * own validate method would have found, so the two are compared on the same values.
+ */
+
+public class ValueConstraintsTest {
+
+    private static final String PROFILE = "package com.example;\n"
+            + "\n"
+            + "import com.wesleyelliott.kubwa.annotation.*;\n"
+            + "\n"
+            + "@Min(errorMessage = 1, name = \"ageMinError\", field = \"age\", value = 10)\n"
+            + "@Max(errorMessage = 2, name = \"ageMaxError\", field = \"age\", value = 50)\n"
+            + "@Range(errorMessage = 3, name = \"ageRangeError\", field = \"age\", min = 10, max = 20)\n"
+            + "@NotNull(errorMessage = 4, name = \"codeRequiredError\", field = \"code\")\n"
+            + "@Regex.List({\n"
+            + "        @Regex(errorMessage = 5, name = \"codeLooseError\", field = \"code\", regex = \"[A-Z]+\\\\d+\"),\n"
+            + "        @Regex(errorMessage = 6, name = \"codeFormatError\", field = \"code\", regex = \"[A-Z]{2}\\\\d{4}\"),\n"
+            + "        @Regex(errorMessage = 7, name = \"codeDigitsError\", field = \"code\", regex = \"\\\\d+\"),\n"
+            + "        @Regex(errorMessage = 8, name = \"codeBackrefError\", field = \"code\", regex = \"(\\\\w)\\\\1\")})\n"
+            + "@Email(errorMessage = 9)\n"
+            + "@ConfirmEmail(errorMessage = 10, field = \"confirm\")\n"
+            + "@NotNull.List({@NotNull(errorMessage = 11, name = \"confirmRequiredError\", field = \"confirm\")})\n"
+            + "@Select(errorMessage = 12)\n"
+            + "public class ProfileViewModel {\n"
+            + "}\n";
+
+    private static final String[] CODES = {"", "AB1234", "ABC12", "A1", "aa", "AA", "ZZ9", "AB12345", "11", "1234", "x"};
+    private static final String[] EMAILS = {"", "a@b.co", "bad"};
+
+    @Test
+    public void validateAllMatchesEachRuleOnItsOwn() throws Exception {
+        Compilation compilation = compile("com.example.ProfileViewModel", PROFILE);
+        Class<?> validatorType = compilation.getClassLoader().loadClass("com.example.ProfileViewModelValidator");
+        Object all = newValidator(validatorType);
+
+        Random random = new Random(25);
+        for (int i = 0; i < 20000; i++) {
+            String code = CODES[random.nextInt(CODES.length)];
+            String email = EMAILS[random.nextInt(EMAILS.length)];
+            String confirm = random.nextBoolean() ? email : EMAILS[random.nextInt(EMAILS.length)];
+            // Around every bound of the age rules
+            int age = random.nextInt(70) - 5;
+            int spinner = random.nextInt(3) - 1;
+            call(all, "validateAll", email, code, confirm, age, spinner);
+
+            Object single = newValidator(validatorType);
+            call(single, "validateEmail", email);
+            call(single, "validateCodeRequired", code);
+            call(single, "validateCodeLoose", code);
+            call(single, "validateCodeFormat", code);
+            call(single, "validateCodeDigits", code);
+            call(single, "validateCodeBackref", code);
+            call(single, "validateConfirmEmail", confirm, email);
+            call(single, "validateConfirmRequired", confirm);
+            call(single, "validateAgeMin", age);
+            call(single, "validateAgeMax", age);
+            call(single, "validateAgeRange", age);
+            call(single, "validateSpinner", spinner);
+
+            assertEquals(Arrays.asList(email, code, confirm, age, spinner).toString(),
+                    Long.toBinaryString((Long) call(single, "getFailureMask")),
+                    Long.toBinaryString((Long) call(all, "getFailureMask")));
+        }
+    }
+
+    @Test
+    public void checksTheIntervalOfAllNumericRulesFirst() throws Exception {
+        String source = compile("com.example.ProfileViewModel", PROFILE).getGeneratedSource("com.example.ProfileViewModelValidator");
+        // Min 10 and Max 50 both accept whatever Range 10 to 20, bounds excluded, accepts
+        assertTrue(source, source.contains("if (ageValue >= 11 && ageValue <= 19) {"));
+    }
+
+    @Test
+    public void derivesOutcomesInsteadOfEvaluatingRules() throws Exception {
+        String source = compile("com.example.ProfileViewModel", PROFILE).getGeneratedSource("com.example.ProfileViewModelValidator");
+        String validateAll = source.substring(source.indexOf("public void validateAll("), source.indexOf("public boolean validateAllFailFast("));
+        // Text matching the format matches the looser regex, and isn't only digits
+        assertEquals(validateAll, 1, count(validateAll, "CODE_LOOSE_ERROR_RULE"));
+        assertEquals(validateAll, 1, count(validateAll, "CODE_DIGITS_ERROR_RULE"));
+        // Text matching any regex isn't empty
+        assertFalse(validateAll, validateAll.contains("CODE_REQUIRED_ERROR_RULE"));
+    }
+
+    @Test
+    public void warnsAboutRulesThatCantPassOrFail() throws Exception {
+        Compilation compilation = compile("com.example.BadViewModel", "package com.example;\n"
+                + "\n"
+                + "import com.wesleyelliott.kubwa.annotation.*;\n"
+                + "\n"
+                + "@Min(errorMessage = 1, name = \"lowError\", field = \"n\", value = 50)\n"
+                + "@Max(errorMessage = 2, name = \"highError\", field = \"n\", value = 10)\n"
+                + "@Range(errorMessage = 3, name = \"emptyError\", min = 5, max = 6)\n"
+                + "@Range.List({@Range(errorMessage = 4, name = \"anyError\", includeBounds = true)})\n"
+                + "@Regex.List({\n"
+                + "        @Regex(errorMessage = 5, name = \"lettersError\", field = \"s\", regex = \"[a-z]+\"),\n"
+                + "        @Regex(errorMessage = 6, name = \"digitsError\", field = \"s\", regex = \"\\\\d+\"),\n"
+                + "        @Regex(errorMessage = 7, name = \"sameError\", field = \"s\", regex = \"[a-z][a-z]*\")})\n"
+                + "public class BadViewModel {\n"
+                + "}\n");
+
+        assertEquals(Arrays.asList(
+                "Rules lowError and highError can never both pass",
+                "Rule emptyError can never pass",
+                "Rules lettersError and digitsError can never both pass",
+                "Rules lettersError and sameError accept the same values",
+                "Rules digitsError and sameError can never both pass",
+                "Rule anyError can never fail, so its error is never shown"),
+                compilation.getMessages(Diagnostic.Kind.WARNING));
+    }
+
+    @Test
+    public void rejectsRulesOfAFieldCheckingDifferentTypes() throws Exception {
+        Compilation compilation = compile("com.example.MixedViewModel", "package com.example;\n"
+                + "\n"
+                + "import com.wesleyelliott.kubwa.annotation.*;\n"
+                + "\n"
+                + "@Min(errorMessage = 1, name = \"ageMinError\", field = \"age\", value = 10)\n"
+                + "@NotNull(errorMessage = 2, name = \"ageRequiredError\", field = \"age\")\n"
+                + "public class MixedViewModel {\n"
+                + "}\n");
+
+        assertEquals(Collections.singletonList("Rules of the same field must check the same type, but ageMinError checks "
+                        + "int and ageRequiredError java.lang.CharSequence"),
+                compilation.getMessages(Diagnostic.Kind.ERROR));
+    }
+
+    @Test
+    public void rejectsRulesOwnValuesNamedLikeAField() throws Exception {
+        Compilation compilation = compile("com.example.ClashViewModel", "package com.example;\n"
+                + "\n"
+                + "import com.wesleyelliott.kubwa.annotation.*;\n"
+                + "\n"
+                + "@Min(errorMessage = 1, name = \"ageError\", value = 18)\n"
+                + "@Max(errorMessage = 2, name = \"limitError\", field = \"age\", value = 120)\n"
+                + "public class ClashViewModel {\n"
+                + "}\n");
+
+        assertEquals(Collections.singletonList("Rules ageError and limitError check different values both named ageValue. "
+                        + "Rename a rule, or give both the same field"),
+                compilation.getMessages(Diagnostic.Kind.ERROR));
+    }
+
+    private static Compilation compile(String className, String source) {
+        return Compilation.compile(new KubwaCompiler(), className, source);
+    }
+
+    private static Object newValidator(Class<?> validatorType) throws Exception {
+        return validatorType.getConstructor(MessageResolver.class).newInstance(new MessageResolver() {
+            @Override
+            public String getMessage(int id) {
+                return "Error " + id;
+            }
+        });
+    }
+
+    // The public method of that name taking as many arguments
+    private static Object call(Object target, String name, Object... args) throws Exception {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterTypes().length == args.length) {
+                return method.invoke(target, args);
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i != -1; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
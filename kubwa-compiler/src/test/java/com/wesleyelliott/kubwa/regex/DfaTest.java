@@ -0,0 +1,247 @@
+package com.wesleyelliott.kubwa.regex;
+
+import com.wesleyelliott.kubwa.rule.FullNameRule;
+import com.wesleyelliott.kubwa.rule.MobileNumberRule;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * DFAs have to match exactly what java.util.regex does, as they replace it in generated
+ * validators. Each regex is checked against Pattern.matches on inputs generated from the regex
+ * itself, most of them matching or nearly matching, and on random text.
+ */
+
+public class DfaTest {
+
+    static final String[] REGEXES = {
+            // The rules' own regexes, and the benchmark's
+            FullNameRule.REGEX,
+            MobileNumberRule.REGEX,
+            "[A-Z]{1,2}\\d[A-Z\\d]? ?\\d[A-Z]{2}",
+            "(0[1-9]|1[0-2])/\\d{2}",
+            "\\d{3,4}",
+            // Literals, alternation and groups
+            "abc",
+            "a|b|ab",
+            "(a|ab)(c|bcd)(d*)",
+            "(?:ab)+c?",
+            "(?<year>\\d{4})-\\d{2}",
+            "^abc$",
+            "",
+            "()",
+            // Quantifiers
+            "a{2}b{0,3}c{1,}",
+            "(a|b)*a(a|b){3}",
+            "x*?y+?z??",
+            "(a*)*b",
+            "(ab|a){2,3}",
+            // Dots, classes and escapes
+            ".*",
+            "a.c",
+            ".\\.",
+            "[^a-c]+",
+            "[^\\d\\s]*x",
+            "[\\-.]+",
+            "[a-]x[-z]",
+            "\\w+@\\w+\\.com",
+            "\\S+\\s\\S+",
+            "\\D\\W",
+            "\\t\\n\\r\\f\\a\\e",
+            "\\x41\\u0042\\0103\\cI",
+            // Beyond the BMP, where the input has to be read as code points
+            "\\x{1F600}+",
+            "[\\x{1F600}-\\x{1F64F}]+",
+            "[^\\x{1F600}]",
+            "\uD83D\uDE00?a",
+            "..",
+    };
+
+    // Characters that aren't in any of the regexes, or are special to '.' or code points
+    private static final String NOISE = "aZ9_ -.@\n\r\u0085\u2028\u00e9\uD83D\uDE00\uD83D\uDE4F\uD83D";
+
+    private static final int INPUTS = 3000;
+
+    @Test
+    public void matchesLikePattern() throws Exception {
+        for (String regex : REGEXES) {
+            Dfa dfa = Dfa.compile(regex);
+            Pattern pattern = Pattern.compile(regex);
+            for (String input : inputs(regex, INPUTS)) {
+                assertEquals(describe(regex, input), pattern.matcher(input).matches(), dfa.matches(input));
+            }
+        }
+    }
+
+    @Test
+    public void rejectsConstructsThatArentRegular() throws Exception {
+        String[] regexes = {
+                "(a)\\1",
+                "a(?=b)b",
+                "a(?!c)b",
+                "(?<=a)b",
+                "(?<!a)b",
+                "(?>ab)",
+                "(?i)abc",
+                "a++",
+                "\\bword\\b",
+                "\\p{Alpha}+",
+                "\\Qa.b\\E",
+                "[a-z&&[^x]]",
+                "[[a][b]]",
+                "a^b",
+                "a$b",
+        };
+        for (String regex : regexes) {
+            try {
+                Dfa.compile(regex);
+                fail("Expected " + regex + " to be rejected");
+            } catch (UnsupportedRegexException e) {
+                // Left to java.util.regex
+            }
+        }
+    }
+
+    @Test
+    public void rejectsRegexesNeedingTooManyStates() {
+        // The last 12 characters have to be remembered, 2^12 states
+        try {
+            Dfa.compile("(a|b)*a(a|b){12}");
+            fail("Expected too many states");
+        } catch (UnsupportedRegexException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("DFA states"));
+        }
+    }
+
+    @Test
+    public void rejectsRegexesTooLargeForTheNfa() {
+        try {
+            Dfa.compile("(abcdefghij){3000}");
+            fail("Expected too many NFA states");
+        } catch (UnsupportedRegexException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(String.valueOf(Nfa.MAX_STATES)));
+        }
+    }
+
+    @Test
+    public void comparesLanguages() throws Exception {
+        Dfa digits = Dfa.compile("\\d+");
+        Dfa threeDigits = Dfa.compile("\\d{3}");
+        Dfa letters = Dfa.compile("[a-z]+");
+        Dfa alphanumeric = Dfa.compile("[a-z0-9]*");
+
+        assertTrue(threeDigits.isCoveredBy(digits));
+        assertFalse(digits.isCoveredBy(threeDigits));
+        assertTrue(digits.isCoveredBy(alphanumeric));
+        assertTrue(digits.overlaps(threeDigits));
+        assertFalse(digits.overlaps(letters));
+        // Only the empty input is common, which doesn't count
+        assertFalse(Dfa.compile("a*").overlaps(Dfa.compile("b*")));
+    }
+
+    /**
+     * Inputs built from the regex, half of them altered by a character, followed by random text.
+     */
+    static List<String> inputs(String regex, int count) throws UnsupportedRegexException {
+        Random random = new Random(regex.hashCode());
+        RegexNode node = RegexParser.parse(regex);
+        List<String> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder input = new StringBuilder();
+            if (i % 4 == 3) {
+                int length = random.nextInt(8);
+                for (int j = 0; j < length; j++) {
+                    input.append(noise(random));
+                }
+            } else {
+                generate(node, random, input);
+                if (i % 2 == 1) {
+                    alter(input, random);
+                }
+            }
+            inputs.add(input.toString());
+        }
+        return inputs;
+    }
+
+    static String describe(String regex, String input) {
+        StringBuilder description = new StringBuilder(regex).append(" on \"");
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                description.append(String.format("\\u%04x", (int) c));
+            } else {
+                description.append(c);
+            }
+        }
+        return description.append('"').toString();
+    }
+
+    private static void generate(RegexNode node, Random random, StringBuilder input) {
+        if (node instanceof RegexNode.CharClass) {
+            input.appendCodePoint(pick(((RegexNode.CharClass) node).chars, random));
+        } else if (node instanceof RegexNode.Concat) {
+            for (RegexNode child : ((RegexNode.Concat) node).nodes) {
+                generate(child, random, input);
+            }
+        } else if (node instanceof RegexNode.Alternation) {
+            List<RegexNode> alternatives = ((RegexNode.Alternation) node).alternatives;
+            generate(alternatives.get(random.nextInt(alternatives.size())), random, input);
+        } else if (node instanceof RegexNode.Repeat) {
+            RegexNode.Repeat repeat = (RegexNode.Repeat) node;
+            int max = repeat.isUnbounded() ? repeat.min + 4 : Math.min(repeat.max, repeat.min + 4);
+            int count = repeat.min + random.nextInt(max - repeat.min + 1);
+            for (int i = 0; i < count; i++) {
+                generate(repeat.node, random, input);
+            }
+        }
+    }
+
+    // Mostly one of the noise characters the set contains, else anything in it
+    private static int pick(CharSet chars, Random random) {
+        if (random.nextBoolean()) {
+            int start = random.nextInt(NOISE.length());
+            for (int i = 0; i < NOISE.length(); i++) {
+                int c = NOISE.charAt((start + i) % NOISE.length());
+                if (chars.contains(c)) {
+                    return c;
+                }
+            }
+        }
+        int range = random.nextInt(chars.rangeCount());
+        int from = chars.from(range);
+        int to = Math.min(chars.to(range), from + 1000);
+        return from + random.nextInt(to - from + 1);
+    }
+
+    private static void alter(StringBuilder input, Random random) {
+        int position = random.nextInt(input.length() + 1);
+        switch (random.nextInt(3)) {
+            case 0:
+                input.insert(position, noise(random));
+                break;
+            case 1:
+                if (position < input.length()) {
+                    input.deleteCharAt(position);
+                }
+                break;
+            default:
+                if (position < input.length()) {
+                    input.setCharAt(position, noise(random));
+                }
+        }
+    }
+
+    private static char noise(Random random) {
+        return NOISE.charAt(random.nextInt(NOISE.length()));
+    }
+}
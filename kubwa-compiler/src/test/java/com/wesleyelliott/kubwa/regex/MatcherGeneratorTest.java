@@ -0,0 +1,47 @@
+package com.wesleyelliott.kubwa.regex;
+
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
+import com.wesleyelliott.kubwa.Compilation;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.regex.Pattern;
+
+import javax.tools.Diagnostic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The generated matchers are what validators run, so they're compiled and checked against
+ * Pattern.matches on the same inputs as {@link DfaTest}.
+ */
+
+public class MatcherGeneratorTest {
+
+    private static final int INPUTS = 1000;
+
+    @Test
+    public void matchesLikePattern() throws Exception {
+        TypeSpec.Builder matchers = TypeSpec.classBuilder("Matchers");
+        for (int i = 0; i < DfaTest.REGEXES.length; i++) {
+            matchers.addMethod(MatcherGenerator.generate("matches" + i, DfaTest.REGEXES[i]));
+        }
+        String source = JavaFile.builder("com.example", matchers.build()).build().toString();
+        Compilation compilation = Compilation.compile(null, "com.example.Matchers", source);
+        assertTrue(compilation.getMessages(Diagnostic.Kind.ERROR).toString(), compilation.succeeded());
+        Class<?> type = compilation.getClassLoader().loadClass("com.example.Matchers");
+
+        for (int i = 0; i < DfaTest.REGEXES.length; i++) {
+            String regex = DfaTest.REGEXES[i];
+            Method matcher = type.getDeclaredMethod("matches" + i, CharSequence.class);
+            matcher.setAccessible(true);
+            Pattern pattern = Pattern.compile(regex);
+            for (String input : DfaTest.inputs(regex, INPUTS)) {
+                assertEquals(DfaTest.describe(regex, input), pattern.matcher(input).matches(), matcher.invoke(null, input));
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.wesleyelliott.kubwa;
+
+import com.wesleyelliott.kubwa.rule.BooleanRule;
+import com.wesleyelliott.kubwa.rule.ConfirmRule;
+import com.wesleyelliott.kubwa.rule.DoubleRule;
+import com.wesleyelliott.kubwa.rule.IntRule;
+import com.wesleyelliott.kubwa.rule.LongRule;
+import com.wesleyelliott.kubwa.rule.Rule;
+
+import java.util.Arrays;
+
+/**
+ * Base of generated validators. The outcome of every rule is a bit in a packed bitset, rules
+ * being numbered in annotation order, and error messages are only resolved for the bits that
+ * are set when a message is asked for. Like {@link Validation}, a rule isn't evaluated again for
+ * an immutable value it has just been given.
+ */
+
+public abstract class AbstractValidator implements Validator {
+
+    // Marks a rule as having no remembered value, or one remembered in lastPrimitives
+    private static final Object NONE = new Object();
+    private static final Object PRIMITIVE = new Object();
+
+    private final MessageResolver messageResolver;
+    private final int[] messageIds;
+
+    // Failures of the first 64 rules, then of the rest 64 at a time
+    private long failures;
+    private final long[] moreFailures;
+
+    // Messages set through setMessage, allocated the first time one is
+    private String[] messages;
+
+    // Last value each rule was given, so unchanged values aren't evaluated again
+    private final Object[] lastValues;
+    private Object[] lastSecondValues;
+    private long[] lastPrimitives;
+
+    /**
+     * @param messageIds the error message id of each rule, -1 for a generic message. Not copied,
+     *                   so it can be shared by every instance of a validator.
+     */
+    protected AbstractValidator(MessageResolver messageResolver, int[] messageIds) {
+        this.messageResolver = messageResolver;
+        this.messageIds = messageIds;
+        this.moreFailures = messageIds.length > 64 ? new long[(messageIds.length - 1) / 64] : null;
+        this.lastValues = new Object[messageIds.length];
+        Arrays.fill(lastValues, NONE);
+    }
+
+    public int getRuleCount() {
+        return messageIds.length;
+    }
+
+    @Override
+    public boolean isValid() {
+        return failures == 0 && (moreFailures == null || allZero(moreFailures));
+    }
+
+    @Override
+    public long getFailureMask() {
+        return moreFailures == null || allZero(moreFailures) ? failures : failures | 1L << 63;
+    }
+
+    public boolean isFailed(int index) {
+        long word = index < 64 ? failures : moreFailures[(index >> 6) - 1];
+        return (word & 1L << index) != 0;
+    }
+
+    /**
+     * Resolves the error message of a failed rule, or returns the message set through
+     * {@link #setMessage(int, String)} since the rule was last validated. Null if the rule passed.
+     */
+    protected final String getMessage(int index) {
+        if (!isFailed(index)) {
+            return null;
+        }
+        if (messages != null && messages[index] != null) {
+            return messages[index];
+        }
+        return messageIds[index] != -1 ? messageResolver.getMessage(messageIds[index]) : "Error";
+    }
+
+    /**
+     * Shows a message of the caller's own for a rule, failing it, or passes it if the message is
+     * null. Either lasts until the rule is next validated.
+     */
+    protected final void setMessage(int index, String message) {
+        if (message != null && messages == null) {
+            messages = new String[messageIds.length];
+        }
+        if (messages != null) {
+            messages[index] = message;
+        }
+        setFailed(index, message != null);
+        // The rule's own outcome was overwritten, so it has to be evaluated again
+        lastValues[index] = NONE;
+    }
+
+    /**
+     * Forgets every rule's last value, so the next validate calls evaluate the rules even if the
+     * values haven't changed. Needed when a rule depends on anything besides its value.
+     */
+    public void invalidate() {
+        Arrays.fill(lastValues, NONE);
+        if (lastSecondValues != null) {
+            Arrays.fill(lastSecondValues, NONE);
+        }
+    }
+
+    protected final <T> void validate(int index, Rule<T> rule, T value) {
+        if (isUnchanged(lastValues[index], value)) {
+            clearMessage(index);
+            return;
+        }
+        setValid(index, rule.isValid(value));
+        // Mutable values, like an Editable, can change under the same reference so are never reused
+        lastValues[index] = isImmutable(value) ? value : NONE;
+    }
+
+    protected final <T> void validate(int index, ConfirmRule<T> rule, T value, T value2) {
+        if (lastSecondValues == null) {
+            lastSecondValues = new Object[messageIds.length];
+            Arrays.fill(lastSecondValues, NONE);
+        }
+        // Evaluated again as soon as either side changes
+        if (isUnchanged(lastValues[index], value) && isUnchanged(lastSecondValues[index], value2)) {
+            clearMessage(index);
+            return;
+        }
+        setValid(index, rule.isValid(value, value2));
+        boolean immutable = isImmutable(value) && isImmutable(value2);
+        lastValues[index] = immutable ? value : NONE;
+        lastSecondValues[index] = immutable ? value2 : NONE;
+    }
+
+    // Primitive overloads, for rules specialized on primitives. These never box the value.
+
+    protected final void validate(int index, IntRule rule, int value) {
+        if (isUnchanged(index, value)) {
+            clearMessage(index);
+            return;
+        }
+        setValid(index, rule.isValid(value));
+        remember(index, value);
+    }
+
+    protected final void validate(int index, LongRule rule, long value) {
+        if (isUnchanged(index, value)) {
+            clearMessage(index);
+            return;
+        }
+        setValid(index, rule.isValid(value));
+        remember(index, value);
+    }
+
+    protected final void validate(int index, DoubleRule rule, double value) {
+        long bits = Double.doubleToLongBits(value);
+        if (isUnchanged(index, bits)) {
+            clearMessage(index);
+            return;
+        }
+        setValid(index, rule.isValid(value));
+        remember(index, bits);
+    }
+
+    protected final void validate(int index, BooleanRule rule, boolean value) {
+        long bits = value ? 1 : 0;
+        if (isUnchanged(index, bits)) {
+            clearMessage(index);
+            return;
+        }
+        setValid(index, rule.isValid(value));
+        remember(index, bits);
+    }
+
+    /**
+     * Records the outcome of a rule checked by the validator itself, as the comparisons of simple
+     * rules are inlined into generated validators, or derived from other rules' outcomes. The
+     * rule's last value is forgotten, as the outcome may not be of it.
+     */
+    protected final void setValid(int index, boolean valid) {
+        setFailed(index, !valid);
+        clearMessage(index);
+        lastValues[index] = NONE;
+    }
+
+    private void setFailed(int index, boolean failed) {
+        long bit = 1L << index;
+        if (index < 64) {
+            failures = failed ? failures | bit : failures & ~bit;
+        } else {
+            int word = (index >> 6) - 1;
+            moreFailures[word] = failed ? moreFailures[word] | bit : moreFailures[word] & ~bit;
+        }
+    }
+
+    private void clearMessage(int index) {
+        if (messages != null) {
+            messages[index] = null;
+        }
+    }
+
+    private boolean isUnchanged(int index, long primitive) {
+        return lastValues[index] == PRIMITIVE && lastPrimitives[index] == primitive;
+    }
+
+    private void remember(int index, long primitive) {
+        if (lastPrimitives == null) {
+            lastPrimitives = new long[messageIds.length];
+        }
+        lastPrimitives[index] = primitive;
+        lastValues[index] = PRIMITIVE;
+    }
+
+    private static boolean isUnchanged(Object lastValue, Object value) {
+        if (lastValue == NONE || lastValue == PRIMITIVE) {
+            return false;
+        }
+        return lastValue == value || (value != null && value.equals(lastValue));
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof Integer
+                || value instanceof Long
+                || value instanceof Double
+                || value instanceof Boolean;
+    }
+
+    private static boolean allZero(long[] words) {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
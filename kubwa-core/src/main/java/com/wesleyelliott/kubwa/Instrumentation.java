@@ -0,0 +1,35 @@
+package com.wesleyelliott.kubwa;
+
+/**
+ * Holds the {@link ValidationListener} of validators generated with the kubwa.instrumentation
+ * compiler option. Each validator class checks {@link #isEnabled()} once, when it's initialized,
+ * into a static final flag, so a listener has to be installed before the first validator of a
+ * class is created. Without one, the instrumentation is folded away by the JIT.
+ */
+
+public final class Instrumentation {
+
+    private static volatile ValidationListener listener;
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Installs the listener, replacing any installed before. Null uninstalls it, though
+     * validators already initialized keep timing their rules.
+     */
+    public static void setListener(ValidationListener listener) {
+        Instrumentation.listener = listener;
+    }
+
+    public static boolean isEnabled() {
+        return listener != null;
+    }
+
+    public static void report(String ruleName, Class<?> ruleType, boolean valid, long durationNanos) {
+        ValidationListener listener = Instrumentation.listener;
+        if (listener != null) {
+            listener.onValidated(ruleName, ruleType, valid, durationNanos);
+        }
+    }
+}
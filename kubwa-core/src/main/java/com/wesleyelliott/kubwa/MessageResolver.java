@@ -0,0 +1,11 @@
+package com.wesleyelliott.kubwa;
+
+/**
+ * Resolves error message ids into the messages shown to the user. Messages are only resolved
+ * when a failed validation's message is first asked for, never while validating.
+ */
+
+public interface MessageResolver {
+
+    String getMessage(int messageId);
+}
@@ -0,0 +1,147 @@
+package com.wesleyelliott.kubwa;
+
+import java.util.Arrays;
+
+/**
+ * The order a validator's fail-fast validation evaluates its rules in, adapted to the failures
+ * it sees. Each rule's failure rate is counted on every validation and its cost timed on a
+ * sample of them, and every {@code reorderInterval} validations the rules are sorted so those
+ * most likely to fail for the least time run first. Older counts are halved on every reorder,
+ * so the order follows shifts in traffic. Like the validators using it, not thread safe.
+ */
+
+public final class RuleOrder {
+
+    // One validation in this many is timed
+    private static final int SAMPLE_INTERVAL = 16;
+
+    private final int[] order;
+    private final int[] predecessors;
+    private final int reorderInterval;
+
+    private final double[] evaluations;
+    private final double[] failures;
+    private final double[] samples;
+    private final double[] nanos;
+
+    private int validations;
+
+    /**
+     * @param order        the rules' indices in the order to start with
+     * @param predecessors for each rule, the index of a rule that must be evaluated before it, or
+     *                     -1. Not copied.
+     */
+    public RuleOrder(int[] order, int[] predecessors, int reorderInterval) {
+        if (order.length != predecessors.length) {
+            throw new IllegalArgumentException("Expected a predecessor for each of the " + order.length + " rules");
+        }
+        if (reorderInterval <= 0) {
+            throw new IllegalArgumentException("reorderInterval must be positive: " + reorderInterval);
+        }
+        this.order = order.clone();
+        this.predecessors = predecessors;
+        // The order to start with may put a rule before its predecessor. With every rank equal,
+        // placing the rules keeps the order but for those.
+        place(this.order, predecessors, new double[order.length]);
+        this.reorderInterval = reorderInterval;
+        this.evaluations = new double[order.length];
+        this.failures = new double[order.length];
+        this.samples = new double[order.length];
+        this.nanos = new double[order.length];
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * The index of the rule to evaluate at a position. Stable until the next {@link #begin()}.
+     */
+    public int get(int position) {
+        return order[position];
+    }
+
+    /**
+     * Called at the start of every validation, reordering the rules when one is due.
+     *
+     * @return whether the rules evaluated in this validation should be timed
+     */
+    public boolean begin() {
+        validations++;
+        if (validations % reorderInterval == 0) {
+            reorder();
+        }
+        return validations % SAMPLE_INTERVAL == 0;
+    }
+
+    /**
+     * Counts the outcome of a rule.
+     *
+     * @param elapsedNanos how long the rule took, or a negative number if it wasn't timed
+     */
+    public void record(int index, boolean failed, long elapsedNanos) {
+        evaluations[index]++;
+        if (failed) {
+            failures[index]++;
+        }
+        if (elapsedNanos >= 0) {
+            samples[index]++;
+            nanos[index] += elapsedNanos;
+        }
+    }
+
+    /**
+     * The expected cost of a rule for each failure it finds. Rules not timed yet cost nothing, so
+     * they move to the front and get timed.
+     */
+    double getRank(int index) {
+        double cost = samples[index] > 0 ? nanos[index] / samples[index] : 0;
+        // Smoothed, so a rule that never failed still has a chance to
+        double failureRate = (failures[index] + 1) / (evaluations[index] + 2);
+        return cost / failureRate;
+    }
+
+    private void reorder() {
+        double[] ranks = new double[order.length];
+        for (int i = 0; i < ranks.length; i++) {
+            ranks[i] = getRank(i);
+        }
+        place(order, predecessors, ranks);
+
+        decay(evaluations);
+        decay(failures);
+        decay(samples);
+        decay(nanos);
+    }
+
+    // Picks the lowest ranked rule whose predecessor has been placed, until all are
+    private static void place(int[] order, int[] predecessors, double[] ranks) {
+        int[] previous = order.clone();
+        boolean[] placed = new boolean[order.length];
+        for (int position = 0; position < order.length; position++) {
+            int next = -1;
+            // In the previous order, so rules of equal rank keep their places
+            for (int index : previous) {
+                if (placed[index] || (predecessors[index] != -1 && !placed[predecessors[index]])) {
+                    continue;
+                }
+                if (next == -1 || ranks[index] < ranks[next]) {
+                    next = index;
+                }
+            }
+            order[position] = next;
+            placed[next] = true;
+        }
+    }
+
+    private static void decay(double[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] /= 2;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RuleOrder" + Arrays.toString(order);
+    }
+}
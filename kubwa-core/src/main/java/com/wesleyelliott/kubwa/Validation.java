@@ -0,0 +1,175 @@
+package com.wesleyelliott.kubwa;
+
+import com.wesleyelliott.kubwa.rule.BooleanRule;
+import com.wesleyelliott.kubwa.rule.ConfirmRule;
+import com.wesleyelliott.kubwa.rule.DoubleRule;
+import com.wesleyelliott.kubwa.rule.IntRule;
+import com.wesleyelliott.kubwa.rule.LongRule;
+import com.wesleyelliott.kubwa.rule.Rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ */
+
+public class Validation<T> {
+
+    // Marks lastValue as holding no object, either a primitive or nothing comparable
+    private static final Object NONE = new Object();
+
+    private MessageResolver messageResolver;
+    private String message = null;
+    private boolean messageSet = false;
+    private boolean valid = true;
+    private int errorMessageId;
+    private Rule<T> rule;
+
+    // Last input and verdict, so unchanged values aren't evaluated again
+    private boolean evaluated = false;
+    private Object lastValue = NONE;
+    private Object lastValue2 = NONE;
+    private long lastPrimitive;
+
+    public Validation(MessageResolver messageResolver, int errorMessageId, Rule<T> rule) {
+        this.messageResolver = messageResolver;
+        this.errorMessageId = errorMessageId;
+        this.rule = rule;
+    }
+
+    public boolean isValid() {
+        return messageSet ? message == null : valid;
+    }
+
+    /**
+     * Resolves the error message of a failed validation, or returns the message set through
+     * {@link #setMessage(String)} since the last validation.
+     */
+    public String getMessage() {
+        if (messageSet) {
+            return message;
+        }
+        if (valid) {
+            return null;
+        }
+        return errorMessageId != -1 ? messageResolver.getMessage(errorMessageId) : "Error";
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+        this.messageSet = true;
+    }
+
+    /**
+     * Forgets the last validated value, so the next validate call evaluates the rule even if the
+     * value hasn't changed. Needed when a custom rule depends on anything besides the value.
+     */
+    public void invalidate() {
+        evaluated = false;
+        lastValue = NONE;
+        lastValue2 = NONE;
+    }
+
+    public void validate(T value) {
+        if (evaluated && lastValue2 == NONE && isUnchanged(lastValue, value)) {
+            clearMessage();
+            return;
+        }
+        setValid(rule.isValid(value));
+        remember(value, NONE);
+    }
+
+    public void validate(T value, T value2) {
+        // Re-evaluated as soon as either side changes
+        if (evaluated && lastValue2 != NONE && isUnchanged(lastValue, value) && isUnchanged(lastValue2, value2)) {
+            clearMessage();
+            return;
+        }
+        ConfirmRule<T> confirmRule = (ConfirmRule<T>) rule;
+        setValid(confirmRule.isValid(value, value2));
+        remember(value, value2);
+    }
+
+    // Primitive overloads, for rules specialized on primitives. These never box the value.
+
+    public void validate(int value) {
+        if (isUnchanged(value)) {
+            clearMessage();
+            return;
+        }
+        setValid(((IntRule) rule).isValid(value));
+        remember(value);
+    }
+
+    public void validate(long value) {
+        if (isUnchanged(value)) {
+            clearMessage();
+            return;
+        }
+        setValid(((LongRule) rule).isValid(value));
+        remember(value);
+    }
+
+    public void validate(double value) {
+        long bits = Double.doubleToLongBits(value);
+        if (isUnchanged(bits)) {
+            clearMessage();
+            return;
+        }
+        setValid(((DoubleRule) rule).isValid(value));
+        remember(bits);
+    }
+
+    public void validate(boolean value) {
+        long bits = value ? 1 : 0;
+        if (isUnchanged(bits)) {
+            clearMessage();
+            return;
+        }
+        setValid(((BooleanRule) rule).isValid(value));
+        remember(bits);
+    }
+
+    private void setValid(boolean valid) {
+        this.valid = valid;
+        clearMessage();
+    }
+
+    private void clearMessage() {
+        this.message = null;
+        this.messageSet = false;
+    }
+
+    private boolean isUnchanged(long primitive) {
+        return evaluated && lastValue == NONE && lastValue2 == NONE && lastPrimitive == primitive;
+    }
+
+    private void remember(long primitive) {
+        evaluated = true;
+        lastValue = NONE;
+        lastValue2 = NONE;
+        lastPrimitive = primitive;
+    }
+
+    private void remember(Object value, Object value2) {
+        // Mutable values, like an Editable, can change under the same reference so are never reused
+        evaluated = isImmutable(value) && (value2 == NONE || isImmutable(value2));
+        lastValue = evaluated ? value : NONE;
+        lastValue2 = evaluated ? value2 : NONE;
+    }
+
+    private static boolean isUnchanged(Object lastValue, Object value) {
+        if (lastValue == NONE) {
+            return false;
+        }
+        return lastValue == value || (value != null && value.equals(lastValue));
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null
+                || value instanceof String
+                || value instanceof Integer
+                || value instanceof Long
+                || value instanceof Double
+                || value instanceof Boolean;
+    }
+
+}
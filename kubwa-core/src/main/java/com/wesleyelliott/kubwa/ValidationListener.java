@@ -0,0 +1,18 @@
+package com.wesleyelliott.kubwa;
+
+/**
+ * Told of every rule evaluated by validators generated with instrumentation, once installed
+ * through {@link Instrumentation#setListener(ValidationListener)}. Called on the validating
+ * thread, so should return quickly.
+ */
+
+public interface ValidationListener {
+
+    /**
+     * @param ruleName       the name given to the rule's annotation, e.g. "emailError"
+     * @param ruleType       the rule's class, e.g. EmailRule
+     * @param valid          whether the value passed
+     * @param durationNanos  how long the validation took, in System.nanoTime() nanoseconds
+     */
+    void onValidated(String ruleName, Class<?> ruleType, boolean valid, long durationNanos);
+}
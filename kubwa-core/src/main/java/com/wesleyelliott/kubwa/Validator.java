@@ -0,0 +1,16 @@
+package com.wesleyelliott.kubwa;
+
+/**
+ * Implemented by every generated validator.
+ */
+
+public interface Validator {
+
+    boolean isValid();
+
+    /**
+     * Bit n is set if the nth rule, in annotation order, failed its last validation. Rules past
+     * the 64th all share the last bit. 0 if every rule passed.
+     */
+    long getFailureMask();
+}
@@ -0,0 +1,104 @@
+package com.wesleyelliott.kubwa.bulk;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a bulk validation. Only failed records are kept, each as its index in the input and
+ * its failure mask, in input order.
+ */
+
+public final class BulkReport {
+
+    private final long validatedCount;
+    private final boolean aborted;
+    private final int failureCount;
+    private final long[] recordIndexes;
+    private final long[] failureMasks;
+
+    BulkReport(long validatedCount, boolean aborted, Failures failures) {
+        this.validatedCount = validatedCount;
+        this.aborted = aborted;
+        this.failureCount = failures.size;
+        this.recordIndexes = failures.recordIndexes;
+        this.failureMasks = failures.failureMasks;
+    }
+
+    /**
+     * Number of records validated. If the run was aborted this is less than the input size, and
+     * the validated records aren't necessarily the first ones.
+     */
+    public long getValidatedCount() {
+        return validatedCount;
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    public double getErrorRate() {
+        return validatedCount == 0 ? 0 : (double) failureCount / validatedCount;
+    }
+
+    /**
+     * Index in the input of the nth failed record.
+     */
+    public long getRecordIndex(int failure) {
+        checkFailure(failure);
+        return recordIndexes[failure];
+    }
+
+    public long getFailureMask(int failure) {
+        checkFailure(failure);
+        return failureMasks[failure];
+    }
+
+    private void checkFailure(int failure) {
+        if (failure < 0 || failure >= failureCount) {
+            throw new IndexOutOfBoundsException("Failure " + failure + " of " + failureCount);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BulkReport{validated=" + validatedCount + ", failed=" + failureCount + ", aborted=" + aborted + "}";
+    }
+
+    /**
+     * Growable pair of parallel arrays, filled by one task at a time.
+     */
+    static final class Failures {
+        private long[] recordIndexes = new long[16];
+        private long[] failureMasks = new long[16];
+        private int size;
+
+        void add(long recordIndex, long failureMask) {
+            ensureCapacity(size + 1);
+            recordIndexes[size] = recordIndex;
+            failureMasks[size] = failureMask;
+            size++;
+        }
+
+        void addAll(Failures other) {
+            ensureCapacity(size + other.size);
+            System.arraycopy(other.recordIndexes, 0, recordIndexes, size, other.size);
+            System.arraycopy(other.failureMasks, 0, failureMasks, size, other.size);
+            size += other.size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > recordIndexes.length) {
+                int newCapacity = Math.max(capacity, recordIndexes.length * 2);
+                recordIndexes = Arrays.copyOf(recordIndexes, newCapacity);
+                failureMasks = Arrays.copyOf(failureMasks, newCapacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.wesleyelliott.kubwa.bulk;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Validates large collections of records across a {@link ForkJoinPool}. Every worker thread
+ * keeps its own {@link RecordValidator}, so generated validators, which aren't thread safe, are
+ * never shared. Records are validated in batches, and a run can be aborted early once its error
+ * rate shows the input isn't worth validating further.
+ */
+
+public class BulkValidator<R> {
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<RecordValidator<R>> validators;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private double maxErrorRate = 1;
+    private long minRecordsBeforeAbort = 0;
+
+    public BulkValidator(RecordValidatorFactory<R> factory) {
+        this(factory, DefaultPool.POOL);
+    }
+
+    public BulkValidator(final RecordValidatorFactory<R> factory, ForkJoinPool pool) {
+        this.pool = pool;
+        this.validators = new ThreadLocal<RecordValidator<R>>() {
+            @Override
+            protected RecordValidator<R> initialValue() {
+                return factory.create();
+            }
+        };
+    }
+
+    /**
+     * Number of records each task validates before splitting, and the number of records read
+     * from an iterator at a time.
+     */
+    public BulkValidator<R> setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Stops validating once more than maxErrorRate of the records validated so far have failed,
+     * checked after each batch and only once at least minRecords have been validated.
+     */
+    public BulkValidator<R> setAbortThreshold(double maxErrorRate, long minRecords) {
+        if (maxErrorRate < 0 || maxErrorRate > 1) {
+            throw new IllegalArgumentException("maxErrorRate must be between 0 and 1");
+        }
+        this.maxErrorRate = maxErrorRate;
+        this.minRecordsBeforeAbort = minRecords;
+        return this;
+    }
+
+    /**
+     * Tasks read the records by index, so lists without {@link RandomAccess}, like a LinkedList,
+     * are copied first.
+     */
+    public BulkReport validate(List<? extends R> records) {
+        if (!(records instanceof RandomAccess)) {
+            records = new ArrayList<R>(records);
+        }
+        Run run = new Run();
+        BulkReport.Failures failures = pool.invoke(new BatchTask(records, 0, records.size(), 0, run));
+        return run.report(failures);
+    }
+
+    /**
+     * Reads the records one batch at a time, with at most two batches per worker thread in
+     * memory, so the input can be far larger than the heap.
+     */
+    public BulkReport validate(Iterator<? extends R> records) {
+        Run run = new Run();
+        BulkReport.Failures failures = new BulkReport.Failures();
+        Deque<ForkJoinTask<BulkReport.Failures>> inFlight = new ArrayDeque<ForkJoinTask<BulkReport.Failures>>();
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+
+        long offset = 0;
+        while (records.hasNext() && !run.aborted) {
+            List<R> batch = new ArrayList<R>(batchSize);
+            while (batch.size() < batchSize && records.hasNext()) {
+                batch.add(records.next());
+            }
+            if (inFlight.size() == maxInFlight) {
+                failures.addAll(inFlight.removeFirst().join());
+            }
+            inFlight.addLast(pool.submit(new BatchTask(batch, 0, batch.size(), offset, run)));
+            offset += batch.size();
+        }
+        while (!inFlight.isEmpty()) {
+            failures.addAll(inFlight.removeFirst().join());
+        }
+        return run.report(failures);
+    }
+
+    /**
+     * Counters shared by the tasks of one run.
+     */
+    private final class Run {
+        private final AtomicLong validated = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile boolean aborted = false;
+
+        void record(int validatedCount, int failedCount) {
+            long totalValidated = validated.addAndGet(validatedCount);
+            long totalFailed = failed.addAndGet(failedCount);
+            if (totalValidated >= minRecordsBeforeAbort && totalFailed > maxErrorRate * totalValidated) {
+                aborted = true;
+            }
+        }
+
+        BulkReport report(BulkReport.Failures failures) {
+            return new BulkReport(validated.get(), aborted, failures);
+        }
+    }
+
+    private final class BatchTask extends RecursiveTask<BulkReport.Failures> {
+        private final List<? extends R> records;
+        private final int from;
+        private final int to;
+        private final long offset;
+        private final Run run;
+
+        BatchTask(List<? extends R> records, int from, int to, long offset, Run run) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+            this.offset = offset;
+            this.run = run;
+        }
+
+        @Override
+        protected BulkReport.Failures compute() {
+            if (to - from > batchSize) {
+                int middle = (from + to) >>> 1;
+                BatchTask left = new BatchTask(records, from, middle, offset, run);
+                left.fork();
+                BulkReport.Failures right = new BatchTask(records, middle, to, offset, run).compute();
+                BulkReport.Failures failures = left.join();
+                failures.addAll(right);
+                return failures;
+            }
+
+            BulkReport.Failures failures = new BulkReport.Failures();
+            if (run.aborted) {
+                return failures;
+            }
+            RecordValidator<R> validator = validators.get();
+            for (int i = from; i < to; i++) {
+                long failureMask = validator.validate(records.get(i));
+                if (failureMask != 0) {
+                    failures.add(offset + i, failureMask);
+                }
+            }
+            run.record(to - from, failures.size());
+            return failures;
+        }
+    }
+
+    // Created on first use, its threads are daemons so it never keeps the JVM alive
+    private static final class DefaultPool {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+}
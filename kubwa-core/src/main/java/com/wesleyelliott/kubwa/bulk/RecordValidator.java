@@ -0,0 +1,15 @@
+package com.wesleyelliott.kubwa.bulk;
+
+/**
+ * Validates one record, usually by passing its values to a generated validator's validateAll
+ * and returning {@link com.wesleyelliott.kubwa.Validator#getFailureMask()}. Instances are only
+ * ever used by one thread at a time.
+ */
+
+public interface RecordValidator<R> {
+
+    /**
+     * @return the failure mask of the record, 0 if it is valid
+     */
+    long validate(R record);
+}
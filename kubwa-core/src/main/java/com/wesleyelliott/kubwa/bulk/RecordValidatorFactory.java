@@ -0,0 +1,10 @@
+package com.wesleyelliott.kubwa.bulk;
+
+/**
+ * Creates the {@link RecordValidator} each worker thread keeps for itself.
+ */
+
+public interface RecordValidatorFactory<R> {
+
+    RecordValidator<R> create();
+}
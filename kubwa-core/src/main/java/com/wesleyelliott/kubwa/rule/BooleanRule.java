@@ -0,0 +1,15 @@
+package com.wesleyelliott.kubwa.rule;
+
+public abstract class BooleanRule extends Rule<Boolean> {
+
+    public BooleanRule() {
+        super(Boolean.class);
+    }
+
+    public abstract boolean isValid(boolean value);
+
+    @Override
+    public boolean isValid(Boolean value) {
+        return value != null && isValid(value.booleanValue());
+    }
+}
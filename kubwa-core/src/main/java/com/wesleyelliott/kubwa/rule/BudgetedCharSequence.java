@@ -0,0 +1,71 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Counts every character a matcher reads from the wrapped value, and stops the match by throwing
+ * {@link BudgetExhaustedException} once it has read more than its budget or run past its deadline.
+ * java.util.regex reads a character for nearly every step it takes, backtracking included, so
+ * this bounds the work done on a single value.
+ */
+
+final class BudgetedCharSequence implements CharSequence {
+
+    // The clock is only read every so many steps
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final CharSequence value;
+    private final long maxSteps;
+    private final long deadline;
+    private long steps;
+
+    /**
+     * @param maxSteps characters that can be read, 0 for no limit
+     * @param timeoutNanos time the match can take, 0 for no limit
+     */
+    BudgetedCharSequence(CharSequence value, long maxSteps, long timeoutNanos) {
+        this.value = value;
+        this.maxSteps = maxSteps > 0 ? maxSteps : Long.MAX_VALUE;
+        this.deadline = timeoutNanos > 0 ? System.nanoTime() + timeoutNanos : 0;
+    }
+
+    long getSteps() {
+        return steps;
+    }
+
+    @Override
+    public int length() {
+        return value.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++steps > maxSteps) {
+            throw new BudgetExhaustedException();
+        }
+        if (deadline != 0 && steps % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+            throw new BudgetExhaustedException();
+        }
+        return value.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        // Not used when matching, but charged for all the same
+        steps += end - start;
+        return value.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return value.toString();
+    }
+
+    static final class BudgetExhaustedException extends RuntimeException {
+
+        // Thrown to unwind the matcher, a stack trace would only slow that down. Not through the
+        // four argument constructor, which Android only has from API 24.
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
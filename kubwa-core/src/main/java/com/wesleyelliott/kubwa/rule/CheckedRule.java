@@ -0,0 +1,19 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ */
+
+public class CheckedRule extends BooleanRule {
+
+    private boolean value;
+
+    public CheckedRule(boolean value) {
+        this.value = value;
+    }
+
+    @Override
+    public boolean isValid(boolean value) {
+        return this.value == value;
+    }
+}
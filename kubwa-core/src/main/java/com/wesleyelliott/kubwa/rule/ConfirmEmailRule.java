@@ -0,0 +1,17 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ */
+
+public class ConfirmEmailRule extends ConfirmRule<CharSequence> {
+
+    public ConfirmEmailRule() {
+        super(CharSequence.class);
+    }
+
+    @Override
+    public boolean isValid(CharSequence value1, CharSequence value2) {
+        return value1 != null && value2 != null && TextRule.contentEquals(value1, value2);
+    }
+}
@@ -0,0 +1,119 @@
+package com.wesleyelliott.kubwa.rule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Created by wesley on 2016/08/04.
+ */
+
+public class CreditCardRule extends LuhnRule {
+
+    private List<Type> creditCardTypes;
+    private IssuerTrie issuerTrie;
+
+    public CreditCardRule() {
+        super(10);
+        this.creditCardTypes = new ArrayList<>();
+        this.issuerTrie = new IssuerTrie();
+    }
+
+    public CreditCardRule(CreditCardRule.Type... creditCardTypes) {
+        this();
+        for (CreditCardRule.Type type : creditCardTypes) {
+            addCreditCard(type);
+        }
+    }
+
+    public void addCreditCard(Type creditCardType) {
+        if (creditCardTypes.contains(creditCardType)) {
+            return;
+        }
+
+        // Rebuild rather than mutate, so a trie already being read stays consistent
+        IssuerTrie trie = new IssuerTrie();
+        for (Type type : creditCardTypes) {
+            trie.add(type);
+        }
+        trie.add(creditCardType);
+        creditCardTypes.add(creditCardType);
+        issuerTrie = trie;
+    }
+
+    public List<Type> getCreditCardTypes() {
+        return Collections.unmodifiableList(creditCardTypes);
+    }
+
+    /**
+     * Identifies the card brand from the leading digits and the length, then runs a single
+     * Luhn checksum. Returns null if the number isn't a valid card of one of the accepted types.
+     */
+    public Type findType(CharSequence value) {
+        if (value == null) {
+            return null;
+        }
+        Type type = issuerTrie.match(value);
+        return type != null && validate(value) ? type : null;
+    }
+
+    /**
+     * Identifies the card brand from the leading digits only, without checking the length or
+     * checksum. Useful while the number is still being typed.
+     */
+    public Type detectType(CharSequence value) {
+        return value == null ? null : issuerTrie.matchPrefix(value);
+    }
+
+    @Override
+    public boolean isValid(CharSequence value) {
+        return findType(value) != null;
+    }
+
+    public enum Type {
+        VISA("^4(\\d{12}|\\d{15}|\\d{18})$", "13,16,19", "4"),
+        MASTERCARD("^(5[1-5]\\d{14}|(222[1-9]|22[3-9]\\d|2[3-6]\\d{2}|27[01]\\d|2720)\\d{12})$", "16", "51-55", "2221-2720"),
+        AMEX("^3[47]\\d{13}$", "15", "34", "37"),
+        DISCOVER("^(6011\\d{12,15}|(62212[6-9]|6221[3-9]\\d|622[2-8]\\d{2}|6229[01]\\d|62292[0-5])\\d{10,13}|64[4-9]\\d{13,16}|65\\d{14,17})$", "16-19", "6011", "622126-622925", "644-649", "65"),
+        DINERS("^(30[0-5]\\d{11,16}|3[689]\\d{12,17})$", "14-19", "300-305", "36", "38-39"),
+        JCB("^(352[89]|35[3-8]\\d)\\d{12,15}$", "16-19", "3528-3589"),
+        UNIONPAY("^62\\d{14,17}$", "16-19", "62"),
+        MAESTRO("^(50(18|20|38)|5893|6304|6759|676[1-3])\\d{8,15}$", "12-19", "5018", "5020", "5038", "5893", "6304", "6759", "6761-6763");
+
+        private String regex;
+        private String[] prefixRanges;
+        private int lengths;
+
+        Type(String regex, String lengths, String... prefixRanges) {
+            this.regex = regex;
+            this.prefixRanges = prefixRanges;
+            this.lengths = parseLengths(lengths);
+        }
+
+        public String getRegex() {
+            return regex;
+        }
+
+        public String[] getPrefixRanges() {
+            return prefixRanges.clone();
+        }
+
+        public boolean isValidLength(int length) {
+            return length > 0 && length < 32 && (lengths & (1 << length)) != 0;
+        }
+
+        // "13,16,19" or "16-19" -> bitmask of accepted lengths
+        private static int parseLengths(String lengths) {
+            int mask = 0;
+            for (String part : lengths.split(",")) {
+                int separator = part.indexOf('-');
+                int from = Integer.parseInt(separator == -1 ? part : part.substring(0, separator));
+                int to = separator == -1 ? from : Integer.parseInt(part.substring(separator + 1));
+                for (int length = from; length <= to; length++) {
+                    mask |= 1 << length;
+                }
+            }
+            return mask;
+        }
+    }
+}
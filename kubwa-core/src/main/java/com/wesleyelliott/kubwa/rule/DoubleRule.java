@@ -0,0 +1,15 @@
+package com.wesleyelliott.kubwa.rule;
+
+public abstract class DoubleRule extends Rule<Double> {
+
+    public DoubleRule() {
+        super(Double.class);
+    }
+
+    public abstract boolean isValid(double value);
+
+    @Override
+    public boolean isValid(Double value) {
+        return value != null && isValid(value.doubleValue());
+    }
+}
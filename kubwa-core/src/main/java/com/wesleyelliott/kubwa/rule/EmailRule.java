@@ -0,0 +1,219 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ *
+ * Deterministic, allocation-free email scanner. The local part and every domain label are
+ * read left to right exactly once, so there's no backtracking regardless of the input.
+ */
+
+public class EmailRule extends TextRule {
+
+    // Character class bits, per ASCII character
+    private static final int ALPHA_NUMERIC = 1;
+    private static final int HYPHEN = 1 << 1;
+    // Local part characters of android.util.Patterns.EMAIL_ADDRESS
+    private static final int ANDROID_LOCAL = 1 << 2;
+    // RFC 5322 atext, the dot-atom characters allowed in an RFC 5321 local part
+    private static final int ATEXT = 1 << 3;
+
+    private static final int[] ASCII_CLASSES = new int[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                ASCII_CLASSES[c] = ALPHA_NUMERIC | ANDROID_LOCAL | ATEXT;
+            }
+        }
+        ASCII_CLASSES['-'] = HYPHEN | ANDROID_LOCAL | ATEXT;
+        for (char c : "+._%".toCharArray()) {
+            ASCII_CLASSES[c] |= ANDROID_LOCAL;
+        }
+        for (char c : "!#$%&'*+/=?^_`{|}~".toCharArray()) {
+            ASCII_CLASSES[c] |= ATEXT;
+        }
+    }
+
+    // RFC 5321 section 4.5.3.1 limits
+    private static final int RFC_MAX_LOCAL_LENGTH = 64;
+    private static final int RFC_MAX_DOMAIN_LENGTH = 253;
+    private static final int RFC_MAX_LABEL_LENGTH = 63;
+    private static final int RFC_MAX_LENGTH = 254;
+
+    // android.util.Patterns.EMAIL_ADDRESS limits
+    private static final int ANDROID_MAX_LOCAL_LENGTH = 256;
+    private static final int ANDROID_MAX_FIRST_LABEL_LENGTH = 65;
+    private static final int ANDROID_MAX_LABEL_LENGTH = 26;
+
+    private final Scheme scheme;
+    private final int maxLength;
+
+    public EmailRule() {
+        this(Scheme.ANDROID);
+    }
+
+    public EmailRule(Scheme scheme) {
+        this(scheme, 0);
+    }
+
+    /**
+     * @param maxLength maximum length of the whole address, 0 to only apply the scheme's limits
+     */
+    public EmailRule(Scheme scheme, int maxLength) {
+        this.scheme = scheme;
+        this.maxLength = maxLength > 0 ? maxLength : Integer.MAX_VALUE;
+    }
+
+    public Scheme getScheme() {
+        return scheme;
+    }
+
+    @Override
+    public boolean isValid(CharSequence value) {
+        if (value == null || value.length() == 0 || value.length() > maxLength) {
+            return false;
+        }
+        if (scheme == Scheme.ANDROID) {
+            return isValidAndroid(value);
+        }
+        return isValidRfc(value, scheme == Scheme.RFC_5321_IDN);
+    }
+
+    /*
+     * Same decisions as android.util.Patterns.EMAIL_ADDRESS:
+     * [a-zA-Z0-9+._%-]{1,256}@[a-zA-Z0-9][a-zA-Z0-9-]{0,64}(\.[a-zA-Z0-9][a-zA-Z0-9-]{0,25})+
+     */
+    private static boolean isValidAndroid(CharSequence value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length && hasClass(value.charAt(i), ANDROID_LOCAL)) {
+            i++;
+        }
+        if (i == 0 || i > ANDROID_MAX_LOCAL_LENGTH || i == length || value.charAt(i) != '@') {
+            return false;
+        }
+        i++;
+
+        int labels = 0;
+        while (true) {
+            int labelStart = i;
+            if (i == length || !hasClass(value.charAt(i), ALPHA_NUMERIC)) {
+                return false;
+            }
+            i++;
+            while (i < length && hasClass(value.charAt(i), ALPHA_NUMERIC | HYPHEN)) {
+                i++;
+            }
+            int labelLength = i - labelStart;
+            if (labelLength > (labels == 0 ? ANDROID_MAX_FIRST_LABEL_LENGTH : ANDROID_MAX_LABEL_LENGTH)) {
+                return false;
+            }
+            labels++;
+
+            if (i == length) {
+                return labels > 1;
+            }
+            if (value.charAt(i) != '.') {
+                return false;
+            }
+            i++;
+        }
+    }
+
+    /*
+     * RFC 5321 mailbox with a dot-atom local part (no quoted strings or address literals) and
+     * LDH domain labels. Punycode (xn--) labels are LDH labels, IDN additionally allows Unicode
+     * letters and digits in the domain.
+     */
+    private static boolean isValidRfc(CharSequence value, boolean allowUnicodeDomain) {
+        int length = value.length();
+        if (length > RFC_MAX_LENGTH) {
+            return false;
+        }
+
+        int i = 0;
+        char previous = '.';
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (previous == '.') {
+                    return false;
+                }
+            } else if (!hasClass(c, ATEXT)) {
+                break;
+            }
+            previous = c;
+            i++;
+        }
+        if (i == 0 || i > RFC_MAX_LOCAL_LENGTH || previous == '.' || i == length || value.charAt(i) != '@') {
+            return false;
+        }
+        i++;
+
+        int domainStart = i;
+        if (length - domainStart > RFC_MAX_DOMAIN_LENGTH) {
+            return false;
+        }
+
+        int labels = 0;
+        boolean numericLabel;
+        while (true) {
+            int labelStart = i;
+            numericLabel = true;
+            while (i < length) {
+                char c = value.charAt(i);
+                if (c < 128) {
+                    if (!hasClass(c, ALPHA_NUMERIC | HYPHEN)) {
+                        break;
+                    }
+                    numericLabel &= c >= '0' && c <= '9';
+                    i++;
+                } else if (allowUnicodeDomain && Character.isLetterOrDigit(Character.codePointAt(value, i))) {
+                    numericLabel = false;
+                    i += Character.charCount(Character.codePointAt(value, i));
+                } else {
+                    return false;
+                }
+            }
+            int labelLength = i - labelStart;
+            if (labelLength == 0 || labelLength > RFC_MAX_LABEL_LENGTH
+                    || value.charAt(labelStart) == '-' || value.charAt(i - 1) == '-'
+                    || isReservedLabel(value, labelStart, labelLength)) {
+                return false;
+            }
+            labels++;
+
+            if (i == length) {
+                // A numeric top level domain would make this look like an address literal
+                return labels > 1 && !numericLabel;
+            }
+            if (value.charAt(i) != '.') {
+                return false;
+            }
+            i++;
+        }
+    }
+
+    // RFC 5891: "--" in the 3rd and 4th position is reserved for A-labels (xn--)
+    private static boolean isReservedLabel(CharSequence value, int start, int length) {
+        if (length < 4 || value.charAt(start + 2) != '-' || value.charAt(start + 3) != '-') {
+            return false;
+        }
+        char x = value.charAt(start);
+        char n = value.charAt(start + 1);
+        return !((x == 'x' || x == 'X') && (n == 'n' || n == 'N') && length > 4);
+    }
+
+    private static boolean hasClass(char c, int characterClass) {
+        return c < 128 && (ASCII_CLASSES[c] & characterClass) != 0;
+    }
+
+    public enum Scheme {
+        // Same decisions as android.util.Patterns.EMAIL_ADDRESS
+        ANDROID,
+        // RFC 5321 dot-atom local part and LDH (including punycode) domain, with RFC length limits
+        RFC_5321,
+        // RFC_5321, also accepting internationalized (Unicode) domain labels
+        RFC_5321_IDN
+    }
+}
@@ -0,0 +1,16 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ */
+
+public class FullNameRule extends RegexRule {
+
+    // Same names as ^([\w-]+)\s+([\w\s'-]+)+$, without the nested and overlapping quantifiers
+    // that made rejecting a long name take exponential time
+    public static final String REGEX = "^[\\w-]+\\s[\\w\\s'-]+$";
+
+    public FullNameRule() {
+        super(REGEX);
+    }
+}
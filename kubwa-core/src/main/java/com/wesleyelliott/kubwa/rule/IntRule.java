@@ -0,0 +1,20 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Rule specialized for {@code int} values. Generated validators call {@link #isValid(int)}
+ * directly, the boxed {@link #isValid(Integer)} is only kept for the generic Rule contract.
+ */
+
+public abstract class IntRule extends Rule<Integer> {
+
+    public IntRule() {
+        super(Integer.class);
+    }
+
+    public abstract boolean isValid(int value);
+
+    @Override
+    public boolean isValid(Integer value) {
+        return value != null && isValid(value.intValue());
+    }
+}
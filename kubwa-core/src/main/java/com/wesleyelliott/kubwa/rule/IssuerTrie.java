@@ -0,0 +1,99 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Decimal trie over issuer identification number (IIN) prefixes. Ranges such as 2221-2720 are
+ * decomposed into the smallest set of prefixes covering them, so looking up a card number only
+ * walks its leading digits once.
+ */
+
+final class IssuerTrie {
+
+    private final Node root = new Node();
+
+    void add(CreditCardRule.Type type) {
+        add(type, type.getPrefixRanges());
+    }
+
+    /**
+     * @throws IllegalArgumentException if a range is invalid, or covers a prefix of another type
+     */
+    void add(CreditCardRule.Type type, String... prefixRanges) {
+        for (String range : prefixRanges) {
+            int separator = range.indexOf('-');
+            String low = separator == -1 ? range : range.substring(0, separator);
+            String high = separator == -1 ? range : range.substring(separator + 1);
+            if (low.length() != high.length()) {
+                throw new IllegalArgumentException("IIN range bounds must have the same length: " + range);
+            }
+            insert(root, "", low, high, true, true, type);
+        }
+    }
+
+    /**
+     * Longest matching prefix whose type also accepts the length of the value, or null.
+     */
+    CreditCardRule.Type match(CharSequence value) {
+        return walk(value, true);
+    }
+
+    /**
+     * Longest matching prefix regardless of length, for numbers that are still being typed.
+     */
+    CreditCardRule.Type matchPrefix(CharSequence value) {
+        return walk(value, false);
+    }
+
+    private CreditCardRule.Type walk(CharSequence value, boolean checkLength) {
+        int length = value.length();
+        CreditCardRule.Type match = null;
+        Node node = root;
+        for (int i = 0; i < length; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || node.children == null || node.children[digit] == null) {
+                break;
+            }
+            node = node.children[digit];
+            if (node.type != null && (!checkLength || node.type.isValidLength(length))) {
+                match = node.type;
+            }
+        }
+        return match;
+    }
+
+    private static void insert(Node node, String prefix, String low, String high, boolean lowBound, boolean highBound, CreditCardRule.Type type) {
+        int depth = prefix.length();
+        if (depth == low.length() || (!lowBound && !highBound)) {
+            // Every number below this node is inside the range. A node holds one type, so
+            // another registering the same prefix would silently replace it.
+            if (node.type != null && node.type != type) {
+                throw new IllegalArgumentException("IIN prefix " + prefix + " is registered by both " + node.type + " and " + type);
+            }
+            node.type = type;
+            return;
+        }
+
+        int from = lowBound ? low.charAt(depth) - '0' : 0;
+        int to = highBound ? high.charAt(depth) - '0' : 9;
+        if (from < 0 || to > 9 || from > to) {
+            throw new IllegalArgumentException("Invalid IIN range: " + low + "-" + high);
+        }
+        for (int digit = from; digit <= to; digit++) {
+            insert(node.child(digit), prefix + digit, low, high, lowBound && digit == from, highBound && digit == to, type);
+        }
+    }
+
+    private static final class Node {
+        private Node[] children;
+        private CreditCardRule.Type type;
+
+        Node child(int digit) {
+            if (children == null) {
+                children = new Node[10];
+            }
+            if (children[digit] == null) {
+                children[digit] = new Node();
+            }
+            return children[digit];
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.wesleyelliott.kubwa.rule;
+
+public abstract class LongRule extends Rule<Long> {
+
+    public LongRule() {
+        super(Long.class);
+    }
+
+    public abstract boolean isValid(long value);
+
+    @Override
+    public boolean isValid(Long value) {
+        return value != null && isValid(value.longValue());
+    }
+}
@@ -0,0 +1,122 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/08/04.
+ *
+ * Luhn mod N checksum. The alphabet maps each character to its code point, the default
+ * alphabets are the first N characters of {@link #ALPHANUMERIC} (case insensitive), so a
+ * modulus of 10 is the classic decimal Luhn algorithm.
+ */
+
+public abstract class LuhnRule extends TextRule {
+
+    public static final String ALPHANUMERIC = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private final int modulus;
+    // character -> code point, -1 for characters outside the alphabet
+    private final int[] codePoints;
+    // code point -> code point doubled and folded back into the alphabet
+    private final int[] doubled;
+
+    public LuhnRule(int modulus) {
+        this(alphabet(modulus), true);
+    }
+
+    public LuhnRule(String alphabet) {
+        this(alphabet, false);
+    }
+
+    private LuhnRule(String alphabet, boolean ignoreCase) {
+        if (alphabet.length() < 2) {
+            throw new IllegalArgumentException("Luhn alphabet needs at least 2 characters");
+        }
+        this.modulus = alphabet.length();
+        this.codePoints = codePoints(alphabet, ignoreCase);
+        this.doubled = new int[modulus];
+        for (int codePoint = 0; codePoint < modulus; codePoint++) {
+            int addend = codePoint * 2;
+            doubled[codePoint] = (addend / modulus) + (addend % modulus);
+        }
+    }
+
+    public int getModulus() {
+        return modulus;
+    }
+
+    public boolean validate(CharSequence value) {
+        return validate(value, true);
+    }
+
+    public boolean validate(CharSequence value, String regex) {
+        return validate(value, regex, true);
+    }
+
+    public boolean validate(CharSequence value, String regex, boolean includesCheckDigit) {
+        // Validate Regex
+        if (isEmpty(value) || !PatternCache.getInstance().matches(regex, value)) {
+            return false;
+        }
+        return validate(value, includesCheckDigit);
+    }
+
+    /**
+     * Single pass from the rightmost character, doubling every second code point. Rejects empty
+     * values, characters outside the alphabet and values whose checksum sums to zero.
+     */
+    public boolean validate(CharSequence value, boolean includesCheckDigit) {
+        if (value == null) {
+            return false;
+        }
+
+        int[] codePoints = this.codePoints;
+        int[] doubled = this.doubled;
+        boolean doubleNext = !includesCheckDigit;
+        int total = 0;
+        for (int i = value.length() - 1; i >= 0; i--) {
+            char character = value.charAt(i);
+            int codePoint = character < codePoints.length ? codePoints[character] : -1;
+            if (codePoint < 0) {
+                return false;
+            }
+            total += doubleNext ? doubled[codePoint] : codePoint;
+            doubleNext = !doubleNext;
+        }
+        if (total == 0) {
+            return false;
+        }
+        return (total % modulus) == 0;
+    }
+
+    private static String alphabet(int modulus) {
+        if (modulus < 2 || modulus > ALPHANUMERIC.length()) {
+            throw new IllegalArgumentException("Luhn modulus must be between 2 and " + ALPHANUMERIC.length());
+        }
+        return ALPHANUMERIC.substring(0, modulus);
+    }
+
+    private static int[] codePoints(String alphabet, boolean ignoreCase) {
+        int size = 0;
+        for (int i = 0; i < alphabet.length(); i++) {
+            char character = alphabet.charAt(i);
+            size = Math.max(size, Math.max(Character.toUpperCase(character), Character.toLowerCase(character)) + 1);
+        }
+
+        int[] codePoints = new int[size];
+        for (int i = 0; i < size; i++) {
+            codePoints[i] = -1;
+        }
+        for (int i = 0; i < alphabet.length(); i++) {
+            char character = alphabet.charAt(i);
+            if (codePoints[character] != -1) {
+                throw new IllegalArgumentException("Duplicate character in Luhn alphabet: " + character);
+            }
+            codePoints[character] = i;
+            if (ignoreCase) {
+                codePoints[Character.toUpperCase(character)] = i;
+                codePoints[Character.toLowerCase(character)] = i;
+            }
+        }
+        return codePoints;
+    }
+
+}
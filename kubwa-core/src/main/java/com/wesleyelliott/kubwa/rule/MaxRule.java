@@ -0,0 +1,19 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ */
+
+public class MaxRule extends IntRule {
+
+    private int maxValue;
+
+    public MaxRule(int maxValue) {
+        this.maxValue = maxValue;
+    }
+
+    @Override
+    public boolean isValid(int value) {
+        return value < maxValue;
+    }
+}
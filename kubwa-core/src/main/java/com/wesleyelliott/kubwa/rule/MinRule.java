@@ -0,0 +1,19 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ */
+
+public class MinRule extends IntRule {
+
+    private int minValue;
+
+    public MinRule(int minValue) {
+        this.minValue = minValue;
+    }
+
+    @Override
+    public boolean isValid(int value) {
+        return value > minValue;
+    }
+}
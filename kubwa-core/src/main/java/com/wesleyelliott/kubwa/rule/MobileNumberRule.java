@@ -6,7 +6,9 @@ package com.wesleyelliott.kubwa.rule;
 
 public class MobileNumberRule extends RegexRule {
 
+    public static final String REGEX = "(\\+\\d{1,3})\\d{10}";
+
     public MobileNumberRule() {
-        super("(\\+\\d{1,3})\\d{10}");
+        super(REGEX);
     }
 }
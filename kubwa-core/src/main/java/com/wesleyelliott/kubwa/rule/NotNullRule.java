@@ -0,0 +1,16 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ */
+
+public class NotNullRule extends TextRule {
+
+    public NotNullRule() {
+    }
+
+    @Override
+    public boolean isValid(CharSequence value) {
+        return !isEmpty(value);
+    }
+}
@@ -0,0 +1,144 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ *
+ * Passwords are checked in one linear scan which records the character classes seen, instead of
+ * running the scheme's stack of lookahead regexes. {@link #getMissingRequirements(CharSequence)}
+ * reports which requirements a value is missing so they can be shown as individual hints.
+ */
+
+public class PasswordRule extends RegexRule {
+
+    // Requirements, combined into the bitmask returned by getMissingRequirements
+    public static final int LOWERCASE = 1;
+    public static final int UPPERCASE = 1 << 1;
+    public static final int DIGIT = 1 << 2;
+    public static final int SYMBOL = 1 << 3;
+    public static final int LETTER = 1 << 4;
+    public static final int LENGTH = 1 << 5;
+    public static final int INVALID_CHARACTER = 1 << 6;
+
+    // Character classes which are never required, only allowed or not
+    private static final int UNDERSCORE = 1 << 7;
+    private static final int LINE_TERMINATOR = 1 << 8;
+
+    private static final int WORD = LOWERCASE | UPPERCASE | DIGIT | UNDERSCORE;
+    private static final int ANY_CHARACTER = WORD | SYMBOL;
+
+    private static final int[] ASCII_CLASSES = new int[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            if (c >= 'a' && c <= 'z') {
+                ASCII_CLASSES[c] = LOWERCASE;
+            } else if (c >= 'A' && c <= 'Z') {
+                ASCII_CLASSES[c] = UPPERCASE;
+            } else if (c >= '0' && c <= '9') {
+                ASCII_CLASSES[c] = DIGIT;
+            } else if (c == '_') {
+                ASCII_CLASSES[c] = UNDERSCORE;
+            } else if (c == '\n' || c == '\r') {
+                ASCII_CLASSES[c] = LINE_TERMINATOR;
+            } else {
+                ASCII_CLASSES[c] = SYMBOL;
+            }
+        }
+    }
+
+    private final Scheme passwordScheme;
+    private final int minLength;
+
+    public PasswordRule(Scheme passwordScheme) {
+        this(passwordScheme, 1);
+    }
+
+    public PasswordRule(Scheme passwordScheme, int minLength) {
+        super(passwordScheme.getRegex());
+        this.passwordScheme = passwordScheme;
+        this.minLength = Math.max(1, minLength);
+    }
+
+    public Scheme getScheme() {
+        return passwordScheme;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * Returns the bitmask of requirements the value doesn't meet, 0 if it is valid.
+     */
+    public int getMissingRequirements(CharSequence value) {
+        if (value == null) {
+            return passwordScheme.required | LENGTH;
+        }
+
+        int length = value.length();
+        int seen = 0;
+        for (int i = 0; i < length; i++) {
+            seen |= characterClass(value.charAt(i));
+        }
+        if ((seen & (LOWERCASE | UPPERCASE)) != 0) {
+            seen |= LETTER;
+        }
+
+        int missing = passwordScheme.required & ~seen;
+        if ((seen & ~passwordScheme.allowed & ~LETTER) != 0) {
+            missing |= INVALID_CHARACTER;
+        }
+        if (length < minLength) {
+            missing |= LENGTH;
+        }
+        return missing;
+    }
+
+    @Override
+    public boolean isValid(CharSequence value) {
+        return getMissingRequirements(value) == 0;
+    }
+
+    private static int characterClass(char c) {
+        if (c < 128) {
+            return ASCII_CLASSES[c];
+        }
+        // Same line terminators as the '.' of the scheme regexes
+        if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+            return LINE_TERMINATOR;
+        }
+        return SYMBOL;
+    }
+
+    /*
+     * Thanks to Saripaar library for these Regex's
+     */
+    public enum Scheme {
+        ANY(".+", 0, ANY_CHARACTER),
+        ALPHA("\\w+", 0, WORD),
+        ALPHA_MIXED_CASE("(?=.*[a-z])(?=.*[A-Z]).+", LOWERCASE | UPPERCASE, ANY_CHARACTER),
+        NUMERIC("\\d+", 0, DIGIT),
+        ALPHA_NUMERIC("(?=.*[a-zA-Z])(?=.*[\\d]).+", LETTER | DIGIT, ANY_CHARACTER),
+        ALPHA_NUMERIC_MIXED_CASE("(?=.*[a-z])(?=.*[A-Z])(?=.*[\\d]).+", LOWERCASE | UPPERCASE | DIGIT, ANY_CHARACTER),
+        ALPHA_NUMERIC_SYMBOLS("(?=.*[a-zA-Z])(?=.*[\\d])(?=.*([^\\w])).+", LETTER | DIGIT | SYMBOL, ANY_CHARACTER),
+        ALPHA_NUMERIC_MIXED_CASE_SYMBOLS("(?=.*[a-z])(?=.*[A-Z])(?=.*[\\d])(?=.*([^\\w])).+", LOWERCASE | UPPERCASE | DIGIT | SYMBOL, ANY_CHARACTER);
+
+        private String regex;
+        private int required;
+        private int allowed;
+
+        Scheme(String regex, int required, int allowed) {
+            this.regex = regex;
+            this.required = required;
+            this.allowed = allowed;
+        }
+
+        public String getRegex() {
+            return regex;
+        }
+
+        public int getRequirements() {
+            return required;
+        }
+    }
+}
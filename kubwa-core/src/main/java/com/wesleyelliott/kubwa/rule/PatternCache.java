@@ -0,0 +1,166 @@
+package com.wesleyelliott.kubwa.rule;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Process-wide registry of compiled {@link Pattern}s, keyed by regex and flags and bounded
+ * by LRU eviction. Each cached pattern keeps one {@link Matcher} per thread which is
+ * {@link Matcher#reset(CharSequence) reset} for every match instead of being reallocated.
+ */
+
+public final class PatternCache {
+
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    private static final PatternCache INSTANCE = new PatternCache(DEFAULT_MAX_SIZE);
+
+    private final Map<Key, CachedPattern> entries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public static PatternCache getInstance() {
+        return INSTANCE;
+    }
+
+    public PatternCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.entries = new LinkedHashMap<Key, CachedPattern>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedPattern> eldest) {
+                if (size() > maxSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Pattern get(String regex) {
+        return get(regex, 0);
+    }
+
+    public Pattern get(String regex, int flags) {
+        return entry(regex, flags).pattern;
+    }
+
+    /**
+     * Equivalent to {@link Pattern#matches(String, CharSequence)}, without recompiling the regex
+     * or allocating a new {@link Matcher}.
+     */
+    public boolean matches(String regex, CharSequence input) {
+        return matches(regex, 0, input);
+    }
+
+    public boolean matches(String regex, int flags, CharSequence input) {
+        Matcher matcher = getMatcher(regex, flags);
+        try {
+            return matcher.reset(input).matches();
+        } finally {
+            // Don't hold on to the input between matches
+            matcher.reset("");
+        }
+    }
+
+    // The calling thread's matcher of a regex, reset to empty input between matches
+    Matcher getMatcher(String regex, int flags) {
+        return entry(regex, flags).matchers.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private CachedPattern entry(String regex, int flags) {
+        Key key = new Key(regex, flags);
+        CachedPattern entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            hitCount.incrementAndGet();
+            return entry;
+        }
+
+        missCount.incrementAndGet();
+        // Compile outside the lock, a racing thread compiling the same regex is harmless
+        CachedPattern compiled = new CachedPattern(Pattern.compile(regex, flags));
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entries.put(key, compiled);
+                entry = compiled;
+            }
+        }
+        return entry;
+    }
+
+    private static final class Key {
+        private final String regex;
+        private final int flags;
+
+        Key(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return flags == key.flags && regex.equals(key.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * regex.hashCode() + flags;
+        }
+    }
+
+    private static final class CachedPattern {
+        private final Pattern pattern;
+        private final ThreadLocal<Matcher> matchers;
+
+        CachedPattern(final Pattern pattern) {
+            this.pattern = pattern;
+            this.matchers = new ThreadLocal<Matcher>() {
+                @Override
+                protected Matcher initialValue() {
+                    return pattern.matcher("");
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ */
+
+public class RegexRule extends TextRule {
+
+    /**
+     * The result of matching a value within the rule's budget.
+     */
+    public enum Outcome {
+        VALID,
+        INVALID,
+        // The budget, or the stack, ran out before the regex matched or failed
+        INDETERMINATE
+    }
+
+    private String regex;
+    private final long maxSteps;
+    private final long timeoutNanos;
+
+    public RegexRule(String regex) {
+        this(regex, 0, 0);
+    }
+
+    /**
+     * A rule that gives up on values taking more than maxSteps characters read, or more than
+     * timeoutNanos, to match, or overflowing the stack. Use this for regexes that aren't known to
+     * be safe, such as ones that come from a server, so a pathological value can't hang or crash
+     * the caller.
+     *
+     * @param maxSteps 0 for no limit on the characters read
+     * @param timeoutNanos 0 for no time limit
+     */
+    public RegexRule(String regex, long maxSteps, long timeoutNanos) {
+        if (maxSteps < 0 || timeoutNanos < 0) {
+            throw new IllegalArgumentException("maxSteps and timeoutNanos can't be negative");
+        }
+        this.regex = regex;
+        this.maxSteps = maxSteps;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    /**
+     * Fails closed: values the budget ran out on are invalid. Use {@link #evaluate(CharSequence)}
+     * to tell them apart.
+     */
+    @Override
+    public boolean isValid(CharSequence value) {
+        return evaluate(value) == Outcome.VALID;
+    }
+
+    public Outcome evaluate(CharSequence value) {
+        if (isEmpty(value)) {
+            return Outcome.INVALID;
+        }
+        if (maxSteps == 0 && timeoutNanos == 0) {
+            return matches(value) ? Outcome.VALID : Outcome.INVALID;
+        }
+
+        try {
+            return matches(new BudgetedCharSequence(value, maxSteps, timeoutNanos)) ? Outcome.VALID : Outcome.INVALID;
+        } catch (BudgetedCharSequence.BudgetExhaustedException e) {
+            return Outcome.INDETERMINATE;
+        } catch (StackOverflowError e) {
+            // java.util.regex recurses for each repetition of some groups, so a long enough value
+            // runs out of stack long before it runs out of steps
+            return Outcome.INDETERMINATE;
+        }
+    }
+
+    /**
+     * Whether the whole of a non-empty value matches the regex. Generated validators override
+     * this with a matcher compiled from the regex at build time.
+     */
+    protected boolean matches(CharSequence value) {
+        return PatternCache.getInstance().matches(getRegex(), value);
+    }
+}
@@ -0,0 +1,19 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Created by wesley on 2016/07/28.
+ */
+
+public class SelectRule extends IntRule {
+
+    private int spinnerMinValue;
+
+    public SelectRule(int spinnerMinValue) {
+        this.spinnerMinValue = spinnerMinValue;
+    }
+
+    @Override
+    public boolean isValid(int value) {
+        return value > spinnerMinValue;
+    }
+}
@@ -11,7 +11,7 @@ public class TaxNumberRule extends LuhnRule {
     }
 
     @Override
-    public boolean isValid(String value) {
+    public boolean isValid(CharSequence value) {
         return validate(value);
     }
 }
@@ -0,0 +1,36 @@
+package com.wesleyelliott.kubwa.rule;
+
+/**
+ * Base for rules on text. Rules take any {@link CharSequence}, so an EditText's Editable can be
+ * validated directly instead of copying it into a new String for every check.
+ */
+
+public abstract class TextRule extends Rule<CharSequence> {
+
+    public TextRule() {
+        super(CharSequence.class);
+    }
+
+    public static boolean isEmpty(CharSequence value) {
+        return value == null || value.length() == 0;
+    }
+
+    public static boolean contentEquals(CharSequence value1, CharSequence value2) {
+        if (value1 == value2) {
+            return true;
+        }
+        if (value1 == null || value2 == null) {
+            return false;
+        }
+        int length = value1.length();
+        if (length != value2.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value1.charAt(i) != value2.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -6,13 +6,15 @@ package com.wesleyelliott.kubwa.rule;
 
 public class ZAIdNumberRule extends LuhnRule {
 
+    private static final int LENGTH = 13;
+
     public ZAIdNumberRule() {
         super(10);
     }
 
     @Override
-    public boolean isValid(String value) {
-        return validate(value, "(\\d){13}");
+    public boolean isValid(CharSequence value) {
+        return value != null && value.length() == LENGTH && validate(value);
     }
 
 }
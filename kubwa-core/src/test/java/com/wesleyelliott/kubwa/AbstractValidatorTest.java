@@ -0,0 +1,140 @@
+package com.wesleyelliott.kubwa;
+
+import com.wesleyelliott.kubwa.rule.ConfirmRule;
+import com.wesleyelliott.kubwa.rule.IntRule;
+import com.wesleyelliott.kubwa.rule.TextRule;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AbstractValidatorTest {
+
+    private final NotEmptyRule rule = new NotEmptyRule();
+    private final TestValidator validator = new TestValidator();
+
+    @Test
+    public void reusesTheResultForTheSameValue() {
+        validator.validate(0, rule, "a");
+        validator.validate(0, rule, "a");
+        validator.validate(0, rule, new String("a"));
+        assertEquals(1, rule.evaluations);
+
+        validator.validate(0, rule, "");
+        assertEquals(2, rule.evaluations);
+        assertTrue(validator.isFailed(0));
+    }
+
+    @Test
+    public void remembersEachRuleSeparately() {
+        validator.validate(0, rule, "a");
+        validator.validate(1, rule, "a");
+        validator.validate(0, rule, "a");
+        assertEquals(2, rule.evaluations);
+    }
+
+    @Test
+    public void reusesTheResultForTheSamePrimitive() {
+        final int[] evaluations = new int[1];
+        IntRule positive = new IntRule() {
+            @Override
+            public boolean isValid(int value) {
+                evaluations[0]++;
+                return value > 0;
+            }
+        };
+        validator.validate(0, positive, 1);
+        validator.validate(0, positive, 1);
+        assertEquals(1, evaluations[0]);
+        validator.validate(0, positive, 0);
+        assertEquals(2, evaluations[0]);
+        assertFalse(validator.isValid());
+    }
+
+    @Test
+    public void alwaysEvaluatesMutableText() {
+        StringBuilder text = new StringBuilder("a");
+        validator.validate(0, rule, text);
+        text.setLength(0);
+        validator.validate(0, rule, text);
+        assertEquals(2, rule.evaluations);
+        assertTrue(validator.isFailed(0));
+    }
+
+    @Test
+    public void evaluatesConfirmRulesAgainWhenEitherSideChanges() {
+        final int[] evaluations = new int[1];
+        ConfirmRule<CharSequence> same = new ConfirmRule<CharSequence>(CharSequence.class) {
+            @Override
+            public boolean isValid(CharSequence value1, CharSequence value2) {
+                evaluations[0]++;
+                return TextRule.contentEquals(value1, value2);
+            }
+        };
+        validator.validate(0, same, "a", "a");
+        validator.validate(0, same, "a", "a");
+        assertEquals(1, evaluations[0]);
+        validator.validate(0, same, "a", "b");
+        assertEquals(2, evaluations[0]);
+        assertTrue(validator.isFailed(0));
+        validator.validate(0, same, "b", "b");
+        assertEquals(3, evaluations[0]);
+        assertTrue(validator.isValid());
+    }
+
+    @Test
+    public void evaluatesAgainAfterInvalidate() {
+        validator.validate(0, rule, "a");
+        validator.invalidate();
+        validator.validate(0, rule, "a");
+        assertEquals(2, rule.evaluations);
+    }
+
+    @Test
+    public void evaluatesAgainAfterSetValid() {
+        validator.validate(0, rule, "");
+        // Derived from another rule, so not the outcome of the value the rule last saw
+        validator.setValid(0, true);
+        validator.validate(0, rule, "");
+        assertEquals(2, rule.evaluations);
+        assertTrue(validator.isFailed(0));
+    }
+
+    @Test
+    public void evaluatesAgainAfterSetMessage() {
+        validator.validate(0, rule, "a");
+        validator.setMessage(0, "Taken");
+        assertTrue(validator.isFailed(0));
+        assertEquals("Taken", validator.getMessage(0));
+
+        validator.validate(0, rule, "a");
+        assertEquals(2, rule.evaluations);
+        assertFalse(validator.isFailed(0));
+    }
+
+    private static class NotEmptyRule extends TextRule {
+
+        private int evaluations;
+
+        @Override
+        public boolean isValid(CharSequence value) {
+            evaluations++;
+            return !isEmpty(value);
+        }
+    }
+
+    // Rules 0 and 1, as generated validators number them
+    private static class TestValidator extends AbstractValidator {
+
+        TestValidator() {
+            super(new MessageResolver() {
+                @Override
+                public String getMessage(int messageId) {
+                    return "Message " + messageId;
+                }
+            }, new int[] {1, 2});
+        }
+    }
+}
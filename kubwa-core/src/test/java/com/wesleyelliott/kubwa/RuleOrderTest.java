@@ -0,0 +1,57 @@
+package com.wesleyelliott.kubwa;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class RuleOrderTest {
+
+    @Test
+    public void startsWithTheGivenOrder() {
+        RuleOrder order = new RuleOrder(new int[] {2, 0, 1}, new int[] {-1, -1, -1}, 8);
+        assertOrder(order, 2, 0, 1);
+    }
+
+    @Test
+    public void startsWithPredecessorsFirst() {
+        // Rule 0 confirms rule 2, as a confirm rule declared before what it confirms
+        RuleOrder order = new RuleOrder(new int[] {0, 1, 2, 3}, new int[] {2, -1, -1, -1}, 8);
+        assertOrder(order, 1, 2, 0, 3);
+    }
+
+    @Test
+    public void movesRulesThatFailFirst() {
+        RuleOrder order = new RuleOrder(new int[] {0, 1, 2}, new int[] {-1, -1, -1}, 4);
+        for (int i = 0; i < 3; i++) {
+            order.begin();
+            order.record(0, false, 10);
+            order.record(1, false, 10);
+            order.record(2, true, 10);
+        }
+        order.begin();
+        assertOrder(order, 2, 0, 1);
+    }
+
+    @Test
+    public void keepsPredecessorsFirstWhenReordering() {
+        RuleOrder order = new RuleOrder(new int[] {0, 1, 2}, new int[] {-1, -1, 1}, 4);
+        for (int i = 0; i < 3; i++) {
+            order.begin();
+            order.record(0, false, 100);
+            order.record(1, false, 10);
+            order.record(2, true, 10);
+        }
+        order.begin();
+        assertOrder(order, 1, 2, 0);
+    }
+
+    private static void assertOrder(RuleOrder order, int... expected) {
+        int[] actual = new int[order.size()];
+        for (int i = 0; i < actual.length; i++) {
+            actual[i] = order.get(i);
+        }
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+}
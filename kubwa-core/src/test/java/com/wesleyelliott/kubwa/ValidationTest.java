@@ -0,0 +1,182 @@
+package com.wesleyelliott.kubwa;
+
+import com.wesleyelliott.kubwa.rule.IntRule;
+import com.wesleyelliott.kubwa.rule.Rule;
+import com.wesleyelliott.kubwa.rule.TextRule;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationTest {
+
+    private final CountingResolver resolver = new CountingResolver();
+
+    @Test
+    public void resolvesTheMessageOnlyWhenAskedFor() {
+        Validation<CharSequence> validation = new Validation<CharSequence>(resolver, 7, new NotEmptyRule());
+        validation.validate("");
+        assertFalse(validation.isValid());
+        assertTrue(resolver.messageIds.isEmpty());
+
+        assertEquals("Message 7", validation.getMessage());
+        assertEquals(1, resolver.messageIds.size());
+        assertEquals(7, (int) resolver.messageIds.get(0));
+    }
+
+    @Test
+    public void resolvesNoMessageForValidValues() {
+        Validation<CharSequence> validation = new Validation<CharSequence>(resolver, 7, new NotEmptyRule());
+        validation.validate("a");
+        assertTrue(validation.isValid());
+        assertNull(validation.getMessage());
+        assertTrue(resolver.messageIds.isEmpty());
+    }
+
+    @Test
+    public void returnsAPlaceholderWithoutAMessageId() {
+        Validation<CharSequence> validation = new Validation<CharSequence>(resolver, -1, new NotEmptyRule());
+        validation.validate("");
+        assertEquals("Error", validation.getMessage());
+        assertTrue(resolver.messageIds.isEmpty());
+    }
+
+    @Test
+    public void returnsTheMessageSetUntilTheNextValidation() {
+        Validation<CharSequence> validation = new Validation<CharSequence>(resolver, 7, new NotEmptyRule());
+        validation.validate("a");
+        validation.setMessage("Taken");
+        assertFalse(validation.isValid());
+        assertEquals("Taken", validation.getMessage());
+
+        validation.validate("a");
+        assertTrue(validation.isValid());
+        assertNull(validation.getMessage());
+        assertTrue(resolver.messageIds.isEmpty());
+    }
+
+    @Test
+    public void reusesTheResultForTheSameString() {
+        NotEmptyRule rule = new NotEmptyRule();
+        Validation<CharSequence> validation = new Validation<CharSequence>(resolver, 7, rule);
+        validation.validate("a");
+        validation.validate("a");
+        // Equal, though not the same instance
+        validation.validate(new String("a"));
+        assertEquals(1, rule.evaluations);
+
+        validation.validate("");
+        assertEquals(2, rule.evaluations);
+        assertFalse(validation.isValid());
+    }
+
+    @Test
+    public void reusesTheResultForTheSameBoxedValue() {
+        CountingRule<Integer> rule = new CountingRule<>(Integer.class);
+        Validation<Integer> validation = new Validation<>(resolver, 7, rule);
+        validation.validate(Integer.valueOf(1000));
+        validation.validate(Integer.valueOf(1000));
+        assertEquals(1, rule.evaluations);
+        validation.validate(Integer.valueOf(1001));
+        assertEquals(2, rule.evaluations);
+    }
+
+    @Test
+    public void reusesTheResultForTheSamePrimitive() {
+        final int[] evaluations = new int[1];
+        Validation<Integer> validation = new Validation<Integer>(resolver, 7, new IntRule() {
+            @Override
+            public boolean isValid(int value) {
+                evaluations[0]++;
+                return value > 0;
+            }
+        });
+        validation.validate(1);
+        validation.validate(1);
+        assertEquals(1, evaluations[0]);
+        validation.validate(-1);
+        assertEquals(2, evaluations[0]);
+        assertFalse(validation.isValid());
+    }
+
+    @Test
+    public void alwaysEvaluatesMutableText() {
+        NotEmptyRule rule = new NotEmptyRule();
+        Validation<CharSequence> validation = new Validation<CharSequence>(resolver, 7, rule);
+        StringBuilder text = new StringBuilder("a");
+        validation.validate(text);
+        validation.validate(text);
+        assertEquals(2, rule.evaluations);
+        assertTrue(validation.isValid());
+
+        // Changed under the same reference
+        text.setLength(0);
+        validation.validate(text);
+        assertEquals(3, rule.evaluations);
+        assertFalse(validation.isValid());
+    }
+
+    @Test
+    public void evaluatesAgainAfterInvalidate() {
+        NotEmptyRule rule = new NotEmptyRule();
+        Validation<CharSequence> validation = new Validation<CharSequence>(resolver, 7, rule);
+        validation.validate("a");
+        validation.invalidate();
+        validation.validate("a");
+        assertEquals(2, rule.evaluations);
+    }
+
+    @Test
+    public void clearsTheMessageSetWhenReusingTheResult() {
+        NotEmptyRule rule = new NotEmptyRule();
+        Validation<CharSequence> validation = new Validation<CharSequence>(resolver, 7, rule);
+        validation.validate("a");
+        validation.setMessage("Taken");
+        validation.validate("a");
+        assertEquals(1, rule.evaluations);
+        assertTrue(validation.isValid());
+    }
+
+    private static class NotEmptyRule extends TextRule {
+
+        private int evaluations;
+
+        @Override
+        public boolean isValid(CharSequence value) {
+            evaluations++;
+            return !isEmpty(value);
+        }
+    }
+
+    private static class CountingRule<T> extends Rule<T> {
+
+        private int evaluations;
+
+        CountingRule(Class<T> type) {
+            super(type);
+        }
+
+        @Override
+        public boolean isValid(T value) {
+            evaluations++;
+            return value != null;
+        }
+    }
+
+    private static class CountingResolver implements MessageResolver {
+
+        private final List<Integer> messageIds = new ArrayList<>();
+
+        @Override
+        public String getMessage(int messageId) {
+            messageIds.add(messageId);
+            return "Message " + messageId;
+        }
+    }
+}
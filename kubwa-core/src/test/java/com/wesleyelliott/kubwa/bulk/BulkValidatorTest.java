@@ -0,0 +1,226 @@
+package com.wesleyelliott.kubwa.bulk;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BulkValidatorTest {
+
+    private static final int RECORD_COUNT = 10000;
+    private static final int BATCH_SIZE = 64;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final StubFactory factory = new StubFactory();
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void reportsFailedRecordsInInputOrder() {
+        BulkReport report = newValidator().validate(records(RECORD_COUNT));
+
+        assertFalse(report.isAborted());
+        assertEquals(RECORD_COUNT, report.getValidatedCount());
+        assertReportsEveryFailure(report, RECORD_COUNT);
+    }
+
+    @Test
+    public void givesEachThreadItsOwnValidator() {
+        newValidator().validate(records(RECORD_COUNT));
+
+        // Each validator also checks it's only ever used by the thread that created it
+        assertEquals(factory.threads.size(), factory.created.get());
+    }
+
+    @Test
+    public void readsIteratorsInBatches() {
+        BulkValidator<Integer> validator = newValidator();
+        BulkReport fromList = validator.validate(records(RECORD_COUNT));
+        BulkReport fromIterator = validator.validate(records(RECORD_COUNT).iterator());
+
+        assertFalse(fromIterator.isAborted());
+        assertEquals(RECORD_COUNT, fromIterator.getValidatedCount());
+        assertSameFailures(fromList, fromIterator);
+    }
+
+    @Test
+    public void keepsFewBatchesOfAnIteratorInMemory() {
+        final AtomicInteger read = new AtomicInteger();
+        final AtomicInteger validated = new AtomicInteger();
+        final int maxInFlight = pool.getParallelism() * 2;
+        BulkValidator<Integer> validator = new BulkValidator<Integer>(new RecordValidatorFactory<Integer>() {
+            @Override
+            public RecordValidator<Integer> create() {
+                return new RecordValidator<Integer>() {
+                    @Override
+                    public long validate(Integer record) {
+                        validated.incrementAndGet();
+                        return failureMask(record);
+                    }
+                };
+            }
+        }, pool).setBatchSize(BATCH_SIZE);
+
+        final List<Integer> records = records(RECORD_COUNT);
+        final int[] maxUnvalidated = new int[1];
+        BulkReport report = validator.validate(new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return read.get() < records.size();
+            }
+
+            @Override
+            public Integer next() {
+                maxUnvalidated[0] = Math.max(maxUnvalidated[0], read.get() - validated.get());
+                return records.get(read.getAndIncrement());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        });
+
+        assertReportsEveryFailure(report, RECORD_COUNT);
+        // The batches in flight and the one being read
+        assertTrue(maxUnvalidated[0] + " records read ahead", maxUnvalidated[0] <= (maxInFlight + 1) * BATCH_SIZE);
+    }
+
+    @Test
+    public void copiesListsWithoutRandomAccess() {
+        BulkValidator<Integer> validator = newValidator();
+        BulkReport linked = validator.validate(new LinkedList<Integer>(records(RECORD_COUNT)));
+        assertSameFailures(validator.validate(records(RECORD_COUNT)), linked);
+    }
+
+    @Test
+    public void validatesEmptyInput() {
+        BulkReport report = newValidator().validate(Collections.<Integer>emptyList());
+        assertEquals(0, report.getValidatedCount());
+        assertEquals(0, report.getFailureCount());
+        assertEquals(0, newValidator().validate(Collections.<Integer>emptyList().iterator()).getValidatedCount());
+    }
+
+    @Test
+    public void abortsOnceTheErrorRatePassesTheThreshold() {
+        // A third of the records fail
+        BulkReport report = newValidator().setAbortThreshold(0.2, 1000).validate(records(RECORD_COUNT));
+
+        assertTrue(report.isAborted());
+        assertTrue(report.toString(), report.getValidatedCount() >= 1000);
+        assertTrue(report.toString(), report.getValidatedCount() < RECORD_COUNT);
+
+        report = newValidator().setAbortThreshold(0.2, 1000).validate(records(RECORD_COUNT).iterator());
+        assertTrue(report.isAborted());
+        assertTrue(report.toString(), report.getValidatedCount() >= 1000);
+        assertTrue(report.toString(), report.getValidatedCount() < RECORD_COUNT);
+    }
+
+    @Test
+    public void doesNotAbortBeforeTheMinimumRecords() {
+        BulkReport report = newValidator().setAbortThreshold(0.2, 5000).validate(records(RECORD_COUNT));
+        assertTrue(report.isAborted());
+        assertTrue(report.toString(), report.getValidatedCount() >= 5000);
+
+        report = newValidator().setAbortThreshold(0.2, RECORD_COUNT + 1).validate(records(RECORD_COUNT));
+        assertFalse(report.isAborted());
+        assertEquals(RECORD_COUNT, report.getValidatedCount());
+        assertReportsEveryFailure(report, RECORD_COUNT);
+    }
+
+    @Test
+    public void doesNotAbortBelowTheThreshold() {
+        BulkReport report = newValidator().setAbortThreshold(0.4, 0).validate(records(RECORD_COUNT));
+        assertFalse(report.isAborted());
+        assertReportsEveryFailure(report, RECORD_COUNT);
+    }
+
+    @Test
+    public void rejectsInvalidSettings() {
+        try {
+            newValidator().setBatchSize(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            newValidator().setAbortThreshold(1.5, 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private BulkValidator<Integer> newValidator() {
+        return new BulkValidator<Integer>(factory, pool).setBatchSize(BATCH_SIZE);
+    }
+
+    private static List<Integer> records(int count) {
+        List<Integer> records = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(i);
+        }
+        return records;
+    }
+
+    // Every third record fails, with a mask of its own
+    private static long failureMask(int record) {
+        return record % 3 == 0 ? (record * 0x9E3779B97F4A7C15L) | 1 : 0;
+    }
+
+    private static void assertReportsEveryFailure(BulkReport report, int recordCount) {
+        int failure = 0;
+        for (int record = 0; record < recordCount; record++) {
+            if (failureMask(record) != 0) {
+                assertEquals(record, report.getRecordIndex(failure));
+                assertEquals(failureMask(record), report.getFailureMask(failure));
+                failure++;
+            }
+        }
+        assertEquals(failure, report.getFailureCount());
+    }
+
+    private static void assertSameFailures(BulkReport expected, BulkReport actual) {
+        assertEquals(expected.getFailureCount(), actual.getFailureCount());
+        for (int i = 0; i < expected.getFailureCount(); i++) {
+            assertEquals(expected.getRecordIndex(i), actual.getRecordIndex(i));
+            assertEquals(expected.getFailureMask(i), actual.getFailureMask(i));
+        }
+    }
+
+    private static class StubFactory implements RecordValidatorFactory<Integer> {
+
+        private final AtomicInteger created = new AtomicInteger();
+        private final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+
+        @Override
+        public RecordValidator<Integer> create() {
+            created.incrementAndGet();
+            final Thread owner = Thread.currentThread();
+            threads.add(owner);
+            return new RecordValidator<Integer>() {
+                @Override
+                public long validate(Integer record) {
+                    if (Thread.currentThread() != owner) {
+                        throw new AssertionError("Validator of " + owner + " used by " + Thread.currentThread());
+                    }
+                    return failureMask(record);
+                }
+            };
+        }
+    }
+}
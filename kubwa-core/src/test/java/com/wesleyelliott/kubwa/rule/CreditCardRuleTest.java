@@ -0,0 +1,196 @@
+package com.wesleyelliott.kubwa.rule;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The issuer trie has to accept the same numbers as matching each type's regex and running the
+ * Luhn checksum, on numbers built around every prefix range of every type.
+ */
+public class CreditCardRuleTest {
+
+    private static final LuhnRule LUHN = new LuhnRule(10) {
+        @Override
+        public boolean isValid(CharSequence value) {
+            return validate(value);
+        }
+    };
+
+    private final CreditCardRule allTypes = new CreditCardRule(CreditCardRule.Type.values());
+
+    @Test
+    public void matchesTheRegexesAndLuhnOnEveryPrefix() {
+        List<String> prefixes = prefixes();
+        Random random = new Random(3);
+        for (int i = 0; i < 400000; i++) {
+            String number = number(random, prefixes.get(random.nextInt(prefixes.size())), 11 + random.nextInt(10), random.nextBoolean());
+            assertEquals(number, acceptedByRegex(number, CreditCardRule.Type.values()), allTypes.isValid(number));
+        }
+    }
+
+    @Test
+    public void matchesTheRegexAndLuhnOfEachTypeOnItsOwn() {
+        List<String> prefixes = prefixes();
+        Random random = new Random(4);
+        for (CreditCardRule.Type type : CreditCardRule.Type.values()) {
+            CreditCardRule rule = new CreditCardRule(type);
+            for (int i = 0; i < 20000; i++) {
+                String number = number(random, prefixes.get(random.nextInt(prefixes.size())), 11 + random.nextInt(10), random.nextBoolean());
+                assertEquals(type + " " + number, acceptedByRegex(number, type), rule.isValid(number));
+            }
+        }
+    }
+
+    @Test
+    public void acceptsTheMastercardSeriesBoundsOnly() {
+        Random random = new Random(5);
+        assertEquals(null, allTypes.findType(number(random, "2220", 16, true)));
+        assertEquals(CreditCardRule.Type.MASTERCARD, allTypes.findType(number(random, "2221", 16, true)));
+        assertEquals(CreditCardRule.Type.MASTERCARD, allTypes.findType(number(random, "2720", 16, true)));
+        assertEquals(null, allTypes.findType(number(random, "2721", 16, true)));
+    }
+
+    @Test
+    public void prefersTheLongestPrefix() {
+        Random random = new Random(6);
+        // UnionPay takes all of 62 but Discover's 622126-622925
+        assertEquals(CreditCardRule.Type.UNIONPAY, allTypes.findType(number(random, "622125", 16, true)));
+        assertEquals(CreditCardRule.Type.DISCOVER, allTypes.findType(number(random, "622126", 16, true)));
+        assertEquals(CreditCardRule.Type.DISCOVER, allTypes.findType(number(random, "622925", 19, true)));
+        assertEquals(CreditCardRule.Type.UNIONPAY, allTypes.findType(number(random, "622926", 19, true)));
+        // Maestro's 5018 sits next to Mastercard's 51-55
+        assertEquals(CreditCardRule.Type.MAESTRO, allTypes.findType(number(random, "5018", 16, true)));
+        assertEquals(CreditCardRule.Type.MASTERCARD, allTypes.findType(number(random, "5118", 16, true)));
+    }
+
+    @Test
+    public void fallsBackToAShorterPrefixAcceptingTheLength() {
+        // No two types overlap with different lengths, so AMEX's 15 digits stand in for one
+        IssuerTrie trie = new IssuerTrie();
+        trie.add(CreditCardRule.Type.UNIONPAY, "62");
+        trie.add(CreditCardRule.Type.AMEX, "6221");
+        assertEquals(CreditCardRule.Type.AMEX, trie.match("622100000000000"));
+        assertEquals(CreditCardRule.Type.UNIONPAY, trie.match("6221000000000000"));
+        assertNull(trie.match("62210000000000"));
+        assertEquals(CreditCardRule.Type.AMEX, trie.matchPrefix("62210000000000"));
+    }
+
+    @Test
+    public void findsNoTypeForInvalidNumbers() {
+        Random random = new Random(8);
+        assertNull(allTypes.findType(null));
+        assertNull(allTypes.findType(""));
+        assertNull(allTypes.findType(number(random, "4", 16, false)));
+        // VISA takes 13, 16 and 19 digits
+        assertNull(allTypes.findType(number(random, "4", 15, true)));
+        assertNull(allTypes.findType("4111 1111 1111 1111"));
+        assertNull(new CreditCardRule(CreditCardRule.Type.VISA).findType(number(random, "51", 16, true)));
+        assertNull(new CreditCardRule().findType("4111111111111111"));
+    }
+
+    @Test
+    public void detectsTypesOfPartialNumbers() {
+        assertNull(allTypes.detectType(null));
+        assertNull(allTypes.detectType(""));
+        assertEquals(CreditCardRule.Type.VISA, allTypes.detectType("4"));
+        assertEquals(CreditCardRule.Type.VISA, allTypes.detectType("4x"));
+        assertNull(allTypes.detectType("x4"));
+        assertNull(allTypes.detectType("2"));
+        assertNull(allTypes.detectType("222"));
+        assertEquals(CreditCardRule.Type.MASTERCARD, allTypes.detectType("2221"));
+        assertEquals(CreditCardRule.Type.UNIONPAY, allTypes.detectType("6221"));
+        assertEquals(CreditCardRule.Type.DISCOVER, allTypes.detectType("622126"));
+        assertEquals(CreditCardRule.Type.AMEX, allTypes.detectType("3712"));
+        assertNull(allTypes.detectType("35"));
+        assertEquals(CreditCardRule.Type.JCB, allTypes.detectType("3528"));
+        // Detects the prefix only, however long the number
+        assertEquals(CreditCardRule.Type.VISA, allTypes.detectType("41111111111111111111111"));
+    }
+
+    @Test
+    public void rejectsTypesRegisteringTheSamePrefix() {
+        IssuerTrie trie = new IssuerTrie();
+        trie.add(CreditCardRule.Type.UNIONPAY, "62");
+        trie.add(CreditCardRule.Type.DISCOVER, "622126-622925");
+        // The same type may cover a prefix twice
+        trie.add(CreditCardRule.Type.UNIONPAY, "62");
+        try {
+            trie.add(CreditCardRule.Type.DISCOVER, "60-62");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("IIN prefix 62 is registered by both UNIONPAY and DISCOVER", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsInvalidRanges() {
+        try {
+            new IssuerTrie().add(CreditCardRule.Type.VISA, "40-5");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("same length"));
+        }
+        try {
+            new IssuerTrie().add(CreditCardRule.Type.VISA, "45-41");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Invalid IIN range"));
+        }
+    }
+
+    private static boolean acceptedByRegex(String number, CreditCardRule.Type... types) {
+        if (!LUHN.validate(number)) {
+            return false;
+        }
+        for (CreditCardRule.Type type : types) {
+            if (Pattern.matches(type.getRegex(), number)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Both bounds of every range, and the numbers just outside them
+    private static List<String> prefixes() {
+        List<String> prefixes = new ArrayList<>();
+        for (CreditCardRule.Type type : CreditCardRule.Type.values()) {
+            for (String range : type.getPrefixRanges()) {
+                int separator = range.indexOf('-');
+                String low = separator == -1 ? range : range.substring(0, separator);
+                String high = separator == -1 ? range : range.substring(separator + 1);
+                for (String bound : new String[] {low, high}) {
+                    long value = Long.parseLong(bound);
+                    for (long prefix = value - 1; prefix <= value + 1; prefix++) {
+                        prefixes.add(Long.toString(prefix));
+                    }
+                }
+            }
+        }
+        return prefixes;
+    }
+
+    // A number of that length starting with the prefix, whose check digit is right or wrong
+    private static String number(Random random, String prefix, int length, boolean validChecksum) {
+        StringBuilder number = new StringBuilder(prefix);
+        while (number.length() < length - 1) {
+            number.append((char) ('0' + random.nextInt(10)));
+        }
+        for (char check = '0'; check <= '9'; check++) {
+            number.append(check);
+            if (LUHN.validate(number) == validChecksum) {
+                return number.toString();
+            }
+            number.setLength(number.length() - 1);
+        }
+        throw new AssertionError();
+    }
+}
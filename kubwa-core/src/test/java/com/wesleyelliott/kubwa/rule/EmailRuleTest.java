@@ -0,0 +1,102 @@
+package com.wesleyelliott.kubwa.rule;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The ANDROID scheme has to make the same decisions as the android.util.Patterns.EMAIL_ADDRESS
+ * regex it replaced, on a seeded corpus of addresses built around its length limits and on
+ * random text.
+ */
+public class EmailRuleTest {
+
+    // android.util.Patterns.EMAIL_ADDRESS
+    private static final Pattern EMAIL_ADDRESS = Pattern.compile(
+            "[a-zA-Z0-9\\+\\.\\_\\%\\-\\+]{1,256}" +
+            "\\@" +
+            "[a-zA-Z0-9][a-zA-Z0-9\\-]{0,64}" +
+            "(" +
+                "\\." +
+                "[a-zA-Z0-9][a-zA-Z0-9\\-]{0,25}" +
+            ")+"
+    );
+
+    // Mostly characters the regex accepts somewhere, and a few it never does
+    private static final String LOCAL_CHARACTERS = "aZ09+._%-";
+    private static final String LABEL_CHARACTERS = "aZ09-";
+    private static final String OTHER_CHARACTERS = "@.!# \u00e9\n";
+    // Around the limits of the local part, the first domain label and the others
+    private static final int[] LOCAL_LENGTHS = {0, 1, 2, 255, 256, 257};
+    private static final int[] FIRST_LABEL_LENGTHS = {0, 1, 2, 64, 65, 66};
+    private static final int[] LABEL_LENGTHS = {0, 1, 2, 25, 26, 27};
+
+    private final EmailRule emailRule = new EmailRule(EmailRule.Scheme.ANDROID);
+
+    @Test
+    public void acceptsAddressesAtTheLengthLimits() {
+        assertTrue(emailRule.isValid(repeat('a', 256) + "@example.com"));
+        assertTrue(emailRule.isValid("a@" + repeat('b', 65) + ".com"));
+        assertTrue(emailRule.isValid("a@example." + repeat('c', 26)));
+    }
+
+    @Test
+    public void rejectsAddressesPastTheLengthLimits() {
+        assertFalse(emailRule.isValid(repeat('a', 257) + "@example.com"));
+        assertFalse(emailRule.isValid("a@" + repeat('b', 66) + ".com"));
+        assertFalse(emailRule.isValid("a@example." + repeat('c', 27)));
+    }
+
+    @Test
+    public void matchesPatternsOnStructuredAddresses() {
+        Random random = new Random(5);
+        for (int i = 0; i < 200000; i++) {
+            StringBuilder address = new StringBuilder();
+            append(address, random, LOCAL_CHARACTERS, LOCAL_LENGTHS[random.nextInt(LOCAL_LENGTHS.length)]);
+            address.append(random.nextInt(20) == 0 ? "" : "@");
+            append(address, random, LABEL_CHARACTERS, FIRST_LABEL_LENGTHS[random.nextInt(FIRST_LABEL_LENGTHS.length)]);
+            int labels = random.nextInt(4);
+            for (int label = 0; label < labels; label++) {
+                address.append(random.nextInt(20) == 0 ? "" : ".");
+                append(address, random, LABEL_CHARACTERS, LABEL_LENGTHS[random.nextInt(LABEL_LENGTHS.length)]);
+            }
+            assertSameDecision(address.toString());
+        }
+    }
+
+    @Test
+    public void matchesPatternsOnRandomText() {
+        Random random = new Random(55);
+        String characters = LOCAL_CHARACTERS + OTHER_CHARACTERS;
+        for (int i = 0; i < 200000; i++) {
+            StringBuilder address = new StringBuilder();
+            append(address, random, characters, random.nextInt(16));
+            assertSameDecision(address.toString());
+        }
+    }
+
+    private void assertSameDecision(String address) {
+        assertEquals(address, EMAIL_ADDRESS.matcher(address).matches(), emailRule.isValid(address));
+    }
+
+    // Mostly the given characters, sometimes anything else
+    private static void append(StringBuilder builder, Random random, String characters, int length) {
+        for (int i = 0; i < length; i++) {
+            String from = random.nextInt(50) == 0 ? OTHER_CHARACTERS : characters;
+            builder.append(from.charAt(random.nextInt(from.length())));
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
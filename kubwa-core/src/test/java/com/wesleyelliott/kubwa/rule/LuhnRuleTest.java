@@ -0,0 +1,156 @@
+package com.wesleyelliott.kubwa.rule;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LuhnRuleTest {
+
+    private final LuhnRule mod10 = new TestLuhnRule(10);
+    private final LuhnRule mod36 = new TestLuhnRule(36);
+
+    @Test
+    public void acceptsKnownDecimalNumbers() {
+        assertTrue(mod10.validate("79927398713"));
+        assertTrue(new ZAIdNumberRule().isValid("8001015009087"));
+        assertTrue(mod10.validate("4111111111111111"));
+    }
+
+    @Test
+    public void rejectsDecimalNumbersWithTheWrongCheckDigit() {
+        assertFalse(mod10.validate("79927398710"));
+        assertFalse(new ZAIdNumberRule().isValid("8001015009088"));
+        assertFalse(mod10.validate("4111111111111112"));
+    }
+
+    @Test
+    public void acceptsAlphanumericValues() {
+        assertTrue(mod36.validate("k8s2mdzf"));
+        assertFalse(mod36.validate("k8s2mdze"));
+    }
+
+    @Test
+    public void ignoresCaseOfTheDefaultAlphabets() {
+        assertTrue(mod36.validate("K8S2MDZF"));
+        assertTrue(mod36.validate("k8S2mDzF"));
+    }
+
+    @Test
+    public void matchesCaseOfCustomAlphabets() {
+        LuhnRule rule = new TestLuhnRule("abcdef");
+        assertEquals(6, rule.getModulus());
+        assertTrue(rule.validate("abcdefe"));
+        assertFalse(rule.validate("ABCDEFE"));
+    }
+
+    @Test
+    public void validatesValuesWithoutTheirCheckDigit() {
+        // As if the value ended in a check digit of 0
+        assertTrue(mod10.validate("123", false));
+        assertTrue(mod10.validate("1230", true));
+        assertFalse(mod10.validate("7992739871", false));
+        assertTrue(mod10.validate("123", "\\d+", false));
+        assertFalse(mod10.validate("123", "\\d+", true));
+    }
+
+    @Test
+    public void rejectsValuesSummingToZero() {
+        assertFalse(mod10.validate("0"));
+        assertFalse(mod10.validate("0000000000000"));
+        assertFalse(mod36.validate("000"));
+    }
+
+    @Test
+    public void rejectsCharactersOutsideTheAlphabet() {
+        assertFalse(mod10.validate("4111-1111-1111-1111"));
+        assertFalse(mod10.validate("411111111111111a"));
+        assertFalse(mod36.validate("k8s2mdz_f"));
+        assertFalse(mod10.validate("41111111111111\u0661"));
+        assertFalse(new TestLuhnRule("abcdef").validate("abcdefg"));
+    }
+
+    @Test
+    public void rejectsEmptyValuesAndValuesNotMatchingTheRegex() {
+        assertFalse(mod10.validate(null));
+        assertFalse(mod10.validate(""));
+        assertFalse(mod10.validate("", "\\d*"));
+        assertFalse(mod10.validate("79927398713", "\\d{10}"));
+    }
+
+    @Test
+    public void matchesTheReferenceAlgorithm() {
+        Random random = new Random(2);
+        for (int modulus = 2; modulus <= 36; modulus++) {
+            LuhnRule rule = new TestLuhnRule(modulus);
+            String alphabet = LuhnRule.ALPHANUMERIC.substring(0, modulus);
+            for (int i = 0; i < 2000; i++) {
+                StringBuilder value = new StringBuilder();
+                int length = 1 + random.nextInt(20);
+                for (int j = 0; j < length; j++) {
+                    value.append(alphabet.charAt(random.nextInt(modulus)));
+                }
+                char check = checkCharacter(value, alphabet);
+                // All zeros sum to zero, so only the value with a check digit of 0 is rejected
+                assertEquals(value + " mod " + modulus, !isZero(value, check), rule.validate(value.toString() + check));
+                assertEquals(value + " mod " + modulus, check == '0' && !isZero(value, check), rule.validate(value, false));
+                char wrong = alphabet.charAt((alphabet.indexOf(check) + 1 + random.nextInt(modulus - 1)) % modulus);
+                assertFalse(value + " mod " + modulus, rule.validate(value.toString() + wrong));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAModulusPastTheAlphabet() {
+        new TestLuhnRule(37);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicateCharacters() {
+        new TestLuhnRule("abca");
+    }
+
+    // The generation algorithm of Luhn mod N, as published
+    private static char checkCharacter(CharSequence value, String alphabet) {
+        int modulus = alphabet.length();
+        int factor = 2;
+        int sum = 0;
+        for (int i = value.length() - 1; i >= 0; i--) {
+            int addend = factor * alphabet.indexOf(value.charAt(i));
+            factor = factor == 2 ? 1 : 2;
+            sum += addend / modulus + addend % modulus;
+        }
+        return alphabet.charAt((modulus - sum % modulus) % modulus);
+    }
+
+    private static boolean isZero(CharSequence value, char check) {
+        if (check != '0') {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class TestLuhnRule extends LuhnRule {
+
+        TestLuhnRule(int modulus) {
+            super(modulus);
+        }
+
+        TestLuhnRule(String alphabet) {
+            super(alphabet);
+        }
+
+        @Override
+        public boolean isValid(CharSequence value) {
+            return validate(value);
+        }
+    }
+}
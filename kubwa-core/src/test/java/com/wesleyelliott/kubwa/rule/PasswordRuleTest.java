@@ -0,0 +1,133 @@
+package com.wesleyelliott.kubwa.rule;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Each scheme has to make the same decisions as the stack of lookahead regexes it replaced, on
+ * random text mixing every character class, line terminators and surrogates.
+ */
+public class PasswordRuleTest {
+
+    // The regexes of the schemes before the scan replaced them, in Scheme order
+    private static final String[] LOOKAHEAD_REGEXES = {
+            ".+",
+            "\\w+",
+            "(?=.*[a-z])(?=.*[A-Z]).+",
+            "\\d+",
+            "(?=.*[a-zA-Z])(?=.*[\\d]).+",
+            "(?=.*[a-z])(?=.*[A-Z])(?=.*[\\d]).+",
+            "(?=.*[a-zA-Z])(?=.*[\\d])(?=.*([^\\w])).+",
+            "(?=.*[a-z])(?=.*[A-Z])(?=.*[\\d])(?=.*([^\\w])).+"
+    };
+
+    // Letters, digits, underscore, symbols, non-ASCII letters and digits, line terminators, and
+    // a surrogate pair and lone surrogates
+    private static final String[] PIECES = {
+            "a", "z", "A", "Z", "0", "9", "_", "!", " ", "-", "\u00e9", "\u00c9", "\u0661",
+            "\n", "\r", "\u0085", "\u2028", "\u2029", "\ud83d\ude00", "\ud83d", "\ude00"
+    };
+
+    @Test
+    public void matchesTheLookaheadRegexes() {
+        PasswordRule.Scheme[] schemes = PasswordRule.Scheme.values();
+        assertEquals(LOOKAHEAD_REGEXES.length, schemes.length);
+
+        Random random = new Random(4);
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder value = new StringBuilder();
+            int pieces = random.nextInt(8);
+            for (int j = 0; j < pieces; j++) {
+                value.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            for (int s = 0; s < schemes.length; s++) {
+                int minLength = 1 + random.nextInt(6);
+                boolean matches = value.length() > 0 && Pattern.matches(LOOKAHEAD_REGEXES[s], value);
+                assertEquals(schemes[s] + " " + escape(value), matches, new PasswordRule(schemes[s]).isValid(value));
+                assertEquals(schemes[s] + " " + minLength + " " + escape(value),
+                        matches && value.length() >= minLength, new PasswordRule(schemes[s], minLength).isValid(value));
+            }
+        }
+    }
+
+    @Test
+    public void reportsEachMissingRequirement() {
+        PasswordRule rule = new PasswordRule(PasswordRule.Scheme.ALPHA_NUMERIC_MIXED_CASE_SYMBOLS);
+        assertEquals(0, rule.getMissingRequirements("aA1!"));
+        assertEquals(PasswordRule.LOWERCASE, rule.getMissingRequirements("A1!"));
+        assertEquals(PasswordRule.UPPERCASE, rule.getMissingRequirements("a1!"));
+        assertEquals(PasswordRule.DIGIT, rule.getMissingRequirements("aA!"));
+        assertEquals(PasswordRule.SYMBOL, rule.getMissingRequirements("aA1"));
+        assertEquals(PasswordRule.UPPERCASE | PasswordRule.DIGIT | PasswordRule.SYMBOL, rule.getMissingRequirements("abc"));
+    }
+
+    @Test
+    public void requiresALetterOfEitherCase() {
+        PasswordRule rule = new PasswordRule(PasswordRule.Scheme.ALPHA_NUMERIC);
+        assertEquals(PasswordRule.LETTER, rule.getMissingRequirements("123"));
+        assertEquals(0, rule.getMissingRequirements("a123"));
+        assertEquals(0, rule.getMissingRequirements("A123"));
+        assertEquals(PasswordRule.DIGIT, rule.getMissingRequirements("abc"));
+        // Non-ASCII letters aren't letters to the regexes
+        assertEquals(PasswordRule.LETTER, rule.getMissingRequirements("\u00e9123"));
+    }
+
+    @Test
+    public void reportsEmptyAndMissingValues() {
+        PasswordRule rule = new PasswordRule(PasswordRule.Scheme.ALPHA_NUMERIC_SYMBOLS);
+        int required = PasswordRule.LETTER | PasswordRule.DIGIT | PasswordRule.SYMBOL;
+        assertEquals(required, rule.getScheme().getRequirements());
+        assertEquals(required | PasswordRule.LENGTH, rule.getMissingRequirements(""));
+        assertEquals(required | PasswordRule.LENGTH, rule.getMissingRequirements(null));
+        assertFalse(rule.isValid(null));
+        assertEquals(PasswordRule.LENGTH, new PasswordRule(PasswordRule.Scheme.ANY).getMissingRequirements(""));
+    }
+
+    @Test
+    public void reportsValuesShorterThanTheMinLength() {
+        PasswordRule rule = new PasswordRule(PasswordRule.Scheme.ALPHA_MIXED_CASE, 8);
+        assertEquals(8, rule.getMinLength());
+        assertEquals(PasswordRule.LENGTH, rule.getMissingRequirements("abcdefG"));
+        assertEquals(0, rule.getMissingRequirements("abcdefGh"));
+        assertEquals(PasswordRule.LENGTH | PasswordRule.UPPERCASE, rule.getMissingRequirements("abc"));
+        // Empty values are never valid
+        assertEquals(1, new PasswordRule(PasswordRule.Scheme.ANY, 0).getMinLength());
+    }
+
+    @Test
+    public void reportsCharactersTheSchemeDoesNotAllow() {
+        assertEquals(PasswordRule.INVALID_CHARACTER, new PasswordRule(PasswordRule.Scheme.NUMERIC).getMissingRequirements("12a"));
+        assertEquals(PasswordRule.INVALID_CHARACTER, new PasswordRule(PasswordRule.Scheme.ALPHA).getMissingRequirements("ab!"));
+        assertEquals(0, new PasswordRule(PasswordRule.Scheme.ALPHA).getMissingRequirements("a_1"));
+        assertEquals(PasswordRule.INVALID_CHARACTER, new PasswordRule(PasswordRule.Scheme.ALPHA).getMissingRequirements("caf\u00e9"));
+        assertEquals(PasswordRule.INVALID_CHARACTER, new PasswordRule(PasswordRule.Scheme.NUMERIC).getMissingRequirements("1\u0661"));
+        // '.' matches no line terminator
+        assertEquals(PasswordRule.INVALID_CHARACTER, new PasswordRule(PasswordRule.Scheme.ANY).getMissingRequirements("a\nb"));
+        assertEquals(PasswordRule.INVALID_CHARACTER, new PasswordRule(PasswordRule.Scheme.ANY).getMissingRequirements("a\u2028"));
+        assertEquals(PasswordRule.INVALID_CHARACTER | PasswordRule.DIGIT,
+                new PasswordRule(PasswordRule.Scheme.ALPHA_NUMERIC_MIXED_CASE).getMissingRequirements("aB\r"));
+    }
+
+    @Test
+    public void countsNonAsciiCharactersAsSymbols() {
+        PasswordRule rule = new PasswordRule(PasswordRule.Scheme.ALPHA_NUMERIC_SYMBOLS);
+        assertTrue(rule.isValid("a1\u00e9"));
+        assertTrue(rule.isValid("a1\ud83d\ude00"));
+        assertEquals(PasswordRule.SYMBOL, rule.getMissingRequirements("a1_"));
+    }
+
+    private static String escape(CharSequence value) {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            escaped.append(c >= 0x20 && c < 0x7f ? String.valueOf(c) : String.format("\\u%04x", (int) c));
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.wesleyelliott.kubwa.rule;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PatternCacheTest {
+
+    @Test
+    public void evictsTheLeastRecentlyUsedPattern() {
+        PatternCache cache = new PatternCache(2);
+        Pattern a = cache.get("a");
+        Pattern b = cache.get("b");
+        // Makes b the least recently used
+        assertSame(a, cache.get("a"));
+        cache.get("c");
+
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get("a"));
+        assertNotSame(b, cache.get("b"));
+    }
+
+    @Test
+    public void countsHitsMissesAndEvictions() {
+        PatternCache cache = new PatternCache(2);
+        cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c");
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test
+    public void keysPatternsByFlags() {
+        PatternCache cache = new PatternCache(4);
+        assertFalse(cache.matches("abc", "ABC"));
+        assertTrue(cache.matches("abc", Pattern.CASE_INSENSITIVE, "ABC"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void reusesOneMatcherPerThread() throws Exception {
+        final PatternCache cache = new PatternCache(2);
+        Matcher matcher = cache.getMatcher("a+", 0);
+        assertTrue(cache.matches("a+", "aaa"));
+        assertFalse(cache.matches("a+", "aab"));
+        assertSame(matcher, cache.getMatcher("a+", 0));
+
+        final AtomicReference<Matcher> otherMatcher = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                otherMatcher.set(cache.getMatcher("a+", 0));
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNotSame(matcher, otherMatcher.get());
+    }
+
+    @Test
+    public void doesNotHoldOnToTheLastInput() {
+        PatternCache cache = new PatternCache(2);
+        assertTrue(cache.matches("a+", "aaaa"));
+        // Reset to the empty input, so the region ends at 0
+        assertEquals(0, cache.getMatcher("a+", 0).regionEnd());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyCache() {
+        new PatternCache(0);
+    }
+}
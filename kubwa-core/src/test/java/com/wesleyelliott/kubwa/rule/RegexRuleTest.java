@@ -0,0 +1,43 @@
+package com.wesleyelliott.kubwa.rule;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RegexRuleTest {
+
+    @Test
+    public void evaluatesWithinTheBudget() {
+        RegexRule rule = new RegexRule("[a-z]+@[a-z]+", 1000, 0);
+        assertEquals(RegexRule.Outcome.VALID, rule.evaluate("ann@example"));
+        assertEquals(RegexRule.Outcome.INVALID, rule.evaluate("ann"));
+        assertEquals(RegexRule.Outcome.INVALID, rule.evaluate(""));
+    }
+
+    @Test
+    public void givesUpWhenTheStepsRunOut() {
+        // Tries every way of splitting a run of a's that can't match into 12
+        RegexRule rule = new RegexRule("(.*a){12}b", 100000, 0);
+        assertEquals(RegexRule.Outcome.INDETERMINATE, rule.evaluate(repeat("a", 40) + "c"));
+        assertFalse(rule.isValid(repeat("a", 40) + "c"));
+    }
+
+    @Test
+    public void givesUpWhenTheStackRunsOut() {
+        // Recurses for every repetition, so only the stack limits it
+        RegexRule rule = new RegexRule("(a|b)*", 0, TimeUnit.MINUTES.toNanos(1));
+        assertEquals(RegexRule.Outcome.INDETERMINATE, rule.evaluate(repeat("ab", 200000)));
+        assertEquals(RegexRule.Outcome.VALID, rule.evaluate("abba"));
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder(text.length() * count);
+        for (int i = 0; i < count; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.wesleyelliott.kubwa.stream;
+
+import com.wesleyelliott.kubwa.rule.BooleanRule;
+import com.wesleyelliott.kubwa.rule.DoubleRule;
+import com.wesleyelliott.kubwa.rule.IntRule;
+import com.wesleyelliott.kubwa.rule.LongRule;
+import com.wesleyelliott.kubwa.rule.Rule;
+import com.wesleyelliott.kubwa.rule.TextRule;
+
+/**
+ * A rule applied to one column of every record. Rules on primitives are given the column's text
+ * parsed into the primitive, text that doesn't parse fails the rule.
+ */
+
+public final class ColumnRule {
+
+    private static final int TEXT = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int BOOLEAN = 4;
+
+    private final String column;
+    private final String name;
+    private final Rule<?> rule;
+    private final int kind;
+
+    public ColumnRule(String column, String name, Rule<?> rule) {
+        this.column = column;
+        this.name = name;
+        this.rule = rule;
+        if (rule instanceof TextRule) {
+            kind = TEXT;
+        } else if (rule instanceof IntRule) {
+            kind = INT;
+        } else if (rule instanceof LongRule) {
+            kind = LONG;
+        } else if (rule instanceof DoubleRule) {
+            kind = DOUBLE;
+        } else if (rule instanceof BooleanRule) {
+            kind = BOOLEAN;
+        } else {
+            throw new IllegalArgumentException("Unsupported rule type for column " + column + ": " + rule.getClass().getName());
+        }
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Name reported for failures of this rule, the spec it was parsed from.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Rule<?> getRule() {
+        return rule;
+    }
+
+    public boolean isValid(String value) {
+        switch (kind) {
+            case TEXT:
+                return ((TextRule) rule).isValid(value);
+            case INT: {
+                long number = parseLong(value);
+                return number != INVALID_NUMBER && number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE
+                        && ((IntRule) rule).isValid((int) number);
+            }
+            case LONG: {
+                long number = parseLong(value);
+                return number != INVALID_NUMBER && ((LongRule) rule).isValid(number);
+            }
+            case DOUBLE:
+                return isValidDouble(value);
+            default:
+                return isValidBoolean(value);
+        }
+    }
+
+    private boolean isValidDouble(String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        double number;
+        try {
+            number = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return ((DoubleRule) rule).isValid(number);
+    }
+
+    private boolean isValidBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return ((BooleanRule) rule).isValid(true);
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return ((BooleanRule) rule).isValid(false);
+        }
+        return false;
+    }
+
+    // Long.MIN_VALUE itself is rejected, so it can mark unparseable text without an exception
+    private static final long INVALID_NUMBER = Long.MIN_VALUE;
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return INVALID_NUMBER;
+        }
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative = value.charAt(0) == '-';
+            i++;
+        }
+        if (i == length) {
+            return INVALID_NUMBER;
+        }
+        long number = 0;
+        for (; i < length; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || number > (Long.MAX_VALUE - digit) / 10) {
+                return INVALID_NUMBER;
+            }
+            number = number * 10 + digit;
+        }
+        return negative ? -number : number;
+    }
+
+    @Override
+    public String toString() {
+        return column + "=" + name;
+    }
+}
@@ -0,0 +1,192 @@
+package com.wesleyelliott.kubwa.stream;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV, with a header row naming the columns. Quoted fields may contain delimiters,
+ * doubled quotes and line breaks. Only fields of the requested columns are turned into strings.
+ */
+
+public final class CsvRecordReader implements RecordReader {
+
+    private static final int END_OF_INPUT = -1;
+    private static final int END_OF_RECORD = '\n';
+
+    private final Reader in;
+    private final String[] columns;
+    private final char delimiter;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+
+    // field index -> index in the values array, -1 for fields which aren't validated
+    private int[] targets;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvRecordReader(Reader in, String[] columns) {
+        this(in, columns, ',');
+    }
+
+    public CsvRecordReader(Reader in, String[] columns, char delimiter) {
+        this.in = in;
+        this.columns = columns.clone();
+        this.delimiter = delimiter;
+    }
+
+    @Override
+    public boolean read(String[] values) throws IOException {
+        if (targets == null) {
+            readHeader();
+        }
+        if (!skipBlankLines()) {
+            return false;
+        }
+
+        Arrays.fill(values, null);
+        recordLine = line;
+        int fieldIndex = 0;
+        while (true) {
+            int target = fieldIndex < targets.length ? targets[fieldIndex] : -1;
+            int end = readField(target >= 0);
+            if (target >= 0) {
+                values[target] = field.toString();
+            }
+            if (end != delimiter) {
+                return true;
+            }
+            fieldIndex++;
+        }
+    }
+
+    @Override
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = new ArrayList<String>();
+        if (skipBlankLines()) {
+            int end;
+            do {
+                end = readField(true);
+                header.add(field.toString().trim());
+            } while (end == delimiter);
+        }
+
+        targets = new int[header.size()];
+        Arrays.fill(targets, -1);
+        for (int i = 0; i < columns.length; i++) {
+            int fieldIndex = header.indexOf(columns[i]);
+            if (fieldIndex == -1) {
+                throw new IOException("Column " + columns[i] + " isn't in the CSV header " + header);
+            }
+            targets[fieldIndex] = i;
+        }
+    }
+
+    private boolean skipBlankLines() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1) {
+                return false;
+            }
+            if (c != '\n' && c != '\r') {
+                return true;
+            }
+            readLineBreak();
+        }
+    }
+
+    /**
+     * Reads one field, keeping its text in {@link #field} if keep is set, and consumes whatever
+     * ends it.
+     *
+     * @return the delimiter, {@link #END_OF_RECORD} or {@link #END_OF_INPUT}
+     */
+    private int readField(boolean keep) throws IOException {
+        field.setLength(0);
+        int c = peek();
+        if (c == '"') {
+            position++;
+            long quoteLine = line;
+            while (true) {
+                c = next();
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting on line " + quoteLine);
+                }
+                if (c == '"') {
+                    if (peek() != '"') {
+                        break;
+                    }
+                    position++;
+                } else if (c == '\n') {
+                    line++;
+                }
+                if (keep) {
+                    field.append((char) c);
+                }
+            }
+            c = peek();
+            if (c != delimiter && c != '\n' && c != '\r' && c != -1) {
+                throw new IOException("Unexpected character after quoted field on line " + line);
+            }
+        } else {
+            while (c != delimiter && c != '\n' && c != '\r' && c != -1) {
+                if (keep) {
+                    field.append((char) c);
+                }
+                position++;
+                c = peek();
+            }
+        }
+
+        if (c == delimiter) {
+            position++;
+            return delimiter;
+        }
+        if (c == -1) {
+            return END_OF_INPUT;
+        }
+        readLineBreak();
+        return END_OF_RECORD;
+    }
+
+    // Consumes \n, \r or \r\n
+    private void readLineBreak() throws IOException {
+        if (next() == '\r' && peek() == '\n') {
+            position++;
+        }
+        line++;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            position++;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,134 @@
+package com.wesleyelliott.kubwa.stream;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line front end of the {@link ValidationPipeline}. The failure report goes to stdout, or
+ * the output file, and the summary to stderr. Exits with 0 if every record is valid, 1 if some
+ * failed and 2 if the input or arguments couldn't be used.
+ */
+
+public final class Main {
+
+    private static final String USAGE = "Usage: kubwa-stream [--format csv|ndjson] --rule column=rule [--rule column=rule...]\n"
+            + "                    [--threads n] [--batch-size n] [--delimiter c] [--output file] [input|-]\n"
+            + "Rules: notnull, email[:scheme], fullname, mobile, zaid, taxnumber, creditcard[:TYPE,TYPE], password[:scheme[:minLength]],\n"
+            + "       regex:<pattern>, min:n, max:n, range:min:max[:exclusive], select:n, checked[:true|false]";
+
+    private Main() {
+    }
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static int run(String[] args) throws IOException {
+        List<ColumnRule> rules = new ArrayList<ColumnRule>();
+        String format = null;
+        String input = "-";
+        String output = null;
+        char delimiter = ',';
+        int threads = 0;
+        int batchSize = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--rule")) {
+                rules.add(RuleSpecs.parse(value(args, ++i, arg)));
+            } else if (arg.equals("--format")) {
+                format = value(args, ++i, arg);
+            } else if (arg.equals("--output")) {
+                output = value(args, ++i, arg);
+            } else if (arg.equals("--delimiter")) {
+                String value = value(args, ++i, arg);
+                if (value.length() != 1) {
+                    throw new IllegalArgumentException("--delimiter must be a single character");
+                }
+                delimiter = value.charAt(0);
+            } else if (arg.equals("--threads")) {
+                threads = number(value(args, ++i, arg), arg);
+            } else if (arg.equals("--batch-size")) {
+                batchSize = number(value(args, ++i, arg), arg);
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else {
+                input = arg;
+            }
+        }
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("At least one --rule is needed");
+        }
+        if (format == null) {
+            format = input.toLowerCase().endsWith(".csv") ? "csv" : "ndjson";
+        }
+
+        ValidationPipeline pipeline = new ValidationPipeline(rules);
+        if (threads > 0) {
+            pipeline.setThreads(threads);
+        }
+        if (batchSize > 0) {
+            pipeline.setBatchSize(batchSize);
+        }
+
+        InputStream in = input.equals("-") ? System.in : new FileInputStream(input);
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        RecordReader recordReader;
+        if (format.equals("csv")) {
+            recordReader = new CsvRecordReader(reader, pipeline.getColumns(), delimiter);
+        } else if (format.equals("ndjson")) {
+            recordReader = new NdjsonRecordReader(reader, pipeline.getColumns());
+        } else {
+            throw new IllegalArgumentException("Unknown format " + format);
+        }
+
+        OutputStream out = output == null ? System.out : new FileOutputStream(output);
+        Writer report = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 65536);
+        Summary summary;
+        try {
+            summary = pipeline.run(recordReader, report);
+        } finally {
+            recordReader.close();
+            if (output != null) {
+                report.close();
+            }
+        }
+        System.err.println(summary);
+        return summary.getFailedRecordCount() == 0 ? 0 : 1;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static int number(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " must be a number");
+        }
+    }
+}
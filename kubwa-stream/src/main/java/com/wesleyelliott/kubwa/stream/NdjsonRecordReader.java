@@ -0,0 +1,265 @@
+package com.wesleyelliott.kubwa.stream;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Newline delimited JSON, one flat object per line. Strings are unescaped, numbers and booleans
+ * are kept as their JSON text, null is null. Nested objects and arrays are kept as raw JSON.
+ */
+
+public final class NdjsonRecordReader implements RecordReader {
+
+    private final BufferedReader in;
+    private final String[] columns;
+    private final StringBuilder text = new StringBuilder();
+
+    private String record;
+    private int position;
+    private long line;
+    private long recordLine;
+
+    public NdjsonRecordReader(Reader in, String[] columns) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 8192);
+        this.columns = columns.clone();
+    }
+
+    @Override
+    public boolean read(String[] values) throws IOException {
+        do {
+            record = in.readLine();
+            line++;
+            if (record == null) {
+                return false;
+            }
+        } while (record.trim().isEmpty());
+
+        recordLine = line;
+        Arrays.fill(values, null);
+        position = 0;
+        parseObject(values);
+        return true;
+    }
+
+    @Override
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void parseObject(String[] values) throws IOException {
+        expect('{');
+        if (peekToken() == '}') {
+            position++;
+            expectEnd();
+            return;
+        }
+        while (true) {
+            expect('"');
+            int keyStart = position;
+            int target;
+            if (skipString()) {
+                // The key has escapes, compare its unescaped text
+                position = keyStart;
+                target = indexOf(readString());
+            } else {
+                target = indexOf(keyStart, position - 1);
+            }
+            expect(':');
+            skipWhitespace();
+            if (target >= 0) {
+                values[target] = readValue();
+            } else {
+                skipValue();
+            }
+
+            int c = peekToken();
+            position++;
+            if (c == '}') {
+                expectEnd();
+                return;
+            }
+            if (c != ',') {
+                throw error("Expected , or }");
+            }
+        }
+    }
+
+    private String readValue() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            position++;
+            int start = position;
+            if (!skipString()) {
+                return record.substring(start, position - 1);
+            }
+            position = start;
+            return readString();
+        }
+        int start = position;
+        skipValue();
+        String value = record.substring(start, position).trim();
+        return value.equals("null") ? null : value;
+    }
+
+    private void skipValue() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            position++;
+            skipString();
+        } else if (c == '{' || c == '[') {
+            skipNested();
+        } else {
+            int start = position;
+            while (position < record.length()) {
+                c = record.charAt(position);
+                if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                    break;
+                }
+                position++;
+            }
+            if (position == start) {
+                throw error("Expected a value");
+            }
+        }
+    }
+
+    private void skipNested() throws IOException {
+        int depth = 0;
+        do {
+            if (position == record.length()) {
+                throw error("Unterminated object or array");
+            }
+            char c = record.charAt(position++);
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Moves past the closing quote of the string starting at the current position.
+     *
+     * @return whether the string contains escapes
+     */
+    private boolean skipString() throws IOException {
+        boolean escaped = false;
+        while (position < record.length()) {
+            char c = record.charAt(position++);
+            if (c == '"') {
+                return escaped;
+            }
+            if (c == '\\') {
+                escaped = true;
+                position++;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (position < record.length()) {
+            char c = record.charAt(position++);
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c != '\\') {
+                text.append(c);
+                continue;
+            }
+            if (position == record.length()) {
+                break;
+            }
+            char escape = record.charAt(position++);
+            switch (escape) {
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > record.length()) {
+                        throw error("Invalid unicode escape");
+                    }
+                    try {
+                        text.append((char) Integer.parseInt(record.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    text.append(escape);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private int indexOf(int start, int end) {
+        int length = end - start;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].length() == length && record.regionMatches(start, columns[i], 0, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peekToken() != expected) {
+            throw error("Expected " + expected);
+        }
+        position++;
+    }
+
+    private void expectEnd() throws IOException {
+        if (peekToken() != -1) {
+            throw error("Unexpected text after the object");
+        }
+    }
+
+    private int peekToken() {
+        skipWhitespace();
+        return position < record.length() ? record.charAt(position) : -1;
+    }
+
+    private void skipWhitespace() {
+        while (position < record.length() && Character.isWhitespace(record.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " on line " + line + ", column " + (position + 1));
+    }
+}
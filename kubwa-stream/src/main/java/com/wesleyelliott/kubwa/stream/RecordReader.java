@@ -0,0 +1,24 @@
+package com.wesleyelliott.kubwa.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads records one at a time, keeping only the values of the columns being validated.
+ */
+
+public interface RecordReader extends Closeable {
+
+    /**
+     * Fills values with the next record's value for each column the reader was created with,
+     * null where the record has none.
+     *
+     * @return false once there are no more records
+     */
+    boolean read(String[] values) throws IOException;
+
+    /**
+     * Line number, starting at 1, on which the last record read starts.
+     */
+    long getLineNumber();
+}
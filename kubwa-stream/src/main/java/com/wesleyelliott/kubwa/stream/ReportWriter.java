@@ -0,0 +1,65 @@
+package com.wesleyelliott.kubwa.stream;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes one JSON line per failed record, with its 0 based index, the line it starts on and the
+ * rules it failed: {@code {"record":41,"line":43,"failures":["email=email"]}}
+ */
+
+final class ReportWriter {
+
+    private final Writer out;
+    private final String[] ruleNames;
+    private final StringBuilder line = new StringBuilder();
+
+    ReportWriter(Writer out, List<ColumnRule> rules) {
+        this.out = out;
+        this.ruleNames = new String[rules.size()];
+        for (int i = 0; i < ruleNames.length; i++) {
+            StringBuilder name = new StringBuilder();
+            appendString(name, rules.get(i).toString());
+            ruleNames[i] = name.toString();
+        }
+    }
+
+    void write(long record, long lineNumber, long failureMask) throws IOException {
+        line.setLength(0);
+        line.append("{\"record\":").append(record)
+                .append(",\"line\":").append(lineNumber)
+                .append(",\"failures\":[");
+        boolean first = true;
+        for (int i = 0; i < ruleNames.length; i++) {
+            if ((failureMask & (1L << i)) != 0) {
+                if (!first) {
+                    line.append(',');
+                }
+                line.append(ruleNames[i]);
+                first = false;
+            }
+        }
+        line.append("]}\n");
+        out.append(line);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,136 @@
+package com.wesleyelliott.kubwa.stream;
+
+import com.wesleyelliott.kubwa.rule.CheckedRule;
+import com.wesleyelliott.kubwa.rule.CreditCardRule;
+import com.wesleyelliott.kubwa.rule.EmailRule;
+import com.wesleyelliott.kubwa.rule.FullNameRule;
+import com.wesleyelliott.kubwa.rule.MaxRule;
+import com.wesleyelliott.kubwa.rule.MinRule;
+import com.wesleyelliott.kubwa.rule.MobileNumberRule;
+import com.wesleyelliott.kubwa.rule.NotNullRule;
+import com.wesleyelliott.kubwa.rule.PasswordRule;
+import com.wesleyelliott.kubwa.rule.RangeRule;
+import com.wesleyelliott.kubwa.rule.RegexRule;
+import com.wesleyelliott.kubwa.rule.Rule;
+import com.wesleyelliott.kubwa.rule.SelectRule;
+import com.wesleyelliott.kubwa.rule.TaxNumberRule;
+import com.wesleyelliott.kubwa.rule.ZAIdNumberRule;
+
+import java.util.Locale;
+
+/**
+ * Parses column rules written as {@code column=rule[:argument...]}, for example
+ * {@code email=email}, {@code age=range:18:120} or {@code card=creditcard:VISA,MASTERCARD}.
+ * Everything after {@code regex:} is the regex, so it may contain colons.
+ */
+
+public final class RuleSpecs {
+
+    // Regexes come from the command line, so a value that makes one backtrack badly only fails
+    // its own record instead of stalling a worker
+    static final long REGEX_MAX_STEPS = 1000000;
+
+    private RuleSpecs() {
+    }
+
+    public static ColumnRule parse(String spec) {
+        int separator = spec.indexOf('=');
+        if (separator <= 0 || separator == spec.length() - 1) {
+            throw new IllegalArgumentException("Expected column=rule, got: " + spec);
+        }
+        String column = spec.substring(0, separator);
+        String ruleSpec = spec.substring(separator + 1);
+        return new ColumnRule(column, ruleSpec, createRule(ruleSpec));
+    }
+
+    static Rule<?> createRule(String ruleSpec) {
+        int separator = ruleSpec.indexOf(':');
+        String name = (separator == -1 ? ruleSpec : ruleSpec.substring(0, separator)).toLowerCase(Locale.US);
+        if (name.equals("regex")) {
+            if (separator == -1) {
+                throw new IllegalArgumentException("regex needs a pattern: regex:<pattern>");
+            }
+            return new RegexRule(ruleSpec.substring(separator + 1), REGEX_MAX_STEPS, 0);
+        }
+
+        String[] arguments = separator == -1 ? new String[0] : ruleSpec.substring(separator + 1).split(":");
+        switch (name) {
+            case "notnull":
+                checkArguments(name, arguments, 0, 0);
+                return new NotNullRule();
+            case "email":
+                checkArguments(name, arguments, 0, 1);
+                return arguments.length == 0 ? new EmailRule() : new EmailRule(enumArgument(EmailRule.Scheme.class, arguments[0]));
+            case "fullname":
+                checkArguments(name, arguments, 0, 0);
+                return new FullNameRule();
+            case "mobile":
+                checkArguments(name, arguments, 0, 0);
+                return new MobileNumberRule();
+            case "zaid":
+                checkArguments(name, arguments, 0, 0);
+                return new ZAIdNumberRule();
+            case "taxnumber":
+                checkArguments(name, arguments, 0, 0);
+                return new TaxNumberRule();
+            case "creditcard":
+                checkArguments(name, arguments, 0, 1);
+                return createCreditCardRule(arguments.length == 0 ? null : arguments[0]);
+            case "password":
+                checkArguments(name, arguments, 0, 2);
+                return new PasswordRule(arguments.length == 0 ? PasswordRule.Scheme.ANY : enumArgument(PasswordRule.Scheme.class, arguments[0]),
+                        arguments.length < 2 ? 1 : intArgument(arguments[1]));
+            case "min":
+                checkArguments(name, arguments, 1, 1);
+                return new MinRule(intArgument(arguments[0]));
+            case "max":
+                checkArguments(name, arguments, 1, 1);
+                return new MaxRule(intArgument(arguments[0]));
+            case "range":
+                checkArguments(name, arguments, 2, 3);
+                boolean includeBounds = arguments.length < 3 || !arguments[2].equalsIgnoreCase("exclusive");
+                return new RangeRule(intArgument(arguments[0]), intArgument(arguments[1]), includeBounds);
+            case "select":
+                checkArguments(name, arguments, 1, 1);
+                return new SelectRule(intArgument(arguments[0]));
+            case "checked":
+                checkArguments(name, arguments, 0, 1);
+                return new CheckedRule(arguments.length == 0 || Boolean.parseBoolean(arguments[0]));
+            default:
+                throw new IllegalArgumentException("Unknown rule: " + name);
+        }
+    }
+
+    private static CreditCardRule createCreditCardRule(String types) {
+        if (types == null) {
+            return new CreditCardRule(CreditCardRule.Type.values());
+        }
+        CreditCardRule rule = new CreditCardRule();
+        for (String type : types.split(",")) {
+            rule.addCreditCard(enumArgument(CreditCardRule.Type.class, type));
+        }
+        return rule;
+    }
+
+    private static void checkArguments(String name, String[] arguments, int min, int max) {
+        if (arguments.length < min || arguments.length > max) {
+            throw new IllegalArgumentException(name + " takes " + (min == max ? String.valueOf(min) : min + " to " + max) + " arguments");
+        }
+    }
+
+    private static int intArgument(String argument) {
+        try {
+            return Integer.parseInt(argument.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + argument);
+        }
+    }
+
+    private static <E extends Enum<E>> E enumArgument(Class<E> type, String argument) {
+        try {
+            return Enum.valueOf(type, argument.trim().toUpperCase(Locale.US));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + argument);
+        }
+    }
+}
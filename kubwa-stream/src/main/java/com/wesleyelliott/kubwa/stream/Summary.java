@@ -0,0 +1,68 @@
+package com.wesleyelliott.kubwa.stream;
+
+import java.util.List;
+
+/**
+ * Totals of a pipeline run, with the number of failures of each rule.
+ */
+
+public final class Summary {
+
+    private final List<ColumnRule> rules;
+    private final long[] ruleFailures;
+    private long recordCount;
+    private long failedRecordCount;
+
+    Summary(List<ColumnRule> rules) {
+        this.rules = rules;
+        this.ruleFailures = new long[rules.size()];
+    }
+
+    void add(long failureMask) {
+        recordCount++;
+        if (failureMask == 0) {
+            return;
+        }
+        failedRecordCount++;
+        for (int i = 0; i < ruleFailures.length; i++) {
+            if ((failureMask & (1L << i)) != 0) {
+                ruleFailures[i]++;
+            }
+        }
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getFailedRecordCount() {
+        return failedRecordCount;
+    }
+
+    public long getFailureCount(ColumnRule rule) {
+        int index = rules.indexOf(rule);
+        if (index == -1) {
+            throw new IllegalArgumentException("Not a rule of this run: " + rule);
+        }
+        return ruleFailures[index];
+    }
+
+    /**
+     * The summary as a single line JSON object.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"records\":").append(recordCount)
+                .append(",\"failedRecords\":").append(failedRecordCount)
+                .append(",\"failures\":{");
+        for (int i = 0; i < ruleFailures.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            ReportWriter.appendString(builder, rules.get(i).toString());
+            builder.append(':').append(ruleFailures[i]);
+        }
+        return builder.append("}}").toString();
+    }
+}
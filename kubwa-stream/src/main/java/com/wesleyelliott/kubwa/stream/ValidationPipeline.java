@@ -0,0 +1,263 @@
+package com.wesleyelliott.kubwa.stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Validates a stream of records in three stages: a reader thread fills batches of records,
+ * worker threads validate them, and the calling thread writes the failures in input order.
+ * Both hand-offs go through bounded queues, so a slow stage blocks the ones feeding it and at
+ * most a fixed number of batches are in memory, however large the input is.
+ */
+
+public class ValidationPipeline {
+
+    public static final int DEFAULT_BATCH_SIZE = 512;
+
+    private final List<ColumnRule> rules;
+    private final String[] columns;
+    // rule -> index of its column in the values of a record
+    private final int[] ruleColumns;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int queueCapacity = 0;
+
+    public ValidationPipeline(List<ColumnRule> rules) {
+        if (rules.isEmpty() || rules.size() > 64) {
+            throw new IllegalArgumentException("A pipeline needs between 1 and 64 rules");
+        }
+        this.rules = Collections.unmodifiableList(new ArrayList<ColumnRule>(rules));
+
+        List<String> columns = new ArrayList<String>();
+        this.ruleColumns = new int[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            String column = rules.get(i).getColumn();
+            int index = columns.indexOf(column);
+            if (index == -1) {
+                index = columns.size();
+                columns.add(column);
+            }
+            ruleColumns[i] = index;
+        }
+        this.columns = columns.toArray(new String[columns.size()]);
+    }
+
+    public List<ColumnRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * The distinct columns the rules validate, which is what a {@link RecordReader} for this
+     * pipeline should be created with.
+     */
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    public ValidationPipeline setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    public ValidationPipeline setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Number of batches which may wait to be validated, twice the number of threads by default.
+     */
+    public ValidationPipeline setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1");
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Validates every record of the reader, writing failed records to the report as they are
+     * found. The reader isn't closed.
+     */
+    public Summary run(final RecordReader reader, Writer report) throws IOException {
+        int capacity = queueCapacity > 0 ? queueCapacity : threads * 2;
+        final BlockingQueue<Batch> work = new ArrayBlockingQueue<Batch>(capacity);
+        // Every batch being read, validated or waiting to be written, in input order
+        final BlockingQueue<Batch> pending = new ArrayBlockingQueue<Batch>(capacity + threads + 1);
+
+        List<Thread> stages = new ArrayList<Thread>();
+        stages.add(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readRecords(reader, work, pending);
+            }
+        }, "kubwa-stream-reader"));
+        for (int i = 0; i < threads; i++) {
+            stages.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    validateBatches(work);
+                }
+            }, "kubwa-stream-worker-" + i));
+        }
+
+        Summary summary = new Summary(rules);
+        ReportWriter reportWriter = new ReportWriter(report, rules);
+        try {
+            for (Thread stage : stages) {
+                stage.setDaemon(true);
+                stage.start();
+            }
+            while (true) {
+                Batch batch = pending.take();
+                batch.awaitValidated();
+                if (batch.error != null) {
+                    throw batch.error instanceof IOException ? (IOException) batch.error : new IOException(batch.error);
+                }
+                if (batch.isEnd()) {
+                    break;
+                }
+                for (int i = 0; i < batch.size; i++) {
+                    long failureMask = batch.failureMasks[i];
+                    if (failureMask != 0) {
+                        reportWriter.write(batch.firstRecord + i, batch.lines[i], failureMask);
+                    }
+                    summary.add(failureMask);
+                }
+            }
+            reportWriter.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while validating");
+        } finally {
+            for (Thread stage : stages) {
+                stage.interrupt();
+            }
+        }
+        return summary;
+    }
+
+    private void readRecords(RecordReader reader, BlockingQueue<Batch> work, BlockingQueue<Batch> pending) {
+        try {
+            Batch end = Batch.end(null);
+            try {
+                long record = 0;
+                while (true) {
+                    Batch batch = new Batch(record, batchSize, columns.length);
+                    while (batch.size < batchSize && reader.read(batch.rows[batch.size])) {
+                        batch.lines[batch.size] = reader.getLineNumber();
+                        batch.size++;
+                    }
+                    if (batch.size == 0) {
+                        break;
+                    }
+                    pending.put(batch);
+                    work.put(batch);
+                    record += batch.size;
+                    if (batch.size < batchSize) {
+                        break;
+                    }
+                }
+            } catch (Throwable e) {
+                // Errors as well, or the writer would wait forever for the batch being read
+                end = Batch.end(e);
+            }
+            pending.put(end);
+            for (int i = 0; i < threads; i++) {
+                work.put(Batch.end(null));
+            }
+        } catch (InterruptedException e) {
+            // The run was stopped
+        }
+    }
+
+    private void validateBatches(BlockingQueue<Batch> work) {
+        try {
+            while (true) {
+                Batch batch = work.take();
+                if (batch.isEnd()) {
+                    return;
+                }
+                try {
+                    for (int i = 0; i < batch.size; i++) {
+                        batch.failureMasks[i] = validate(batch.rows[i]);
+                        // Let the values go as soon as they're validated
+                        batch.rows[i] = null;
+                    }
+                    batch.complete(null);
+                } catch (Throwable e) {
+                    // Errors as well, such as a rule overflowing the stack, or the writer would
+                    // wait forever for this batch
+                    batch.complete(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            // The run was stopped
+        }
+    }
+
+    private long validate(String[] values) {
+        long failureMask = 0;
+        for (int i = 0; i < ruleColumns.length; i++) {
+            if (!rules.get(i).isValid(values[ruleColumns[i]])) {
+                failureMask |= 1L << i;
+            }
+        }
+        return failureMask;
+    }
+
+    private static final class Batch {
+        private final long firstRecord;
+        private final String[][] rows;
+        private final long[] lines;
+        private final long[] failureMasks;
+        private int size;
+
+        private boolean validated;
+        private Throwable error;
+
+        Batch(long firstRecord, int capacity, int columns) {
+            this.firstRecord = firstRecord;
+            this.rows = new String[capacity][columns];
+            this.lines = new long[capacity];
+            this.failureMasks = new long[capacity];
+        }
+
+        // Marks the end of the input, or the error which ended it
+        static Batch end(Throwable error) {
+            Batch batch = new Batch(-1, 0, 0);
+            batch.validated = true;
+            batch.error = error;
+            return batch;
+        }
+
+        boolean isEnd() {
+            return firstRecord == -1;
+        }
+
+        synchronized void complete(Throwable error) {
+            this.error = error;
+            this.validated = true;
+            notifyAll();
+        }
+
+        synchronized void awaitValidated() throws InterruptedException {
+            while (!validated) {
+                wait();
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.wesleyelliott.kubwa.stream;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CsvRecordReaderTest {
+
+    @Test
+    public void readsOnlyTheRequestedColumns() throws Exception {
+        CsvRecordReader reader = reader("name,age,email\nann,30,ann@example.com\n", "email", "name");
+        String[] values = new String[2];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"ann@example.com", "ann"}, values);
+        assertFalse(reader.read(values));
+    }
+
+    @Test
+    public void trimsHeaderNames() throws Exception {
+        CsvRecordReader reader = reader(" name , age\nann,30\n", "age");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertEquals("30", values[0]);
+    }
+
+    @Test
+    public void readsQuotedFields() throws Exception {
+        CsvRecordReader reader = reader("name,note\n\"Smith, Ann\",\"a \"\"quoted\"\" word\"\n", "name", "note");
+        String[] values = new String[2];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"Smith, Ann", "a \"quoted\" word"}, values);
+    }
+
+    @Test
+    public void readsEmptyQuotedFields() throws Exception {
+        CsvRecordReader reader = reader("a,b\n\"\",\"\"\"\"\n", "a", "b");
+        String[] values = new String[2];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"", "\""}, values);
+    }
+
+    @Test
+    public void readsCrlfLineBreaks() throws Exception {
+        CsvRecordReader reader = reader("a,b\r\n1,2\r\n3,4\r\n", "b");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertEquals("2", values[0]);
+        assertEquals(2, reader.getLineNumber());
+        assertTrue(reader.read(values));
+        assertEquals("4", values[0]);
+        assertEquals(3, reader.getLineNumber());
+        assertFalse(reader.read(values));
+    }
+
+    @Test
+    public void keepsLineBreaksInQuotedFields() throws Exception {
+        CsvRecordReader reader = reader("a,b\n\"line 1\nline 2\r\nline 3\",x\ny,z\n", "a", "b");
+        String[] values = new String[2];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"line 1\nline 2\r\nline 3", "x"}, values);
+        assertEquals(2, reader.getLineNumber());
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"y", "z"}, values);
+        // The record after the quoted line breaks starts on the line after them
+        assertEquals(5, reader.getLineNumber());
+    }
+
+    @Test
+    public void skipsBlankLines() throws Exception {
+        CsvRecordReader reader = reader("\na\n\n\r\n1\n\n", "a");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertEquals("1", values[0]);
+        assertEquals(5, reader.getLineNumber());
+        assertFalse(reader.read(values));
+    }
+
+    @Test
+    public void readsTheLastRecordWithoutALineBreak() throws Exception {
+        CsvRecordReader reader = reader("a,b\n1,\"2\"", "b");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertEquals("2", values[0]);
+        assertFalse(reader.read(values));
+    }
+
+    @Test
+    public void leavesMissingFieldsNull() throws Exception {
+        CsvRecordReader reader = reader("a,b,c\n1\n", "a", "c");
+        String[] values = new String[2];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"1", null}, values);
+    }
+
+    @Test
+    public void readsOtherDelimiters() throws Exception {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("a;b\n\"1;2\";3\n"), new String[] {"a", "b"}, ';');
+        String[] values = new String[2];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"1;2", "3"}, values);
+    }
+
+    @Test
+    public void readsFieldsLongerThanTheBuffer() throws Exception {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        CsvRecordReader reader = reader("a\n\"" + value + "\"\n", "a");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertEquals(value.toString(), values[0]);
+    }
+
+    @Test
+    public void rejectsMissingColumns() throws Exception {
+        assertReadFails(reader("a,b\n1,2\n", "c"), "Column c isn't in the CSV header [a, b]");
+    }
+
+    @Test
+    public void rejectsUnterminatedQuotes() throws Exception {
+        assertReadFails(reader("a\n\"1\n", "a"), "Unterminated quoted field starting on line 2");
+    }
+
+    @Test
+    public void rejectsTextAfterQuotes() throws Exception {
+        assertReadFails(reader("a\n\"1\"2\n", "a"), "Unexpected character after quoted field on line 2");
+    }
+
+    private static CsvRecordReader reader(String csv, String... columns) {
+        Reader in = new StringReader(csv);
+        return new CsvRecordReader(in, columns);
+    }
+
+    private static void assertReadFails(RecordReader reader, String message) {
+        try {
+            reader.read(new String[1]);
+            fail("Expected " + message);
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
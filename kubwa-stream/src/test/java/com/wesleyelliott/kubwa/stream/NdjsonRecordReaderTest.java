@@ -0,0 +1,127 @@
+package com.wesleyelliott.kubwa.stream;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NdjsonRecordReaderTest {
+
+    @Test
+    public void readsOnlyTheRequestedKeys() throws Exception {
+        NdjsonRecordReader reader = reader("{\"name\":\"ann\",\"age\":30,\"email\":\"ann@example.com\"}\n", "email", "name");
+        String[] values = new String[2];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"ann@example.com", "ann"}, values);
+        assertFalse(reader.read(values));
+    }
+
+    @Test
+    public void keepsOtherValuesAsTheirJson() throws Exception {
+        NdjsonRecordReader reader = reader(
+                "{\"n\": -1.5e3 , \"b\":true, \"z\":null, \"o\":{\"x\":[1,\"}\"]}, \"a\":[]}",
+                "n", "b", "z", "o", "a");
+        String[] values = new String[5];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"-1.5e3", "true", null, "{\"x\":[1,\"}\"]}", "[]"}, values);
+    }
+
+    @Test
+    public void unescapesStrings() throws Exception {
+        NdjsonRecordReader reader = reader("{\"a\":\"say \\\"hi\\\"\\\\ \\/ \\b\\f\\n\\r\\t\"}", "a");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertEquals("say \"hi\"\\ / \b\f\n\r\t", values[0]);
+    }
+
+    @Test
+    public void unescapesUnicode() throws Exception {
+        NdjsonRecordReader reader = reader("{\"a\":\"caf\\u00e9 \\ud83d\\ude00 \\u00E9\"}", "a");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertEquals("caf\u00e9 \ud83d\ude00 \u00e9", values[0]);
+    }
+
+    @Test
+    public void unescapesKeys() throws Exception {
+        NdjsonRecordReader reader = reader("{\"\\u0061\":\"1\",\"b\\\"\":\"2\"}", "a", "b\"");
+        String[] values = new String[2];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {"1", "2"}, values);
+    }
+
+    @Test
+    public void readsCrlfLineBreaks() throws Exception {
+        NdjsonRecordReader reader = reader("{\"a\":\"1\"}\r\n{\"a\":\"2\"}\r\n", "a");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertEquals("1", values[0]);
+        assertTrue(reader.read(values));
+        assertEquals("2", values[0]);
+        assertEquals(2, reader.getLineNumber());
+        assertFalse(reader.read(values));
+    }
+
+    @Test
+    public void skipsBlankLines() throws Exception {
+        NdjsonRecordReader reader = reader("\n  \n{}\n\n{\"a\":\"x\"}", "a");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {null}, values);
+        assertEquals(3, reader.getLineNumber());
+        assertTrue(reader.read(values));
+        assertEquals("x", values[0]);
+        assertEquals(5, reader.getLineNumber());
+        assertFalse(reader.read(values));
+    }
+
+    @Test
+    public void leavesMissingKeysNull() throws Exception {
+        NdjsonRecordReader reader = reader("{\"a\":\"1\"}\n{\"b\":\"2\"}\n", "a");
+        String[] values = new String[1];
+        assertTrue(reader.read(values));
+        assertEquals("1", values[0]);
+        assertTrue(reader.read(values));
+        assertArrayEquals(new String[] {null}, values);
+    }
+
+    @Test
+    public void rejectsInvalidUnicodeEscapes() throws Exception {
+        assertReadFails(reader("{\"a\":\"\\u00g9\"}", "a"), "Invalid unicode escape on line 1, column 9");
+        assertReadFails(reader("{\"a\":\"\\u00\"}", "a"), "Invalid unicode escape on line 1, column 9");
+    }
+
+    @Test
+    public void rejectsUnterminatedStrings() throws Exception {
+        assertReadFails(reader("{\"a\":\"1}", "a"), "Unterminated string on line 1, column 9");
+    }
+
+    @Test
+    public void rejectsTextAfterTheObject() throws Exception {
+        assertReadFails(reader("{\"a\":\"1\"} x", "a"), "Unexpected text after the object on line 1, column 11");
+    }
+
+    @Test
+    public void rejectsMissingSeparators() throws Exception {
+        assertReadFails(reader("{\"a\":\"1\" \"b\":\"2\"}", "a"), "Expected , or } on line 1, column 11");
+    }
+
+    private static NdjsonRecordReader reader(String ndjson, String... columns) {
+        return new NdjsonRecordReader(new StringReader(ndjson), columns);
+    }
+
+    private static void assertReadFails(RecordReader reader, String message) {
+        try {
+            reader.read(new String[1]);
+            fail("Expected " + message);
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.wesleyelliott.kubwa.stream;
+
+import com.wesleyelliott.kubwa.rule.TextRule;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ValidationPipelineTest {
+
+    @Test
+    public void writesFailedRecordsInInputOrder() throws Exception {
+        StringBuilder csv = new StringBuilder("age,email\n");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            boolean old = i % 7 == 0;
+            boolean invalid = i % 5 == 0;
+            csv.append(old ? 200 : 20).append(',').append(invalid ? "nope" : "a@example.com").append('\n');
+            if (old || invalid) {
+                expected.append("{\"record\":").append(i).append(",\"line\":").append(i + 2).append(",\"failures\":[")
+                        .append(old ? "\"age=range:18:120\"" : "")
+                        .append(old && invalid ? "," : "")
+                        .append(invalid ? "\"email=email\"" : "")
+                        .append("]}\n");
+            }
+        }
+        ValidationPipeline pipeline = new ValidationPipeline(Arrays.asList(
+                RuleSpecs.parse("age=range:18:120"), RuleSpecs.parse("email=email")))
+                .setThreads(4)
+                .setBatchSize(16);
+        StringWriter report = new StringWriter();
+        Summary summary = pipeline.run(new CsvRecordReader(new StringReader(csv.toString()), pipeline.getColumns()), report);
+
+        assertEquals(expected.toString(), report.toString());
+        assertEquals(1000, summary.getRecordCount());
+        assertEquals(143, summary.getFailureCount(pipeline.getRules().get(0)));
+        assertEquals(200, summary.getFailureCount(pipeline.getRules().get(1)));
+    }
+
+    @Test(timeout = 10000)
+    public void failsWhenARuleThrowsAnError() throws Exception {
+        ColumnRule rule = new ColumnRule("a", "throws", new TextRule() {
+            @Override
+            public boolean isValid(CharSequence value) {
+                throw new StackOverflowError();
+            }
+        });
+        ValidationPipeline pipeline = new ValidationPipeline(Collections.singletonList(rule)).setThreads(2);
+        try {
+            pipeline.run(new CsvRecordReader(new StringReader("a\n1\n2\n"), pipeline.getColumns()), new StringWriter());
+            fail("Expected the run to fail");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void failsWhenTheReaderFails() throws Exception {
+        ValidationPipeline pipeline = new ValidationPipeline(Collections.singletonList(RuleSpecs.parse("a=notnull")));
+        try {
+            pipeline.run(new CsvRecordReader(new StringReader("a\n\"1\n"), pipeline.getColumns()), new StringWriter());
+            fail("Expected the run to fail");
+        } catch (IOException e) {
+            assertEquals("Unterminated quoted field starting on line 2", e.getMessage());
+        }
+    }
+}